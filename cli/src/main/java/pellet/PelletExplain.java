@@ -44,8 +44,11 @@ import com.clarkparsia.owlapi.explanation.BlackBoxExplanation;
 import com.clarkparsia.owlapi.explanation.GlassBoxExplanation;
 import com.clarkparsia.owlapi.explanation.HSTExplanationGenerator;
 import com.clarkparsia.owlapi.explanation.MultipleExplanationGenerator;
+import com.clarkparsia.owlapi.explanation.ParallelHSTExplanationGenerator;
+import com.clarkparsia.owlapi.explanation.PelletExplanation;
 import com.clarkparsia.owlapi.explanation.SatisfiabilityConverter;
 import com.clarkparsia.owlapi.explanation.TransactionAwareSingleExpGen;
+import com.clarkparsia.owlapi.explanation.UnsatisfiableClassesExplanation;
 import com.clarkparsia.owlapi.explanation.io.ExplanationRenderer;
 import com.clarkparsia.owlapi.explanation.io.manchester.ManchesterSyntaxExplanationRenderer;
 import com.clarkparsia.owlapi.explanation.util.ExplanationProgressMonitor;
@@ -80,6 +83,9 @@ public class PelletExplain extends PelletCmdApp {
 	private int								errorExpCount		= 0;
 	private OWLAPILoader					loader;
 	private int								maxExplanations		= 1;
+	private int								threads				= 1;
+	private boolean							batch				= false;
+	private ParallelHSTExplanationGenerator	parallelExpGen;
 	private boolean							useBlackBox			= false;
 	private ProgressMonitor monitor;
 	/**
@@ -134,6 +140,13 @@ public class PelletExplain extends PelletCmdApp {
 		option.setArg( NONE );
 		options.add( option );
 
+		option = new PelletCmdOption( "batch" );
+		option.setDescription( "Used with --all-unsat to explain only the root unsatisfiable classes and compose the explanations of the derived ones" );
+		option.setDefaultValue( false );
+		option.setIsMandatory( false );
+		option.setArg( NONE );
+		options.add( option );
+
 		option = new PelletCmdOption( "inconsistent" );
 		option.setDescription( "Explain why the ontology is inconsistent" );
 		option.setDefaultValue( false );
@@ -187,6 +200,14 @@ public class PelletExplain extends PelletCmdApp {
 		option.setArg( REQUIRED );
 		options.add( option );
 
+		option = new PelletCmdOption( "threads" );
+		option.setType( "positive integer" );
+		option.setDescription( "Number of threads used to compute multiple glass box explanations" );
+		option.setDefaultValue( 1 );
+		option.setIsMandatory( false );
+		option.setArg( REQUIRED );
+		options.add( option );
+
 		option = options.getOption( "verbose" );
 		option.setDescription( "Print detailed exceptions and messages about the progress" );
 		
@@ -199,6 +220,10 @@ public class PelletExplain extends PelletCmdApp {
 		
 		maxExplanations = options.getOption( "max" ).getValueAsNonNegativeInteger();
 
+		threads = Math.max( 1, options.getOption( "threads" ).getValueAsNonNegativeInteger() );
+
+		batch = options.getOption( "batch" ).getValueAsBoolean();
+
 		loader = (OWLAPILoader) getLoader( "OWLAPIv3" );
 
 		getKB();
@@ -256,18 +281,33 @@ public class PelletExplain extends PelletCmdApp {
 			printStatistics();
 		} catch( OWLException e ) {
 			throw new RuntimeException( e );
+		} finally {
+			if( parallelExpGen != null ) {
+				parallelExpGen.dispose();
+				parallelExpGen = null;
+			}
 		}
 	}
 
 	private void explainAxiom(OWLAxiom axiom) throws OWLException {
 
-		MultipleExplanationGenerator expGen = new HSTExplanationGenerator(getSingleExplanationGenerator());
 		RendererExplanationProgressMonitor rendererMonitor = new RendererExplanationProgressMonitor(axiom);
-		expGen.setProgressMonitor(rendererMonitor);
 
 		OWLClassExpression unsatClass = converter.convert( axiom );
 		Timer timer = timers.startTimer("explain");
-		Set<Set<OWLAxiom>> explanations = expGen.getExplanations( unsatClass, maxExplanations );
+		Set<Set<OWLAxiom>> explanations;
+		if( !useBlackBox && threads > 1 ) {
+			if( parallelExpGen == null ) {
+				parallelExpGen = new ParallelHSTExplanationGenerator( reasoner, threads );
+			}
+			parallelExpGen.setProgressMonitor(rendererMonitor);
+			explanations = parallelExpGen.getExplanations( unsatClass, maxExplanations );
+		}
+		else {
+			MultipleExplanationGenerator expGen = new HSTExplanationGenerator(getSingleExplanationGenerator());
+			expGen.setProgressMonitor(rendererMonitor);
+			explanations = expGen.getExplanations( unsatClass, maxExplanations );
+		}
 		timer.stop();
 
 		if (explanations.isEmpty()) {
@@ -373,6 +413,11 @@ public class PelletExplain extends PelletCmdApp {
 	}
 
 	public void explainUnsatisfiableClasses() throws OWLException {
+		if( batch ) {
+			explainUnsatisfiableClassesInBatch();
+			return;
+		}
+
 		for( OWLClass cls : reasoner.getEquivalentClasses( OWL.Nothing ) ) {
 			if( cls.isOWLNothing() ) {
 				continue;
@@ -382,6 +427,61 @@ public class PelletExplain extends PelletCmdApp {
 		}
 	}
 
+	private void explainUnsatisfiableClassesInBatch() {
+		PelletExplanation explanation = useBlackBox
+			? new PelletExplanation( reasoner.getRootOntology(), false )
+			: new PelletExplanation( reasoner );
+		Set<OWLClass> unsatClasses = reasoner.getEquivalentClasses( OWL.Nothing ).getEntitiesMinusBottom();
+		UnsatisfiableClassesExplanation batchExplanation = new UnsatisfiableClassesExplanation(
+				explanation, reasoner.getRootOntology(), unsatClasses );
+
+		verbose( "Root unsatisfiable classes: " + batchExplanation.getRootClasses().size() );
+
+		// the timer is paused while rendering so its count and average are
+		// per unsatisfiable class as in the non-batch mode
+		final Timer timer = timers.startTimer( "explain" );
+		final int[] remaining = { unsatClasses.size() };
+		batchExplanation.explain( maxExplanations, new UnsatisfiableClassesExplanation.Listener() {
+			@Override
+			public void explained(OWLClass unsatClass, OWLClass dependency,
+					Set<Set<OWLAxiom>> explanations) {
+				timer.stop();
+
+				if( dependency != null ) {
+					output( unsatClass + " is unsatisfiable because of " + dependency );
+				}
+
+				RendererExplanationProgressMonitor rendererMonitor = new RendererExplanationProgressMonitor(
+						OWL.subClassOf( unsatClass, OWL.Nothing ) );
+				for( Set<OWLAxiom> axioms : explanations ) {
+					rendererMonitor.foundExplanation( axioms );
+				}
+				if( explanations.isEmpty() ) {
+					rendererMonitor.foundNoExplanations();
+					errorExpCount++;
+				}
+				else {
+					rendererMonitor.foundAllExplanations();
+					if( explanations.size() > 1 ) {
+						multipleExpCount++;
+					}
+					else if( explanations.iterator().next().size() > 1 ) {
+						multiAxiomExpCount++;
+					}
+				}
+
+				if( --remaining[0] > 0 ) {
+					timer.start();
+				}
+			}
+		} );
+		if( timer.isStarted() ) {
+			timer.stop();
+		}
+
+		verbose( "Distinct explanations: " + batchExplanation.getJustificationCount() );
+	}
+
 	public void explainUnsatisfiableClass(OWLClass cls) throws OWLException {
 		explainSubClass( cls, OWL.Nothing );
 	}
@@ -11,28 +11,41 @@ package pellet;
 import static pellet.PelletCmdOptionArg.NONE;
 import static pellet.PelletCmdOptionArg.REQUIRED;
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Serializable;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mindswap.pellet.utils.FileUtils;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.io.StreamDocumentTarget;
+import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.IRI;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLException;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyChangeException;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
@@ -45,6 +58,8 @@ import org.semanticweb.owlapi.profiles.OWLProfileViolation;
 import org.semanticweb.owlapi.util.OWLOntologyImportsClosureSetProvider;
 import org.semanticweb.owlapi.util.OWLOntologyMerger;
 
+import com.clarkparsia.pellint.cost.CostFeatures;
+import com.clarkparsia.pellint.cost.CostModel;
 import com.clarkparsia.pellint.lintpattern.LintPattern;
 import com.clarkparsia.pellint.lintpattern.LintPatternLoader;
 import com.clarkparsia.pellint.lintpattern.axiom.AxiomLintPattern;
@@ -90,6 +105,14 @@ public class Pellint extends PelletCmdApp {
 	private boolean				m_DoRootOnly					= false;
 	private String				m_InputOntologyPath;
 	private String				m_OutputOntologyPath;
+	private boolean				m_DoCost						= false;
+	private String				m_CostModelPath;
+	private String				m_CalibrationPath;
+	private long				m_MaxCost						= 0;
+	private boolean				m_Streaming						= false;
+	private int					m_Threads						= 1;
+
+	private static final int	MAX_COST_DRIVERS				= 10;
 
 	public Pellint() {
 	}
@@ -118,12 +141,29 @@ public class Pellint extends PelletCmdApp {
 
 		setDoRootOnly( options.getOption( "root-only" ).getValueAsBoolean() );
 
+		setStreaming( options.getOption( "streaming" ).getValueAsBoolean() );
+
+		setThreads( Math.max( 1, options.getOption( "threads" ).getValueAsNonNegativeInteger() ) );
+
 		if( getInputFiles().length > 1 )
 			throw new PelletCmdException( "lint doesn't handle multiple input files" );
 
 		setInputOntologyPath( getInputFiles()[0] );
 
 		setOutputOntologyPath( options.getOption( "fix" ).getValueAsString() );
+
+		setCostModelPath( options.getOption( "cost-model" ).getValueAsString() );
+
+		if( options.getOption( "calibrate" ).getValueAsBoolean() )
+			setCalibrationPath( m_InputOntologyPath );
+
+		if( options.getOption( "max-cost" ).getValueAsString() != null )
+			setMaxCost( options.getOption( "max-cost" ).getValueAsNonNegativeInteger() );
+
+		setDoCost( options.getOption( "cost" ).getValueAsBoolean() || m_MaxCost > 0 );
+
+		if( m_CalibrationPath != null && m_CostModelPath == null )
+			throw new PelletCmdException( "lint --calibrate requires --cost-model to save the calibrated model" );
 	}
 
 	public String getAppId() {
@@ -170,6 +210,60 @@ public class Pellint extends PelletCmdApp {
 		
 
 
+		option = new PelletCmdOption( "streaming" );
+		option.setIsMandatory( false );
+		option.setDefaultValue( false );
+		option.setDescription( "Check RDF declarations while the input is parsed instead of loading it into\n"
+				+ "memory. The input is parsed twice. Cannot be used with --fix when only RDF\n"
+				+ "is analyzed." );
+		option.setArg( NONE );
+		options.add( option );
+
+		option = new PelletCmdOption( "threads" );
+		option.setIsMandatory( false );
+		option.setType( "positive integer" );
+		option.setDefaultValue( 1 );
+		option.setDescription( "Number of threads used to run the OWL lint patterns. The patterns share the\n"
+				+ "ontology which is not thread-safe so its indexes are built before the patterns\n"
+				+ "are started." );
+		option.setArg( REQUIRED );
+		options.add( option );
+
+		option = new PelletCmdOption( "cost" );
+		option.setIsMandatory( false );
+		option.setDefaultValue( false );
+		option.setDescription( "Predict the consistency and classification time of the ontology (including\n"
+				+ "its imports) from the lints, expressivity and size of the ontology and report\n"
+				+ "the axioms that contribute most to the predicted time." );
+		option.setArg( NONE );
+		options.add( option );
+
+		option = new PelletCmdOption( "cost-model" );
+		option.setIsMandatory( false );
+		option.setType( "File" );
+		option.setDescription( "Properties file with the weights of the cost model. Uncalibrated built-in\n"
+				+ "weights are used by default." );
+		option.setArg( REQUIRED );
+		options.add( option );
+
+		option = new PelletCmdOption( "calibrate" );
+		option.setIsMandatory( false );
+		option.setDefaultValue( false );
+		option.setDescription( "Calibrate the cost model from the recorded runs in the input file and save\n"
+				+ "it to the --cost-model file. Each line of the input file has an ontology\n"
+				+ "file/URI followed by the recorded consistency and classification times in\n"
+				+ "milliseconds." );
+		option.setArg( NONE );
+		options.add( option );
+
+		option = new PelletCmdOption( "max-cost" );
+		option.setIsMandatory( false );
+		option.setType( "milliseconds" );
+		option.setDescription( "Fail if the predicted consistency or classification time exceeds the given\n"
+				+ "limit. Implies --cost." );
+		option.setArg( REQUIRED );
+		options.add( option );
+
 		option = new PelletCmdOption( "exclude-valid-punning" );
 		option.setIsMandatory( false );
 		option.setDefaultValue( false );
@@ -206,22 +300,66 @@ public class Pellint extends PelletCmdApp {
 		m_OutputOntologyPath = v;
 	}
 
+	public void setStreaming(boolean v) {
+		m_Streaming = v;
+	}
+
+	public void setThreads(int v) {
+		m_Threads = v;
+	}
+
+	public void setDoCost(boolean v) {
+		m_DoCost = v;
+	}
+
+	public void setCostModelPath(String v) {
+		m_CostModelPath = v;
+	}
+
+	public void setCalibrationPath(String v) {
+		m_CalibrationPath = v;
+	}
+
+	public void setMaxCost(long v) {
+		m_MaxCost = v;
+	}
+
 	public static OntologyLints lint(List<AxiomLintPattern> axiomLintPatterns,
 			List<OntologyLintPattern> ontologyLintPatterns, OWLOntology ontology) {
+		return lint( axiomLintPatterns, ontologyLintPatterns, ontology, 1 );
+	}
+
+	/**
+	 * Lints the ontology using the given number of threads. Patterns keep state
+	 * while matching so each pattern is run by a single task, i.e. different
+	 * patterns run in parallel. The lints found are the same as linting with a
+	 * single thread. OWL API ontologies are not thread-safe so the ontology
+	 * should not be modified while it is linted and the indexes the patterns
+	 * use are built before the tasks are started (see
+	 * {@link #buildIndexes(OWLOntology)}).
+	 */
+	public static OntologyLints lint(List<AxiomLintPattern> axiomLintPatterns,
+			List<OntologyLintPattern> ontologyLintPatterns, OWLOntology ontology, int threads) {
 		OntologyLints ontologyLints = new OntologyLints( ontology );
-		for( OWLAxiom axiom : ontology.getAxioms() ) {
-			for( AxiomLintPattern pattern : axiomLintPatterns ) {
-				Lint lint = pattern.match( ontology, axiom );
-				if( lint != null ) {
-					ontologyLints.addLint( pattern, lint );
+		if( threads > 1 ) {
+			lintInParallel( axiomLintPatterns, ontologyLintPatterns, ontology, ontologyLints,
+					threads );
+		}
+		else {
+			for( OWLAxiom axiom : ontology.getAxioms() ) {
+				for( AxiomLintPattern pattern : axiomLintPatterns ) {
+					Lint lint = pattern.match( ontology, axiom );
+					if( lint != null ) {
+						ontologyLints.addLint( pattern, lint );
+					}
 				}
 			}
-		}
 
-		for( OntologyLintPattern pattern : ontologyLintPatterns ) {
-			List<Lint> lints = pattern.match( ontology );
-			if( !lints.isEmpty() ) {
-				ontologyLints.addLints( pattern, lints );
+			for( OntologyLintPattern pattern : ontologyLintPatterns ) {
+				List<Lint> lints = pattern.match( ontology );
+				if( !lints.isEmpty() ) {
+					ontologyLints.addLints( pattern, lints );
+				}
 			}
 		}
 
@@ -257,8 +395,83 @@ public class Pellint extends PelletCmdApp {
 		return ontologyLints;
 	}
 
+	private static void lintInParallel(List<AxiomLintPattern> axiomLintPatterns,
+			List<OntologyLintPattern> ontologyLintPatterns, final OWLOntology ontology,
+			OntologyLints ontologyLints, int threads) {
+		final List<OWLAxiom> axioms = new ArrayList<OWLAxiom>( ontology.getAxioms() );
+
+		buildIndexes( ontology );
+
+		List<LintPattern> patterns = new ArrayList<LintPattern>();
+		List<Future<List<Lint>>> results = new ArrayList<Future<List<Lint>>>();
+		ExecutorService executor = Executors.newFixedThreadPool( threads );
+		try {
+			for( final AxiomLintPattern pattern : axiomLintPatterns ) {
+				patterns.add( pattern );
+				results.add( executor.submit( new Callable<List<Lint>>() {
+					public List<Lint> call() {
+						List<Lint> lints = new ArrayList<Lint>();
+						for( OWLAxiom axiom : axioms ) {
+							Lint lint = pattern.match( ontology, axiom );
+							if( lint != null ) {
+								lints.add( lint );
+							}
+						}
+						return lints;
+					}
+				} ) );
+			}
+
+			for( final OntologyLintPattern pattern : ontologyLintPatterns ) {
+				patterns.add( pattern );
+				results.add( executor.submit( new Callable<List<Lint>>() {
+					public List<Lint> call() {
+						return pattern.match( ontology );
+					}
+				} ) );
+			}
+
+			for( int i = 0; i < patterns.size(); i++ ) {
+				List<Lint> lints = results.get( i ).get();
+				if( !lints.isEmpty() ) {
+					ontologyLints.addLints( patterns.get( i ), lints );
+				}
+			}
+		} catch( InterruptedException e ) {
+			Thread.currentThread().interrupt();
+			throw new PelletCmdException( e );
+		} catch( ExecutionException e ) {
+			throw new PelletCmdException( e.getCause() );
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Builds the indexes of the ontology that are looked up by the lint
+	 * patterns. The ontology creates some of its indexes the first time they
+	 * are used which is not safe when the patterns run in different threads.
+	 * Once the indexes are built the tasks only read the ontology. A new
+	 * pattern that uses another kind of lookup should also be added here.
+	 */
+	private static void buildIndexes(OWLOntology ontology) {
+		for( AxiomType<?> type : AxiomType.AXIOM_TYPES ) {
+			ontology.getAxioms( type );
+		}
+
+		for( OWLClass cls : ontology.getClassesInSignature() ) {
+			ontology.getEquivalentClassesAxioms( cls );
+			ontology.getSubClassAxiomsForSubClass( cls );
+		}
+	}
+
 	public void run() {
 		try {
+			if( m_CalibrationPath != null ) {
+				runCalibration();
+				return;
+			}
+
 			if( m_InputOntologyPath == null )
 				throw new IllegalPellintArgumentException( "Input ontology is not specified" );
 
@@ -283,6 +496,23 @@ public class Pellint extends PelletCmdApp {
 	}
 
 	private void runLintForRDFXML() throws MalformedURLException, IOException {
+		if( m_Streaming ) {
+			if( m_OutputOntologyPath != null && !m_DoOWL )
+				throw new PelletCmdException( "lint --streaming cannot be used to fix RDF lints" );
+
+			OWLSyntaxChecker checker = new OWLSyntaxChecker();
+			checker.setExcludeValidPunnings( options.getOption( "exclude-valid-punning" ).getValueAsBoolean() );
+
+			RDFLints lints;
+			try {
+				lints = checker.validate( m_InputOntologyPath, !m_DoRootOnly );
+			} catch( Exception e ) {
+				throw new PelletCmdException( e );
+			}
+			output( lints.toString() );
+			return;
+		}
+
 		RDFModelReader reader = new RDFModelReader();
 		RDFModel rootModel = null;
 		try {
@@ -330,7 +560,7 @@ public class Pellint extends PelletCmdApp {
 		output( getOWL2DLProfileViolations( rootOntology ) );
 		
 		OntologyLints rootOntologyLints = lint( axiomLintPatterns, ontologyLintPatterns,
-				rootOntology );
+				rootOntology, m_Threads );
 		output( rootOntologyLints.toString() );
 
 		if( !m_DoRootOnly ) {
@@ -346,13 +576,13 @@ public class Pellint extends PelletCmdApp {
 					output( getOWL2DLProfileViolations( importedOntology ) );
 					
 					OntologyLints importedOntologyLints = lint( axiomLintPatterns,
-							ontologyLintPatterns, importedOntology );
+							ontologyLintPatterns, importedOntology, m_Threads );
 					output( importedOntologyLints.toString() );
 				}
 
 				OWLOntology mergedImportClosure = buildMergedImportClosure( manager, rootOntology );
 				OntologyLints mergedOntologyLints = lint( axiomLintPatterns, ontologyLintPatterns,
-						mergedImportClosure );
+						mergedImportClosure, m_Threads );
 				mergedOntologyLints.setRootOntology( rootOntology );
 				output( mergedOntologyLints.toString() );
 			}
@@ -371,6 +601,149 @@ public class Pellint extends PelletCmdApp {
 			output( "Saved to " + m_OutputOntologyPath );
 
 		}
+
+		if( m_DoCost )
+			runCostPrediction( computeCostFeatures( axiomLintPatterns, ontologyLintPatterns,
+					rootOntology ) );
+	}
+
+	private void runCostPrediction(CostFeatures features) {
+		CostModel model = loadCostModel();
+
+		List<String> exceeded = new ArrayList<String>();
+		for( String task : new String[] { CostModel.CONSISTENCY, CostModel.CLASSIFICATION } ) {
+			double time = model.predict( task, features );
+			output( String.format( "\nPredicted %s time: %.0f ms", task, time ) );
+
+			List<CostModel.CostDriver> drivers = model.getCostDrivers( task, features,
+					MAX_COST_DRIVERS );
+			if( !drivers.isEmpty() ) {
+				output( "Axioms with the largest impact:" );
+				for( CostModel.CostDriver driver : drivers ) {
+					output( String.format( "  x%.2f %s", driver.getFactor(), driver.getAxiom() ) );
+				}
+			}
+
+			if( m_MaxCost > 0 && time > m_MaxCost )
+				exceeded.add( task );
+		}
+
+		if( !exceeded.isEmpty() )
+			throw new PelletCmdException( "Predicted " + exceeded + " time exceeds " + m_MaxCost
+					+ " ms" );
+	}
+
+	private void runCalibration() throws IOException {
+		LintPatternLoader patternLoader = new LintPatternLoader( loadProperties() );
+		List<AxiomLintPattern> axiomLintPatterns = patternLoader.getAxiomLintPatterns();
+		List<OntologyLintPattern> ontologyLintPatterns = patternLoader.getOntologyLintPatterns();
+
+		List<CostFeatures> features = new ArrayList<CostFeatures>();
+		List<Double> consistencyTimes = new ArrayList<Double>();
+		List<Double> classificationTimes = new ArrayList<Double>();
+
+		BufferedReader reader = new BufferedReader( new FileReader( m_CalibrationPath ) );
+		try {
+			String line;
+			while( (line = reader.readLine()) != null ) {
+				line = line.trim();
+				if( line.length() == 0 || line.startsWith( "#" ) )
+					continue;
+
+				String[] fields = line.split( "\\s+" );
+				if( fields.length != 3 )
+					throw new PelletCmdException( "Invalid calibration record: " + line );
+
+				try {
+					consistencyTimes.add( Double.parseDouble( fields[1] ) );
+					classificationTimes.add( Double.parseDouble( fields[2] ) );
+				} catch( NumberFormatException e ) {
+					throw new PelletCmdException( "Invalid calibration record: " + line );
+				}
+
+				OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+				OWLOntology ontology;
+				try {
+					ontology = manager.loadOntology( IRI.create( FileUtils.toURI( fields[0] ) ) );
+				} catch( Exception e ) {
+					throw new PelletCmdException( e );
+				}
+
+				verbose( "Computing cost features of " + fields[0] );
+				features.add( computeCostFeatures( axiomLintPatterns, ontologyLintPatterns, ontology ) );
+			}
+		} finally {
+			reader.close();
+		}
+
+		if( features.isEmpty() )
+			throw new PelletCmdException( "No calibration records found in " + m_CalibrationPath );
+
+		CostModel model = loadCostModel();
+		model.calibrate( CostModel.CONSISTENCY, features, consistencyTimes );
+		model.calibrate( CostModel.CLASSIFICATION, features, classificationTimes );
+
+		for( int i = 0; i < features.size(); i++ ) {
+			output( String.format( "Run %d: consistency %.0f ms (predicted %.0f ms), classification %.0f ms (predicted %.0f ms)",
+					i + 1, consistencyTimes.get( i ), model.predict( CostModel.CONSISTENCY, features.get( i ) ),
+					classificationTimes.get( i ), model.predict( CostModel.CLASSIFICATION, features.get( i ) ) ) );
+		}
+
+		OutputStream out = new FileOutputStream( m_CostModelPath );
+		try {
+			model.toProperties().store( out, "Pellint cost model calibrated from " + m_CalibrationPath );
+		} finally {
+			out.close();
+		}
+		output( "Saved to " + m_CostModelPath );
+	}
+
+	/**
+	 * Computes the cost features of the ontology together with its imports
+	 * since the reasoner always works on the imports closure.
+	 */
+	private CostFeatures computeCostFeatures(List<AxiomLintPattern> axiomLintPatterns,
+			List<OntologyLintPattern> ontologyLintPatterns, OWLOntology rootOntology) {
+		OWLOntology ontology = rootOntology;
+		if( rootOntology.getImportsClosure().size() > 1 ) {
+			try {
+				ontology = buildMergedImportClosure( OWLManager.createOWLOntologyManager(),
+						rootOntology.getOWLOntologyManager(), rootOntology );
+			} catch( OWLException e ) {
+				throw new PelletCmdException( e );
+			}
+		}
+
+		return CostFeatures.compute( ontology, lint( axiomLintPatterns, ontologyLintPatterns,
+				ontology, m_Threads ) );
+	}
+
+	/**
+	 * Returns the model given by the --cost-model option if the file exists or
+	 * the default model otherwise. A missing file is allowed so that the first
+	 * calibration can start from the default model.
+	 */
+	private CostModel loadCostModel() {
+		if( m_CostModelPath == null || !new File( m_CostModelPath ).exists() ) {
+			if( m_CostModelPath != null && m_CalibrationPath == null )
+				throw new PelletCmdException( "Cost model file not found: " + m_CostModelPath );
+			return CostModel.getDefault();
+		}
+
+		Properties properties = new Properties();
+		try {
+			InputStream in = new FileInputStream( m_CostModelPath );
+			try {
+				properties.load( in );
+			} finally {
+				in.close();
+			}
+			return CostModel.load( properties );
+		} catch( IOException e ) {
+			throw new PelletCmdException( e );
+		} catch( IllegalArgumentException e ) {
+			throw new PelletCmdException( e );
+		}
 	}
 	
 	private String getOWL2DLProfileViolations( OWLOntology ontology ) {
@@ -424,9 +797,15 @@ public class Pellint extends PelletCmdApp {
 	private static OWLOntology buildMergedImportClosure(OWLOntologyManager manager,
 			OWLOntology rootOntology) throws OWLOntologyCreationException,
 			OWLOntologyChangeException {
+		return buildMergedImportClosure( manager, manager, rootOntology );
+	}
+
+	private static OWLOntology buildMergedImportClosure(OWLOntologyManager manager,
+			OWLOntologyManager rootManager, OWLOntology rootOntology)
+			throws OWLOntologyCreationException, OWLOntologyChangeException {
 
 		OWLOntologyImportsClosureSetProvider importClosureSetProvider = new OWLOntologyImportsClosureSetProvider(
-				manager, rootOntology );
+				rootManager, rootOntology );
 		OWLOntologyMerger merger = new OWLOntologyMerger( importClosureSetProvider );
 		return merger.createMergedOntology( manager, MERGED_ONTOLOGY_URI );
 	}
@@ -0,0 +1,153 @@
+package com.clarkparsia.pellet.datatypes;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mindswap.pellet.PelletOptions;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Canonical Literal Table
+ * </p>
+ * <p>
+ * Description: Intern table used by {@link DatatypeReasonerImpl} that maps a
+ * literal (i.e., its lexical form, language tag and datatype, which are
+ * uniquely identified by the shared {@link ATermAppl}) to its canonical
+ * representation and its value. Each lexical form is parsed once, and all the
+ * forms of the same value get the same value object, so literal nodes share
+ * their values. Least recently used entries are removed when the table has
+ * more than {@link PelletOptions#MAX_CANONICAL_LITERALS} entries. A datatype
+ * reasoner is shared by the copies of an ABox so all methods are
+ * synchronized.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class CanonicalLiteralTable {
+
+	private static class Entry {
+		private ATermAppl	canonical;
+		private Object		value;
+	}
+
+	private final Map<ATermAppl, Entry>	entries;
+
+	private int							hits;
+	private int							misses;
+
+	@SuppressWarnings("serial")
+	public CanonicalLiteralTable() {
+		entries = new LinkedHashMap<ATermAppl, Entry>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ATermAppl, Entry> eldest) {
+				return size() > PelletOptions.MAX_CANONICAL_LITERALS;
+			}
+		};
+	}
+
+	private Entry getEntry(ATermAppl literal) {
+		Entry entry = entries.get(literal);
+		if (entry == null && PelletOptions.MAX_CANONICAL_LITERALS > 0) {
+			entry = new Entry();
+			entries.put(literal, entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Returns the canonical representation of the literal or <code>null</code>
+	 * if it is not in the table.
+	 */
+	public synchronized ATermAppl getCanonical(ATermAppl literal) {
+		Entry entry = entries.get(literal);
+		if (entry == null || entry.canonical == null) {
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry.canonical;
+	}
+
+	/**
+	 * Returns the value of the literal or <code>null</code> if it is not in the
+	 * table.
+	 */
+	public synchronized Object getValue(ATermAppl literal) {
+		Entry entry = entries.get(literal);
+		if (entry == null || entry.value == null) {
+			misses++;
+			return null;
+		}
+
+		hits++;
+		return entry.value;
+	}
+
+	/**
+	 * Records the canonical representation of a literal. If the value of
+	 * either form is already known it is shared with the other.
+	 */
+	public synchronized void putCanonical(ATermAppl literal, ATermAppl canonical) {
+		Entry entry = getEntry(literal);
+		if (entry == null) {
+			return;
+		}
+
+		entry.canonical = canonical;
+
+		Entry canonicalEntry = getEntry(canonical);
+		canonicalEntry.canonical = canonical;
+		if (entry.value == null) {
+			entry.value = canonicalEntry.value;
+		}
+		else if (canonicalEntry.value == null) {
+			canonicalEntry.value = entry.value;
+		}
+	}
+
+	/**
+	 * Records the value of a literal. If the value of its canonical
+	 * representation is already known that value object is kept instead so
+	 * the returned object should be used.
+	 */
+	public synchronized Object putValue(ATermAppl literal, Object value) {
+		Entry entry = getEntry(literal);
+		if (entry == null) {
+			return value;
+		}
+
+		if (entry.canonical != null && entry.canonical != literal) {
+			Entry canonicalEntry = getEntry(entry.canonical);
+			if (canonicalEntry.value == null) {
+				canonicalEntry.value = value;
+			}
+			else {
+				value = canonicalEntry.value;
+			}
+		}
+
+		entry.value = value;
+
+		return value;
+	}
+
+	public synchronized void clear() {
+		entries.clear();
+	}
+
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+}
@@ -0,0 +1,141 @@
+package com.clarkparsia.pellet.datatypes;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.utils.ATermUtils;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Data Range Cache
+ * </p>
+ * <p>
+ * Description: Bounded cache used by {@link DatatypeReasonerImpl} for the
+ * data ranges built from data range terms and for the results of
+ * satisfiability checks on data range conjunctions. Conjunctions are keyed by
+ * the sorted conjunction term so the order of the ranges does not matter.
+ * Least recently used entries are removed when the cache has more than
+ * {@link PelletOptions#MAX_DATA_RANGE_CACHE} entries. A datatype reasoner is
+ * shared by the copies of a KB so all methods are synchronized.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class DataRangeCache {
+
+	private final Map<ATermAppl, DataRange<?>>	ranges;
+	private final Map<ATermAppl, DataRange<?>>	conjunctions;
+	private final Map<ATermAppl, Boolean>		satisfiable;
+
+	private int									hits;
+	private int									misses;
+
+	public DataRangeCache() {
+		ranges = createMap();
+		conjunctions = createMap();
+		satisfiable = createMap();
+	}
+
+	@SuppressWarnings("serial")
+	private static <V> Map<ATermAppl, V> createMap() {
+		return new LinkedHashMap<ATermAppl, V>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<ATermAppl, V> eldest) {
+				return size() > PelletOptions.MAX_DATA_RANGE_CACHE;
+			}
+		};
+	}
+
+	/**
+	 * Returns the key used for the conjunction of the given data ranges.
+	 */
+	public static ATermAppl getConjunctionKey(Collection<ATermAppl> dataranges) {
+		return ATermUtils.makeAnd(ATermUtils.toSet(ATermUtils.makeList(dataranges)));
+	}
+
+	private <V> V get(Map<ATermAppl, V> map, ATermAppl key) {
+		V value = map.get(key);
+		if (value == null) {
+			misses++;
+		}
+		else {
+			hits++;
+		}
+		return value;
+	}
+
+	private <V> void put(Map<ATermAppl, V> map, ATermAppl key, V value) {
+		if (PelletOptions.MAX_DATA_RANGE_CACHE > 0) {
+			map.put(key, value);
+		}
+	}
+
+	/**
+	 * Returns the cached data range for a data range term or <code>null</code>
+	 * if it is not cached.
+	 */
+	public synchronized DataRange<?> getDataRange(ATermAppl a) {
+		return get(ranges, a);
+	}
+
+	public synchronized void putDataRange(ATermAppl a, DataRange<?> dr) {
+		put(ranges, a, dr);
+	}
+
+	/**
+	 * Returns the cached normalized data range for a conjunction key (see
+	 * {@link #getConjunctionKey(Collection)}) or <code>null</code> if it is not
+	 * cached.
+	 */
+	public synchronized DataRange<?> getConjunction(ATermAppl key) {
+		return get(conjunctions, key);
+	}
+
+	public synchronized void putConjunction(ATermAppl key, DataRange<?> dr) {
+		put(conjunctions, key, dr);
+	}
+
+	/**
+	 * Returns the cached satisfiability of a conjunction key (see
+	 * {@link #getConjunctionKey(Collection)}) or <code>null</code> if it is not
+	 * cached.
+	 */
+	public synchronized Boolean getSatisfiable(ATermAppl key) {
+		return get(satisfiable, key);
+	}
+
+	public synchronized void putSatisfiable(ATermAppl key, boolean isSatisfiable) {
+		put(satisfiable, key, isSatisfiable);
+	}
+
+	/**
+	 * Removes all entries. Statistics are kept.
+	 */
+	public synchronized void clear() {
+		ranges.clear();
+		conjunctions.clear();
+		satisfiable.clear();
+	}
+
+	public synchronized int size() {
+		return ranges.size() + conjunctions.size() + satisfiable.size();
+	}
+
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return "DataRangeCache(size=" + size() + ", hits=" + hits + ", misses=" + misses + ")";
+	}
+}
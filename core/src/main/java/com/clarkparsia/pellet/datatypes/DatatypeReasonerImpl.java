@@ -289,11 +289,31 @@ public class DatatypeReasonerImpl implements DatatypeReasoner {
 	private final Set<ATermAppl> declaredUndefined;
 	private final NamedDataRangeExpander expander;
 	private final Map<ATermAppl, ATermAppl> namedDataRanges;
+	private final DataRangeCache cache;
+	private final CanonicalLiteralTable literals;
 
 	public DatatypeReasonerImpl() {
 		declaredUndefined = new HashSet<ATermAppl>();
 		expander = new NamedDataRangeExpander();
 		namedDataRanges = new HashMap<ATermAppl, ATermAppl>();
+		cache = new DataRangeCache();
+		literals = new CanonicalLiteralTable();
+	}
+
+	/**
+	 * Returns the cache of data ranges and satisfiability results, e.g., to
+	 * inspect its statistics.
+	 */
+	public DataRangeCache getCache() {
+		return cache;
+	}
+
+	/**
+	 * Returns the table of canonical literals and values, e.g., to inspect its
+	 * statistics.
+	 */
+	public CanonicalLiteralTable getLiteralTable() {
+		return literals;
 	}
 
 	private boolean containedIn(Object value, ATermAppl dconjunction) throws InvalidConstrainingFacetException,
@@ -314,25 +334,28 @@ public class DatatypeReasonerImpl implements DatatypeReasoner {
 	public boolean containsAtLeast(int n, Collection<ATermAppl> ranges) throws UnrecognizedDatatypeException,
 	                InvalidConstrainingFacetException, InvalidLiteralException {
 
-		ATermAppl and = ATermUtils.makeAnd(ATermUtils.makeList(ranges));
-		ATermAppl dnf = DNF.dnf(expander.expand(and, namedDataRanges));
-		if (ATermUtils.isOr(dnf)) {
-			List<DataRange<?>> disjuncts = new ArrayList<DataRange<?>>();
-			for (ATermList l = (ATermList) dnf.getArgument(0); !l.isEmpty(); l = l.getNext()) {
-				final DataRange<?> dr = normalizeVarRanges((ATermAppl) l.getFirst());
-				if (!dr.isEmpty()) {
-	                disjuncts.add(dr);
-                }
-			}
+		ATermAppl and = DataRangeCache.getConjunctionKey(ranges);
+		DataRange<?> dr = cache.getConjunction(and);
+		if (dr == null) {
+			ATermAppl dnf = DNF.dnf(expander.expand(and, namedDataRanges));
+			if (ATermUtils.isOr(dnf)) {
+				List<DataRange<?>> disjuncts = new ArrayList<DataRange<?>>();
+				for (ATermList l = (ATermList) dnf.getArgument(0); !l.isEmpty(); l = l.getNext()) {
+					final DataRange<?> disjunct = normalizeVarRanges((ATermAppl) l.getFirst());
+					if (!disjunct.isEmpty()) {
+		                disjuncts.add(disjunct);
+	                }
+				}
 
-			final DataRange<?> disjunction = getDisjunction(disjuncts);
-			return disjunction.containsAtLeast(n);
-		}
-		else {
-			final DataRange<?> dr = normalizeVarRanges(dnf);
-			return dr.containsAtLeast(n);
+				dr = getDisjunction(disjuncts);
+			}
+			else {
+				dr = normalizeVarRanges(dnf);
+			}
+			cache.putConjunction(and, dr);
 		}
 
+		return dr.containsAtLeast(n);
 	}
 
 	public boolean declare(ATermAppl name) {
@@ -362,13 +385,28 @@ public class DatatypeReasonerImpl implements DatatypeReasoner {
 			}
 		}
         else {
-	        return dt.getCanonicalRepresentation(literal);
+			ATermAppl canonical = literals.getCanonical(literal);
+			if (canonical == null) {
+				canonical = dt.getCanonicalRepresentation(literal);
+				literals.putCanonical(literal, canonical);
+			}
+	        return canonical;
         }
 	}
 
 	private DataRange<?> getDataRange(ATermAppl a) throws InvalidConstrainingFacetException, InvalidLiteralException,
 	                UnrecognizedDatatypeException {
-		// TODO: Investigate the impact of keeping a results cache here
+		DataRange<?> dr = cache.getDataRange(a);
+		if (dr == null) {
+			dr = createDataRange(a);
+			cache.putDataRange(a, dr);
+		}
+
+		return dr;
+	}
+
+	private DataRange<?> createDataRange(ATermAppl a) throws InvalidConstrainingFacetException,
+	                InvalidLiteralException, UnrecognizedDatatypeException {
 
 		/*
 		 * rdfs:Literal
@@ -593,7 +631,11 @@ public class DatatypeReasonerImpl implements DatatypeReasoner {
 			}
 		}
         else {
-	        return dt.getValue(literal);
+			Object value = literals.getValue(literal);
+			if (value == null) {
+				value = literals.putValue(literal, dt.getValue(literal));
+			}
+	        return value;
         }
 	}
 
@@ -626,8 +668,32 @@ public class DatatypeReasonerImpl implements DatatypeReasoner {
 		return isSatisfiable(dataranges, null);
 	}
 
+	/*
+	 * Satisfiability of a conjunction without a value only depends on the
+	 * (sorted) conjunction so the result is cached.
+	 */
+	private boolean isSatisfiableCached(ATermAppl and) throws InvalidConstrainingFacetException,
+	                InvalidLiteralException, UnrecognizedDatatypeException {
+		Boolean result = cache.getSatisfiable(and);
+		if (result == null) {
+			result = isSatisfiable(and, null);
+			cache.putSatisfiable(and, result);
+		}
+
+		return result;
+	}
+
 	public boolean isSatisfiable(Collection<ATermAppl> dataranges, Object value)
 	                throws InvalidConstrainingFacetException, InvalidLiteralException, UnrecognizedDatatypeException {
+		if (value == null) {
+	        return isSatisfiableCached(DataRangeCache.getConjunctionKey(dataranges));
+        }
+
+		return isSatisfiable(ATermUtils.makeAnd(ATermUtils.makeList(dataranges)), value);
+	}
+
+	private boolean isSatisfiable(ATermAppl and, Object value) throws InvalidConstrainingFacetException,
+	                InvalidLiteralException, UnrecognizedDatatypeException {
 		Set<Integer> consts, vars;
 
 		if (value == null) {
@@ -642,7 +708,6 @@ public class DatatypeReasonerImpl implements DatatypeReasoner {
 			vars = Collections.emptySet();
 		}
 
-		ATermAppl and = ATermUtils.makeAnd(ATermUtils.makeList(dataranges));
 		ATermAppl dnf = DNF.dnf(expander.expand(and, namedDataRanges));
 		Collection<ATermAppl> dnfDisjuncts;
 		if (ATermUtils.isOr(dnf)) {
@@ -1035,6 +1100,9 @@ public class DatatypeReasonerImpl implements DatatypeReasoner {
 		namedDataRanges.put(name, datarange);
 		declaredUndefined.remove(name);
 
+		// cached conjunctions may refer to the new definition
+		cache.clear();
+
 		return true;
 	}
 
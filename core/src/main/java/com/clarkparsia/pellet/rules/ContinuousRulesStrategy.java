@@ -24,6 +24,7 @@ import org.mindswap.pellet.DependencySet;
 import org.mindswap.pellet.Edge;
 import org.mindswap.pellet.Individual;
 import org.mindswap.pellet.IndividualIterator;
+import org.mindswap.pellet.KnowledgeBase;
 import org.mindswap.pellet.Node;
 import org.mindswap.pellet.PelletOptions;
 import org.mindswap.pellet.Role;
@@ -39,13 +40,14 @@ import aterm.ATermAppl;
 import com.clarkparsia.pellet.expressivity.Expressivity;
 import com.clarkparsia.pellet.rules.model.Rule;
 import com.clarkparsia.pellet.rules.model.RuleAtom;
-import com.clarkparsia.pellet.rules.rete.AlphaNetwork;
 import com.clarkparsia.pellet.rules.rete.Compiler;
 import com.clarkparsia.pellet.rules.rete.Interpreter;
+import com.clarkparsia.pellet.rules.rete.RuleNetwork;
 
 public class ContinuousRulesStrategy extends SROIQStrategy {
 	private BindingGeneratorStrategy					bindingStrategy;
 	private Interpreter									interpreter;
+	private RuleNetwork									ruleNetwork;
 	private boolean										merging;
 	private Set<PartialBinding>							unsafeRules;
 	private Set<PartialBinding>							partialBindings;
@@ -186,6 +188,39 @@ public class ContinuousRulesStrategy extends SROIQStrategy {
 
 		merging = false;
 		t = timers.startTimer( "rule-buildReteRules" );
+		KnowledgeBase kb = abox.getKB();
+		ruleNetwork = kb.getRuleNetwork();
+		if( ruleNetwork == null || ruleNetwork.isDoExplanation() != abox.doExplanation()
+				|| !ruleNetwork.acquire( this ) ) {
+			ruleNetwork = compileRules();
+			// the network of the KB may be in use by another completion in
+			// which case the new one is only used by this completion
+			RuleNetwork kbNetwork = kb.getRuleNetwork();
+			if( kbNetwork == null || kbNetwork.isDoExplanation() != abox.doExplanation() )
+				kb.setRuleNetwork( ruleNetwork );
+		}
+		t.stop();
+
+		interpreter = ruleNetwork.getInterpreter();
+		partialBindings.clear();
+		partialBindings.addAll(unsafeRules);
+		rulesApplied.clear();
+
+		try {
+//			t = timers.startTimer( "rule-compileReteFacts" );
+			applyRete();
+//			t.stop();
+
+			completeRules();
+		} finally {
+			// make the network available to the next completion
+			ruleNetwork.release( this );
+			ruleNetwork = null;
+			interpreter = null;
+		}
+	}
+
+	private RuleNetwork compileRules() {
 		Compiler compiler = new Compiler(this);
 		for (Entry<Rule, Rule> e : abox.getKB().getNormalizedRules().entrySet()) {
 			Rule rule = e.getKey();
@@ -204,24 +239,11 @@ public class ContinuousRulesStrategy extends SROIQStrategy {
 	            throw new RuntimeException("Unsupported rule " + normalizedRule, uoe);
             }
 		}
-		t.stop();
-		
-		AlphaNetwork alphaNet = compiler.getAlphaNet();
-		if (abox.doExplanation()) {
-			alphaNet.setDoExplanation(true);
-		}
-		interpreter = new Interpreter(alphaNet);
-		partialBindings.clear();
-		partialBindings.addAll(unsafeRules);
-		rulesApplied.clear();
-
 
-//		t.stop();		
-
-//		t = timers.startTimer( "rule-compileReteFacts" );
-		applyRete();
-//		t.stop();
+		return new RuleNetwork(compiler, abox.doExplanation());
+	}
 
+	private void completeRules() {
 		while( !abox.isComplete() ) {
 			while( abox.isChanged() && !abox.isClosed() ) {
 				completionTimer.check();
@@ -402,7 +424,8 @@ public class ContinuousRulesStrategy extends SROIQStrategy {
 			}
 		}
 
-		interpreter.restore( branch.getBranch() );
+		if( interpreter != null )
+			interpreter.restore( branch.getBranch() );
 		// rebuildFacts = true;
 	}
 }
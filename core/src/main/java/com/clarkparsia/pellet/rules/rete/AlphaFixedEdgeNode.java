@@ -12,6 +12,8 @@ import org.mindswap.pellet.Role;
 
 import aterm.ATermAppl;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
+
 /**
  */
 public class AlphaFixedEdgeNode extends AlphaEdgeNode {
@@ -23,6 +25,12 @@ public class AlphaFixedEdgeNode extends AlphaEdgeNode {
 	    this.name = subjectName;
     }
 	
+	@Override
+	public void bind(ContinuousRulesStrategy strategy) {
+	    super.bind(strategy);
+	    node = null;
+	}
+	
 	@SuppressWarnings("unchecked")
     protected <N extends Node> N initNode() {
 		if (node == null) {			
@@ -21,6 +21,7 @@ import org.mindswap.pellet.Role;
 
 import aterm.ATermAppl;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
 import com.clarkparsia.pellet.rules.model.AtomConstant;
 import com.clarkparsia.pellet.rules.model.AtomObject;
 import com.clarkparsia.pellet.rules.model.AtomVariable;
@@ -55,7 +56,7 @@ public class AlphaNetwork implements Iterable<AlphaNode> {
 	private final Map<Object, List<AlphaNode>> map = new HashMap<Object, List<AlphaNode>>();
 	private final List<AlphaNode> alphaNodes = new ArrayList<AlphaNode>();
 	private final AlphaNodeCreator creator = new AlphaNodeCreator();
-	private final ABox abox;
+	private ABox abox;
 	
 
 	public AlphaNetwork(ABox abox) {
@@ -221,6 +222,16 @@ public class AlphaNetwork implements Iterable<AlphaNode> {
 		}
 	}
 	
+	/**
+	 * Attaches the alpha nodes to the ABox of the given strategy.
+	 */
+	public void bind(ContinuousRulesStrategy strategy) {
+		abox = strategy.getABox();
+	    for (AlphaNode alphaNode : alphaNodes) {
+	    	alphaNode.bind(strategy);
+        }
+	}
+	
 	public void setDoExplanation(boolean doExplanation) {
 	    for (AlphaNode alphaNode : alphaNodes) {
 	    	alphaNode.setDoExplanation(doExplanation);
@@ -18,6 +18,7 @@ import org.mindswap.pellet.utils.ATermUtils;
 
 import aterm.ATermAppl;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
 import com.clarkparsia.pellet.rules.model.AtomConstant;
 import com.clarkparsia.pellet.rules.model.AtomIConstant;
 import com.clarkparsia.pellet.rules.model.BinaryAtom;
@@ -39,6 +40,12 @@ public class AlphaNoVarEdgeNode extends AlphaFixedEdgeNode {
     }
 	
 
+	@Override
+	public void bind(ContinuousRulesStrategy strategy) {
+	    super.bind(strategy);
+	    objectNode = null;
+	}
+	
 	protected Node initObjectNode() {
 		if (objectNode == null) {			
 			objectNode = initNode(objectName);
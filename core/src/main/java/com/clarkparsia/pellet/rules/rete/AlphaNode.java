@@ -16,6 +16,7 @@ import org.mindswap.pellet.utils.ATermUtils;
 
 import aterm.ATermAppl;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
 import com.clarkparsia.pellet.rules.model.RuleAtom;
 
 /**
@@ -25,7 +26,7 @@ public abstract class AlphaNode extends ReteNode {
 	
 	protected boolean doExplanation; 
 	
-	protected final ABox abox;
+	protected ABox abox;
 
 	public AlphaNode(ABox abox) {
 		this.abox = abox;
@@ -37,6 +38,11 @@ public abstract class AlphaNode extends ReteNode {
 	
 	public abstract boolean matches(RuleAtom atom);
 		
+	@Override
+	public void bind(ContinuousRulesStrategy strategy) {
+	    abox = strategy.getABox();
+	}
+		
 	protected Node initNode(ATermAppl name) {
 		if (ATermUtils.isLiteral(name)) {
 			return abox.addLiteral(name);	
@@ -18,6 +18,7 @@ import org.mindswap.pellet.utils.iterator.NestedIterator;
 
 import aterm.ATermAppl;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
 import com.clarkparsia.pellet.rules.model.AtomIConstant;
 import com.clarkparsia.pellet.rules.model.AtomObject;
 import com.clarkparsia.pellet.rules.model.AtomVariable;
@@ -41,6 +42,12 @@ public class AlphaTypeNode extends AlphaNode {
 	    this.name = name;
     }
 	
+	@Override
+	public void bind(ContinuousRulesStrategy strategy) {
+	    super.bind(strategy);
+	    node = null;
+	}
+	
 	protected Individual initNode() {
 		if (node == null) {			
 			node = (Individual) initNode(name);
@@ -17,12 +17,13 @@ import org.mindswap.pellet.Literal;
 import org.mindswap.pellet.Node;
 import org.mindswap.pellet.utils.ATermUtils;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
 import com.clarkparsia.pellet.rules.builtins.BuiltIn;
 
 /**
  */
 public class BetaBuiltinNode extends BetaNode {
-	private final ABox abox;
+	private ABox abox;
 	private final String name;
 	private final BuiltIn builtin;
 	private final NodeProvider[] args;
@@ -34,6 +35,16 @@ public class BetaBuiltinNode extends BetaNode {
 	    this.args = args;
     }
 	
+	@Override
+	public void bind(ContinuousRulesStrategy strategy) {
+		abox = strategy.getABox();
+		for (NodeProvider arg : args) {
+			if (arg != null) {
+				arg.bind(abox);
+			}
+        }
+	}
+	
 	@Override
 	public void activate(WME wme) {
 		throw new UnsupportedOperationException();
@@ -8,14 +8,22 @@ package com.clarkparsia.pellet.rules.rete;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
 
+import org.mindswap.pellet.Literal;
 import org.mindswap.pellet.Node;
+import org.mindswap.pellet.utils.Namespaces;
 import org.mindswap.pellet.utils.iterator.IteratorUtils;
 
+import com.clarkparsia.pellet.rules.rete.NodeProvider.TokenNodeProvider;
+import com.clarkparsia.pellet.rules.rete.NodeProvider.WMENodeProvider;
+
 /**
  * 
  * @author Evren Sirin
@@ -32,6 +40,14 @@ public abstract class BetaMemoryIndex {
     public abstract void clear();
     
     public abstract boolean isJoined();
+    
+    /**
+     * Returns the number of the leading conditions of the beta node that are
+     * satisfied by all the tokens returned by {@link #getTokens(WME)}.
+     */
+    public int getIndexedConditions() {
+    	return 0;
+    }
 
 	
 	public static BetaMemoryIndex withoutJoin() {
@@ -39,12 +55,63 @@ public abstract class BetaMemoryIndex {
 	}
 
 	public static BetaMemoryIndex withJoin(JoinCondition condition) {
-		return condition == null ? new Unindexed() : new JoinIndexed(condition);
+		return condition == null ? new Unindexed() : new JoinIndexed(Collections.singletonList(condition));
+	}
+	
+	/**
+	 * Creates a memory that hashes the tokens on the values of all the given
+	 * join conditions.
+	 */
+	public static BetaMemoryIndex withJoins(List<JoinCondition> conditions) {
+		return conditions.isEmpty() ? new Unindexed() : new JoinIndexed(conditions);
+	}
+	
+	/**
+	 * Creates a memory that keeps the tokens sorted on the value compared by
+	 * the given builtin condition or returns <code>null</code> if the
+	 * condition is not a comparison between a value of the WME and a value of
+	 * the token.
+	 */
+	public static BetaMemoryIndex withRange(BuiltInCondition condition) {
+		String name = condition.getName();
+		if (!name.startsWith(Namespaces.SWRLB)) {
+			return null;
+		}
+		
+		NodeProvider[] args = condition.getArgs();
+		if (args.length != 2) {
+			return null;
+		}
+		
+		boolean wmeFirst;
+		if (args[0] instanceof WMENodeProvider && args[1] instanceof TokenNodeProvider) {
+			wmeFirst = true;
+		}
+		else if (args[0] instanceof TokenNodeProvider && args[1] instanceof WMENodeProvider) {
+			wmeFirst = false;
+		}
+		else {
+			return null;
+		}
+		WMENodeProvider wmeArg = (WMENodeProvider) args[wmeFirst ? 0 : 1];
+		TokenNodeProvider tokenArg = (TokenNodeProvider) args[wmeFirst ? 1 : 0];
+		
+		String op = name.substring(Namespaces.SWRLB.length());
+		if (op.equals("lessThan") || op.equals("lessThanOrEqual")) {
+			return new RangeIndexed(wmeArg, tokenArg, wmeFirst, !wmeFirst);
+		}
+		else if (op.equals("greaterThan") || op.equals("greaterThanOrEqual")) {
+			return new RangeIndexed(wmeArg, tokenArg, !wmeFirst, wmeFirst);
+		}
+		else if (op.equals("equal")) {
+			return new RangeIndexed(wmeArg, tokenArg, true, true);
+		}
+		
+		return null;
 	}
 	
 	private static class Unindexed extends BetaMemoryIndex {
-		private Token[] index = new Token[10];
-		private int size = 0;
+		private final Trail trail = new Trail();
 		
 		@Override
 		public boolean isJoined() {
@@ -53,17 +120,12 @@ public abstract class BetaMemoryIndex {
 		
 		@Override
 		public void add(Token token) {
-			if (size == index.length) {
-				int newSize = (size * 3)/2 + 1;
-				index = Arrays.copyOf(index, newSize);
-			}
-			
-		    index[size++] = token;
+		    trail.add(token);
 		}
 		
 		@Override
 		public Iterator<Token> getTokens(WME wme) {
-		    return IteratorUtils.iterator(size, index);
+		    return IteratorUtils.iterator(trail.size, trail.tokens);
 		}
 		
 		@Override
@@ -73,44 +135,17 @@ public abstract class BetaMemoryIndex {
 		
 		@Override
 		public void restore(int branch) {
-		    int i = 0;
-		    int removed = 0;
-		    for (; i < size; i++) {
-	        	Token token = index[i];
-		        if (token.dependsOn(branch)) {
-		        	removed++;
-		        }  
-		        else if (removed > 0) {
-		        	System.arraycopy(index, i, index, i - removed, size - i);
-		        	size -= removed;
-		        }
-            }
-		    
-		    if (removed > 0) {
-	        	System.arraycopy(index, i, index, i - removed, size - i);
-	        	size -= removed;
-	        }
+		    trail.restore(trail.start(branch), branch);
 		}
 		
 		@Override
 		public void clear() {
-		    size = 0;
+		    trail.clear();
 		}		
 		
 		@Override
 		public String toString() {
-			if (size == 0) {
-				return "[]";
-			}
-			StringBuilder sb = new StringBuilder("[");
-			for (int i = 0; i < size; i++) {
-	            sb.append(index[i]);
-	            sb.append(", ");
-            }
-			int length = sb.length();
-			sb.setCharAt(length - 2, ']');
-			sb.setLength(length - 1);
-		    return sb.toString();
+			return trail.toString();
 		}
 
 	}
@@ -118,6 +153,8 @@ public abstract class BetaMemoryIndex {
 	private static class JoinUnindexed extends BetaMemoryIndex {
 		private final List<Token> memory = new ArrayList<Token>();
 		
+		private final Trail trail = new Trail();
+		
 		private final JoinCondition joinCondition;
 		
 		private JoinUnindexed(JoinCondition joinCondition) {
@@ -132,6 +169,7 @@ public abstract class BetaMemoryIndex {
 		@Override
 		public void add(Token token) {
 			memory.add(token);
+			trail.add(token);
 		}
 		
 		@Override
@@ -147,17 +185,20 @@ public abstract class BetaMemoryIndex {
 		
 		@Override
 		public void restore(int branch) {
-			for (Iterator<Token> i = memory.iterator(); i.hasNext();) {
-		        Token token = i.next();
-		        if (token.dependsOn(branch)) {
-		        	i.remove();
-		        }
-	        }
+			int start = trail.start(branch);
+			if (start == trail.size) {
+				return;
+			}
+			
+			// the tokens added after the branch are at the end of the list 
+			removeTokens(memory, memory.size() - (trail.size - start), branch);
+			trail.restore(start, branch);
 		}
 		
 		@Override
 		public void clear() {
 		    memory.clear();
+		    trail.clear();
 		}		
 		
 		@Override
@@ -167,71 +208,346 @@ public abstract class BetaMemoryIndex {
 
 	}
 	
-	private static class JoinIndexed extends BetaMemoryIndex {
-		private final Map<Node, List<Token>> index = new HashMap<Node, List<Token>>();
+	/**
+	 * Base class for the memories that group the tokens by a key computed from
+	 * the token. Tokens without a key are kept in a separate list that is
+	 * always returned.
+	 */
+	private static abstract class KeyIndexed<K> extends BetaMemoryIndex {
+		protected final Map<K, List<Token>> index;
 		
-		private final JoinCondition joinCondition;
+		protected final List<Token> unkeyed = new ArrayList<Token>();
 		
-		private JoinIndexed(JoinCondition joinCondition) {
-	        this.joinCondition = joinCondition;
+		protected final Trail trail = new Trail();
+		
+		protected KeyIndexed(Map<K, List<Token>> index) {
+	        this.index = index;
+        }
+		
+		protected abstract K getKey(Token token);
+		
+		@Override
+		public void add(Token token) {
+			K key = getKey(token);
+			
+			List<Token> tokens;
+			if (key == null) {
+				tokens = unkeyed;
+			}
+			else {
+				tokens = index.get(key);
+				if (tokens == null) {
+					tokens = new ArrayList<Token>();
+					index.put(key, tokens);
+				}
+			}
+			tokens.add(token);
+			trail.add(token);
+		}
+		
+		@Override
+		public void restore(int branch) { 
+			int start = trail.start(branch);
+			if (start == trail.size) {
+				return;
+			}
+			
+			// the tokens of each list that were added after the branch are at
+			// the end of that list so only count them here
+			Map<K, Integer> added = new HashMap<K, Integer>();
+			int addedUnkeyed = 0;
+			for (int i = start; i < trail.size; i++) {
+				K key = getKey(trail.tokens[i]);
+				if (key == null) {
+					addedUnkeyed++;
+				}
+				else {
+					Integer count = added.get(key);
+					added.put(key, count == null ? 1 : count + 1);
+				}
+	        }
+			
+			for (Map.Entry<K, Integer> entry : added.entrySet()) {
+				List<Token> tokens = index.get(entry.getKey());
+				if (tokens == null) {
+					continue;
+				}
+				removeTokens(tokens, tokens.size() - entry.getValue(), branch);
+				if (tokens.isEmpty()) {
+					index.remove(entry.getKey());
+				}
+			}
+			
+			if (addedUnkeyed > 0) {
+				removeTokens(unkeyed, unkeyed.size() - addedUnkeyed, branch);
+			}
+			
+			trail.restore(start, branch);
+		}
+		
+		@Override
+		public void clear() {
+		    index.clear();
+		    unkeyed.clear();
+		    trail.clear();
+		}
+		
+		@Override
+		public String toString() {
+		    return index.values().toString();
+		}
+	}
+	
+	/**
+	 * Memory that hashes the tokens on the values of all the join conditions.
+	 * The key is the node itself if there is a single join condition or the
+	 * list of nodes otherwise.
+	 */
+	private static class JoinIndexed extends KeyIndexed<Object> {
+		private final JoinCondition[] joinConditions;
+		
+		private JoinIndexed(List<JoinCondition> joinConditions) {
+			super(new HashMap<Object, List<Token>>());
+	        this.joinConditions = joinConditions.toArray(new JoinCondition[joinConditions.size()]);
         }
 		
 		@Override
 		public boolean isJoined() {
 		    return true;
 		}
+		
+		@Override
+		public int getIndexedConditions() {
+		    return joinConditions.length;
+		}
 
 		@Override
-		public void add(Token token) {
-			Node tokenArg = joinCondition.getToken().getNode(null, token);
+		protected Object getKey(Token token) {
+			if (joinConditions.length == 1) {
+				return joinConditions[0].getToken().getNode(null, token);
+			}
 			
-			List<Token> tokens = index.get(tokenArg);
-			if (tokens == null) {
-				tokens = new ArrayList<Token>();
-				index.put(tokenArg, tokens);
+			Node[] key = new Node[joinConditions.length];
+			for (int i = 0; i < key.length; i++) {
+	            key[i] = joinConditions[i].getToken().getNode(null, token);
+            }
+			return Arrays.asList(key);
+		}
+		
+		private Object getKey(WME wme) {
+			if (joinConditions.length == 1) {
+				return joinConditions[0].getWME().getNode(wme, null);
 			}
-			tokens.add(token);
+			
+			Node[] key = new Node[joinConditions.length];
+			for (int i = 0; i < key.length; i++) {
+	            key[i] = joinConditions[i].getWME().getNode(wme, null);
+            }
+			return Arrays.asList(key);
 		}
 		
 		@Override
 		public Iterator<Token> getTokens(WME wme) {
-			Node wmeArg = joinCondition.getWME().getNode(wme, null);
-			
-			List<Token> tokens = index.get(wmeArg);
+			List<Token> tokens = index.get(getKey(wme));
 			
 			return tokens == null ? IteratorUtils.<Token>emptyIterator() : new ListIterator<Token>(tokens);
 		}
 		
 		@Override
 		public Iterator<WME> getWMEs(Token token, AlphaNode alpha) {
+			JoinCondition joinCondition = joinConditions[0];
 			Node tokenArg = joinCondition.getToken().getNode(null, token);
 			return alpha.getMatches(joinCondition.getWME().getIndexArg(), tokenArg);
 		}
+	}
+	
+	/**
+	 * Memory that keeps the tokens sorted on a numeric value compared to a
+	 * value of the WME by a comparison builtin. The index is only used to
+	 * skip the tokens that cannot satisfy the comparison so the comparison is
+	 * still tested for the returned tokens. Values are ordered by their
+	 * double value which is monotone for all numeric types so the ranges are
+	 * inclusive to account for rounding. Tokens with a non-numeric value are
+	 * returned for all the WMEs.
+	 */
+	private static class RangeIndexed extends KeyIndexed<Double> {
+		private final WMENodeProvider wmeArg;
+		private final TokenNodeProvider tokenArg;
+		
+		/**
+		 * Token values should not be less than the WME value
+		 */
+		private final boolean lowerBound;
+		
+		/**
+		 * Token values should not be greater than the WME value
+		 */
+		private final boolean upperBound;
+		
+		private RangeIndexed(WMENodeProvider wmeArg, TokenNodeProvider tokenArg, boolean lowerBound, boolean upperBound) {
+			super(new TreeMap<Double, List<Token>>());
+			this.wmeArg = wmeArg;
+			this.tokenArg = tokenArg;
+			this.lowerBound = lowerBound;
+			this.upperBound = upperBound;
+		}
 		
 		@Override
-		public void restore(int branch) { 
-			for (Iterator<List<Token>> i = index.values().iterator(); i.hasNext();) {
-		        List<Token> tokens = i.next();
-		        for (Iterator<Token> j = tokens.iterator(); j.hasNext();) {
-		        	Token token = j.next();
-			        if (token.dependsOn(branch)) {
-			        	j.remove();
-			        }   
-	            }
-		        if (tokens.isEmpty()) {
-		        	i.remove();
-		        }
-	        }
+		public boolean isJoined() {
+		    return false;
+		}
+
+		@Override
+		protected Double getKey(Token token) {
+			return getValue(tokenArg.getNode(null, token));
 		}
 		
 		@Override
+		public Iterator<Token> getTokens(WME wme) {
+			Double value = getValue(wmeArg.getNode(wme, null));
+			if (value == null) {
+				return IteratorUtils.iterator(trail.size, trail.tokens);
+			}
+			
+			NavigableMap<Double, List<Token>> sorted = (NavigableMap<Double, List<Token>>) index;
+			NavigableMap<Double, List<Token>> range = sorted;
+			if (lowerBound) {
+				range = range.tailMap(value, true);
+			}
+			if (upperBound) {
+				range = range.headMap(value, true);
+			}
+			
+			// copy the matching tokens since activating the children may add
+			// new keys to the index
+			List<Token> tokens = new ArrayList<Token>(unkeyed);
+			for (List<Token> list : range.values()) {
+	            tokens.addAll(list);
+            }
+			
+			return tokens.iterator();
+		}
+		
+		@Override
+		public Iterator<WME> getWMEs(Token token, AlphaNode alpha) {
+		    return alpha.getMatches();
+		}
+		
+		private static Double getValue(Node node) {
+			if (node instanceof Literal) {
+				Object value = ((Literal) node).getValue();
+				if (value instanceof Number) {
+					double d = ((Number) value).doubleValue();
+					if (!Double.isNaN(d)) {
+						return d;
+					}
+				}
+			}
+			return null;
+		}
+	}
+	
+	/**
+	 * Removes the tokens that depend on the given branch from the end of the
+	 * list starting at the given index.
+	 */
+	private static void removeTokens(List<Token> tokens, int start, int branch) {
+		int n = Math.max(start, 0);
+		for (int i = n, size = tokens.size(); i < size; i++) {
+			Token token = tokens.get(i);
+			if (!token.dependsOn(branch)) {
+				tokens.set(n++, token);
+			}
+		}
+		tokens.subList(n, tokens.size()).clear();
+	}
+	
+	/**
+	 * The tokens of a memory in the order they were added. Each token is
+	 * stamped with an upper bound of the branches it depends on that is never
+	 * smaller than the stamp of the previous token. Restoring to a branch only
+	 * needs to visit the tokens at the end of the trail whose stamp is greater
+	 * than that branch, i.e. the tokens added after the branch was created.
+	 */
+	private static class Trail {
+		private Token[] tokens = new Token[10];
+		private int[] stamps = new int[10];
+		private int size = 0;
+		
+		public void add(Token token) {
+			if (size == tokens.length) {
+				int newSize = (size * 3)/2 + 1;
+				tokens = Arrays.copyOf(tokens, newSize);
+				stamps = Arrays.copyOf(stamps, newSize);
+			}
+			
+			int stamp = token.getMaxBranch();
+			if (size > 0 && stamps[size - 1] > stamp) {
+				stamp = stamps[size - 1];
+			}
+			
+			tokens[size] = token;
+			stamps[size] = stamp;
+			size++;
+		}
+		
+		/**
+		 * Returns the index of the first token that might depend on the given
+		 * branch.
+		 */
+		public int start(int branch) {
+			int low = 0;
+			int high = size;
+			while (low < high) {
+				int mid = (low + high) >>> 1;
+				if (stamps[mid] > branch) {
+					high = mid;
+				}
+				else {
+					low = mid + 1;
+				}
+			}
+			return low;
+		}
+		
+		/**
+		 * Removes the tokens starting at the given index that depend on the
+		 * branch. The remaining tokens do not depend on any branch greater
+		 * than the given one so they are stamped with that branch.
+		 */
+		public void restore(int start, int branch) {
+			int n = start;
+			for (int i = start; i < size; i++) {
+				Token token = tokens[i];
+				if (!token.dependsOn(branch)) {
+					tokens[n] = token;
+					stamps[n] = branch;
+					n++;
+				}
+			}
+			Arrays.fill(tokens, n, size, null);
+			size = n;
+		}
+		
 		public void clear() {
-		    index.clear();
+			Arrays.fill(tokens, 0, size, null);
+			size = 0;
 		}
 		
 		@Override
 		public String toString() {
-		    return index.values().toString();
+			if (size == 0) {
+				return "[]";
+			}
+			StringBuilder sb = new StringBuilder("[");
+			for (int i = 0; i < size; i++) {
+	            sb.append(tokens[i]);
+	            sb.append(", ");
+            }
+			int length = sb.length();
+			sb.setCharAt(length - 2, ']');
+			sb.setLength(length - 1);
+		    return sb.toString();
 		}
 	}
 	
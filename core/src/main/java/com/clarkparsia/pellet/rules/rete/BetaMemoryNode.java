@@ -6,9 +6,13 @@
 
 package com.clarkparsia.pellet.rules.rete;
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.logging.Level;
+
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
+
 /**
  */
 public class BetaMemoryNode extends BetaNode {
@@ -17,6 +21,16 @@ public class BetaMemoryNode extends BetaNode {
 	private final AlphaNode alpha;
 	
 	private final List<FilterCondition> conditions;
+	
+	/**
+	 * The conditions that only depend on the WME, tested once per WME
+	 */
+	private final List<FilterCondition> wmeConditions = new ArrayList<FilterCondition>();
+	
+	/**
+	 * The conditions that depend on the token in the order they are given
+	 */
+	private final List<FilterCondition> tokenConditions = new ArrayList<FilterCondition>();
 
 	public BetaMemoryNode(AlphaNode alpha, List<FilterCondition> conditions) {
 		if (conditions == null) {
@@ -24,14 +38,39 @@ public class BetaMemoryNode extends BetaNode {
 		}
 		this.alpha = alpha;
 		this.conditions = conditions;
-		this.memory = createIndex(conditions);
+		for (FilterCondition condition : conditions) {
+			if (condition instanceof BuiltInCondition && !((BuiltInCondition) condition).dependsOnToken()) {
+				wmeConditions.add(condition);
+			}
+			else {
+				tokenConditions.add(condition);
+			}
+        }
+		this.memory = createIndex(tokenConditions);
 	}
 	
-	private static BetaMemoryIndex createIndex(List<FilterCondition> conditions) {		
-		if (!conditions.isEmpty() && (conditions.get(0) instanceof JoinCondition)) {
-			return BetaMemoryIndex.withJoin((JoinCondition) conditions.get(0));
+	private static BetaMemoryIndex createIndex(List<FilterCondition> conditions) {
+		// the join conditions are always at the beginning
+		List<JoinCondition> joins = new ArrayList<JoinCondition>();
+		for (FilterCondition condition : conditions) {
+			if (!(condition instanceof JoinCondition)) {
+				break;
+			}
+			joins.add((JoinCondition) condition);
+        }
+		if (!joins.isEmpty()) {
+			return BetaMemoryIndex.withJoins(joins);
 		}
 		
+		for (FilterCondition condition : conditions) {
+			if (condition instanceof BuiltInCondition) {
+				BetaMemoryIndex index = BetaMemoryIndex.withRange((BuiltInCondition) condition);
+				if (index != null) {
+					return index;
+				}
+			}
+        }
+		
 		return BetaMemoryIndex.withoutJoin();
 	}
 	
@@ -50,11 +89,16 @@ public class BetaMemoryNode extends BetaNode {
 			log.fine("Activate beta " + wme);
 		}
 
+		if (!testConditions(wmeConditions, wme, null, 0)) {
+			return;
+		}
+
 		Iterator<Token> wmeTokens = memory.getTokens(wme);
+		int start = memory.getIndexedConditions();
 		
 		while (wmeTokens.hasNext()) {
             Token token = wmeTokens.next();
-	        if (testConditions(wme, token, 0)) {
+	        if (testConditions(tokenConditions, wme, token, start)) {
 		        activateChildren(wme, token);
             }	        
         }
@@ -71,13 +115,14 @@ public class BetaMemoryNode extends BetaNode {
 		Iterator<WME> matches = memory.getWMEs(token, alpha);
 		while (matches.hasNext()) {
 			WME wme = matches.next();
-			if (testConditions(wme, token, memory.isJoined() ? 1 : 0)) {
+			if (testConditions(tokenConditions, wme, token, memory.isJoined() ? 1 : 0)
+							&& testConditions(wmeConditions, wme, token, 0)) {
 		        activateChildren(wme, token);
             }
 		}
 	}
 	
-	private boolean testConditions(WME wme, Token token, int start) {
+	private static boolean testConditions(List<FilterCondition> conditions, WME wme, Token token, int start) {
 		for (int i = start, n = conditions.size(); i < n; i++) {
 			FilterCondition condition = conditions.get(i);
 			if (!condition.test(wme, token)) {
@@ -87,6 +132,18 @@ public class BetaMemoryNode extends BetaNode {
 		return true;
 	}
 	
+	/**
+	 * Clears the memory and attaches the filter conditions to the ABox of the
+	 * given strategy.
+	 */
+	@Override
+	public void bind(ContinuousRulesStrategy strategy) {
+		memory.clear();
+		for (FilterCondition condition : conditions) {
+	        condition.bind(strategy.getABox());
+        }
+	}
+	
 	@Override
 	public void reset() {
 	    super.reset();
@@ -100,6 +157,22 @@ public class BetaMemoryNode extends BetaNode {
 		memory.restore(branch);
 	}
 	
+	/**
+	 * Removes the tokens that depend on the given branch from the memory of
+	 * this node without visiting the child nodes.
+	 */
+	public void restoreMemory(int branch) {
+		memory.restore(branch);
+	}
+	
+	/**
+	 * Removes all the tokens from the memory of this node without visiting
+	 * the child nodes.
+	 */
+	public void resetMemory() {
+		memory.clear();
+	}
+	
 	@Override
 	public void print(String indent) {
 		System.out.print(indent);
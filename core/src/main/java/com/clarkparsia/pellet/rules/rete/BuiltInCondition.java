@@ -13,9 +13,10 @@ import org.mindswap.pellet.Literal;
 import org.mindswap.pellet.utils.ATermUtils;
 
 import com.clarkparsia.pellet.rules.builtins.BuiltIn;
+import com.clarkparsia.pellet.rules.rete.NodeProvider.TokenNodeProvider;
 
 public class BuiltInCondition implements FilterCondition {
-	private final ABox abox;
+	private ABox abox;
 	private final String name;
 	private final BuiltIn builtin;
 	private final NodeProvider[] args;
@@ -32,6 +33,35 @@ public class BuiltInCondition implements FilterCondition {
 		}
     }
 
+	public String getName() {
+		return name;
+	}
+
+	public NodeProvider[] getArgs() {
+		return args;
+	}
+
+	/**
+	 * Returns <code>true</code> if any of the arguments is read from the
+	 * token. Otherwise the condition only depends on the WME.
+	 */
+	public boolean dependsOnToken() {
+		for (NodeProvider arg : args) {
+			if (arg instanceof TokenNodeProvider) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void bind(ABox abox) {
+		this.abox = abox;
+		for (NodeProvider arg : args) {
+	        arg.bind(abox);
+        }
+	}
+
 	@Override
     public boolean test(WME wme, Token token) {
 		Literal[] literals = new Literal[args.length];
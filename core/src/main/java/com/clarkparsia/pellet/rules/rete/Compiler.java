@@ -19,10 +19,10 @@ import java.util.Set;
 
 import org.mindswap.pellet.ABox;
 import org.mindswap.pellet.DependencySet;
-import org.mindswap.pellet.Individual;
 import org.mindswap.pellet.PelletOptions;
 import org.mindswap.pellet.Role;
 import org.mindswap.pellet.exceptions.InternalReasonerException;
+import org.mindswap.pellet.utils.Pair;
 import org.mindswap.pellet.utils.SetUtils;
 
 import aterm.ATermAppl;
@@ -74,6 +74,7 @@ public class Compiler {
 	protected ContinuousRulesStrategy strategy;
 	private ABox abox;
 	private AlphaNetwork alphaNet;
+	private List<Pair<Rule, Set<ATermAppl>>> unsafeRules = new ArrayList<Pair<Rule, Set<ATermAppl>>>();
 	
 	private SafetyChecker safetyChecker = new SafetyChecker();
 
@@ -86,6 +87,14 @@ public class Compiler {
 	public AlphaNetwork getAlphaNet() {
 		return alphaNet;
 	}
+	
+	/**
+	 * Returns the rules that had no safe atoms and were passed to the strategy
+	 * as unsafe rules instead of being added to the network.
+	 */
+	public List<Pair<Rule, Set<ATermAppl>>> getUnsafeRules() {
+		return unsafeRules;
+	}
 
 	private RuleAtom pickNextAtom(List<RuleAtom> atoms, Set<AtomVariable> bound) {
 		int index = 0;
@@ -166,8 +175,10 @@ public class Compiler {
 			
 			bound.addAll(VariableUtils.getVars(atom));
 			
-			// any builtin that can be evaluated with current bindings should be handled here
-			for (Iterator<BuiltInCall> i = builtins.iterator(); i.hasNext();) {
+			// any builtin that can be evaluated with current bindings should be
+			// handled here unless this is the first atom since the top node
+			// does not have any conditions
+			for (Iterator<BuiltInCall> i = builtins.iterator(); node != null && i.hasNext();) {
 	            BuiltInCall call = i.next();
 	            if (bound.containsAll(call.getPrerequisitesVars(bound))) {            	
 	            	Collection<? extends AtomVariable> bindableVars = call.getBindableVars(bound);
@@ -242,6 +253,7 @@ public class Compiler {
 
 		if (lastSafe == 0) {
 			strategy.addUnsafeRule(rule, explain);
+			unsafeRules.add(Pair.create(rule, explain));
 		}
 		else if (lastSafe > 0) {
 			Map<AtomVariable, NodeProvider> args = new HashMap<AtomVariable, NodeProvider>();
@@ -454,7 +466,7 @@ public class Compiler {
 				throw new InternalReasonerException( msg, e );
 			}
 			
-			result = new ConstantNodeProvider(abox.addLiteral(canonical));
+			result = new ConstantNodeProvider(abox, canonical);
 		}
 
 		public void visit(AtomDVariable variable) {
@@ -462,14 +474,12 @@ public class Compiler {
 		}
 
 		public void visit(AtomIConstant constant) {
-			abox.copyOnWrite();
-			Individual individual = abox.getIndividual(constant.getValue());
 //			if (individual.isMerged()) {
 //				dependency = individual.getMergeDependency(true);
 //				individual = individual.getSame();
 //			}
 
-			result = new ConstantNodeProvider(individual);
+			result = new ConstantNodeProvider(abox, constant.getValue());
 		}
 
 		public void visit(AtomIVariable variable) {
@@ -6,6 +6,8 @@
 
 package com.clarkparsia.pellet.rules.rete;
 
+import org.mindswap.pellet.ABox;
+
 /**
  * 
  * @author Evren Sirin
@@ -14,4 +16,9 @@ public interface FilterCondition {
 
 	public abstract boolean test(WME wme, Token token);
 
+	/**
+	 * Attaches this condition to the given ABox.
+	 */
+	public abstract void bind(ABox abox);
+
 }
\ No newline at end of file
@@ -6,9 +6,14 @@
 
 package com.clarkparsia.pellet.rules.rete;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
 import com.clarkparsia.pellet.rules.PartialBinding;
 
 /**
@@ -27,35 +32,72 @@ import com.clarkparsia.pellet.rules.PartialBinding;
  */
 public class Interpreter {
 	public AlphaNetwork alphaNet;
+	
+	/**
+	 * The nodes of the network that keep tokens. A beta node is reachable
+	 * from its alpha node as well as from the preceding beta node so the
+	 * memories are collected once instead of traversing the network on every
+	 * restore.
+	 */
+	private final List<BetaMemoryNode> memories = new ArrayList<BetaMemoryNode>();
+	
+	/**
+	 * All the beta nodes of the network
+	 */
+	private final List<BetaNode> betas = new ArrayList<BetaNode>();
 
 	public Interpreter(AlphaNetwork alphaNet) {
 		super();
 
 		this.alphaNet = alphaNet;
+		
+		Set<ReteNode> visited = Collections.newSetFromMap(new IdentityHashMap<ReteNode, Boolean>());
+		for (AlphaNode alpha : alphaNet) {
+	        collectMemories(alpha, visited);
+        }
+	}
+	
+	private void collectMemories(ReteNode node, Set<ReteNode> visited) {
+		for (BetaNode beta : node.getBetas()) {
+	        if (visited.add(beta)) {
+	        	betas.add(beta);
+	        	if (beta instanceof BetaMemoryNode) {
+	        		memories.add((BetaMemoryNode) beta);
+	        	}
+	        	collectMemories(beta, visited);
+	        }
+        }
 	}
 	
+	/**
+	 * Attaches the network to the ABox of the given strategy so that it can be
+	 * reused for a different completion. The memories are emptied and the
+	 * constants used in the rules are resolved in the new ABox.
+	 */
+	public void bind(ContinuousRulesStrategy strategy) {
+		alphaNet.bind(strategy);
+		for (BetaNode beta : betas) {
+	        beta.bind(strategy);
+        }
+	}
 	
 	/**
 	 * Remove all facts from the interpreter, leaving the rules intact.
 	 */
 	public void reset() {
-		for (AlphaNode alpha : alphaNet) {
-	        alpha.reset();
+		for (BetaMemoryNode memory : memories) {
+	        memory.resetMemory();
         }
 	}
 
 	/**
-	 * Restore abox to the given branch
-	 * 
-	 * @return true if a matching TermTuple was removed. False otherwise.
+	 * Restore the memories to the given branch removing the tokens that
+	 * depend on a greater branch. The cost of the restore is proportional to
+	 * the number of tokens added after the branch.
 	 */
 	public void restore(int branch) {
-		for (AlphaNode alpha : alphaNet) {
-	        alpha.unmark();
-        }
-
-		for (AlphaNode alpha : alphaNet) {
-	        alpha.restore(branch);
+		for (BetaMemoryNode memory : memories) {
+	        memory.restoreMemory(branch);
         }
 	}
 
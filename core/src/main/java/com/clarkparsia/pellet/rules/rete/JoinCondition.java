@@ -6,6 +6,8 @@
 
 package com.clarkparsia.pellet.rules.rete;
 
+import org.mindswap.pellet.ABox;
+
 import com.clarkparsia.pellet.rules.rete.NodeProvider.TokenNodeProvider;
 import com.clarkparsia.pellet.rules.rete.NodeProvider.WMENodeProvider;
 
@@ -23,6 +25,11 @@ public class JoinCondition implements FilterCondition {
 		return wmeProvider.getNode(wme, token).getTerm().equals(tokenProvider.getNode(wme, token).getTerm());
 	}
 	
+	@Override
+	public void bind(ABox abox) {
+		// only refers to the nodes in tokens and WMEs
+	}
+	
 	public WMENodeProvider getWME() {
 		return wmeProvider;
 	}
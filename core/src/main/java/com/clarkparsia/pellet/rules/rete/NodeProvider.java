@@ -6,26 +6,49 @@
 
 package com.clarkparsia.pellet.rules.rete;
 
+import org.mindswap.pellet.ABox;
 import org.mindswap.pellet.Node;
 import org.mindswap.pellet.utils.ATermUtils;
 
+import aterm.ATermAppl;
+
 public abstract class NodeProvider {
 	public abstract Node getNode(WME wme, Token token);	
 	
+	/**
+	 * Attaches this provider to the given ABox. Only the providers that
+	 * return a fixed node of the ABox need to be rebound.
+	 */
+	public void bind(ABox abox) {
+	}
+	
 	public static class ConstantNodeProvider extends NodeProvider {
-		private final Node node;
+		private final ATermAppl name;
+		private Node node;
 		
-		public ConstantNodeProvider(Node node) {
-	        this.node = node;
+		public ConstantNodeProvider(ABox abox, ATermAppl name) {
+	        this.name = name;
+	        bind(abox);
         }
 
+		@Override
+		public void bind(ABox abox) {
+			if (ATermUtils.isLiteral(name)) {
+				node = abox.addLiteral(name);	
+			}
+			else {
+				abox.copyOnWrite();
+				node = abox.getIndividual(name);
+			}
+		}
+
 		@Override
 		public Node getNode(WME wme, Token token) {
 			return node;
 		}
 		@Override
         public int hashCode() {
-	        return node.getName().hashCode();
+	        return name.hashCode();
         }
 
 		@Override
@@ -37,12 +60,12 @@ public abstract class NodeProvider {
 		        return false;
 	        }
 	        ConstantNodeProvider other = (ConstantNodeProvider) obj;
-	        return node.getName().equals(other.node.getName());
+	        return name.equals(other.name);
         }
 		
 		@Override
 		public String toString() {
-		    return ATermUtils.toString(node.getName());
+		    return ATermUtils.toString(name);
 		}
 	}
 	
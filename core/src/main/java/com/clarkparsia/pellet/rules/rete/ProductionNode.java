@@ -49,6 +49,11 @@ public abstract class ProductionNode extends BetaNode {
 	    throw new UnsupportedOperationException();
 	}
 	
+	@Override
+	public void bind(ContinuousRulesStrategy strategy) {
+	    this.strategy = strategy;
+	}
+	
 	protected void resetDependencySet(Token token) {
 		boolean doExplanation = strategy.getABox().doExplanation();
 		ds = token.getDepends(doExplanation);
@@ -102,6 +107,12 @@ public abstract class ProductionNode extends BetaNode {
 			this.type = type;
 		}
 		
+		@Override
+		public void bind(ContinuousRulesStrategy strategy) {
+		    super.bind(strategy);
+		    subject.bind(strategy.getABox());
+		}
+		
 		@Override
 		public void activate(Token token) {
 			resetDependencySet(token);
@@ -127,6 +138,13 @@ public abstract class ProductionNode extends BetaNode {
 			this.subject = subject;
 			this.object = object;
 		}		
+		
+		@Override
+		public void bind(ContinuousRulesStrategy strategy) {
+		    super.bind(strategy);
+		    subject.bind(strategy.getABox());
+		    object.bind(strategy.getABox());
+		}
 	}
 	
 	public static class Edge extends Binary {
@@ -203,6 +221,14 @@ public abstract class ProductionNode extends BetaNode {
 			this.args = args;
 		}
 		
+		@Override
+		public void bind(ContinuousRulesStrategy strategy) {
+		    super.bind(strategy);
+		    for (NodeProvider arg : args.values()) {
+		    	arg.bind(strategy.getABox());
+		    }
+		}
+		
 		@Override
 		public void activate(Token token) {
 			resetDependencySet(token);
@@ -11,6 +11,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.logging.Logger;
 
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
+
 /**
  * 
  * @author Evren Sirin
@@ -56,6 +58,14 @@ public abstract class ReteNode {
 //		}
 	}
 	
+	/**
+	 * Attaches this node to the ABox of the given completion strategy. Nodes
+	 * that refer to the ABox or the strategy override this method so that a
+	 * compiled network can be reused by another completion.
+	 */
+	public void bind(ContinuousRulesStrategy strategy) {
+	}
+	
 	public void mark() {
 		setMark(true);
 	}
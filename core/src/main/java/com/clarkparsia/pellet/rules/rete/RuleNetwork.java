@@ -0,0 +1,105 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.rules.rete;
+
+import java.util.List;
+import java.util.Set;
+
+import org.mindswap.pellet.utils.Pair;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.rules.ContinuousRulesStrategy;
+import com.clarkparsia.pellet.rules.model.Rule;
+
+/**
+ * <p>
+ * Title: Rule Network
+ * </p>
+ * <p>
+ * Description: A compiled RETE network that is kept by the KB and reused by
+ * the completions of different ABoxes. A network can be used by only one
+ * completion at a time. When a completion acquires the network it is attached
+ * to the ABox of that completion, i.e. the memories are emptied, the rule
+ * constants are resolved in the new ABox and the rules that could not be
+ * compiled into the network are passed to the completion strategy again.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class RuleNetwork {
+	private final Interpreter interpreter;
+	private final List<Pair<Rule, Set<ATermAppl>>> unsafeRules;
+	private final boolean doExplanation;
+	private ContinuousRulesStrategy owner;
+
+	/**
+	 * Creates a network from the rules compiled by the given compiler. The
+	 * network is initially in use by the strategy of the compiler.
+	 */
+	public RuleNetwork(Compiler compiler, boolean doExplanation) {
+		this.interpreter = new Interpreter(compiler.getAlphaNet());
+		this.unsafeRules = compiler.getUnsafeRules();
+		this.doExplanation = doExplanation;
+		this.owner = compiler.strategy;
+
+		if (doExplanation) {
+			interpreter.alphaNet.setDoExplanation(true);
+		}
+	}
+
+	public Interpreter getInterpreter() {
+		return interpreter;
+	}
+
+	/**
+	 * Returns <code>true</code> if the network was compiled with the
+	 * explanations of the rules.
+	 */
+	public boolean isDoExplanation() {
+		return doExplanation;
+	}
+
+	/**
+	 * Attaches the network to the given strategy unless the network is
+	 * already in use by another completion.
+	 *
+	 * @return <code>true</code> if the network can be used by the strategy
+	 */
+	public synchronized boolean acquire(ContinuousRulesStrategy strategy) {
+		if (owner != null) {
+			return false;
+		}
+
+		owner = strategy;
+		boolean bound = false;
+		try {
+			interpreter.bind(strategy);
+			for (Pair<Rule, Set<ATermAppl>> rule : unsafeRules) {
+				strategy.addUnsafeRule(rule.first, rule.second);
+            }
+			bound = true;
+		}
+		finally {
+			if (!bound) {
+				owner = null;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Makes the network available to other completions.
+	 */
+	public synchronized void release(ContinuousRulesStrategy strategy) {
+		if (owner == strategy) {
+			owner = null;
+		}
+	}
+}
@@ -22,6 +22,12 @@ public abstract class Token {
 
 	public abstract boolean dependsOn(int branch);
 
+	/**
+	 * Returns the greatest branch any of the WMEs in this token depends on or
+	 * -1 if the token does not depend on any branch.
+	 */
+	public abstract int getMaxBranch();
+
 	private static class ListToken extends Token  {
 		private ListToken next;
 		private WME wme;
@@ -74,6 +80,18 @@ public abstract class Token {
 		    return false;
 	    }
 	    
+	    /**
+		 * {@inheritDoc}
+		 */
+	    @Override
+	    public int getMaxBranch() {
+	    	int max = -1;
+	    	for (ListToken t = this; t != null; t = t.next) {	        
+	            max = Math.max(max, t.wme.getDepends().max());
+			}
+		    return max;
+	    }
+	    
 	    @Override
 	    public String toString() {
 	        StringBuilder sb = new StringBuilder();
@@ -133,6 +151,18 @@ public abstract class Token {
 		    return false;
 	    }
 	    
+	    /**
+		 * {@inheritDoc}
+		 */
+	    @Override
+	    public int getMaxBranch() {
+	    	int max = -1;
+	    	for (WME wme : wmes) {      
+	            max = Math.max(max, wme.getDepends().max());
+			}
+		    return max;
+	    }
+	    
 	    @Override
 	    public String toString() {
 	        return Arrays.toString(wmes);
@@ -122,6 +122,16 @@ public abstract class AbstractABoxEngineWrapper implements QueryExec {
 		return newResult;
 	}
 
+	/**
+	 * {@inheritDoc} ABox engines compute the whole answer set first and then
+	 * copy it to the given result.
+	 */
+	public void exec(Query query, QueryResult result) {
+		for( ResultBinding binding : exec( query ) ) {
+			result.add( binding );
+		}
+	}
+
 	private final void partitionQuery(final Query query) {
 
 		schemaQuery = new QueryImpl(query);
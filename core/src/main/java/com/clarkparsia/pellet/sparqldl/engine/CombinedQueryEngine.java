@@ -86,7 +86,11 @@ public class CombinedQueryEngine implements QueryExec {
 
 	private Set<ATermAppl>				downMonotonic;
 
-	private void prepare(Query query) {
+	private Timer						queryTimer;
+
+	private ParallelQueryExecutor		unionExecutor;
+
+	private void prepare(Query query, QueryResult result) {
 		if( log.isLoggable( Level.FINE ) ) {
 			log.fine( "Preparing plan ..." );
 		}
@@ -96,7 +100,9 @@ public class CombinedQueryEngine implements QueryExec {
 			throw new RuntimeException( "No input data set is given for query!" );
 		}
 
-		this.result = new QueryResultImpl( query );
+		this.result = result;
+		// a query monitor stops the query by interrupting the main timer
+		this.queryTimer = kb.timers.mainTimer;
 
 		this.oldQuery = query;
 		this.query = setupCores( query );
@@ -208,6 +214,21 @@ public class CombinedQueryEngine implements QueryExec {
 		return transformedQuery;
 	}
 
+	/**
+	 * Returns the data range of a <code>Datatype</code> atom on the given
+	 * literal variable or <code>null</code> if there is no such atom.
+	 */
+	private ATermAppl getDataRange(final Query query, final ATermAppl var) {
+		for( final QueryAtom atom : query.findAtoms( QueryPredicate.Datatype, var, null ) ) {
+			final ATermAppl dataRange = atom.getArguments().get( 1 );
+			if( !ATermUtils.isVar( dataRange ) ) {
+				return dataRange;
+			}
+		}
+
+		return null;
+	}
+
 	// down-monotonic variables = Class variables in Type atoms and Property
 	// variables in PropertyValue atoms
 	private void setupDownMonotonicVariables(final Query query) {
@@ -241,22 +262,40 @@ public class CombinedQueryEngine implements QueryExec {
 	 * {@inheritDoc}
 	 */
 	public QueryResult exec(Query query) {
+		QueryResult result = new QueryResultImpl( query );
+
+		exec( query, result );
+
+		return result;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void exec(Query query, QueryResult result) {
 		if( log.isLoggable( Level.FINE ) ) {
 			log.fine( "Executing query " + query );
 		}
 
 		Timer timer = new Timer( "CombinedQueryEngine" );
 		timer.start();
-		prepare( query );
-		branches = 0;
-		exec( new ResultBindingImpl() );
-		timer.stop();
+		try {
+			prepare( query, result );
+			branches = 0;
+			exec( new ResultBindingImpl() );
+		} finally {
+			timer.stop();
+			this.result = null;
+			this.queryTimer = null;
+			if( unionExecutor != null ) {
+				unionExecutor.close();
+				unionExecutor = null;
+			}
+		}
 
 		if( log.isLoggable( Level.FINE ) ) {
 			log.log( Level.FINE, "#B=" + branches + ", time=" + timer.getLast() + " ms." );
 		}
-
-		return result;
 	}
 
 	private long	branches;
@@ -266,6 +305,9 @@ public class CombinedQueryEngine implements QueryExec {
 			branches++;
 		}
 
+		// stop if the query timed out or has been aborted
+		queryTimer.check();
+
 		if( !plan.hasNext() ) {
 			// TODO if result vars are not same as dist vars.
 			if( !binding.isEmpty() || result.isEmpty() ) {
@@ -464,10 +506,28 @@ public class CombinedQueryEngine implements QueryExec {
 							}
 						}
 						else {
-							for( final ATermAppl subject : kb.getIndividuals() ) {
-								for( final ATermAppl object : kb.getPropertyValues( property,
-										subject ) ) {
-									runNext( binding, arguments, subject, property, object );
+							final ATermAppl dataRange = kb.isDatatypeProperty( property )
+								? getDataRange( plan.getQuery(), pvIL )
+								: null;
+
+							if( dataRange != null ) {
+								// only the values in the data range are
+								// retrieved, the datatype atom is still checked
+								for( final Entry<ATermAppl, List<ATermAppl>> entry : kb
+										.getDataPropertyValuesInRange( property, dataRange )
+										.entrySet() ) {
+									for( final ATermAppl object : entry.getValue() ) {
+										runNext( binding, arguments, entry.getKey(), property,
+												object );
+									}
+								}
+							}
+							else {
+								for( final ATermAppl subject : kb.getIndividuals() ) {
+									for( final ATermAppl object : kb.getPropertyValues(
+											property, subject ) ) {
+										runNext( binding, arguments, subject, property, object );
+									}
 								}
 							}
 						}
@@ -1187,7 +1247,9 @@ public class CombinedQueryEngine implements QueryExec {
 		}
 		
 		case Union: {
-			for( List<QueryAtom> atoms : ((UnionQueryAtom) current).getUnion() ) {
+			List<List<QueryAtom>> union = ((UnionQueryAtom) current).getUnion();
+			List<Query> newQueries = new ArrayList<Query>( union.size() );
+			for( List<QueryAtom> atoms : union ) {
 				Query newQuery = new QueryImpl( kb, true );			
 				for( QueryAtom atom : atoms ) {
 					newQuery.add( atom.apply( binding ) );
@@ -1196,13 +1258,31 @@ public class CombinedQueryEngine implements QueryExec {
 					newQuery.addDistVar( var, VarType.INDIVIDUAL );
 					newQuery.addResultVar( var );
 				}
-				
-				QueryExec newEngine = new CombinedQueryEngine();
-				
-				QueryResult newResult = newEngine.exec( newQuery );	
-				for( ResultBinding newBinding : newResult ) {
-					newBinding.setValues( binding );
-					exec( newBinding );
+				newQueries.add( newQuery );
+			}
+
+			if( QueryEngine.isParallel( newQueries ) ) {
+				// the branches are answered concurrently but the answers are
+				// processed in order by this thread
+				if( unionExecutor == null ) {
+					unionExecutor = new ParallelQueryExecutor( kb, PelletOptions.QUERY_THREADS );
+				}
+				for( QueryResult newResult : unionExecutor.exec( newQueries ) ) {
+					for( ResultBinding newBinding : newResult ) {
+						newBinding.setValues( binding );
+						exec( newBinding );
+					}
+				}
+			}
+			else {
+				for( Query newQuery : newQueries ) {
+					QueryExec newEngine = new CombinedQueryEngine();
+
+					QueryResult newResult = newEngine.exec( newQuery );	
+					for( ResultBinding newBinding : newResult ) {
+						newBinding.setValues( binding );
+						exec( newBinding );
+					}
 				}
 			}
 			break;
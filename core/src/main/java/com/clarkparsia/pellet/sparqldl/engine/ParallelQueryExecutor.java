@@ -0,0 +1,297 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.sparqldl.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.exceptions.InternalReasonerException;
+import org.mindswap.pellet.utils.Timer;
+
+import com.clarkparsia.pellet.sparqldl.model.Query;
+import com.clarkparsia.pellet.sparqldl.model.QueryResult;
+
+/**
+ * <p>
+ * Title: Concurrent evaluation of independent queries
+ * </p>
+ * <p>
+ * Description: Evaluates a list of queries that do not depend on each other
+ * concurrently. The first query is answered by the calling thread against the
+ * original KB and the remaining ones by worker threads, each of which uses its
+ * own copy of the KB (see {@link KnowledgeBase#copyForQuery()}) so the tableau
+ * state of the threads is never shared. The KB copies are created on first use
+ * and reused until the executor is closed. While the calling thread waits for
+ * the workers it keeps checking the main timer of the original KB so a
+ * timeout or abort stops the workers too.
+ * </p>
+ * <p>
+ * The KB copies share the TBox, the RBox and the taxonomy with the original
+ * KB, so none of them may be modified while the workers run. Workers are
+ * started only if the KB has already been realized; otherwise the queries are
+ * answered sequentially by the calling thread since the workers would try to
+ * build the shared taxonomy themselves.
+ * The queries should not be answered by temporarily changing the RBox, which
+ * is what {@link QueryEngine#execBooleanABoxQuery(Query)} does for a query
+ * without constants, see {@link QueryEngine#isParallel(List)}.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class ParallelQueryExecutor {
+	public static final Logger			log				= Logger.getLogger( ParallelQueryExecutor.class
+																.getName() );
+
+	/**
+	 * How often (in milliseconds) the calling thread checks the main timer of
+	 * the KB while waiting for the workers
+	 */
+	private static final long			CHECK_INTERVAL	= 100;
+
+	private final KnowledgeBase			kb;
+
+	private final int					threads;
+
+	private final List<KnowledgeBase>	workers			= new ArrayList<KnowledgeBase>();
+
+	private ExecutorService				executor;
+
+	/**
+	 * @param kb
+	 *            KB the queries are answered against
+	 * @param threads
+	 *            maximum number of threads (including the calling thread)
+	 */
+	public ParallelQueryExecutor(KnowledgeBase kb, int threads) {
+		this.kb = kb;
+		this.threads = Math.max( 1, threads );
+	}
+
+	/**
+	 * Returns <code>true</code> if the current thread is one of the worker
+	 * threads. Queries answered by workers are not split further.
+	 */
+	public static boolean isWorkerThread() {
+		return Thread.currentThread() instanceof WorkerThread;
+	}
+
+	/**
+	 * Executes the given queries and returns their results in the same
+	 * order. The first query is answered by the calling thread.
+	 *
+	 * @param queries
+	 *            independent queries
+	 * @return results of the queries
+	 */
+	public List<QueryResult> exec(final List<Query> queries) {
+		final Batch batch = submit( queries.subList( 1, queries.size() ) );
+
+		boolean success = false;
+		try {
+			QueryResult first = execQuery( queries.get( 0 ) );
+
+			List<QueryResult> results = new ArrayList<QueryResult>( queries.size() );
+			results.add( first );
+			results.addAll( batch.await() );
+
+			success = true;
+
+			return results;
+		} finally {
+			if( !success ) {
+				batch.cancel();
+			}
+		}
+	}
+
+	/**
+	 * Starts answering the given queries in worker threads. The KB of each
+	 * query is changed to the copy used by the worker that answers it. If the
+	 * KB has not been realized the queries are answered sequentially by
+	 * {@link Batch#await()} instead so the taxonomy shared with the copies is
+	 * not built by several threads at the same time.
+	 *
+	 * @param queries
+	 *            independent queries
+	 * @return the batch that is used to collect the results
+	 */
+	public Batch submit(final List<Query> queries) {
+		final int n = queries.size();
+		final int workerCount = Math.min( threads - 1, n );
+		final Batch batch = new Batch( n );
+
+		if( workerCount <= 0 || !kb.isRealized() ) {
+			// no worker threads, the results will be computed by await()
+			batch.queries = queries;
+			return batch;
+		}
+
+		if( executor == null ) {
+			executor = Executors.newFixedThreadPool( threads - 1, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new WorkerThread( r );
+					t.setDaemon( true );
+					return t;
+				}
+			} );
+		}
+
+		while( workers.size() < workerCount ) {
+			workers.add( kb.copyForQuery() );
+		}
+
+		// query i is answered by worker i % workerCount so a KB copy is
+		// never used by two threads at the same time
+		for( int w = 0; w < workerCount; w++ ) {
+			final int worker = w;
+			final KnowledgeBase workerKB = workers.get( w );
+			batch.futures.add( executor.submit( new Callable<Void>() {
+				public Void call() {
+					for( int i = worker; i < n; i += workerCount ) {
+						Query query = queries.get( i );
+						query.setKB( workerKB );
+						batch.results[i] = execQuery( query );
+					}
+					return null;
+				}
+			} ) );
+		}
+
+		return batch;
+	}
+
+	/**
+	 * Stops the worker threads and releases the KB copies.
+	 */
+	public void close() {
+		if( executor != null ) {
+			executor.shutdownNow();
+			executor = null;
+		}
+		workers.clear();
+	}
+
+	/**
+	 * Results of a set of queries submitted to the workers.
+	 */
+	public class Batch {
+		private final QueryResult[]		results;
+
+		private final List<Future<?>>	futures	= new ArrayList<Future<?>>();
+
+		private List<Query>				queries;
+
+		private Batch(int size) {
+			results = new QueryResult[size];
+		}
+
+		/**
+		 * Waits until all the queries in this batch are answered. While
+		 * waiting the main timer of the original KB is checked so that a
+		 * timeout or abort stops the workers as well.
+		 */
+		public List<QueryResult> await() {
+			if( queries != null ) {
+				// computed sequentially by the calling thread
+				for( int i = 0; i < results.length; i++ ) {
+					results[i] = execQuery( queries.get( i ) );
+				}
+				return toList( results );
+			}
+
+			boolean success = false;
+			try {
+				Timer timer = kb.timers.mainTimer;
+				for( Future<?> future : futures ) {
+					while( true ) {
+						try {
+							future.get( CHECK_INTERVAL, TimeUnit.MILLISECONDS );
+							break;
+						} catch( TimeoutException e ) {
+							timer.check();
+						}
+					}
+				}
+
+				success = true;
+			} catch( InterruptedException e ) {
+				throw new InternalReasonerException( e );
+			} catch( ExecutionException e ) {
+				Throwable cause = e.getCause();
+				if( cause instanceof RuntimeException )
+					throw (RuntimeException) cause;
+				if( cause instanceof Error )
+					throw (Error) cause;
+				throw new InternalReasonerException( cause );
+			} finally {
+				if( !success ) {
+					cancel();
+				}
+			}
+
+			return toList( results );
+		}
+
+		/**
+		 * Interrupts the running workers and waits until they finish so that
+		 * no thread is reasoning when the control returns to the caller.
+		 */
+		public void cancel() {
+			if( futures.isEmpty() )
+				return;
+
+			for( KnowledgeBase worker : workers ) {
+				worker.timers.interrupt();
+			}
+
+			for( Future<?> future : futures ) {
+				try {
+					future.get();
+				} catch( Exception e ) {
+					if( log.isLoggable( Level.FINER ) )
+						log.finer( "Worker stopped: " + e );
+				}
+			}
+			futures.clear();
+
+			// the interrupt flags may not have been consumed by every worker
+			for( KnowledgeBase worker : workers ) {
+				worker.timers.mainTimer.clearInterrupt();
+			}
+		}
+	}
+
+	private static class WorkerThread extends Thread {
+		public WorkerThread(Runnable r) {
+			super( r, "sparqldl-worker" );
+		}
+	}
+
+	private QueryResult execQuery(Query query) {
+		return QueryEngine.getQueryExec().exec( query );
+	}
+
+	private static List<QueryResult> toList(QueryResult[] results) {
+		List<QueryResult> list = new ArrayList<QueryResult>( results.length );
+		for( QueryResult result : results ) {
+			list.add( result );
+		}
+		return list;
+	}
+}
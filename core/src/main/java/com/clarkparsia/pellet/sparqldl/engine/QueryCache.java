@@ -0,0 +1,486 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.sparqldl.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.exceptions.UnsupportedQueryException;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.sparqldl.model.Query;
+import com.clarkparsia.pellet.sparqldl.model.QueryAtom;
+import com.clarkparsia.pellet.sparqldl.model.QueryResult;
+import com.clarkparsia.pellet.sparqldl.model.QueryResultImpl;
+import com.clarkparsia.pellet.sparqldl.model.ResultBinding;
+import com.clarkparsia.pellet.utils.TermFactory;
+
+/**
+ * <p>
+ * Title: Query answer cache
+ * </p>
+ * <p>
+ * Description: Caches the answers of the queries executed against a KB. A
+ * query that was answered before is answered from the cache. Otherwise, if
+ * the query is subsumed by a cached query (see {@link QuerySubsumption}) such
+ * that the answer variables are mapped to themselves, every answer of the
+ * query is one of the cached answers of that query and only those candidate
+ * answers are checked. The cache is cleared when a change to the KB is
+ * processed (see {@link KnowledgeBase#getVersion()}) and the least recently
+ * used answers are removed when the estimated memory use exceeds
+ * {@link PelletOptions#QUERY_CACHE_MAX_MEMORY}. Queries with filters or
+ * parameters are not cached.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class QueryCache {
+	public static final Logger							log						= Logger
+																						.getLogger( QueryCache.class
+																								.getName() );
+
+	/**
+	 * Rough memory estimates (in bytes) used for the eviction. The terms
+	 * themselves are shared with the KB so only the bindings are counted.
+	 */
+	private static final int							ENTRY_OVERHEAD			= 256;
+
+	private static final int							BINDING_OVERHEAD		= 64;
+
+	private static final int							VALUE_OVERHEAD			= 40;
+
+	/**
+	 * The maximum number of subsumption checks tried for a query that is not
+	 * in the cache
+	 */
+	private static final int							MAX_SUBSUMPTION_CHECKS	= 3;
+
+	/**
+	 * Set while the cache itself executes queries (subsumption checks are
+	 * answered against temporary KBs) so these queries are not cached
+	 */
+	private static final ThreadLocal<Boolean>			bypass					= new ThreadLocal<Boolean>();
+
+	private final KnowledgeBase							kb;
+
+	private final LinkedHashMap<Key, Entry>				entries					= new LinkedHashMap<Key, Entry>(
+																						16, 0.75f,
+																						true );
+
+	private int											version;
+
+	private long										memory;
+
+	private int											hits;
+
+	private int											subsumptionHits;
+
+	private int											misses;
+
+	/**
+	 * Creates an empty cache for the given KB. The cache of a KB is kept by
+	 * the KB itself (see {@link KnowledgeBase#getQueryCache()}) so it is
+	 * garbage collected together with the KB.
+	 */
+	public QueryCache(KnowledgeBase kb) {
+		this.kb = kb;
+		this.version = kb.getVersion();
+	}
+
+	/**
+	 * Returns the cache for the given KB creating it if necessary.
+	 */
+	public static QueryCache getCache(KnowledgeBase kb) {
+		return kb.getQueryCache();
+	}
+
+	/**
+	 * Returns <code>true</code> if the answers of the query should be looked
+	 * up in and added to the cache.
+	 */
+	public static boolean isCacheable(Query query) {
+		return PelletOptions.USE_QUERY_CACHE && bypass.get() == null && query.getKB() != null
+				&& !query.getAtoms().isEmpty() && query.getFilter() == null
+				&& (query.getQueryParameters() == null || query.getQueryParameters().entrySet()
+						.isEmpty());
+	}
+
+	/**
+	 * Answers the query using the cache if possible. Otherwise, the query is
+	 * executed and the answers are added to the cache.
+	 */
+	public QueryResult exec(Query query) {
+		QueryResult result = lookup( query );
+		if( result != null )
+			return result;
+
+		result = QueryEngine.execUncached( query );
+
+		if( fits( result.size(), query ) ) {
+			QueryResultImpl copy = new QueryResultImpl( query );
+			for( ResultBinding binding : result ) {
+				copy.add( binding.duplicate() );
+			}
+			put( query, copy );
+			result = copy;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Answers the query using the cache if possible adding each answer to the
+	 * given result. Otherwise, the query is executed and the answers are
+	 * added to the cache once all of them are computed.
+	 */
+	public void exec(Query query, QueryResult result) {
+		QueryResult cached = lookup( query );
+		if( cached != null ) {
+			for( ResultBinding binding : cached ) {
+				result.add( binding );
+			}
+			return;
+		}
+
+		Recorder recorder = new Recorder( query, result );
+
+		QueryEngine.execUncached( query, recorder );
+
+		if( recorder.answers != null ) {
+			put( query, recorder.answers );
+		}
+	}
+
+	/**
+	 * Removes all the cached answers.
+	 */
+	public synchronized void clear() {
+		entries.clear();
+		memory = 0;
+	}
+
+	/**
+	 * Returns the number of cached queries.
+	 */
+	public synchronized int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of queries answered with the cached answers of the
+	 * same query.
+	 */
+	public synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of queries answered by checking the cached answers
+	 * of a subsuming query.
+	 */
+	public synchronized int getSubsumptionHits() {
+		return subsumptionHits;
+	}
+
+	/**
+	 * Returns the number of queries that could not be answered from the
+	 * cache.
+	 */
+	public synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * Returns a new result for the query computed from the cache or
+	 * <code>null</code> if the cache cannot answer the query.
+	 */
+	private QueryResult lookup(Query query) {
+		// process any pending change so the version is up to date
+		kb.ensureConsistency();
+
+		List<Entry> candidates;
+		synchronized( this ) {
+			if( version != kb.getVersion() ) {
+				if( log.isLoggable( Level.FINE ) )
+					log.fine( "KB changed, clearing " + entries.size() + " cached queries" );
+				clear();
+				version = kb.getVersion();
+			}
+
+			Entry entry = entries.get( new Key( query ) );
+			if( entry != null ) {
+				hits++;
+				return copy( query, entry.answers );
+			}
+
+			candidates = getCandidates( query );
+		}
+
+		for( Entry candidate : candidates ) {
+			if( isSubsumedBy( query, candidate.query ) ) {
+				QueryResult result = filter( query, candidate.answers );
+
+				synchronized( this ) {
+					subsumptionHits++;
+				}
+
+				if( log.isLoggable( Level.FINE ) )
+					log.fine( "Answered " + query + " using the answers of " + candidate.query );
+
+				put( query, result );
+
+				return copy( query, result );
+			}
+		}
+
+		synchronized( this ) {
+			misses++;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Returns the cached queries whose answers may contain the answers of the
+	 * given query, smallest answer sets first.
+	 */
+	private List<Entry> getCandidates(Query query) {
+		// without distinct the number of times an answer is repeated may
+		// differ from the subsuming query
+		if( !query.isDistinct() )
+			return Collections.emptyList();
+
+		for( QueryAtom atom : query.getAtoms() ) {
+			switch ( atom.getPredicate() ) {
+			case Type:
+			case PropertyValue:
+			case SameAs:
+			case DifferentFrom:
+				break;
+			default:
+				// not supported by QuerySubsumption
+				return Collections.emptyList();
+			}
+		}
+
+		Set<ATermAppl> resultVars = new HashSet<ATermAppl>( query.getResultVars() );
+		Set<ATermAppl> constants = query.getConstants();
+
+		List<Entry> candidates = new ArrayList<Entry>();
+		for( Entry entry : entries.values() ) {
+			Query cached = entry.query;
+			if( cached.getKB() == kb
+					&& resultVars.equals( new HashSet<ATermAppl>( cached.getResultVars() ) )
+					&& constants.containsAll( cached.getConstants() ) ) {
+				candidates.add( entry );
+			}
+		}
+
+		Collections.sort( candidates, new Comparator<Entry>() {
+			public int compare(Entry e1, Entry e2) {
+				return e1.answers.size() - e2.answers.size();
+			}
+		} );
+
+		return candidates.size() > MAX_SUBSUMPTION_CHECKS
+			? candidates.subList( 0, MAX_SUBSUMPTION_CHECKS )
+			: candidates;
+	}
+
+	/**
+	 * Checks if the query is subsumed by the cached query with a mapping that
+	 * maps each answer variable to itself.
+	 */
+	private boolean isSubsumedBy(Query query, Query cached) {
+		QueryResult mappings;
+		bypass.set( Boolean.TRUE );
+		try {
+			mappings = QuerySubsumption.getSubsumptionMappings( query, cached );
+		} catch( UnsupportedQueryException e ) {
+			return false;
+		} finally {
+			bypass.remove();
+		}
+
+		for( ResultBinding mapping : mappings ) {
+			boolean identity = true;
+			for( ATermAppl var : query.getResultVars() ) {
+				// QuerySubsumption freezes the variables of the subsumed query
+				// into individuals with the same name
+				if( !TermFactory.term( var.toString() ).equals( mapping.getValue( var ) ) ) {
+					identity = false;
+					break;
+				}
+			}
+
+			if( identity )
+				return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns the candidate answers that are answers of the query.
+	 */
+	private QueryResult filter(Query query, QueryResult candidates) {
+		QueryResultImpl result = new QueryResultImpl( query );
+		for( ResultBinding candidate : candidates ) {
+			if( !QueryEngine.execUncached( query.apply( candidate ) ).isEmpty() ) {
+				result.add( candidate.duplicate() );
+			}
+		}
+		return result;
+	}
+
+	private synchronized void put(Query query, QueryResult answers) {
+		// the KB might have changed while the query was executed
+		if( version != kb.getVersion() || !fits( answers.size(), query ) )
+			return;
+
+		Entry entry = new Entry( query, answers );
+		Entry old = entries.put( new Key( query ), entry );
+		if( old != null )
+			memory -= old.memory;
+		memory += entry.memory;
+
+		for( Iterator<Entry> i = entries.values().iterator(); memory > PelletOptions.QUERY_CACHE_MAX_MEMORY
+				&& i.hasNext(); ) {
+			Entry eldest = i.next();
+			memory -= eldest.memory;
+			i.remove();
+		}
+	}
+
+	private static QueryResult copy(Query query, QueryResult answers) {
+		QueryResultImpl result = new QueryResultImpl( query );
+		for( ResultBinding binding : answers ) {
+			result.add( binding.duplicate() );
+		}
+		return result;
+	}
+
+	private static long estimate(int size, Query query) {
+		return ENTRY_OVERHEAD + (long) size
+				* (BINDING_OVERHEAD + VALUE_OVERHEAD * query.getResultVars().size());
+	}
+
+	private static boolean fits(int size, Query query) {
+		return estimate( size, query ) <= PelletOptions.QUERY_CACHE_MAX_MEMORY;
+	}
+
+	private static class Entry {
+		private final Query			query;
+
+		private final QueryResult	answers;
+
+		private final long			memory;
+
+		public Entry(Query query, QueryResult answers) {
+			this.query = query;
+			this.answers = answers;
+			this.memory = estimate( answers.size(), query );
+		}
+	}
+
+	/**
+	 * The parts of a query that determine its answers
+	 */
+	private static class Key {
+		private final List<ATermAppl>	resultVars;
+
+		private final List<QueryAtom>	atoms;
+
+		private final Set<ATermAppl>	distVars;
+
+		private final boolean			distinct;
+
+		public Key(Query query) {
+			this.resultVars = new ArrayList<ATermAppl>( query.getResultVars() );
+			this.atoms = new ArrayList<QueryAtom>( query.getAtoms() );
+			this.distVars = new HashSet<ATermAppl>( query.getDistVars() );
+			this.distinct = query.isDistinct();
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * (31 * atoms.hashCode() + resultVars.hashCode()) + (distinct
+				? 1
+				: 0);
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if( this == obj )
+				return true;
+			if( !(obj instanceof Key) )
+				return false;
+			Key other = (Key) obj;
+			return distinct == other.distinct && resultVars.equals( other.resultVars )
+					&& atoms.equals( other.atoms ) && distVars.equals( other.distVars );
+		}
+	}
+
+	/**
+	 * Passes the answers to the actual result and keeps a copy of them as
+	 * long as they fit in the cache.
+	 */
+	private static class Recorder implements QueryResult {
+		private final Query			query;
+
+		private final QueryResult	result;
+
+		private QueryResultImpl		answers;
+
+		public Recorder(Query query, QueryResult result) {
+			this.query = query;
+			this.result = result;
+			this.answers = new QueryResultImpl( query );
+		}
+
+		public void add(ResultBinding binding) {
+			if( answers != null ) {
+				answers.add( binding.duplicate() );
+				if( !fits( answers.size(), query ) )
+					answers = null;
+			}
+			result.add( binding );
+		}
+
+		public List<ATermAppl> getResultVars() {
+			return result.getResultVars();
+		}
+
+		public boolean isDistinct() {
+			return result.isDistinct();
+		}
+
+		public boolean isEmpty() {
+			return result.isEmpty();
+		}
+
+		public int size() {
+			return result.size();
+		}
+
+		public Iterator<ResultBinding> iterator() {
+			return result.iterator();
+		}
+	}
+}
@@ -10,14 +10,18 @@ package com.clarkparsia.pellet.sparqldl.engine;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.mindswap.pellet.KnowledgeBase;
 import org.mindswap.pellet.exceptions.UnsupportedFeatureException;
 import org.mindswap.pellet.utils.ATermUtils;
 import org.mindswap.pellet.utils.KBOperation;
+import org.mindswap.pellet.utils.KBStatistics;
 import org.mindswap.pellet.utils.SizeEstimate;
 
 import aterm.ATermAppl;
@@ -52,6 +56,12 @@ public class QueryCost {
 
 	private SizeEstimate	estimate;
 
+	/**
+	 * Classes that variables are known to be instances of because of a
+	 * preceding type atom in the query ordering being estimated.
+	 */
+	private Map<ATermAppl, ATermAppl>	boundTypes	= Collections.emptyMap();
+
 	public QueryCost(KnowledgeBase kb) {
 		this.kb = kb;
 		this.estimate = kb.getSizeEstimate();
@@ -73,20 +83,39 @@ public class QueryCost {
 		
 		Set<ATermAppl> lastBound = new HashSet<ATermAppl>( bound );
 		List<Set<ATermAppl>> boundList = new ArrayList<Set<ATermAppl>>(n);
+		Map<ATermAppl, ATermAppl> lastTypes = Collections.emptyMap();
+		List<Map<ATermAppl, ATermAppl>> typesList = new ArrayList<Map<ATermAppl, ATermAppl>>(n);
 		for( int i = 0; i < n; i++ ) {
 			QueryAtom atom = atoms.get( i );
 			
 			boundList.add( lastBound );
+			typesList.add( lastTypes );
 			
 			lastBound = new HashSet<ATermAppl>( lastBound );
 			lastBound.addAll( atom.getArguments() );	
+			
+			switch ( atom.getPredicate() ) {
+			case Type:
+			case DirectType:
+				ATermAppl instance = atom.getArguments().get( 0 );
+				ATermAppl clazz = atom.getArguments().get( 1 );
+				if( !isConstant( instance ) && isConstant( clazz ) ) {
+					lastTypes = new HashMap<ATermAppl, ATermAppl>( lastTypes );
+					lastTypes.put( instance, clazz );
+				}
+				break;
+			default:
+				break;
+			}
 		}
 		
 		
 		for( int i = n - 1; i >= 0; i-- ) {
 			QueryAtom atom = atoms.get( i );
 
+			boundTypes = typesList.get( i );
 			estimate( atom, boundList.get( i ) );
+			boundTypes = Collections.emptyMap();
 
 			totalBranchCount *= branchCount;
 			totalStaticCount = staticCost + branchCount * totalStaticCount;
@@ -163,7 +192,7 @@ public class QueryCost {
 					if( bound.contains( subject ) ) {
 						staticCost = estimate.getCost( KBOperation.GET_PROPERTY_VALUE );
 						branchCount = isConstant( predicate )
-							? estimate.avg( predicate )
+							? avgObjects( subject, predicate )
 							: estimate.avgSubjectsPerProperty();
 					}
 					else if( bound.contains( object ) ) {
@@ -809,6 +838,29 @@ public class QueryCost {
 		return staticCost;
 	}
 
+	/**
+	 * Estimates the number of values the subject has for the given predicate.
+	 * If the subject variable has been bound by a type atom and the
+	 * statistics for the KB are available then the number of assertions for
+	 * the instances of that class is used, otherwise the average over all the
+	 * subjects of the predicate is used.
+	 */
+	private double avgObjects(ATermAppl subject, ATermAppl predicate) {
+		ATermAppl clazz = boundTypes.get( subject );
+		if( clazz != null ) {
+			KBStatistics statistics = kb.getStatistics();
+			int pairs = statistics.getCorrelation( clazz, predicate );
+			if( pairs >= 0 ) {
+				int instances = statistics.getInstanceCount( clazz, false );
+				return instances == 0
+					? 0
+					: (double) pairs / instances;
+			}
+		}
+
+		return estimate.avg( predicate );
+	}
+
 	private ATermAppl inv(ATermAppl pred) {
 		return kb.getRBox().getRole( pred ).getInverse().getName();
 	}
@@ -34,6 +34,7 @@ import com.clarkparsia.pellet.sparqldl.model.QueryResult;
 import com.clarkparsia.pellet.sparqldl.model.QueryResultImpl;
 import com.clarkparsia.pellet.sparqldl.model.ResultBinding;
 import com.clarkparsia.pellet.sparqldl.model.ResultBindingImpl;
+import com.clarkparsia.pellet.sparqldl.model.StreamingQueryResult;
 import com.clarkparsia.pellet.sparqldl.model.UnionQueryAtom;
 import org.mindswap.pellet.ABox;
 import org.mindswap.pellet.DependencySet;
@@ -90,11 +91,337 @@ public class QueryEngine {
 	}
 
 	public static QueryResult exec(final Query query) {
+		if( QueryCache.isCacheable( query ) ) {
+			return QueryCache.getCache( query.getKB() ).exec( query );
+		}
+
+		return execUncached( query );
+	}
+
+	/**
+	 * Executes the query without using the {@link QueryCache}.
+	 */
+	static QueryResult execUncached(final Query query) {
 		if( query.getAtoms().isEmpty() ) {
 			final QueryResultImpl results = new QueryResultImpl( query );
 			results.add( new ResultBindingImpl() );
 			return results;
 		}
+
+		final List<Query> queries = prepare( query );
+
+		QueryResult r = null;
+		if( queries.size() == 1 ) {
+			r = execSingleQuery( queries.get( 0 ) );
+		}
+		else {
+			r = new MultiQueryResults( query.getResultVars(), execComponents( queries ) );
+		}
+		
+		return r;
+	}
+
+	/**
+	 * Returns <code>true</code> if the given independent queries should be
+	 * answered concurrently. A query that has neither constants nor
+	 * distinguished variables (or that has a NOT atom which may lead to such
+	 * a query) is answered by {@link #execBooleanABoxQuery(Query)} adding a
+	 * domain to the top object property for the duration of a consistency
+	 * check. Since the RBox is shared by the KB copies the workers use, such
+	 * queries are never answered concurrently with other queries. The copies
+	 * also share the taxonomy so the queries are answered concurrently only
+	 * if the KB has already been realized: realizing the KB only to answer a
+	 * query concurrently can cost far more than the query itself.
+	 */
+	static boolean isParallel(List<Query> queries) {
+		if( PelletOptions.QUERY_THREADS <= 1 || queries.size() <= 1
+				|| ParallelQueryExecutor.isWorkerThread() )
+			return false;
+
+		if( !queries.get( 0 ).getKB().isRealized() )
+			return false;
+
+		for( Query query : queries ) {
+			if( query.getDistVars().isEmpty() && query.getConstants().isEmpty() )
+				return false;
+			if( hasNotKnown( query.getAtoms() ) )
+				return false;
+		}
+
+		return true;
+	}
+
+	private static boolean hasNotKnown(List<QueryAtom> atoms) {
+		for( QueryAtom atom : atoms ) {
+			if( atom.getPredicate() == QueryPredicate.NotKnown )
+				return true;
+			if( atom.getPredicate() == QueryPredicate.Union ) {
+				for( List<QueryAtom> union : ((UnionQueryAtom) atom).getUnion() ) {
+					if( hasNotKnown( union ) )
+						return true;
+				}
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Executes the disconnected components of a query, concurrently if
+	 * {@link PelletOptions#QUERY_THREADS} allows.
+	 */
+	private static List<QueryResult> execComponents(final List<Query> queries) {
+		final List<QueryResult> results = new ArrayList<QueryResult>( queries.size() );
+
+		// a component with an undefined term has no answers and neither does
+		// the whole query so there is no need to evaluate the other components
+		if( hasUndefinedTerm( queries ) ) {
+			for( final Query q : queries ) {
+				results.add( new QueryResultImpl( q ) );
+			}
+			return results;
+		}
+
+		if( !isParallel( queries ) ) {
+			for( final Query q : queries ) {
+				results.add( getQueryExec().exec( q ) );
+			}
+			return results;
+		}
+
+		final ParallelQueryExecutor executor = new ParallelQueryExecutor( queries.get( 0 )
+				.getKB(), PelletOptions.QUERY_THREADS );
+		try {
+			return executor.exec( queries );
+		} finally {
+			executor.close();
+		}
+	}
+
+	private static boolean hasUndefinedTerm(final List<Query> queries) {
+		for( final Query q : queries ) {
+			if( hasUndefinedTerm( q ) ) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Executes the query under the control of the given monitor. If the
+	 * execution times out or is aborted the exception returned by
+	 * {@link QueryMonitor#getCancellationException()} is thrown.
+	 * 
+	 * @param query
+	 *            query to execute
+	 * @param monitor
+	 *            monitor enforcing the time limits
+	 * @return query result
+	 */
+	public static QueryResult exec(final Query query, final QueryMonitor monitor) {
+		monitor.start();
+		try {
+			return exec( query );
+		} catch( RuntimeException e ) {
+			throw monitor.translate( e );
+		} finally {
+			monitor.stop();
+			monitor.close();
+		}
+	}
+
+	/**
+	 * Returns a lazily evaluated result for the query. The query is executed
+	 * on demand while the result is iterated so the first answers are
+	 * available before the whole answer set is computed. The returned result
+	 * can be iterated only once and should be closed if it is not exhausted.
+	 * 
+	 * @param query
+	 *            query to execute
+	 * @return lazily evaluated query result
+	 */
+	public static StreamingQueryResult execStreaming(final Query query) {
+		return new StreamingQueryResult( query, new StreamingQueryResult.Producer() {
+			public void produce(QueryResult sink) {
+				exec( query, sink );
+			}
+
+			public void suspend() {
+			}
+
+			public void resume() {
+			}
+		} );
+	}
+
+	/**
+	 * Returns a lazily evaluated result for the query that is computed under
+	 * the control of the given monitor. If the execution times out or is
+	 * aborted the iterator of the result throws the exception returned by
+	 * {@link QueryMonitor#getCancellationException()}.
+	 * 
+	 * @param query
+	 *            query to execute
+	 * @param monitor
+	 *            monitor enforcing the time limits
+	 * @return lazily evaluated query result
+	 */
+	public static StreamingQueryResult execStreaming(final Query query, final QueryMonitor monitor) {
+		return new StreamingQueryResult( query, new StreamingQueryResult.Producer() {
+			public void produce(QueryResult sink) {
+				monitor.start();
+				try {
+					exec( query, monitor.monitor( sink ) );
+				} catch( RuntimeException e ) {
+					throw monitor.translate( e );
+				} finally {
+					monitor.stop();
+					monitor.close();
+				}
+			}
+
+			// the monitor does not interrupt the KB while the consumer
+			// uses it between two answers
+			public void suspend() {
+				monitor.stop();
+			}
+
+			public void resume() {
+				monitor.start();
+			}
+		} );
+	}
+
+	/**
+	 * Executes the query adding each answer to the given result as soon as it
+	 * is found. If the query is split into several disconnected components all
+	 * the components but the last one are evaluated first (concurrently with
+	 * the last one if {@link PelletOptions#QUERY_THREADS} allows) and the
+	 * answers of the last component are combined with them as they are found.
+	 * 
+	 * @param query
+	 *            query to execute
+	 * @param result
+	 *            result the answers are added to
+	 */
+	public static void exec(final Query query, final QueryResult result) {
+		if( QueryCache.isCacheable( query ) ) {
+			QueryCache.getCache( query.getKB() ).exec( query, result );
+			return;
+		}
+
+		execUncached( query, result );
+	}
+
+	/**
+	 * Executes the query without using the {@link QueryCache} adding each
+	 * answer to the given result as soon as it is found.
+	 */
+	static void execUncached(final Query query, final QueryResult result) {
+		if( query.getAtoms().isEmpty() ) {
+			result.add( new ResultBindingImpl() );
+			return;
+		}
+
+		final List<Query> queries = prepare( query );
+
+		if( queries.size() == 1 ) {
+			execSingleQuery( queries.get( 0 ), result );
+			return;
+		}
+
+		if( hasUndefinedTerm( queries ) ) {
+			return;
+		}
+
+		final List<Query> components = queries.subList( 0, queries.size() - 1 );
+		final Query last = queries.get( queries.size() - 1 );
+
+		if( !isParallel( queries ) ) {
+			final List<QueryResult> results = new ArrayList<QueryResult>( components.size() );
+			for( final Query q : components ) {
+				QueryResult r = getQueryExec().exec( q );
+				if( r.isEmpty() ) {
+					return;
+				}
+				results.add( r );
+			}
+
+			final MultiQueryResults product = new MultiQueryResults( query.getResultVars(), results );
+			getQueryExec().exec( last, new ProductResult( last, result ) {
+				@Override
+				protected MultiQueryResults getProduct() {
+					return product;
+				}
+			} );
+			return;
+		}
+
+		// the other components are answered by the workers while the last
+		// one is answered by this thread. the answers of the last component
+		// can be combined only after the workers are done.
+		final ParallelQueryExecutor executor = new ParallelQueryExecutor( query.getKB(),
+				PelletOptions.QUERY_THREADS );
+		final ParallelQueryExecutor.Batch batch = executor.submit( components );
+		try {
+			getQueryExec().exec( last, new ProductResult( last, result ) {
+				private MultiQueryResults	product;
+
+				@Override
+				protected MultiQueryResults getProduct() {
+					if( product == null ) {
+						product = new MultiQueryResults( query.getResultVars(), batch.await() );
+					}
+					return product;
+				}
+			} );
+		} finally {
+			// stops the workers if the last component had no answers or failed
+			batch.cancel();
+			executor.close();
+		}
+	}
+
+	/**
+	 * Result of the last component of a split query that combines each
+	 * answer with the answers of the other components and adds the
+	 * combinations to the final result.
+	 */
+	private static abstract class ProductResult extends QueryResultImpl {
+		private final QueryResult	result;
+
+		private int					size;
+
+		public ProductResult(Query query, QueryResult result) {
+			super( query );
+
+			this.result = result;
+		}
+
+		protected abstract MultiQueryResults getProduct();
+
+		@Override
+		public void add(ResultBinding binding) {
+			size++;
+			for( ResultBinding partial : getProduct() ) {
+				partial.setValues( binding );
+				result.add( partial );
+			}
+		}
+
+		@Override
+		public int size() {
+			return size;
+		}
+	}
+
+	/**
+	 * Preprocesses, simplifies and splits the query into disconnected
+	 * components.
+	 */
+	private static List<Query> prepare(final Query query) {
+		materializeDataValues( query, query.getAtoms() );
+
 		query.getKB().ensureConsistency();
 
 		// PREPROCESSING
@@ -119,23 +446,50 @@ public class QueryEngine {
 		
 		final List<Query> queries = split( preprocessed );
 
-		QueryResult r = null;
 		if( queries.isEmpty() ) {
 			throw new InternalReasonerException( "Splitting query returned no results!" );
 		}
-		else if( queries.size() == 1 ) {
-			r = execSingleQuery( queries.get( 0 ) );
-		}
-		else {
-			final List<QueryResult> results = new ArrayList<QueryResult>( queries.size() );
-			for( final Query q : queries ) {
-				results.add( execSingleQuery( q ) );
-			}
 
-			r = new MultiQueryResults( query.getResultVars(), results );
+		return queries;
+	}
+
+	/**
+	 * Moves the values of the data properties that cannot be answered by
+	 * looking up property values from the literal store to the ABox. Property
+	 * value atoms are answered by lookups unless the query has undistinguished
+	 * variables and is rolled up into class expressions.
+	 */
+	private static void materializeDataValues(final Query query, final List<QueryAtom> atoms) {
+		final KnowledgeBase kb = query.getKB();
+		final boolean rollUp = !query.getUndistVars().isEmpty();
+
+		for( final QueryAtom atom : atoms ) {
+			switch ( atom.getPredicate() ) {
+			case Union:
+				for( final List<QueryAtom> union : ((UnionQueryAtom) atom).getUnion() ) {
+					materializeDataValues( query, union );
+				}
+				break;
+			case NotKnown:
+				materializeDataValues( query, ((NotKnownQueryAtom) atom).getAtoms() );
+				break;
+			case PropertyValue:
+				if( !rollUp ) {
+					break;
+				}
+				// fall through
+			case Type:
+			case DirectType:
+			case NegativePropertyValue:
+			case UndistVarCore:
+				for( final ATermAppl arg : atom.getArguments() ) {
+					kb.materializeDataValues( arg );
+				}
+				break;
+			default:
+				break;
+			}
 		}
-		
-		return r;
 	}
 
 	private static boolean isObjectProperty(ATermAppl t, KnowledgeBase kb) {
@@ -321,6 +675,14 @@ public class QueryEngine {
 		return getQueryExec().exec( query );
 	}
 
+	private static void execSingleQuery(Query query, QueryResult result) {
+		if( hasUndefinedTerm( query ) ) {
+			return;
+		}
+
+		getQueryExec().exec( query, result );
+	}
+
 	/**
 	 * If a query has disconnected components such as C(x), D(y) then it should
 	 * be answered as two separate queries. The answers to each query should be
@@ -30,5 +30,17 @@ public interface QueryExec {
 
 	public QueryResult exec(Query plan);
 
+	/**
+	 * Executes the query adding each answer to the given result as soon as it
+	 * is found. This allows the answers to be consumed (or the execution to be
+	 * stopped) before the complete answer set is computed.
+	 * 
+	 * @param plan
+	 *            query to execute
+	 * @param result
+	 *            result the answers are added to
+	 */
+	public void exec(Query plan, QueryResult result);
+
 	public boolean supports(Query q);
 }
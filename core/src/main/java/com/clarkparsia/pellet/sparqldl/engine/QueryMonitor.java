@@ -0,0 +1,297 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.sparqldl.engine;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.exceptions.PelletRuntimeException;
+import org.mindswap.pellet.exceptions.TimeoutException;
+import org.mindswap.pellet.exceptions.TimerInterruptedException;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.sparqldl.model.QueryResult;
+import com.clarkparsia.pellet.sparqldl.model.ResultBinding;
+
+/**
+ * <p>
+ * Title: Query execution monitor
+ * </p>
+ * <p>
+ * Description: Enforces time limits on a query execution and allows the
+ * execution to be aborted from another thread. The time limits are enforced
+ * by a watchdog thread and each monitor has its own deadlines so concurrent
+ * queries do not affect each other. When the query times out or is aborted
+ * the main timer of the KB is interrupted; the query engine checks that timer
+ * between the evaluation steps and a long running tableau check started by
+ * the query engine is stopped at its next timer check as well. The KB is
+ * interrupted only while the query
+ * engine is running, i.e. between {@link #start()} and {@link #stop()}, and
+ * any interrupt that was not consumed by the reasoner is cleared by
+ * {@link #stop()} so later reasoning is not affected. A lazily computed result
+ * starts and stops the monitor around the computation of each answer; a time
+ * limit that expires while such a result is idle cancels the query and takes
+ * effect when the next answer is requested. Both limits are in milliseconds
+ * and a non-positive value means no limit.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class QueryMonitor {
+	public static final Logger						log			= Logger.getLogger( QueryMonitor.class
+																		.getName() );
+
+	private static final ScheduledExecutorService	WATCHDOG	= Executors
+																		.newSingleThreadScheduledExecutor( new ThreadFactory() {
+																			public Thread newThread(
+																					Runnable r) {
+																				Thread t = new Thread(
+																						r,
+																						"sparqldl-watchdog" );
+																				t.setDaemon( true );
+																				return t;
+																			}
+																		} );
+
+	private final KnowledgeBase						kb;
+
+	private final long								firstResultTimeout;
+
+	private final long								timeout;
+
+	private boolean									running;
+
+	private boolean									cancelled;
+
+	private boolean									timedOut;
+
+	private boolean									resultFound;
+
+	private boolean									interruptedKB;
+
+	private boolean									scheduled;
+
+	private ScheduledFuture<?>						firstResultTask;
+
+	private ScheduledFuture<?>						timeoutTask;
+
+	public QueryMonitor(KnowledgeBase kb) {
+		this( kb, 0, 0 );
+	}
+
+	/**
+	 * @param kb
+	 *            KB the query is executed against
+	 * @param firstResultTimeout
+	 *            maximum time allowed until the first result is found
+	 * @param timeout
+	 *            maximum time allowed for the whole execution
+	 */
+	public QueryMonitor(KnowledgeBase kb, long firstResultTimeout, long timeout) {
+		this.kb = kb;
+		this.firstResultTimeout = firstResultTimeout;
+		this.timeout = timeout;
+	}
+
+	public long getFirstResultTimeout() {
+		return firstResultTimeout;
+	}
+
+	public long getTimeout() {
+		return timeout;
+	}
+
+	/**
+	 * Called by the query engine when it starts or resumes computing answers.
+	 * The time limits are measured from the first call.
+	 */
+	public synchronized void start() {
+		running = true;
+
+		if( cancelled ) {
+			interruptKB();
+			return;
+		}
+
+		if( !scheduled ) {
+			scheduled = true;
+			if( firstResultTimeout > 0 && !resultFound ) {
+				firstResultTask = schedule( firstResultTimeout, true );
+			}
+			if( timeout > 0 ) {
+				timeoutTask = schedule( timeout, false );
+			}
+		}
+	}
+
+	/**
+	 * Called by the query engine when it stops computing answers, normally or
+	 * not, either because the execution is finished or because a lazily
+	 * computed result is waiting for the next request. This function should be
+	 * called in a <code>finally</code> block so that an interrupt set on the
+	 * KB by this monitor never outlives the computation.
+	 */
+	public synchronized void stop() {
+		running = false;
+
+		if( interruptedKB ) {
+			kb.timers.mainTimer.clearInterrupt();
+			interruptedKB = false;
+		}
+	}
+
+	/**
+	 * Called when no more answers will be computed. The pending time limits
+	 * are cancelled.
+	 */
+	public synchronized void close() {
+		cancelTasks();
+	}
+
+	/**
+	 * Aborts the query execution. The query engine will stop at the next
+	 * timer check and the results will not return any more bindings.
+	 */
+	public void cancel() {
+		cancel( false );
+	}
+
+	public synchronized boolean isCancelled() {
+		return cancelled;
+	}
+
+	public synchronized boolean isTimedOut() {
+		return timedOut;
+	}
+
+	/**
+	 * Called by the query engine for each answer found.
+	 */
+	public synchronized void resultFound() {
+		if( !resultFound ) {
+			resultFound = true;
+			if( firstResultTask != null ) {
+				firstResultTask.cancel( false );
+				firstResultTask = null;
+			}
+		}
+	}
+
+	/**
+	 * Returns a result that forwards the answers to the given result and
+	 * records that an answer has been found.
+	 */
+	public QueryResult monitor(final QueryResult result) {
+		return new QueryResult() {
+			public void add(ResultBinding binding) {
+				resultFound();
+				result.add( binding );
+			}
+
+			public List<ATermAppl> getResultVars() {
+				return result.getResultVars();
+			}
+
+			public boolean isDistinct() {
+				return result.isDistinct();
+			}
+
+			public boolean isEmpty() {
+				return result.isEmpty();
+			}
+
+			public int size() {
+				return result.size();
+			}
+
+			public Iterator<ResultBinding> iterator() {
+				return result.iterator();
+			}
+		};
+	}
+
+	/**
+	 * Returns the exception that describes why the execution was cancelled.
+	 */
+	public synchronized PelletRuntimeException getCancellationException() {
+		return timedOut
+			? new TimeoutException( "Query execution exceeded the timeout" )
+			: new TimerInterruptedException( "Query execution aborted" );
+	}
+
+	/**
+	 * Replaces an exception thrown during the execution with the
+	 * cancellation exception if the execution was cancelled.
+	 */
+	public RuntimeException translate(RuntimeException e) {
+		if( isCancelled()
+				&& (e instanceof TimeoutException || e instanceof TimerInterruptedException) ) {
+			return getCancellationException();
+		}
+
+		return e;
+	}
+
+	private synchronized void cancel(boolean timeout) {
+		if( cancelled )
+			return;
+
+		if( log.isLoggable( Level.FINE ) ) {
+			log.fine( timeout
+				? "Query timed out"
+				: "Query aborted" );
+		}
+
+		cancelled = true;
+		timedOut = timeout;
+
+		cancelTasks();
+
+		if( running ) {
+			interruptKB();
+		}
+	}
+
+	private void interruptKB() {
+		kb.timers.interrupt();
+		interruptedKB = true;
+	}
+
+	private void cancelTasks() {
+		if( firstResultTask != null ) {
+			firstResultTask.cancel( false );
+			firstResultTask = null;
+		}
+		if( timeoutTask != null ) {
+			timeoutTask.cancel( false );
+			timeoutTask = null;
+		}
+	}
+
+	private ScheduledFuture<?> schedule(long delay, final boolean firstResult) {
+		return WATCHDOG.schedule( new Runnable() {
+			public void run() {
+				synchronized( QueryMonitor.this ) {
+					if( firstResult && resultFound )
+						return;
+
+					cancel( true );
+				}
+			}
+		}, delay, TimeUnit.MILLISECONDS );
+	}
+}
@@ -97,9 +97,14 @@ public class QuerySubsumption {
         
         kb.isConsistent();
         
+        KnowledgeBase supKB = sup.getKB();
         sup.setKB( kb );
-        QueryResult results = QueryEngine.exec( sup );
-        sup.setKB( sup.getKB() );
+        QueryResult results;
+        try {
+        	results = QueryEngine.exec( sup );
+        } finally {
+        	sup.setKB( supKB );
+        }
         
         return results;
     }
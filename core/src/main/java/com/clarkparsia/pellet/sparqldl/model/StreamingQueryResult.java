@@ -0,0 +1,446 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.sparqldl.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Lazily evaluated {@link QueryResult}
+ * </p>
+ * <p>
+ * Description: A query result whose bindings are computed on demand. The
+ * query engine runs on a separate thread and hands over the bindings one at a
+ * time: after each answer the engine is suspended until the consumer asks for
+ * the next one, so the knowledge base is never accessed by both threads at the
+ * same time and only a single binding is buffered. Closing the result (or
+ * exhausting its iterator) releases the engine and {@link #close()} returns
+ * only after the engine has been unwound so the knowledge base can be used
+ * (or modified) as soon as the result is closed. A result that is dropped
+ * without being closed is closed once it is garbage collected so the engine
+ * does not stay suspended forever, but the knowledge base should not be used
+ * until then. The result can be iterated only once.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class StreamingQueryResult implements QueryResult {
+	public static final Logger				log			= Logger.getLogger( StreamingQueryResult.class
+																.getName() );
+
+	/**
+	 * Computes the answers of a query by adding them to the given sink. The
+	 * producer is notified on its own thread when it is suspended after
+	 * reporting an answer and when it is resumed because the consumer asked
+	 * for the next one. The consumer may use the knowledge base in between.
+	 */
+	public interface Producer {
+		public void produce(QueryResult sink);
+
+		public void suspend();
+
+		public void resume();
+	}
+
+	private static final ExecutorService	EXECUTOR	= Executors
+																.newCachedThreadPool( new ThreadFactory() {
+																	public Thread newThread(Runnable r) {
+																		Thread t = new Thread( r,
+																				"sparqldl-stream" );
+																		t.setDaemon( true );
+																		return t;
+																	}
+																} );
+
+	/**
+	 * Interval in milliseconds at which a suspended producer checks if its
+	 * result has been garbage collected.
+	 */
+	private static final long				ABANDON_CHECK_INTERVAL	= 1000;
+
+	/**
+	 * Thrown inside the producer thread to unwind the query engine when the
+	 * result is closed before all the answers are computed.
+	 */
+	private static class StreamClosedException extends RuntimeException {
+		private static final long	serialVersionUID	= 1L;
+	}
+
+	private final List<ATermAppl>			resultVars;
+
+	private final Stream					stream;
+
+	private boolean							iterated;
+
+	public StreamingQueryResult(final Query query, final Producer producer) {
+		this.resultVars = new ArrayList<ATermAppl>( query.getResultVars() );
+		this.stream = new Stream( query, producer, this );
+	}
+
+	/**
+	 * Bindings are added by the query engine through an internal sink so this
+	 * operation is not supported.
+	 */
+	public void add(ResultBinding binding) {
+		throw new UnsupportedOperationException( "StreamingQueryResult does not support addition!" );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<ATermAppl> getResultVars() {
+		return Collections.unmodifiableList( resultVars );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isDistinct() {
+		return stream.seen != null;
+	}
+
+	/**
+	 * Tests whether the result is empty. This computes at most one answer that
+	 * is kept for the iterator.
+	 */
+	public boolean isEmpty() {
+		return !stream.fetch();
+	}
+
+	/**
+	 * Returns the number of bindings computed so far. The value is exact only
+	 * after the iterator is exhausted.
+	 */
+	public int size() {
+		synchronized( stream.lock ) {
+			return stream.count;
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if all the answers have been computed or the
+	 * result has been closed.
+	 */
+	public boolean isFinished() {
+		synchronized( stream.lock ) {
+			return stream.finished;
+		}
+	}
+
+	/**
+	 * Stops the computation of the remaining answers and waits until the query
+	 * engine is unwound. An engine suspended after reporting an answer is
+	 * unwound immediately, an engine that is computing the next answer stops
+	 * when it finds the answer or when its timer is interrupted.
+	 */
+	public void close() {
+		stream.close();
+	}
+
+	/**
+	 * Returns an iterator over the answers. Since the answers are not stored
+	 * this method can be called only once.
+	 */
+	public Iterator<ResultBinding> iterator() {
+		synchronized( stream.lock ) {
+			if( iterated )
+				throw new IllegalStateException( "Streaming query results can be iterated only once" );
+			iterated = true;
+		}
+
+		return new Iterator<ResultBinding>() {
+			public boolean hasNext() {
+				return stream.fetch();
+			}
+
+			public ResultBinding next() {
+				if( !stream.fetch() )
+					throw new NoSuchElementException();
+
+				return stream.take();
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "StreamingQueryResult" + resultVars;
+	}
+
+	/**
+	 * The state shared by the consumer and the producer thread. The producer
+	 * thread refers to the result only through a weak reference so a result
+	 * that is no longer used by the consumer can be garbage collected and the
+	 * producer can notice it.
+	 */
+	private static class Stream {
+		private final Object								lock	= new Object();
+
+		private final Query									query;
+
+		private final QueryParameters						parameters;
+
+		private final Producer								producer;
+
+		private final Set<ResultBinding>					seen;
+
+		private final Sink									sink	= new Sink();
+
+		private final WeakReference<StreamingQueryResult>	owner;
+
+		private ResultBinding								handOff;
+
+		private ResultBinding								peeked;
+
+		private boolean										started;
+
+		private boolean										requested;
+
+		private boolean										finished;
+
+		private boolean										closed;
+
+		private RuntimeException							error;
+
+		private int											count;
+
+		private Stream(Query query, Producer producer, StreamingQueryResult owner) {
+			this.query = query;
+			this.parameters = query.getQueryParameters();
+			this.producer = producer;
+			this.seen = query.isDistinct()
+				? new HashSet<ResultBinding>()
+				: null;
+			this.owner = new WeakReference<StreamingQueryResult>( owner );
+		}
+
+		private void close() {
+			synchronized( lock ) {
+				if( !closed ) {
+					closed = true;
+					peeked = null;
+					handOff = null;
+					if( !started )
+						finished = true;
+					lock.notifyAll();
+				}
+
+				boolean interrupted = false;
+				while( !finished ) {
+					try {
+						lock.wait();
+					} catch( InterruptedException e ) {
+						interrupted = true;
+					}
+				}
+				if( interrupted )
+					Thread.currentThread().interrupt();
+			}
+		}
+
+		private ResultBinding take() {
+			synchronized( lock ) {
+				ResultBinding next = peeked;
+				peeked = null;
+				return next;
+			}
+		}
+
+		/**
+		 * Makes sure the next answer is available in <code>peeked</code>
+		 * running the producer until it reports an answer or finishes.
+		 */
+		private boolean fetch() {
+			synchronized( lock ) {
+				if( peeked != null )
+					return true;
+
+				if( closed )
+					return false;
+
+				if( !started ) {
+					started = true;
+					requested = true;
+					EXECUTOR.execute( new Runnable() {
+						public void run() {
+							produce();
+						}
+					} );
+				}
+				else if( !finished ) {
+					requested = true;
+					lock.notifyAll();
+				}
+
+				boolean interrupted = false;
+				while( handOff == null && !finished ) {
+					try {
+						lock.wait();
+					} catch( InterruptedException e ) {
+						interrupted = true;
+					}
+				}
+				if( interrupted )
+					Thread.currentThread().interrupt();
+
+				if( handOff != null ) {
+					peeked = handOff;
+					handOff = null;
+					return true;
+				}
+
+				if( error != null ) {
+					RuntimeException e = error;
+					error = null;
+					throw e;
+				}
+
+				return false;
+			}
+		}
+
+		private void produce() {
+			try {
+				producer.produce( sink );
+			} catch( StreamClosedException e ) {
+				if( log.isLoggable( Level.FINE ) )
+					log.fine( "Query execution stopped after " + count + " results" );
+			} catch( RuntimeException e ) {
+				synchronized( lock ) {
+					error = e;
+				}
+			} catch( Error e ) {
+				synchronized( lock ) {
+					error = new RuntimeException( e );
+				}
+			} finally {
+				synchronized( lock ) {
+					finished = true;
+					lock.notifyAll();
+				}
+			}
+		}
+
+		/**
+		 * Called from the producer thread for each answer. Blocks until the
+		 * consumer requests another answer, closes the result or drops it.
+		 */
+		private void put(ResultBinding binding) {
+			// the producer must stop using the knowledge base before the
+			// consumer is woken up
+			producer.suspend();
+
+			synchronized( lock ) {
+				if( closed )
+					throw new StreamClosedException();
+
+				count++;
+				handOff = binding;
+				requested = false;
+				lock.notifyAll();
+
+				while( !requested && !closed ) {
+					try {
+						lock.wait( ABANDON_CHECK_INTERVAL );
+					} catch( InterruptedException e ) {
+						closed = true;
+					}
+
+					if( !requested && owner.get() == null ) {
+						if( log.isLoggable( Level.FINE ) )
+							log.fine( "Closing a query result that was dropped without being closed" );
+						closed = true;
+					}
+				}
+
+				if( closed )
+					throw new StreamClosedException();
+			}
+
+			producer.resume();
+		}
+
+		private ResultBinding process(ResultBinding binding) {
+			if( parameters == null )
+				return binding;
+
+			int numOfVars = query.getResultVars().size();
+
+			// Add the query parameters to the binding if the variable is in
+			// the query projection
+			for( Entry<ATermAppl, ATermAppl> entry : parameters.entrySet() ) {
+				ATermAppl var = entry.getKey();
+				ATermAppl value = entry.getValue();
+
+				if( numOfVars == 0 || query.getResultVars().contains( var ) )
+					binding.setValue( var, value );
+			}
+
+			return binding;
+		}
+
+		/**
+		 * The result the query engine writes to. Size and emptiness reflect
+		 * the answers produced so far which is what the engine uses them for.
+		 */
+		private class Sink implements QueryResult {
+			private int	added;
+
+			public void add(ResultBinding binding) {
+				binding = process( binding );
+
+				// only duplicates of distinct queries are remembered so memory
+				// is bounded by the number of distinct answers in that case
+				if( seen != null && !seen.add( binding ) )
+					return;
+
+				added++;
+				put( binding );
+			}
+
+			public List<ATermAppl> getResultVars() {
+				return Collections.unmodifiableList( query.getResultVars() );
+			}
+
+			public boolean isDistinct() {
+				return seen != null;
+			}
+
+			public boolean isEmpty() {
+				return added == 0;
+			}
+
+			public int size() {
+				return added;
+			}
+
+			public Iterator<ResultBinding> iterator() {
+				throw new UnsupportedOperationException();
+			}
+		}
+	}
+}
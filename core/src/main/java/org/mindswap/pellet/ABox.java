@@ -45,11 +45,14 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.mindswap.pellet.exceptions.InternalReasonerException;
+import org.mindswap.pellet.tableau.blocking.BlockingIndex;
 import org.mindswap.pellet.tableau.branch.Branch;
 import org.mindswap.pellet.tableau.cache.CachedNode;
 import org.mindswap.pellet.tableau.cache.CachedNodeFactory;
 import org.mindswap.pellet.tableau.cache.ConceptCache;
 import org.mindswap.pellet.tableau.cache.ConceptCacheLRU;
+import org.mindswap.pellet.tableau.cache.ConcurrentConceptCache;
+import org.mindswap.pellet.tableau.cache.PersistentConceptCache;
 import org.mindswap.pellet.tableau.completion.CompletionStrategy;
 import org.mindswap.pellet.tableau.completion.SROIQIncStrategy;
 import org.mindswap.pellet.tableau.completion.queue.BasicCompletionQueue;
@@ -164,6 +167,13 @@ public class ABox {
 
 	private List<NodeMerge>					toBeMerged;
 
+	/**
+	 * Asserted individuals that were merged to another individual or had
+	 * another individual merged to them. Merges undone by backtracking are
+	 * not removed here so the current state of the nodes should be checked.
+	 */
+	private Set<ATermAppl>					mergedIndividuals;
+
 	private Map<ATermAppl, int[]>			disjBranchStats;
 
 	// if we are using copy on write, this is where to copy from
@@ -184,6 +194,7 @@ public class ABox {
 	private BranchEffectTracker				branchEffects;
 	private CompletionQueue					completionQueue;
 	private IncrementalChangeTracker		incChangeTracker;
+	private BlockingIndex					blockingIndex;
 
 	// flag set when incrementally updating the abox with explicit assertions
 	private boolean							syntacticUpdate		= false;
@@ -203,6 +214,7 @@ public class ABox {
 		setDisjBranchStats( new HashMap<ATermAppl, int[]>() );
 
 		toBeMerged = new ArrayList<NodeMerge>();
+		mergedIndividuals = new HashSet<ATermAppl>();
 		rulesNotApplied = true;
 		
 		if( PelletOptions.TRACK_BRANCH_EFFECTS ) {
@@ -302,6 +314,7 @@ public class ABox {
 
 		if( copyIndividuals ) {
 			toBeMerged = abox.getToBeMerged();
+			mergedIndividuals = new HashSet<ATermAppl>( abox.mergedIndividuals );
 			if( sourceABox == null ) {
 				for( int i = 0; i < nodeCount - extra; i++ ) {
 					ATermAppl x = abox.nodeList.get( i );
@@ -319,6 +332,7 @@ public class ABox {
 		}
 		else {
 			toBeMerged = Collections.emptyList();
+			mergedIndividuals = new HashSet<ATermAppl>();
 			sourceABox = null;
 			initialized = false;
 		}
@@ -456,6 +470,29 @@ public class ABox {
 		sourceABox = null;
 	}
 
+	/**
+	 * Replace the concept cache shared with the ABox this ABox was copied from
+	 * with a private copy. After this call the two ABoxes can be used for
+	 * reasoning by different threads as long as neither is modified. A
+	 * {@link ConcurrentConceptCache} is thread-safe so it is not copied and
+	 * the results cached by one thread are reused by the other.
+	 */
+	public void copyCache() {
+		if( cache instanceof ConcurrentConceptCache ) {
+			return;
+		}
+
+		ConceptCache copy = createCache( cache.getMaxSize() );
+		copy.putAll( cache );
+		cache = copy;
+	}
+
+	private ConceptCache createCache(int maxSize) {
+		return PelletOptions.USE_CONCURRENT_CONCEPT_CACHE
+			? new ConcurrentConceptCache( kb, maxSize )
+			: new ConceptCacheLRU( kb, maxSize );
+	}
+
 	/**
 	 * Clear the pseudo model created for the ABox and concept satisfiability.
 	 * 
@@ -467,7 +504,7 @@ public class ABox {
 		lastCompletion = null;
 
 		if( clearSatCache ) {
-			cache = new ConceptCacheLRU( kb );
+			cache = createCache( Integer.MAX_VALUE );
 		}
 	}
 
@@ -484,10 +521,33 @@ public class ABox {
 	        return getIndividual(c.getArgument(0)).getSame();
         }
         else {
-	        return cache.get( c );
+			CachedNode cached = cache.get( c );
+			if( cached == null && ATermUtils.isPrimitiveOrNegated( c ) && usePersistentCache() ) {
+				long fingerprint = kb.getModuleFingerprinter().getFingerprint( c );
+				cached = kb.getPersistentConceptCache().get( kb, c, fingerprint );
+				if( cached != null ) {
+					cache.put( c, cached );
+				}
+			}
+			return cached;
         }
 	}
 
+	/**
+	 * Returns true if results can be read from and written to the persistent
+	 * concept cache. Results are not persisted with nominals because then the
+	 * satisfiability of concepts also depends on the individuals.
+	 */
+	private boolean usePersistentCache() {
+		return kb.getPersistentConceptCache() != null && !kb.getExpressivity().hasNominal();
+	}
+
+	private void persist(ATermAppl c) {
+		PersistentConceptCache persistentCache = kb.getPersistentConceptCache();
+		long fingerprint = kb.getModuleFingerprinter().getFingerprint( c );
+		persistentCache.put( c, fingerprint, cache.get( c ), kb.getModuleFingerprinter() );
+	}
+
 	private void cache(Individual rootNode, ATermAppl c, boolean isConsistent) {
 
 		if( !isConsistent ) {
@@ -508,6 +568,13 @@ public class ABox {
 			
 //			System.err.println( c + " " + rootNode.debugString() );
 		}
+
+		if( ATermUtils.isPrimitiveOrNegated( c ) && usePersistentCache() ) {
+			persist( c );
+			if( !isConsistent ) {
+				persist( ATermUtils.negate( c ) );
+			}
+		}
 	}
 
 	public Bool isKnownSubClassOf(ATermAppl c1, ATermAppl c2) {
@@ -537,10 +604,33 @@ public class ABox {
 
 		ATermAppl notC2 = ATermUtils.negate( c2 );
 		ATermAppl c = ATermUtils.makeAnd( c1, notC2 );
+
+		// the result for two named concepts may have been saved by an earlier
+		// session if the module of their conjunction is unchanged
+		boolean persist = ATermUtils.isPrimitive( c1 ) && ATermUtils.isPrimitive( c2 )
+				&& usePersistentCache();
+		long fingerprint = 0;
+		if( persist ) {
+			fingerprint = kb.getModuleFingerprinter().getFingerprint( c1, notC2 );
+			if( !doExplanation ) {
+				Bool isSat = kb.getPersistentConceptCache().getSat( c, fingerprint );
+				if( isSat.isKnown() ) {
+					if( log.isLoggable( Level.FINE ) ) {
+						log.fine( " Persistent cache result: " + isSat.isFalse() );
+					}
+					return isSat.isFalse();
+				}
+			}
+		}
+
 		Timer t = kb.timers.startTimer( "subClassSat" );
 		boolean sub = !isSatisfiable( c, false );
 		t.stop();
 
+		if( persist ) {
+			kb.getPersistentConceptCache().putSat( c, fingerprint, !sub );
+		}
+
 		if( log.isLoggable( Level.FINE ) ) {
 	        log.fine( " Result: " + sub + " (" + t.getLast() + "ms)" );
         }
@@ -2168,6 +2258,29 @@ public class ABox {
 		return lastClash.getDepends().getExplain();
 	}
 	
+	/**
+	 * Returns the index of candidate blockers for the individuals in this
+	 * ABox. The index is created when it is first used and is not copied with
+	 * the ABox.
+	 */
+	public BlockingIndex getBlockingIndex() {
+		if( blockingIndex == null ) {
+			blockingIndex = new BlockingIndex( this );
+		}
+
+		return blockingIndex;
+	}
+
+	/**
+	 * Removes the registrations in the blocking index made after the given
+	 * branch was created.
+	 */
+	public void restoreBlockingIndex(int branch) {
+		if( blockingIndex != null ) {
+			blockingIndex.restore( branch );
+		}
+	}
+
 	public BranchEffectTracker getBranchEffectTracker() {
 		if( branchEffects == null ) {
 	        throw new NullPointerException();
@@ -2566,4 +2679,20 @@ public class ABox {
 	public List<NodeMerge> getToBeMerged() {
 		return toBeMerged;
 	}
+
+	/**
+	 * Records that the given asserted individual was merged to another
+	 * individual or had another individual merged to it.
+	 */
+	void addMergedIndividual(ATermAppl x) {
+		mergedIndividuals.add( x );
+	}
+
+	/**
+	 * Returns the asserted individuals that were merged since this ABox was
+	 * created. Some of these merges may have been undone by backtracking.
+	 */
+	Set<ATermAppl> getMergedIndividuals() {
+		return mergedIndividuals;
+	}
 }
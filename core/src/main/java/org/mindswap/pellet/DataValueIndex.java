@@ -0,0 +1,399 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TimeZone;
+
+import javax.xml.datatype.XMLGregorianCalendar;
+
+import org.mindswap.pellet.utils.ATermUtils;
+import org.mindswap.pellet.utils.Namespaces;
+
+import aterm.ATermAppl;
+import aterm.ATermList;
+
+import com.clarkparsia.pellet.datatypes.DatatypeReasoner;
+import com.clarkparsia.pellet.datatypes.Facet;
+import com.clarkparsia.pellet.datatypes.exceptions.DatatypeReasonerException;
+
+/**
+ * <p>
+ * Title: Data Value Index
+ * </p>
+ * <p>
+ * Description: Index of the values of a data property sorted by value so that
+ * equality, range and prefix lookups do not need to scan all the individuals.
+ * Entries are kept in four consecutive sections: numeric values sorted by
+ * their <code>double</code> approximation, date and time values sorted by
+ * their time on the timeline, string values sorted by their lexical form and
+ * all the other values. Lookups return the positions of the candidate entries
+ * as <code>[from, to)</code> pairs. Candidates are a superset of the matching
+ * entries (e.g. exclusive bounds are treated as inclusive and dates without a
+ * time zone may be off by 14 hours) so callers should check the values. An
+ * entry is certain if the value holds in every model, otherwise the caller
+ * should check if the value is entailed. The index is built for one version
+ * of the KB and it is not updated.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class DataValueIndex {
+	private static final int		NUMERIC				= 0;
+	private static final int		TEMPORAL			= 1;
+	private static final int		STRING				= 2;
+	private static final int		OTHER				= 3;
+
+	/**
+	 * Maximum time zone offset in milliseconds used for the values without a
+	 * time zone
+	 */
+	private static final double		MAX_ZONE_OFFSET		= 14 * 60 * 60 * 1000;
+
+	private static final TimeZone	UTC					= TimeZone.getTimeZone( "UTC" );
+
+	private static final ATermAppl	XSD_STRING			= ATermUtils.makeTermAppl( Namespaces.XSD
+																+ "string" );
+
+	private static final int[]		NONE				= new int[0];
+
+	private static class Entry {
+		private final ATermAppl	subject;
+		private final ATermAppl	value;
+		private final boolean	certain;
+		private final int		section;
+		private final double	key;
+		private final String	lexical;
+
+		Entry(ATermAppl subject, ATermAppl value, boolean certain, int section, double key) {
+			this.subject = subject;
+			this.value = value;
+			this.certain = certain;
+			this.section = section;
+			this.key = key;
+			this.lexical = ATermUtils.getLiteralValue( value );
+		}
+	}
+
+	private static final Comparator<Entry>	ENTRY_COMPARATOR	= new Comparator<Entry>() {
+		public int compare(Entry e1, Entry e2) {
+			if( e1.section != e2.section )
+				return e1.section < e2.section
+					? -1
+					: 1;
+
+			switch ( e1.section ) {
+			case NUMERIC:
+			case TEMPORAL:
+				return Double.compare( e1.key, e2.key );
+			case STRING:
+				return e1.lexical.compareTo( e2.lexical );
+			default:
+				return 0;
+			}
+		}
+	};
+
+	/**
+	 * Collects the entries of an index.
+	 */
+	public static class Builder {
+		private final DatatypeReasoner	dtReasoner;
+		private final List<Entry>		entries;
+
+		public Builder(DatatypeReasoner dtReasoner) {
+			this.dtReasoner = dtReasoner;
+			entries = new ArrayList<Entry>();
+		}
+
+		/**
+		 * Adds a value of the property for the given subject.
+		 *
+		 * @param certain
+		 *            <code>true</code> if the value holds in every model
+		 */
+		public void add(ATermAppl subject, ATermAppl literal, boolean certain) {
+			Object value;
+			try {
+				value = dtReasoner.getValue( literal );
+			} catch( DatatypeReasonerException e ) {
+				value = null;
+			}
+
+			int section = getSection( literal, value );
+			entries.add( new Entry( subject, literal, certain, section, getKey( section, value ) ) );
+		}
+
+		public DataValueIndex build() {
+			Collections.sort( entries, ENTRY_COMPARATOR );
+
+			return new DataValueIndex( entries );
+		}
+	}
+
+	private final ATermAppl[]	subjects;
+	private final ATermAppl[]	values;
+	private final BitSet		uncertain;
+
+	/**
+	 * Sort keys of the numeric and temporal sections
+	 */
+	private final double[]		keys;
+
+	/**
+	 * Sort keys of the string section
+	 */
+	private final String[]		lexicals;
+
+	/**
+	 * Start position of each section followed by the size of the index
+	 */
+	private final int[]			sections;
+
+	private DataValueIndex(List<Entry> entries) {
+		int size = entries.size();
+		subjects = new ATermAppl[size];
+		values = new ATermAppl[size];
+		uncertain = new BitSet();
+		sections = new int[OTHER + 2];
+		sections[OTHER + 1] = size;
+
+		int keyed = 0;
+		int strings = 0;
+		for( Entry entry : entries ) {
+			if( entry.section < STRING )
+				keyed++;
+			else if( entry.section == STRING )
+				strings++;
+		}
+		keys = new double[keyed];
+		lexicals = new String[strings];
+
+		int section = 0;
+		for( int i = 0; i < size; i++ ) {
+			Entry entry = entries.get( i );
+			while( section < entry.section )
+				sections[++section] = i;
+
+			subjects[i] = entry.subject;
+			values[i] = entry.value;
+			if( !entry.certain )
+				uncertain.set( i );
+			if( entry.section < STRING )
+				keys[i] = entry.key;
+			else if( entry.section == STRING )
+				lexicals[i - keyed] = entry.lexical;
+		}
+		while( section < OTHER )
+			sections[++section] = size;
+	}
+
+	private static int getSection(ATermAppl literal, Object value) {
+		if( value instanceof Number ) {
+			double key = ((Number) value).doubleValue();
+			return Double.isNaN( key )
+				? OTHER
+				: NUMERIC;
+		}
+		else if( value instanceof XMLGregorianCalendar )
+			return TEMPORAL;
+		else {
+			ATermAppl datatype = (ATermAppl) literal.getArgument( ATermUtils.LIT_URI_INDEX );
+			if( datatype.equals( ATermUtils.PLAIN_LITERAL_DATATYPE )
+					|| datatype.equals( XSD_STRING ) )
+				return STRING;
+		}
+
+		return OTHER;
+	}
+
+	private static double getKey(int section, Object value) {
+		switch ( section ) {
+		case NUMERIC:
+			// rounding to double keeps the order so the bounds of a lookup
+			// are rounded the same way
+			return ((Number) value).doubleValue();
+		case TEMPORAL:
+			// values without a time zone are treated as UTC
+			return ((XMLGregorianCalendar) value).toGregorianCalendar( UTC, null, null )
+					.getTimeInMillis();
+		default:
+			return 0;
+		}
+	}
+
+	public int size() {
+		return subjects.length;
+	}
+
+	public ATermAppl getSubject(int i) {
+		return subjects[i];
+	}
+
+	public ATermAppl getValue(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Returns <code>true</code> if the value of the entry holds in every model.
+	 */
+	public boolean isCertain(int i) {
+		return !uncertain.get( i );
+	}
+
+	private int[] getAll() {
+		return new int[] { 0, size() };
+	}
+
+	private int[] getSection(int section) {
+		return new int[] { sections[section], sections[section + 1] };
+	}
+
+	private int[] getKeyRange(int section, double min, double max) {
+		if( min > max )
+			return NONE;
+
+		int lo = sections[section];
+		int hi = sections[section + 1];
+		while( lo < hi ) {
+			int mid = (lo + hi) >>> 1;
+			if( keys[mid] < min )
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		int from = lo;
+		hi = sections[section + 1];
+		while( lo < hi ) {
+			int mid = (lo + hi) >>> 1;
+			if( keys[mid] <= max )
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		return new int[] { from, lo };
+	}
+
+	/**
+	 * Returns the candidate entries whose value is equal to the given literal.
+	 */
+	public int[] getValueCandidates(ATermAppl literal, DatatypeReasoner dtReasoner) {
+		Object value;
+		try {
+			value = dtReasoner.getValue( literal );
+		} catch( DatatypeReasonerException e ) {
+			return NONE;
+		}
+
+		int section = getSection( literal, value );
+		switch ( section ) {
+		case NUMERIC:
+			double key = getKey( section, value );
+			return getKeyRange( section, key, key );
+		case TEMPORAL:
+			key = getKey( section, value );
+			return getKeyRange( section, key - MAX_ZONE_OFFSET, key + MAX_ZONE_OFFSET );
+		case STRING:
+			String lexical = ATermUtils.getLiteralValue( literal );
+			int[] range = getPrefixCandidates( lexical );
+			int to = range[0];
+			while( to < range[1] && lexicals[to - sections[STRING]].equals( lexical ) )
+				to++;
+			return new int[] { range[0], to };
+		default:
+			return getSection( OTHER );
+		}
+	}
+
+	/**
+	 * Returns the candidate entries whose value is in the given data range.
+	 * Bounds are used only if the data range is a restricted datatype with
+	 * numeric or temporal bounds, otherwise all the entries are returned.
+	 */
+	public int[] getRangeCandidates(ATermAppl dataRange, DatatypeReasoner dtReasoner) {
+		if( !ATermUtils.isRestrictedDatatype( dataRange ) )
+			return getAll();
+
+		int section = -1;
+		double min = Double.NEGATIVE_INFINITY;
+		double max = Double.POSITIVE_INFINITY;
+		for( ATermList list = (ATermList) dataRange.getArgument( 1 ); !list.isEmpty(); list = list
+				.getNext() ) {
+			ATermAppl restriction = (ATermAppl) list.getFirst();
+			Facet facet = Facet.Registry.get( (ATermAppl) restriction.getArgument( 0 ) );
+			ATermAppl literal = (ATermAppl) restriction.getArgument( 1 );
+
+			boolean isMin = facet == Facet.XSD.MIN_INCLUSIVE || facet == Facet.XSD.MIN_EXCLUSIVE;
+			boolean isMax = facet == Facet.XSD.MAX_INCLUSIVE || facet == Facet.XSD.MAX_EXCLUSIVE;
+			if( !isMin && !isMax )
+				continue;
+
+			Object value;
+			try {
+				value = dtReasoner.getValue( literal );
+			} catch( DatatypeReasonerException e ) {
+				return getAll();
+			}
+
+			int valueSection = getSection( literal, value );
+			if( valueSection > TEMPORAL || (section >= 0 && section != valueSection) )
+				return getAll();
+			section = valueSection;
+
+			double key = getKey( section, value );
+			if( isMin )
+				min = Math.max( min, key );
+			else
+				max = Math.min( max, key );
+		}
+
+		if( section < 0 )
+			return getAll();
+
+		if( section == TEMPORAL ) {
+			min -= MAX_ZONE_OFFSET;
+			max += MAX_ZONE_OFFSET;
+		}
+
+		return getKeyRange( section, min, max );
+	}
+
+	/**
+	 * Returns the entries whose value is a string (a plain literal or an
+	 * <code>xsd:string</code>) that starts with the given prefix.
+	 */
+	public int[] getPrefixCandidates(String prefix) {
+		int offset = sections[STRING];
+		int lo = 0;
+		int hi = lexicals.length;
+		while( lo < hi ) {
+			int mid = (lo + hi) >>> 1;
+			if( lexicals[mid].compareTo( prefix ) < 0 )
+				lo = mid + 1;
+			else
+				hi = mid;
+		}
+
+		int to = lo;
+		while( to < lexicals.length && lexicals[to].startsWith( prefix ) )
+			to++;
+
+		return new int[] { offset + lo, offset + to };
+	}
+
+	@Override
+	public String toString() {
+		return "DataValueIndex(size=" + size() + ")";
+	}
+}
@@ -39,11 +39,17 @@ import org.mindswap.pellet.tableau.completion.incremental.DependencyIndex;
 import org.mindswap.pellet.utils.SetUtils;
 import org.mindswap.pellet.utils.intset.IntSet;
 import org.mindswap.pellet.utils.intset.IntSetFactory;
+import org.mindswap.pellet.utils.intset.IntSetInterner;
 
 import aterm.ATermAppl;
 
 /**
- * DependencySet for concepts and edges in the ABox for backjumping
+ * DependencySet for concepts and edges in the ABox for backjumping. The set of
+ * branches is never modified in place: {@link #add(int)} and
+ * {@link #remove(int)} replace it with a modified copy. This allows the
+ * branch sets to be shared between dependency sets and, if
+ * {@link PelletOptions#SHARE_DEPENDENCY_SETS} is set, equal branch sets and
+ * the unions of branch sets are represented by a single instance.
  * 
  * @author Evren Sirin
  */
@@ -64,11 +70,25 @@ public class DependencySet {
 	public static final DependencySet	INDEPENDENT;
 
 	public static final IntSet			ZERO;
+
+	/**
+	 * Branch sets are interned per thread so no synchronization is needed in
+	 * the completion rules. The interned sets are never modified so they can
+	 * still be used by other threads.
+	 */
+	private static final ThreadLocal<IntSetInterner>	INTERNER;
 	static {
 		log			= Logger.getLogger( DependencySet.class.getName() );
 		NO_BRANCH	= -1;
-		ZERO = IntSetFactory.create();
-		ZERO.add( 0 );
+		INTERNER = new ThreadLocal<IntSetInterner>() {
+			@Override
+			protected IntSetInterner initialValue() {
+				return new IntSetInterner();
+			}
+		};
+		IntSet zero = IntSetFactory.create();
+		zero.add( 0 );
+		ZERO = zero;
 		EMPTY = new DependencySet();
 		INDEPENDENT	= new DependencySet( 0 );
 	}
@@ -106,16 +126,16 @@ public class DependencySet {
 	 *            Branch number
 	 */
 	public DependencySet(int branch) {
-		this.depends = IntSetFactory.create();
-
+		IntSet depends = IntSetFactory.create();
 		depends.add( branch );
+
+		this.depends = intern( depends );
 		setExplain( SetUtils.<ATermAppl>emptySet() );
 	}
 
 	/**
 	 * Creates a dependency set with the given IntSet (no separate copy of
-	 * IntSet is created so if IntSet is modified this DependencySet will be
-	 * affected).
+	 * IntSet is created so the IntSet should not be modified afterwards).
 	 */
 	private DependencySet(int branch, IntSet depends, Set<ATermAppl> explain) {
 		this.branch = branch;
@@ -143,7 +163,7 @@ public class DependencySet {
 
 	/**
 	 * Creates a new DependencySet object with a new branch number where the IntSet 
-     * is shared (changing one will change the other).
+     * is shared (adding or removing a branch from one will not change the other).
 	 * 
 	 * @return
 	 */
@@ -167,7 +187,11 @@ public class DependencySet {
 	 * @param b
 	 */
 	public void add(int b) {
-		depends.add( b );
+		if( !depends.contains( b ) ) {
+			IntSet newDepends = depends.copy();
+			newDepends.add( b );
+			depends = intern( newDepends );
+		}
 	}
 
 	/**
@@ -176,7 +200,11 @@ public class DependencySet {
 	 * @param b
 	 */
 	public void remove(int b) {
-		depends.remove( b );
+		if( depends.contains( b ) ) {
+			IntSet newDepends = depends.copy();
+			newDepends.remove( b );
+			depends = intern( newDepends );
+		}
 	}
 
 	/**
@@ -222,7 +250,7 @@ public class DependencySet {
 	 * @return
 	 */
 	public DependencySet union(IntSet set) {
-		return new DependencySet( branch, depends.union( set ), explain );
+		return new DependencySet( branch, unionDepends( depends, set.copy() ), explain );
 	}
 	
 	/**
@@ -234,7 +262,7 @@ public class DependencySet {
 	 * @return
 	 */
 	public DependencySet union(DependencySet ds, boolean doExplanation) {
-		IntSet newDepends = depends.union( ds.depends );
+		IntSet newDepends = unionDepends( depends, ds.depends );
 		Set<ATermAppl> newExplain;
 		
 		if( doExplanation ) {
@@ -257,7 +285,19 @@ public class DependencySet {
 		if( !doExplanation || explain.isEmpty() )
 			return this;
 
-		return new DependencySet( branch, depends.copy(), SetUtils.union( this.explain, explain ) );
+		return new DependencySet( branch, depends, SetUtils.union( this.explain, explain ) );
+	}
+
+	private static IntSet intern(IntSet depends) {
+		return PelletOptions.SHARE_DEPENDENCY_SETS
+			? INTERNER.get().intern( depends )
+			: depends;
+	}
+
+	private static IntSet unionDepends(IntSet depends1, IntSet depends2) {
+		return PelletOptions.SHARE_DEPENDENCY_SETS
+			? INTERNER.get().union( depends1, depends2 )
+			: depends1.union( depends2 );
 	}
 
 	public String toString() {
@@ -288,10 +328,18 @@ public class DependencySet {
 
 	}
 
+	/**
+	 * Sets the branches of this dependency set. The given set is not copied and
+	 * should not be modified afterwards.
+	 */
 	public void setDepends(IntSet depends) {
 		this.depends = depends;
 	}
 
+	/**
+	 * Returns the branches of this dependency set. The returned set may be
+	 * shared with other dependency sets and should not be modified.
+	 */
 	public IntSet getDepends() {
 		return depends;
 	}
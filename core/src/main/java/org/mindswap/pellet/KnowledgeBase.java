@@ -60,10 +60,13 @@ import java.util.logging.Logger;
 
 import org.mindswap.pellet.PelletOptions.InstanceRetrievalMethod;
 import org.mindswap.pellet.exceptions.InconsistentOntologyException;
+import org.mindswap.pellet.exceptions.InternalReasonerException;
 import org.mindswap.pellet.exceptions.UndefinedEntityException;
 import org.mindswap.pellet.exceptions.UnsupportedFeatureException;
 import org.mindswap.pellet.output.ATermBaseVisitor;
 import org.mindswap.pellet.tableau.branch.Branch;
+import org.mindswap.pellet.tableau.cache.ModuleFingerprinter;
+import org.mindswap.pellet.tableau.cache.PersistentConceptCache;
 import org.mindswap.pellet.tableau.completion.CompletionStrategy;
 import org.mindswap.pellet.tableau.completion.EmptySRIQStrategy;
 import org.mindswap.pellet.tableau.completion.SROIQStrategy;
@@ -80,6 +83,7 @@ import org.mindswap.pellet.utils.ATermUtils;
 import org.mindswap.pellet.utils.AnnotationClasses;
 import org.mindswap.pellet.utils.Bool;
 import org.mindswap.pellet.utils.MultiValueMap;
+import org.mindswap.pellet.utils.KBStatistics;
 import org.mindswap.pellet.utils.SizeEstimate;
 import org.mindswap.pellet.utils.TaxonomyUtils;
 import org.mindswap.pellet.utils.Timer;
@@ -92,6 +96,7 @@ import aterm.ATermFactory;
 import aterm.ATermList;
 
 import com.clarkparsia.pellet.datatypes.DatatypeReasoner;
+import com.clarkparsia.pellet.datatypes.exceptions.DatatypeReasonerException;
 import com.clarkparsia.pellet.datatypes.exceptions.InvalidLiteralException;
 import com.clarkparsia.pellet.datatypes.exceptions.UnrecognizedDatatypeException;
 import com.clarkparsia.pellet.el.SimplifiedELClassifier;
@@ -108,6 +113,8 @@ import com.clarkparsia.pellet.rules.model.IndividualPropertyAtom;
 import com.clarkparsia.pellet.rules.model.Rule;
 import com.clarkparsia.pellet.rules.model.RuleAtom;
 import com.clarkparsia.pellet.rules.model.SameIndividualAtom;
+import com.clarkparsia.pellet.rules.rete.RuleNetwork;
+import com.clarkparsia.pellet.sparqldl.engine.QueryCache;
 import com.clarkparsia.pellet.utils.CollectionUtils;
 import com.clarkparsia.pellet.utils.MultiMapUtils;
 
@@ -133,9 +140,28 @@ public class KnowledgeBase {
 	protected TaxonomyBuilder								builder;
 	private ProgressMonitor									builderProgressMonitor;
 
+	/**
+	 * Classes added after the last classification that are used only on the
+	 * left-hand side of the sub class axioms added since then. Such additions
+	 * do not change the subsumptions between the existing classes so the
+	 * taxonomy is kept and only these classes are inserted into it. The value
+	 * is <code>null</code> if any other change was made to the TBox.
+	 */
+	private Set<ATermAppl>									newClasses	= new HashSet<ATermAppl>();
+
+	/**
+	 * Taxonomy computed before schema axioms were removed. Removals cannot add
+	 * subsumptions or unsatisfiable classes so the next classification skips
+	 * the tests already answered by this taxonomy. The value is
+	 * <code>null</code> if any axiom was added since then.
+	 */
+	private Taxonomy<ATermAppl>								previousTaxonomy;
+
 	private boolean											consistent;
 
 	private SizeEstimate									estimate;
+
+	private KBStatistics									statistics	= new KBStatistics();
 	
 	private boolean											explainOnlyInconsistency = false;
 
@@ -184,6 +210,47 @@ public class KnowledgeBase {
 	 */
 	private Map<Rule,Rule>					rules;
 
+	/**
+	 * RETE network compiled from the rules of this KB, reused by the
+	 * completions of all the ABoxes of this KB until the rules, TBox or RBox
+	 * change
+	 */
+	private RuleNetwork						ruleNetwork;
+
+	/**
+	 * Data property values kept outside the ABox when
+	 * {@link PelletOptions#USE_LITERAL_STORE} is enabled
+	 */
+	private LiteralStore					literalStore;
+
+	/**
+	 * Concept satisfiability results saved across sessions, <code>null</code>
+	 * if results are not saved
+	 */
+	private PersistentConceptCache			persistentCache;
+
+	/**
+	 * Fingerprints of the modules the results in the persistent cache depend
+	 * on, reset when the TBox or RBox changes
+	 */
+	private ModuleFingerprinter				moduleFingerprinter;
+
+	/**
+	 * Answers of the queries executed against this KB, created when the
+	 * first query is cached
+	 */
+	private volatile QueryCache				queryCache;
+
+	/**
+	 * Data properties used in the concepts asserted in the ABox
+	 */
+	private Set<ATermAppl>					aboxDataProperties;
+
+	/**
+	 * Data properties whose values are always added to the ABox
+	 */
+	private Set<ATermAppl>					materializedDataProperties;
+
 	// !!!!THE FOLLOWING ARE USED FOR INCREMENTAL REASONING!!!!
 	// Structure for tracking which assertions are deleted
 	private Set<ATermAppl>					deletedAssertions;
@@ -208,6 +275,19 @@ public class KnowledgeBase {
 
 	protected boolean				canUseIncConsistency;
 
+	/**
+	 * Incremented every time the changes made to the KB are processed
+	 */
+	private int						version;
+
+	/**
+	 * Value indexes of data properties built for the KB version
+	 * <code>dataValueIndexVersion</code>
+	 */
+	private Map<ATermAppl, DataValueIndex>	dataValueIndexes	= new HashMap<ATermAppl, DataValueIndex>();
+
+	private int						dataValueIndexVersion	= -1;
+
 	FullyDefinedClassVisitor		fullyDefinedVisitor	= new FullyDefinedClassVisitor();
 	DatatypeVisitor					datatypeVisitor		= new DatatypeVisitor();
 
@@ -443,6 +523,8 @@ public class KnowledgeBase {
 		rbox = kb.rbox;
 		rules = kb.rules;
 
+		materializedDataProperties = new HashSet<ATermAppl>( kb.materializedDataProperties );
+
 		aboxAssertions = new MultiValueMap<AssertionType, ATermAppl>();
 		
 		annotations = kb.annotations;
@@ -460,6 +542,9 @@ public class KnowledgeBase {
 		if( emptyABox ) {
 			abox = new ABox( this );
 
+			literalStore = new LiteralStore();
+			aboxDataProperties = new HashSet<ATermAppl>();
+
 			individuals = new HashSet<ATermAppl>();
 			instances = new HashMap<ATermAppl, Set<ATermAppl>>();
 
@@ -472,6 +557,9 @@ public class KnowledgeBase {
 		else {
 			abox = kb.abox.copy(this);
 
+			literalStore = kb.literalStore.copy();
+			aboxDataProperties = new HashSet<ATermAppl>( kb.aboxDataProperties );
+
 			if( PelletOptions.KEEP_ABOX_ASSERTIONS ) {
 				for( AssertionType assertionType : AssertionType.values() ) {
 					Set<ATermAppl> assertions = kb.aboxAssertions.get( assertionType );
@@ -551,6 +639,11 @@ public class KnowledgeBase {
 		rbox = new RBox();
 		
 		rules = new HashMap<Rule,Rule>();
+		ruleNetwork = null;
+
+		literalStore = new LiteralStore();
+		aboxDataProperties = new HashSet<ATermAppl>();
+		materializedDataProperties = new HashSet<ATermAppl>();
 
 		expChecker = new ExpressivityChecker( this );
 		individuals = new HashSet<ATermAppl>();
@@ -561,6 +654,10 @@ public class KnowledgeBase {
 		// typeChecks = new HashMap();
 
 		builder = null;
+		newClasses = new HashSet<ATermAppl>();
+		previousTaxonomy = null;
+
+		statistics.clear();
 
 		state.clear();
 		changes = EnumSet.of( ChangeType.ABOX_ADD, ChangeType.TBOX_ADD, ChangeType.RBOX_ADD );
@@ -582,8 +679,13 @@ public class KnowledgeBase {
 		newABox.cache = abox.cache;
 		abox = newABox;
 
+		literalStore.clear();
+		aboxDataProperties.clear();
+
 		individuals.clear();
 
+		statistics.clear();
+
 		changes = EnumSet.of( ChangeType.ABOX_DEL );
 		
 		prepare();
@@ -605,6 +707,37 @@ public class KnowledgeBase {
 		return copy( false );
 	}
 
+	/**
+	 * Create a copy of this KB that can answer queries in another thread while
+	 * this KB is used by the current thread. The copy has its own ABox,
+	 * concept cache and timers but shares the TBox, RBox, statistics and the
+	 * classification and realization results with this KB. The concept cache
+	 * is also shared if it is thread-safe, see
+	 * {@link PelletOptions#USE_CONCURRENT_CONCEPT_CACHE}. Neither KB should
+	 * be modified while the copy is in use.
+	 * 
+	 * @return A copy of this KB for concurrent query answering
+	 */
+	public KnowledgeBase copyForQuery() {
+		ensureConsistency();
+
+		KnowledgeBase kb = new KnowledgeBase( this, false );
+		kb.timers = new Timers();
+		kb.abox.copyCache();
+		kb.statistics = statistics;
+		kb.estimate = new SizeEstimate( kb );
+
+		if( isClassified() ) {
+			kb.builder = builder;
+			kb.state.add( ReasoningState.CLASSIFY );
+		}
+		if( isRealized() ) {
+			kb.state.add( ReasoningState.REALIZE );
+		}
+
+		return kb;
+	}
+
 	/**
 	 * Create a copy of this KB. Depending on the value of
 	 * <code>emptyABox</code> either a completely new copy of ABox will be
@@ -636,6 +769,9 @@ public class KnowledgeBase {
 		if( added ) {
 			changes.add( ChangeType.TBOX_ADD );
 
+			if( newClasses != null && state.contains( ReasoningState.CLASSIFY ) )
+				newClasses.add( c );
+
 			if( log.isLoggable( Level.FINER ) )
 				log.finer( "class " + c );
 		}
@@ -647,6 +783,9 @@ public class KnowledgeBase {
 
 		changes.add( ChangeType.TBOX_ADD );
 
+		if( newClasses != null && !newClasses.contains( sub ) )
+			newClasses = null;
+
 		tbox.addAxiom( ATermUtils.makeSub( sub, sup ) );
 		
 		if( log.isLoggable( Level.FINER ) )
@@ -658,6 +797,7 @@ public class KnowledgeBase {
 			return;
 
 		changes.add( ChangeType.TBOX_ADD );
+		newClasses = null;
 
 		tbox.addAxiom( ATermUtils.makeEqClasses( c1, c2 ) );
 		
@@ -701,6 +841,7 @@ public class KnowledgeBase {
 
 	public void addDisjointClasses(ATermList classes) {		
 		changes.add( ChangeType.TBOX_ADD );
+		newClasses = null;
 
 		tbox.addAxiom( ATermUtils.makeDisjoints( classes ) );
 		
@@ -714,6 +855,7 @@ public class KnowledgeBase {
 
 	public void addDisjointClass(ATermAppl c1, ATermAppl c2) {
 		changes.add( ChangeType.TBOX_ADD );
+		newClasses = null;
 
 		tbox.addAxiom( ATermUtils.makeDisjoint( c1, c2 ) );
 		
@@ -723,6 +865,7 @@ public class KnowledgeBase {
 
 	public void addComplementClass(ATermAppl c1, ATermAppl c2) {
 		changes.add( ChangeType.TBOX_ADD );
+		newClasses = null;
 		ATermAppl notC2 = ATermUtils.makeNot( c2 );
 
 		if( c1.equals( notC2 ) )
@@ -770,6 +913,7 @@ public class KnowledgeBase {
 		abox.setSyntacticUpdate( true );
 		Individual ind = abox.addIndividual( i, DependencySet.INDEPENDENT );
 		individuals.add( i );
+		statistics.clear();
 
 		if( log.isLoggable( Level.FINER ) )
 			log.finer( "individual " + i );
@@ -849,10 +993,18 @@ public class KnowledgeBase {
 			abox.getIncrementalChangeTracker().addUpdatedIndividual( abox.getIndividual( i ) );
 		}
 
+		// asserting a type the individual already has for certain does not
+		// change any inference so the statistics stay valid
+		if( statistics.isComplete() && !hasIndependentType( abox.getIndividual( i ), c ) )
+			statistics.clear();
+
 		abox.setSyntacticUpdate( true );
 		abox.addType( i, c, ds );
 		abox.setSyntacticUpdate( false );
 
+		if( !ATermUtils.isPrimitive( c ) && PelletOptions.USE_LITERAL_STORE )
+			collectDataProperties( c, aboxDataProperties );
+
 		if( canUseIncConsistency() ) {
 			// incrementally update the expressivity of the KB, so that we do
 			// not have to reperform if from scratch!
@@ -863,9 +1015,38 @@ public class KnowledgeBase {
 			log.finer( "type " + i + " " + c );
 	}
 
+	/**
+	 * Checks if the individual has the given type with no dependency on a
+	 * non-deterministic choice, i.e. if asserting the type would not change
+	 * anything.
+	 */
+	private static boolean hasIndependentType(Individual ind, ATermAppl c) {
+		if( ind == null )
+			return false;
+
+		ind = ind.getSame();
+
+		return ind.hasType( c ) && ind.getDepends( c ).isIndependent();
+	}
+
+	/**
+	 * Checks if there is an edge between the given nodes with no dependency on
+	 * a non-deterministic choice, i.e. if asserting the edge would not change
+	 * anything.
+	 */
+	private static boolean hasIndependentEdge(Individual subj, Role role, Node obj) {
+		Individual from = subj.getSame();
+		Node to = obj.getSame();
+
+		Edge edge = from.getOutEdges().getExactEdge( from, role, to );
+
+		return edge != null && edge.getDepends().isIndependent();
+	}
+
 	public void addSame(ATermAppl i1, ATermAppl i2) {
 		// set addition flag
 		changes.add( ChangeType.ABOX_ADD );
+		statistics.clear();
 
 		if( canUseIncConsistency() ) {
 			// TODO: refactor the access to the updatedIndividuals and
@@ -887,6 +1068,7 @@ public class KnowledgeBase {
 	public void addAllDifferent(ATermList list) {
 		// set addition flag
 		changes.add( ChangeType.ABOX_ADD );
+		statistics.clear();
 
 		// if we can use incremental consistency checking then add to
 		// pseudomodel
@@ -925,6 +1107,7 @@ public class KnowledgeBase {
 	public void addDifferent(ATermAppl i1, ATermAppl i2) {
 		// set addition flag
 		changes.add( ChangeType.ABOX_ADD );
+		statistics.clear();
 
 		// if we can use incremental consistency checking then add to
 		// pseudomodel
@@ -999,6 +1182,20 @@ public class KnowledgeBase {
 				log.warning( "Ignoring non-literal value " + o + " for data property " + p );
 				return false;
 			}
+			if( isLiteralStoreUsed( p ) ) {
+				if( PelletOptions.KEEP_ABOX_ASSERTIONS )
+					aboxAssertions.add( AssertionType.DATA_ROLE, propAxiom );
+
+				// the value is validated and moved to the ABox if necessary
+				// before the next consistency check
+				literalStore.add( p, s, o );
+				statistics.clear();
+
+				if( log.isLoggable( Level.FINER ) )
+					log.finer( "stored prop-value " + s + " " + p + " " + o );
+
+				return true;
+			}
 			obj = abox.addLiteral( o, ds );
 			if( PelletOptions.KEEP_ABOX_ASSERTIONS )
 				aboxAssertions.add( AssertionType.DATA_ROLE, propAxiom );
@@ -1007,6 +1204,11 @@ public class KnowledgeBase {
 		// set addition flag
 		changes.add( ChangeType.ABOX_ADD );
 
+		// asserting an edge that already exists for certain does not change
+		// any inference so the statistics stay valid
+		if( statistics.isComplete() && !hasIndependentEdge( subj, role, obj ) )
+			statistics.clear();
+
 		if( !canUseIncConsistency() ) {
 			Edge edge = abox.addEdge( p, s, obj.getName(), ds );
 			
@@ -1073,6 +1275,7 @@ public class KnowledgeBase {
 
 	public boolean addNegatedPropertyValue(ATermAppl p, ATermAppl s, ATermAppl o) {
 		changes.add( ChangeType.ABOX_ADD );
+		statistics.clear();
 
 		Individual subj = abox.getIndividual( s );
 		Role role = getRole( p );
@@ -1563,6 +1766,20 @@ public class KnowledgeBase {
 	}
 
 	public boolean removePropertyValue(ATermAppl p, ATermAppl i1, ATermAppl i2) {
+		if( ATermUtils.isLiteral( i2 ) && literalStore.remove( p, i1, i2 ) ) {
+			// values in the literal store do not affect the ABox
+			if( PelletOptions.KEEP_ABOX_ASSERTIONS )
+				aboxAssertions.remove( AssertionType.DATA_ROLE, ATermUtils.makePropAtom( p, i1, i2 ) );
+
+			version++;
+			instances.clear();
+
+			if( log.isLoggable( Level.FINER ) )
+				log.finer( "Remove stored " + i1 + " " + p + " " + i2 );
+
+			return true;
+		}
+
 		if( ATermUtils.isLiteral( i2 ) ) {
 			try {
 				i2 = abox.getDatatypeReasoner().getCanonicalRepresentation( i2 );
@@ -1614,6 +1831,8 @@ public class KnowledgeBase {
 		if( edge == null )
 			return false;
 
+		statistics.clear();
+
 		// set deletion flag
 		changes.add( ChangeType.ABOX_DEL );
 
@@ -1738,6 +1957,9 @@ public class KnowledgeBase {
 		// set deletion flag
 		changes.add( ChangeType.ABOX_DEL );
 
+		if( removed )
+			statistics.clear();
+
 		if( log.isLoggable( Level.FINER ) )
 			log.finer( "Remove Type " + ind + " " + c );
 		
@@ -1762,8 +1984,10 @@ public class KnowledgeBase {
 			log.log( Level.SEVERE, "Removal failed for axiom " + axiom, e );
 		}
 
-		if( removed )
+		if( removed ) {
 			changes.add( ChangeType.TBOX_DEL );
+			newClasses = null;
+		}
 
 		if( log.isLoggable( Level.FINER ) )
 			log.finer( "Remove " + axiom + ": " + removed );
@@ -1797,6 +2021,32 @@ public class KnowledgeBase {
 				// there are no nominals
 				&& (!expChecker.getExpressivity().hasNominal() || PelletOptions.USE_PSEUDO_NOMINALS);
 
+		// the taxonomy can be extended if only new classes were defined
+		boolean extendTaxonomy =
+				state.contains( ReasoningState.CLASSIFY )
+				&& newClasses != null
+				&& !isRBoxChanged()
+				&& builder instanceof CDOptimizedTaxonomyBuilder;
+
+		// the taxonomy can be used to prune the next classification if axioms
+		// were only removed
+		Taxonomy<ATermAppl> upperBound = null;
+		if( PelletOptions.USE_INCREMENTAL_TBOX_DELETION
+				&& !reuseTaxonomy
+				&& !changes.contains( ChangeType.TBOX_ADD )
+				&& !changes.contains( ChangeType.RBOX_ADD )
+				&& (!expChecker.getExpressivity().hasNominal() || PelletOptions.USE_PSEUDO_NOMINALS) ) {
+			upperBound = state.contains( ReasoningState.CLASSIFY ) && builder != null
+				? builder.getTaxonomy()
+				: previousTaxonomy;
+		}
+
+		// compiled rules depend on the class and role hierarchies
+		if( isTBoxChanged() || isRBoxChanged() ) {
+			ruleNetwork = null;
+			moduleFingerprinter = null;
+		}
+
 		if( isRBoxChanged() ) {
 			if( log.isLoggable( Level.FINER ) )
 				log.finer( "Role hierarchy..." );
@@ -1819,6 +2069,12 @@ public class KnowledgeBase {
 
 		canUseIncConsistency = canUseIncConsistency();
 
+		// schema changes made after the KB has been reasoned with may change
+		// inferred instance counts arbitrarily so the statistics are
+		// recomputed at next realization
+		if( (isTBoxChanged() || isRBoxChanged()) && abox.isComplete() )
+			statistics.clear();
+
 		if( abox.isComplete() ) {
 			if( changes.contains( ChangeType.TBOX_DEL ) || changes.contains( ChangeType.RBOX_DEL )
 					|| (!canUseIncConsistency && changes.contains( ChangeType.ABOX_DEL )) ) {
@@ -1836,6 +2092,8 @@ public class KnowledgeBase {
 		// reset flags
 		changes.clear();
 
+		version++;
+
 		instances.clear();
 
 		estimate = new SizeEstimate( this );
@@ -1847,12 +2105,26 @@ public class KnowledgeBase {
 
 			expChecker.prepare();
 		}
+
+		if( !reuseTaxonomy && extendTaxonomy ) {
+			// new classes are inserted into the existing taxonomy when
+			// classification is requested
+			reuseTaxonomy = !expChecker.getExpressivity().hasNominal()
+					|| PelletOptions.USE_PSEUDO_NOMINALS;
+		}
 		
 		abox.clearCaches( !reuseTaxonomy );
 		abox.cache.setMaxSize( PelletOptions.MAX_ANONYMOUS_CACHE );
 
 		if( !reuseTaxonomy ) {
 			state.remove( ReasoningState.CLASSIFY );
+			newClasses = new HashSet<ATermAppl>();
+			// cached models may depend on the removed axioms so the
+			// classification starts over, pruned by the previous taxonomy
+			if( builder instanceof CDOptimizedTaxonomyBuilder )
+				((CDOptimizedTaxonomyBuilder) builder).setPreviousTaxonomy( upperBound );
+			else
+				previousTaxonomy = upperBound;
 			//builder = null;
 			// taxonomy = null;
 		}
@@ -1916,13 +2188,23 @@ public class KnowledgeBase {
 	 * KB has changed after that.
 	 */
 	public boolean isClassified() {
-		return !isChanged() && state.contains( ReasoningState.CLASSIFY );
+		return !isChanged() && state.contains( ReasoningState.CLASSIFY ) && newClasses.isEmpty();
 	}
 
 	public boolean isRealized() {
 		return !isChanged() && state.contains( ReasoningState.REALIZE );
 	}
 
+	/**
+	 * Returns a number that is incremented every time the changes made to the
+	 * KB are processed. Two calls return the same value only if the KB has
+	 * not been modified in between (or the modifications have not been
+	 * processed yet, see {@link #isChanged()}).
+	 */
+	public int getVersion() {
+		return version;
+	}
+
 	public boolean isChanged() {
 		return !changes.isEmpty();
 	}
@@ -1988,13 +2270,38 @@ public class KnowledgeBase {
 	}
 
 	private void consistency() {
-		if( isConsistencyDone() )
-			return;
+		if( isConsistencyDone() ) {
+			if( !literalStore.hasUnvalidatedValues() )
+				return;
+
+			// new values in the literal store change the ABox only if they
+			// need to be materialized
+			processDataValues();
+
+			if( isConsistencyDone() )
+				return;
+		}
+
+		checkConsistency();
+
+		// the values of a merged individual should be found through the
+		// individual it is merged to so they are moved to the ABox. These
+		// values are not used in reasoning so they do not change which
+		// individuals are merged and one more check is enough
+		if( consistent && materializeMergedDataValues() )
+			checkConsistency();
+	}
 
+	private void checkConsistency() {
 		abox.setInitialized( false );
 
 		// prepare the KB
 		prepare();		
+
+		processDataValues();
+
+		// the values materialized in the ABox are processed
+		prepare();
 		
 		for( Entry<Rule, Rule> normalizedRule : rules.entrySet() ) {
 			if( normalizedRule.getValue() == null ) {
@@ -2070,6 +2377,271 @@ public class KnowledgeBase {
 		assert isConsistencyDone() : "Consistency flag not set";
 	}
 
+	private boolean isLiteralStoreUsed(ATermAppl p) {
+		return PelletOptions.USE_LITERAL_STORE && !PelletOptions.USE_TRACING
+				&& !materializedDataProperties.contains( p );
+	}
+
+	/**
+	 * Returns the literal store that keeps the data property values which are
+	 * not used in reasoning.
+	 */
+	public LiteralStore getLiteralStore() {
+		return literalStore;
+	}
+
+	/**
+	 * Validates the values added to the literal store and moves the values of
+	 * the properties used in reasoning to the ABox. Values are moved if the
+	 * property (or one of its super properties) is used in a class
+	 * expression, is functional, has a domain or a disjoint property, or if
+	 * the values are not valid for the ranges of the property.
+	 */
+	private void processDataValues() {
+		if( literalStore.isEmpty() ) {
+			literalStore.setValidated();
+			return;
+		}
+
+		Timer timer = timers.startTimer( "literalStore" );
+
+		Set<ATermAppl> mentioned = new HashSet<ATermAppl>( aboxDataProperties );
+		mentioned.addAll( materializedDataProperties );
+		for( ATermAppl axiom : tbox.getAxioms() )
+			collectDataProperties( axiom, mentioned );
+
+		// rules may use any data property
+		boolean materializeAll = !rules.isEmpty()
+				|| mentioned.contains( ATermUtils.TOP_DATA_PROPERTY );
+
+		boolean hadUnvalidated = literalStore.hasUnvalidatedValues();
+		for( ATermAppl p : literalStore.getProperties() ) {
+			Role role = getRole( p );
+			if( materializeAll || isConstrainedDataProperty( role, mentioned )
+					|| !isValidDataValues( role, literalStore.getUnvalidatedValues( p ) ) ) {
+				materializeDataProperty( p );
+			}
+		}
+
+		literalStore.setValidated();
+
+		if( hadUnvalidated ) {
+			version++;
+			instances.clear();
+		}
+
+		timer.stop();
+	}
+
+	private boolean isConstrainedDataProperty(Role role, Set<ATermAppl> mentioned) {
+		Set<Role> supers = new HashSet<Role>( role.getSuperRoles() );
+		supers.add( role );
+		for( Role sup : supers ) {
+			if( mentioned.contains( sup.getName() ) || sup.isFunctional()
+					|| !sup.getDomains().isEmpty() || !sup.getDisjointRoles().isEmpty() )
+				return true;
+		}
+
+		return false;
+	}
+
+	private boolean isValidDataValues(Role role, List<ATermAppl> values) {
+		if( values.isEmpty() )
+			return true;
+
+		Set<ATermAppl> ranges = new HashSet<ATermAppl>( role.getRanges() );
+		for( Role sup : role.getSuperRoles() )
+			ranges.addAll( sup.getRanges() );
+
+		DatatypeReasoner dtReasoner = getDatatypeReasoner();
+		try {
+			for( ATermAppl literal : values ) {
+				Object value = dtReasoner.getValue( literal );
+				if( !ranges.isEmpty() && !dtReasoner.isSatisfiable( ranges, value ) )
+					return false;
+			}
+		} catch( DatatypeReasonerException e ) {
+			// the ABox reports the invalid literal
+			return false;
+		}
+
+		return true;
+	}
+
+	private void collectDataProperties(ATerm term, Set<ATermAppl> properties) {
+		if( term instanceof ATermAppl ) {
+			ATermAppl appl = (ATermAppl) term;
+			if( appl.getArity() == 0 ) {
+				if( isDatatypeProperty( appl ) )
+					properties.add( appl );
+			}
+			else {
+				for( int i = 0; i < appl.getArity(); i++ )
+					collectDataProperties( appl.getArgument( i ), properties );
+			}
+		}
+		else if( term instanceof ATermList ) {
+			for( ATermList list = (ATermList) term; !list.isEmpty(); list = list.getNext() )
+				collectDataProperties( list.getFirst(), properties );
+		}
+	}
+
+	private void materializeDataProperty(ATermAppl p) {
+		materializedDataProperties.add( p );
+
+		for( ATermAppl assertion : literalStore.removeProperty( p ) )
+			materializeDataValue( assertion );
+	}
+
+	private void materializeDataValue(ATermAppl assertion) {
+		addPropertyValue( (ATermAppl) assertion.getArgument( 0 ), (ATermAppl) assertion
+				.getArgument( 1 ), (ATermAppl) assertion.getArgument( 2 ) );
+	}
+
+	/**
+	 * Moves the values of the individuals merged by the last consistency
+	 * check from the literal store to the ABox. Only the individuals recorded
+	 * by the ABox when they were merged are visited.
+	 */
+	private boolean materializeMergedDataValues() {
+		Set<ATermAppl> mergedIndividuals = abox.getMergedIndividuals();
+		if( literalStore.isEmpty() || mergedIndividuals.isEmpty() )
+			return false;
+
+		boolean materialized = false;
+		for( ATermAppl s : new ArrayList<ATermAppl>( mergedIndividuals ) ) {
+			Individual ind = abox.getIndividual( s );
+			if( ind == null || (!ind.isMerged() && ind.getMerged().isEmpty()) ) {
+				// the merge was undone by backtracking
+				mergedIndividuals.remove( s );
+				continue;
+			}
+
+			for( ATermAppl assertion : literalStore.removeSubject( s ) ) {
+				materializeDataValue( assertion );
+				materialized = true;
+			}
+		}
+
+		return materialized;
+	}
+
+	/**
+	 * Moves the values of the data properties used in the given term and
+	 * their sub properties from the literal store to the ABox so that the
+	 * term can be used in reasoning. Later values of these properties are
+	 * added to the ABox directly.
+	 * 
+	 * @param term
+	 *            a class expression or a query argument
+	 */
+	public void materializeDataValues(ATerm term) {
+		if( literalStore.isEmpty() )
+			return;
+
+		Set<ATermAppl> properties = new HashSet<ATermAppl>();
+		collectDataProperties( term, properties );
+		if( properties.isEmpty() )
+			return;
+
+		// role hierarchy is needed to find the sub properties
+		prepare();
+
+		for( ATermAppl p : literalStore.getProperties() ) {
+			Role role = getRole( p );
+			if( properties.contains( p ) ) {
+				materializeDataProperty( p );
+				continue;
+			}
+			for( Role sup : role.getSuperRoles() ) {
+				if( properties.contains( sup.getName() ) ) {
+					materializeDataProperty( p );
+					break;
+				}
+			}
+		}
+
+		materializedDataProperties.addAll( properties );
+	}
+
+	/**
+	 * Adds the values in the literal store of the given property (and its sub
+	 * properties) for the given subject.
+	 */
+	private void addStoredDataValues(ATermAppl s, Role role, ATermAppl datatype,
+			Collection<ATermAppl> values) {
+		if( literalStore.isEmpty() )
+			return;
+
+		DatatypeReasoner dtReasoner = getDatatypeReasoner();
+		for( Role sub : getSubRolesAndSelf( role ) ) {
+			for( ATermAppl literal : literalStore.getValues( sub.getName(), s ) ) {
+				if( datatype != null ) {
+					try {
+						if( !dtReasoner.isSatisfiable( Collections.singleton( datatype ),
+								dtReasoner.getValue( literal ) ) )
+							continue;
+					} catch( DatatypeReasonerException e ) {
+						final String msg = format(
+								"Unexpected datatype reasoner exception while fetching stored property values (%s,%s,%s): %s",
+								s, role, datatype, e.getMessage() );
+						log.severe( msg );
+						throw new InternalReasonerException( msg );
+					}
+				}
+
+				if( !values.contains( literal ) )
+					values.add( literal );
+			}
+		}
+	}
+
+	/**
+	 * Checks if the literal store has the given value (or any value if
+	 * <code>o</code> is <code>null</code>) for the given property (or one of
+	 * its sub properties) and subject.
+	 */
+	private boolean hasStoredDataValue(ATermAppl s, Role role, ATermAppl o) {
+		if( literalStore.isEmpty() || role == null || !role.isDatatypeRole() )
+			return false;
+
+		ATermAppl canonical = null;
+		for( Role sub : getSubRolesAndSelf( role ) ) {
+			List<ATermAppl> values = literalStore.getValues( sub.getName(), s );
+			if( values.isEmpty() )
+				continue;
+			if( o == null || values.contains( o ) )
+				return true;
+
+			if( canonical == null ) {
+				canonical = getCanonicalLiteral( o );
+				if( canonical == null )
+					return false;
+			}
+			for( ATermAppl value : values ) {
+				if( canonical.equals( getCanonicalLiteral( value ) ) )
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	private ATermAppl getCanonicalLiteral(ATermAppl literal) {
+		try {
+			return getDatatypeReasoner().getCanonicalRepresentation( literal );
+		} catch( DatatypeReasonerException e ) {
+			return null;
+		}
+	}
+
+	private Set<Role> getSubRolesAndSelf(Role role) {
+		Set<Role> subs = new HashSet<Role>( role.getSubRoles() );
+		subs.add( role );
+
+		return subs;
+	}
+
 	private String renderExplanationSet() {
 		StringBuilder msg = new StringBuilder("ExplanationSet: [");
 		Set<ATermAppl> explanation = getExplanationSet();
@@ -2120,7 +2692,19 @@ public class KnowledgeBase {
 
 		builder = getTaxonomyBuilder();
 
-		boolean isClassified = builder.classify();
+		boolean isClassified;
+		if( state.contains( ReasoningState.CLASSIFY ) ) {
+			if( log.isLoggable( Level.FINE ) )
+				log.fine( "Extending taxonomy with " + newClasses.size() + " classes" );
+
+			for( ATermAppl c : newClasses )
+				builder.classify( c );
+
+			isClassified = true;
+		}
+		else {
+			isClassified = builder.classify();
+		}
 
 		timer.stop();
 
@@ -2128,8 +2712,18 @@ public class KnowledgeBase {
 			return;
 
 		state.add( ReasoningState.CLASSIFY );
+		newClasses = new HashSet<ATermAppl>();
 
 		estimate.computKBCosts();
+
+		if( persistentCache != null && persistentCache.isModified() ) {
+			try {
+				persistentCache.save();
+			} catch( IOException e ) {
+				log.log( Level.WARNING, "Cannot save the concept cache to "
+						+ persistentCache.getFile(), e );
+			}
+		}
 	}
 
 	public void realize() {
@@ -2153,6 +2747,9 @@ public class KnowledgeBase {
 
 		state.add( ReasoningState.REALIZE );
 
+		if( PelletOptions.USE_KB_STATISTICS && !statistics.isComplete() )
+			statistics.build( this );
+
 		estimate.computKBCosts();
 	}
 
@@ -2755,6 +3352,8 @@ public class KnowledgeBase {
 			return false;
 		}
 
+		materializeDataValues( d );
+
 		ensureConsistency();
 
 		ATermAppl c = ATermUtils.normalize( (ATermAppl) d );
@@ -2953,6 +3552,8 @@ public class KnowledgeBase {
 	 * @return
 	 */
 	public Bool isKnownType(ATermAppl x, ATermAppl c) {
+		materializeDataValues( c );
+
 		ensureConsistency();
 
 		if( !isIndividual( x ) ) {
@@ -2970,6 +3571,8 @@ public class KnowledgeBase {
 	}
 
 	public boolean isType(ATermAppl x, ATermAppl c) {
+		materializeDataValues( c );
+
 		ensureConsistency();
 
 		if( !isIndividual( x ) ) {
@@ -3110,6 +3713,9 @@ public class KnowledgeBase {
 			}
 		}
 
+		if( hasStoredDataValue( s, getRole( p ), o ) )
+			return true;
+
 		return abox.hasPropertyValue( s, p, o );
 	}
 
@@ -3131,6 +3737,9 @@ public class KnowledgeBase {
 	public Bool hasKnownPropertyValue(ATermAppl s, ATermAppl p, ATermAppl o) {
 		ensureConsistency();
 
+		if( hasStoredDataValue( s, getRole( p ), o ) )
+			return Bool.TRUE;
+
 		return abox.hasObviousPropertyValue( s, p, o );
 	}
 
@@ -3948,6 +4557,13 @@ public class KnowledgeBase {
 					if( node.isLiteral() && node.getTerm() != null )
 						literals.add( node.getTerm() );
 				}
+				Set<ATermAppl> stored = new LinkedHashSet<ATermAppl>();
+				for( ATermAppl p : literalStore.getProperties() ) {
+					for( ATermAppl assertion : literalStore.getAssertions( p ) )
+						stored.add( (ATermAppl) assertion.getArgument( 2 ) );
+				}
+				stored.removeAll( literals );
+				literals.addAll( stored );
 			}
 			return literals;
 		}
@@ -3955,7 +4571,9 @@ public class KnowledgeBase {
 			return Collections.emptyList();			
 		}
 		else {
-			return abox.getDataPropertyValues( x, role, datatype );
+			List<ATermAppl> values = abox.getDataPropertyValues( x, role, datatype );
+			addStoredDataValues( x, role, datatype, values );
+			return values;
 		}
 	}
 
@@ -4153,9 +4771,187 @@ public class KnowledgeBase {
 			}
 		}
 
+		Role role = getRole( r );
+		if( !literalStore.isEmpty() && role != null && !role.isTop() && !role.isBottom() ) {
+			// values in the literal store are found through the value index
+			Set<ATermAppl> found = new HashSet<ATermAppl>( knowns );
+			DataValueIndex index = getDataValueIndex( role );
+			int[] ranges = index.getValueCandidates( litValue, getDatatypeReasoner() );
+			for( int k = 0; k < ranges.length; k += 2 ) {
+				for( int i = ranges[k]; i < ranges[k + 1]; i++ ) {
+					ATermAppl subj = index.getSubject( i );
+					if( index.isCertain( i ) && !found.contains( subj )
+							&& canonicalLit.equals( getCanonicalLiteral( index.getValue( i ) ) ) ) {
+						found.add( subj );
+						knowns.add( subj );
+					}
+				}
+			}
+		}
+
 		return knowns;
 	}
 
+	/**
+	 * Returns the value index of the given data property for the current
+	 * version of the KB. The index is built the first time it is requested.
+	 */
+	private DataValueIndex getDataValueIndex(Role role) {
+		if( dataValueIndexVersion != version ) {
+			dataValueIndexes.clear();
+			dataValueIndexVersion = version;
+		}
+
+		DataValueIndex index = dataValueIndexes.get( role.getName() );
+		if( index == null ) {
+			Timer timer = timers.startTimer( "dataValueIndex" );
+
+			DataValueIndex.Builder builder = new DataValueIndex.Builder( getDatatypeReasoner() );
+			for( ATermAppl name : individuals ) {
+				Individual ind = abox.getIndividual( name );
+				boolean isIndependent = true;
+				if( ind.isMerged() ) {
+					isIndependent = ind.getMergeDependency( true ).isIndependent();
+					ind = ind.getSame();
+				}
+
+				EdgeList edges = ind.getRSuccessorEdges( role );
+				for( int i = 0; i < edges.size(); i++ ) {
+					Edge edge = edges.edgeAt( i );
+					ATermAppl value = ((Literal) edge.getTo()).getTerm();
+					if( value != null )
+						builder.add( name, value, isIndependent
+								&& edge.getDepends().isIndependent() );
+				}
+			}
+
+			for( Role sub : getSubRolesAndSelf( role ) ) {
+				for( ATermAppl assertion : literalStore.getAssertions( sub.getName() ) )
+					builder.add( (ATermAppl) assertion.getArgument( 1 ), (ATermAppl) assertion
+							.getArgument( 2 ), true );
+			}
+
+			index = builder.build();
+			dataValueIndexes.put( role.getName(), index );
+
+			timer.stop();
+		}
+
+		return index;
+	}
+
+	/**
+	 * Returns the subjects that have a value for the given data property in
+	 * the given data range together with those values. A sorted index of the
+	 * property values is used so that bounded numeric and date ranges do not
+	 * require checking every individual.
+	 * 
+	 * @param r
+	 *            a data property
+	 * @param dataRange
+	 *            a data range, e.g. a restricted datatype
+	 * @return a map from subjects to their values in the data range
+	 */
+	public Map<ATermAppl, List<ATermAppl>> getDataPropertyValuesInRange(ATermAppl r,
+			ATermAppl dataRange) {
+		ensureConsistency();
+
+		Role role = rbox.getRole( r );
+		if( role == null || !role.isDatatypeRole() ) {
+			handleUndefinedEntity( r + " is not a known data property!" );
+			return Collections.emptyMap();
+		}
+
+		DatatypeReasoner dtReasoner = getDatatypeReasoner();
+		Map<ATermAppl, List<ATermAppl>> result = new HashMap<ATermAppl, List<ATermAppl>>();
+
+		if( role.isTop() ) {
+			// the top property is not indexed
+			for( ATermAppl subj : individuals ) {
+				List<ATermAppl> values = new ArrayList<ATermAppl>();
+				for( ATermAppl value : getDataPropertyValues( r, subj ) ) {
+					if( isInDataRange( value, dataRange ) )
+						values.add( value );
+				}
+				if( !values.isEmpty() )
+					result.put( subj, values );
+			}
+			return result;
+		}
+		else if( role.isBottom() )
+			return result;
+
+		DataValueIndex index = getDataValueIndex( role );
+		int[] ranges = index.getRangeCandidates( dataRange, dtReasoner );
+		for( int k = 0; k < ranges.length; k += 2 ) {
+			for( int i = ranges[k]; i < ranges[k + 1]; i++ ) {
+				if( isInDataRange( index.getValue( i ), dataRange ) )
+					addDataValue( index, i, r, result );
+			}
+		}
+
+		return result;
+	}
+
+	private boolean isInDataRange(ATermAppl value, ATermAppl dataRange) {
+		DatatypeReasoner dtReasoner = getDatatypeReasoner();
+		try {
+			return dtReasoner.isSatisfiable( Collections.singleton( dataRange ), dtReasoner
+					.getValue( value ) );
+		} catch( DatatypeReasonerException e ) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns the subjects that have a string value (a plain literal or an
+	 * <code>xsd:string</code>) starting with the given prefix for the given
+	 * data property together with those values.
+	 * 
+	 * @param r
+	 *            a data property
+	 * @param prefix
+	 *            prefix of the lexical form
+	 * @return a map from subjects to their values starting with the prefix
+	 */
+	public Map<ATermAppl, List<ATermAppl>> getDataPropertyValuesWithPrefix(ATermAppl r,
+			String prefix) {
+		ensureConsistency();
+
+		Role role = rbox.getRole( r );
+		if( role == null || !role.isDatatypeRole() ) {
+			handleUndefinedEntity( r + " is not a known data property!" );
+			return Collections.emptyMap();
+		}
+
+		Map<ATermAppl, List<ATermAppl>> result = new HashMap<ATermAppl, List<ATermAppl>>();
+		if( role.isTop() || role.isBottom() )
+			return result;
+
+		DataValueIndex index = getDataValueIndex( role );
+		int[] range = index.getPrefixCandidates( prefix );
+		for( int i = range[0]; i < range[1]; i++ )
+			addDataValue( index, i, r, result );
+
+		return result;
+	}
+
+	private void addDataValue(DataValueIndex index, int i, ATermAppl r,
+			Map<ATermAppl, List<ATermAppl>> result) {
+		ATermAppl subj = index.getSubject( i );
+		ATermAppl value = index.getValue( i );
+		if( !index.isCertain( i ) && !abox.isType( subj, ATermUtils.makeHasValue( r, value ) ) )
+			return;
+
+		List<ATermAppl> values = result.get( subj );
+		if( values == null ) {
+			values = new ArrayList<ATermAppl>();
+			result.put( subj, values );
+		}
+		if( !values.contains( value ) )
+			values.add( value );
+	}
+
 	/**
 	 * List all subjects with the given value for the specified object property.
 	 * 
@@ -4199,7 +4995,7 @@ public class KnowledgeBase {
 			? getDataProperties()
 			: getObjectProperties();
 		for( ATermAppl p : allProps ) {
-			if( abox.hasPropertyValue( s, p, o ) )
+			if( hasStoredDataValue( s, getRole( p ), o ) || abox.hasPropertyValue( s, p, o ) )
 				props.add( p );
 		}
 
@@ -4226,6 +5022,8 @@ public class KnowledgeBase {
 	 * @return
 	 */
 	public Set<ATermAppl> retrieve(ATermAppl d, Collection<ATermAppl> individuals) {
+		materializeDataValues( d );
+
 		ensureConsistency();
 
 		ATermAppl c = ATermUtils.normalize( d );
@@ -4302,9 +5100,17 @@ public class KnowledgeBase {
 			return Collections.emptyList();
 		}
 		
+		Set<ATermAppl> stored = new HashSet<ATermAppl>();
+		if( role.isDatatypeRole() && !literalStore.isEmpty() ) {
+			for( Role sub : getSubRolesAndSelf( role ) ) {
+				for( ATermAppl assertion : literalStore.getAssertions( sub.getName() ) )
+					stored.add( (ATermAppl) assertion.getArgument( 1 ) );
+			}
+		}
+
 		List<ATermAppl> result = new ArrayList<ATermAppl>();
 		for( ATermAppl ind : individuals ) {
-			if( !abox.hasObviousPropertyValue( ind, r, null ).isFalse() )
+			if( stored.contains( ind ) || !abox.hasObviousPropertyValue( ind, r, null ).isFalse() )
 				result.add( ind );
 		}
 
@@ -4565,7 +5371,12 @@ public class KnowledgeBase {
 				builder = new SimplifiedELClassifier();
 			}
 			else {
-				builder = new CDOptimizedTaxonomyBuilder();
+				CDOptimizedTaxonomyBuilder cdBuilder = new CDOptimizedTaxonomyBuilder();
+				if( previousTaxonomy != null ) {
+					cdBuilder.setPreviousTaxonomy( previousTaxonomy );
+					previousTaxonomy = null;
+				}
+				builder = cdBuilder;
 			}
 			builder.setKB( this );
 			
@@ -4614,14 +5425,27 @@ public class KnowledgeBase {
 		return estimate;
 	}
 
+	/**
+	 * Returns the statistics catalog for this KB. The catalog is filled when
+	 * the KB is realized (if {@link PelletOptions#USE_KB_STATISTICS} is
+	 * enabled) or when previously saved statistics are loaded into it.
+	 * 
+	 * @return the statistics catalog
+	 */
+	public KBStatistics getStatistics() {
+		return statistics;
+	}
+
 	/**
 	 * Add a rule to the KB.
 	 */
 	public boolean addRule(Rule rule) {
 		// DL-safe rules affects the ABox so we might redo the reasoning
 		changes.add( ChangeType.ABOX_ADD );
+		statistics.clear();
 
 		rules.put( rule, normalize( rule ) );
+		ruleNetwork = null;
 
 		if( log.isLoggable( Level.FINER ) )
 			log.finer( "rule " + rule );
@@ -4707,6 +5531,68 @@ public class KnowledgeBase {
 		return rules;
 	}
 
+	/**
+	 * Returns the RETE network compiled from the rules of this KB or
+	 * <code>null</code> if the rules have not been compiled since the last
+	 * change.
+	 */
+	public RuleNetwork getRuleNetwork() {
+		return ruleNetwork;
+	}
+
+	/**
+	 * Sets the RETE network compiled from the current rules of this KB so it
+	 * can be reused by the following completions.
+	 */
+	public void setRuleNetwork(RuleNetwork ruleNetwork) {
+		this.ruleNetwork = ruleNetwork;
+	}
+
+	/**
+	 * Returns the cache where concept satisfiability results are saved across
+	 * sessions or <code>null</code> if results are not saved.
+	 */
+	public PersistentConceptCache getPersistentConceptCache() {
+		return persistentCache;
+	}
+
+	/**
+	 * Sets the cache where concept satisfiability results are saved across
+	 * sessions. The cache is saved after classification and can also be saved
+	 * explicitly. Results are not saved for KBs with nominals.
+	 */
+	public void setPersistentConceptCache(PersistentConceptCache persistentCache) {
+		this.persistentCache = persistentCache;
+	}
+
+	/**
+	 * Returns the cache of the answers of the queries executed against this
+	 * KB creating it if necessary.
+	 */
+	public QueryCache getQueryCache() {
+		QueryCache cache = queryCache;
+		if( cache == null ) {
+			synchronized( this ) {
+				cache = queryCache;
+				if( cache == null ) {
+					cache = new QueryCache( this );
+					queryCache = cache;
+				}
+			}
+		}
+		return cache;
+	}
+
+	/**
+	 * Returns the fingerprints of the modules of the concepts in this KB used
+	 * to validate the results in the persistent concept cache.
+	 */
+	public ModuleFingerprinter getModuleFingerprinter() {
+		if( moduleFingerprinter == null )
+			moduleFingerprinter = new ModuleFingerprinter( this );
+		return moduleFingerprinter;
+	}
+
 	/**
 	 * Check if we can use incremental consistency checking
 	 * 
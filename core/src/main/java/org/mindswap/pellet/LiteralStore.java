@@ -0,0 +1,707 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mindswap.pellet.utils.ATermUtils;
+import org.mindswap.pellet.utils.Namespaces;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Literal Store
+ * </p>
+ * <p>
+ * Description: Compact storage for asserted data property values that are
+ * kept outside the ABox (see {@link PelletOptions#USE_LITERAL_STORE}). Values
+ * are stored in columns per property and datatype. Subjects are stored as int
+ * identifiers, integer values whose lexical form is canonical are stored in a
+ * <code>long</code> array, double values whose lexical form is canonical are
+ * stored in a <code>double</code> array and all the other literals are stored
+ * as terms. Each column keeps an index of its entries sorted by subject that
+ * is built when the column is first searched. Removed entries are marked and
+ * dropped when the index is rebuilt. Values stay in the store until they are
+ * removed to be materialized in the ABox.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class LiteralStore {
+	private static final int			INITIAL_CAPACITY	= 8;
+
+	/**
+	 * Entries added after the index was built are searched linearly until
+	 * there are this many of them
+	 */
+	private static final int			MIN_UNINDEXED		= 64;
+
+	private static final int			LONG				= 0;
+	private static final int			DOUBLE				= 1;
+	private static final int			TERM				= 2;
+
+	private static final Set<String>	INTEGER_DATATYPES	= new HashSet<String>();
+	static {
+		for( String name : new String[] {
+				"integer", "long", "int", "short", "byte", "nonNegativeInteger",
+				"nonPositiveInteger", "positiveInteger", "negativeInteger", "unsignedLong",
+				"unsignedInt", "unsignedShort", "unsignedByte" } ) {
+			INTEGER_DATATYPES.add( Namespaces.XSD + name );
+		}
+	}
+
+	private static final String			DOUBLE_DATATYPE		= Namespaces.XSD + "double";
+
+	private abstract static class Column {
+		protected final int			kind;
+		protected final ATermAppl	datatype;
+
+		protected int[]				subjects;
+		protected BitSet			removed;
+		protected int				size;
+		protected int				removedCount;
+		protected int				validated;
+
+		/**
+		 * Slots <code>[0, indexed)</code> sorted by subject
+		 */
+		private int[]				index;
+		private int					indexed;
+
+		Column(int kind, ATermAppl datatype) {
+			this.kind = kind;
+			this.datatype = datatype;
+			subjects = new int[INITIAL_CAPACITY];
+			removed = new BitSet();
+		}
+
+		Column(Column other) {
+			kind = other.kind;
+			datatype = other.datatype;
+			subjects = other.subjects.clone();
+			removed = (BitSet) other.removed.clone();
+			size = other.size;
+			removedCount = other.removedCount;
+			validated = other.validated;
+			index = other.index;
+			indexed = other.indexed;
+		}
+
+		abstract ATermAppl getLiteral(int slot);
+
+		abstract void setLiteral(int slot, ATermAppl literal);
+
+		abstract boolean isSameValue(int slot1, int slot2);
+
+		abstract void resize(int capacity);
+
+		abstract void move(int from, int to);
+
+		abstract Column copy();
+
+		boolean isLive(int slot) {
+			return !removed.get( slot );
+		}
+
+		int liveSize() {
+			return size - removedCount;
+		}
+
+		boolean add(int subject, ATermAppl literal) {
+			// while the column is loaded in bulk there is no index and
+			// duplicates are dropped when the index is built
+			if( index != null && find( subject, literal ) >= 0 )
+				return false;
+
+			if( size == subjects.length ) {
+				int capacity = subjects.length * 2;
+				subjects = Arrays.copyOf( subjects, capacity );
+				resize( capacity );
+			}
+
+			subjects[size] = subject;
+			setLiteral( size, literal );
+			size++;
+
+			return true;
+		}
+
+		void remove(int slot) {
+			removed.set( slot );
+			removedCount++;
+		}
+
+		private int[] getIndex() {
+			if( index == null || size - indexed > Math.max( MIN_UNINDEXED, indexed / 8 ) )
+				buildIndex();
+
+			return index;
+		}
+
+		private void buildIndex() {
+			if( removedCount > 0 && removedCount * 2 >= size )
+				compact();
+
+			long[] keys = new long[size];
+			int n = 0;
+			for( int slot = 0; slot < size; slot++ ) {
+				if( isLive( slot ) )
+					keys[n++] = ((long) subjects[slot] << 32) | slot;
+			}
+			Arrays.sort( keys, 0, n );
+
+			int[] sorted = new int[n];
+			int m = 0;
+			for( int i = 0; i < n; i++ ) {
+				int slot = (int) keys[i];
+				int subject = subjects[slot];
+				boolean duplicate = false;
+				for( int j = m - 1; j >= 0 && subjects[sorted[j]] == subject; j-- ) {
+					if( isSameValue( sorted[j], slot ) ) {
+						duplicate = true;
+						break;
+					}
+				}
+
+				if( duplicate )
+					remove( slot );
+				else
+					sorted[m++] = slot;
+			}
+
+			index = m == n
+				? sorted
+				: Arrays.copyOf( sorted, m );
+			indexed = size;
+		}
+
+		private void compact() {
+			int live = 0;
+			int liveValidated = 0;
+			for( int slot = 0; slot < size; slot++ ) {
+				if( isLive( slot ) ) {
+					if( slot < validated )
+						liveValidated++;
+					if( slot != live ) {
+						subjects[live] = subjects[slot];
+						move( slot, live );
+					}
+					live++;
+				}
+			}
+
+			size = live;
+			validated = liveValidated;
+			removed = new BitSet();
+			removedCount = 0;
+			index = null;
+			indexed = 0;
+		}
+
+		private int lowerBound(int[] index, int subject) {
+			int lo = 0;
+			int hi = index.length;
+			while( lo < hi ) {
+				int mid = (lo + hi) >>> 1;
+				if( subjects[index[mid]] < subject )
+					lo = mid + 1;
+				else
+					hi = mid;
+			}
+			return lo;
+		}
+
+		int find(int subject, ATermAppl literal) {
+			int[] index = getIndex();
+			for( int i = lowerBound( index, subject ); i < index.length
+					&& subjects[index[i]] == subject; i++ ) {
+				int slot = index[i];
+				if( isLive( slot ) && getLiteral( slot ).equals( literal ) )
+					return slot;
+			}
+			for( int slot = indexed; slot < size; slot++ ) {
+				if( subjects[slot] == subject && isLive( slot )
+						&& getLiteral( slot ).equals( literal ) )
+					return slot;
+			}
+
+			return -1;
+		}
+
+		void getLiterals(int subject, List<ATermAppl> literals) {
+			int[] index = getIndex();
+			for( int i = lowerBound( index, subject ); i < index.length
+					&& subjects[index[i]] == subject; i++ ) {
+				int slot = index[i];
+				if( isLive( slot ) )
+					literals.add( getLiteral( slot ) );
+			}
+			for( int slot = indexed; slot < size; slot++ ) {
+				if( subjects[slot] == subject && isLive( slot ) )
+					literals.add( getLiteral( slot ) );
+			}
+		}
+
+		boolean removeSubject(int subject, List<ATermAppl> literals) {
+			int[] index = getIndex();
+			for( int i = lowerBound( index, subject ); i < index.length
+					&& subjects[index[i]] == subject; i++ ) {
+				int slot = index[i];
+				if( isLive( slot ) ) {
+					literals.add( getLiteral( slot ) );
+					remove( slot );
+				}
+			}
+			for( int slot = indexed; slot < size; slot++ ) {
+				if( subjects[slot] == subject && isLive( slot ) ) {
+					literals.add( getLiteral( slot ) );
+					remove( slot );
+				}
+			}
+
+			return !literals.isEmpty();
+		}
+	}
+
+	private static class LongColumn extends Column {
+		private long[]	values;
+
+		LongColumn(ATermAppl datatype) {
+			super( LONG, datatype );
+			values = new long[INITIAL_CAPACITY];
+		}
+
+		LongColumn(LongColumn other) {
+			super( other );
+			values = other.values.clone();
+		}
+
+		@Override
+		ATermAppl getLiteral(int slot) {
+			return ATermUtils.makeTypedLiteral( Long.toString( values[slot] ), datatype );
+		}
+
+		@Override
+		void setLiteral(int slot, ATermAppl literal) {
+			values[slot] = Long.parseLong( ATermUtils.getLiteralValue( literal ) );
+		}
+
+		@Override
+		boolean isSameValue(int slot1, int slot2) {
+			return values[slot1] == values[slot2];
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf( values, capacity );
+		}
+
+		@Override
+		void move(int from, int to) {
+			values[to] = values[from];
+		}
+
+		@Override
+		Column copy() {
+			return new LongColumn( this );
+		}
+	}
+
+	private static class DoubleColumn extends Column {
+		private double[]	values;
+
+		DoubleColumn(ATermAppl datatype) {
+			super( DOUBLE, datatype );
+			values = new double[INITIAL_CAPACITY];
+		}
+
+		DoubleColumn(DoubleColumn other) {
+			super( other );
+			values = other.values.clone();
+		}
+
+		@Override
+		ATermAppl getLiteral(int slot) {
+			return ATermUtils.makeTypedLiteral( Double.toString( values[slot] ), datatype );
+		}
+
+		@Override
+		void setLiteral(int slot, ATermAppl literal) {
+			values[slot] = Double.parseDouble( ATermUtils.getLiteralValue( literal ) );
+		}
+
+		@Override
+		boolean isSameValue(int slot1, int slot2) {
+			return Double.compare( values[slot1], values[slot2] ) == 0;
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf( values, capacity );
+		}
+
+		@Override
+		void move(int from, int to) {
+			values[to] = values[from];
+		}
+
+		@Override
+		Column copy() {
+			return new DoubleColumn( this );
+		}
+	}
+
+	private static class TermColumn extends Column {
+		private ATermAppl[]	values;
+
+		TermColumn() {
+			super( TERM, null );
+			values = new ATermAppl[INITIAL_CAPACITY];
+		}
+
+		TermColumn(TermColumn other) {
+			super( other );
+			values = other.values.clone();
+		}
+
+		@Override
+		ATermAppl getLiteral(int slot) {
+			return values[slot];
+		}
+
+		@Override
+		void setLiteral(int slot, ATermAppl literal) {
+			values[slot] = literal;
+		}
+
+		@Override
+		boolean isSameValue(int slot1, int slot2) {
+			return values[slot1] == values[slot2];
+		}
+
+		@Override
+		void resize(int capacity) {
+			values = Arrays.copyOf( values, capacity );
+		}
+
+		@Override
+		void move(int from, int to) {
+			values[to] = values[from];
+			values[from] = null;
+		}
+
+		@Override
+		Column copy() {
+			return new TermColumn( this );
+		}
+	}
+
+	private final Map<ATermAppl, Integer>		ids;
+	private final List<ATermAppl>				names;
+	private final Map<ATermAppl, List<Column>>	columns;
+
+	public LiteralStore() {
+		ids = new HashMap<ATermAppl, Integer>();
+		names = new ArrayList<ATermAppl>();
+		columns = new HashMap<ATermAppl, List<Column>>();
+	}
+
+	/**
+	 * Create a copy of this store that can be modified independently.
+	 */
+	public LiteralStore copy() {
+		LiteralStore copy = new LiteralStore();
+		copy.ids.putAll( ids );
+		copy.names.addAll( names );
+		for( Map.Entry<ATermAppl, List<Column>> entry : columns.entrySet() ) {
+			List<Column> list = new ArrayList<Column>( entry.getValue().size() );
+			for( Column column : entry.getValue() )
+				list.add( column.copy() );
+			copy.columns.put( entry.getKey(), list );
+		}
+
+		return copy;
+	}
+
+	private static int getKind(ATermAppl literal) {
+		if( !ATermUtils.EMPTY.equals( literal.getArgument( ATermUtils.LIT_LANG_INDEX ) ) )
+			return TERM;
+
+		String datatype = ATermUtils.getLiteralDatatype( literal );
+		String lexical = ATermUtils.getLiteralValue( literal );
+		try {
+			if( INTEGER_DATATYPES.contains( datatype ) ) {
+				if( Long.toString( Long.parseLong( lexical ) ).equals( lexical ) )
+					return LONG;
+			}
+			else if( DOUBLE_DATATYPE.equals( datatype ) ) {
+				if( Double.toString( Double.parseDouble( lexical ) ).equals( lexical ) )
+					return DOUBLE;
+			}
+		} catch( NumberFormatException e ) {
+			// stored as a term and reported when it is validated
+		}
+
+		return TERM;
+	}
+
+	private Column getColumn(ATermAppl p, ATermAppl literal, boolean create) {
+		int kind = getKind( literal );
+		ATermAppl datatype = kind == TERM
+			? null
+			: (ATermAppl) literal.getArgument( ATermUtils.LIT_URI_INDEX );
+
+		List<Column> list = columns.get( p );
+		if( list == null ) {
+			if( !create )
+				return null;
+			list = new ArrayList<Column>( 1 );
+			columns.put( p, list );
+		}
+
+		for( Column column : list ) {
+			if( column.kind == kind && column.datatype == datatype )
+				return column;
+		}
+
+		if( !create )
+			return null;
+
+		Column column = kind == LONG
+			? new LongColumn( datatype )
+			: kind == DOUBLE
+				? new DoubleColumn( datatype )
+				: new TermColumn();
+		list.add( column );
+
+		return column;
+	}
+
+	private int getId(ATermAppl s, boolean create) {
+		Integer id = ids.get( s );
+		if( id == null ) {
+			if( !create )
+				return -1;
+			id = names.size();
+			ids.put( s, id );
+			names.add( s );
+		}
+
+		return id;
+	}
+
+	/**
+	 * Add a value for the given property and subject.
+	 *
+	 * @return <code>false</code> if the value is known to be already in the
+	 *         store
+	 */
+	public boolean add(ATermAppl p, ATermAppl s, ATermAppl literal) {
+		return getColumn( p, literal, true ).add( getId( s, true ), literal );
+	}
+
+	/**
+	 * Remove a value of the given property and subject.
+	 *
+	 * @return <code>true</code> if the value was in the store
+	 */
+	public boolean remove(ATermAppl p, ATermAppl s, ATermAppl literal) {
+		int id = getId( s, false );
+		Column column = getColumn( p, literal, false );
+		if( id < 0 || column == null )
+			return false;
+
+		int slot = column.find( id, literal );
+		if( slot < 0 )
+			return false;
+
+		column.remove( slot );
+
+		return true;
+	}
+
+	public boolean contains(ATermAppl p, ATermAppl s, ATermAppl literal) {
+		int id = getId( s, false );
+		Column column = getColumn( p, literal, false );
+
+		return id >= 0 && column != null && column.find( id, literal ) >= 0;
+	}
+
+	/**
+	 * Returns the values of the given property for the given subject. Values
+	 * of sub properties are not included.
+	 */
+	public List<ATermAppl> getValues(ATermAppl p, ATermAppl s) {
+		List<ATermAppl> values = new ArrayList<ATermAppl>();
+		int id = getId( s, false );
+		List<Column> list = columns.get( p );
+		if( id >= 0 && list != null ) {
+			for( Column column : list )
+				column.getLiterals( id, values );
+		}
+
+		return values;
+	}
+
+	/**
+	 * Returns the stored values of the given property as property assertions.
+	 */
+	public List<ATermAppl> getAssertions(ATermAppl p) {
+		List<ATermAppl> assertions = new ArrayList<ATermAppl>();
+		List<Column> list = columns.get( p );
+		if( list != null ) {
+			for( Column column : list ) {
+				for( int slot = 0; slot < column.size; slot++ ) {
+					if( column.isLive( slot ) )
+						assertions.add( ATermUtils.makePropAtom( p, names
+								.get( column.subjects[slot] ), column.getLiteral( slot ) ) );
+				}
+			}
+		}
+
+		return assertions;
+	}
+
+	/**
+	 * Removes all the values of the given property and returns them as
+	 * property assertions.
+	 */
+	public List<ATermAppl> removeProperty(ATermAppl p) {
+		List<ATermAppl> assertions = getAssertions( p );
+		columns.remove( p );
+
+		return assertions;
+	}
+
+	/**
+	 * Removes all the values of the given subject and returns them as property
+	 * assertions.
+	 */
+	public List<ATermAppl> removeSubject(ATermAppl s) {
+		int id = getId( s, false );
+		if( id < 0 )
+			return Collections.emptyList();
+
+		List<ATermAppl> assertions = new ArrayList<ATermAppl>();
+		List<ATermAppl> literals = new ArrayList<ATermAppl>();
+		for( Map.Entry<ATermAppl, List<Column>> entry : columns.entrySet() ) {
+			for( Column column : entry.getValue() ) {
+				if( column.removeSubject( id, literals ) ) {
+					for( ATermAppl literal : literals )
+						assertions.add( ATermUtils.makePropAtom( entry.getKey(), s, literal ) );
+					literals.clear();
+				}
+			}
+		}
+
+		return assertions;
+	}
+
+	/**
+	 * Returns the values of the given property added since the last call to
+	 * {@link #setValidated()}.
+	 */
+	public List<ATermAppl> getUnvalidatedValues(ATermAppl p) {
+		List<ATermAppl> values = new ArrayList<ATermAppl>();
+		List<Column> list = columns.get( p );
+		if( list != null ) {
+			for( Column column : list ) {
+				for( int slot = column.validated; slot < column.size; slot++ ) {
+					if( column.isLive( slot ) )
+						values.add( column.getLiteral( slot ) );
+				}
+			}
+		}
+
+		return values;
+	}
+
+	public boolean hasUnvalidatedValues() {
+		for( List<Column> list : columns.values() ) {
+			for( Column column : list ) {
+				if( column.validated < column.size )
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	public void setValidated() {
+		for( List<Column> list : columns.values() ) {
+			for( Column column : list )
+				column.validated = column.size;
+		}
+	}
+
+	/**
+	 * Returns the properties that have values in the store.
+	 */
+	public Set<ATermAppl> getProperties() {
+		Set<ATermAppl> properties = new HashSet<ATermAppl>();
+		for( Map.Entry<ATermAppl, List<Column>> entry : columns.entrySet() ) {
+			for( Column column : entry.getValue() ) {
+				if( column.liveSize() > 0 ) {
+					properties.add( entry.getKey() );
+					break;
+				}
+			}
+		}
+
+		return properties;
+	}
+
+	/**
+	 * Returns the subjects that were added to the store. Some of these
+	 * subjects may not have any values left.
+	 */
+	public List<ATermAppl> getSubjects() {
+		return Collections.unmodifiableList( names );
+	}
+
+	public int size() {
+		int size = 0;
+		for( List<Column> list : columns.values() ) {
+			for( Column column : list )
+				size += column.liveSize();
+		}
+
+		return size;
+	}
+
+	public boolean isEmpty() {
+		for( List<Column> list : columns.values() ) {
+			for( Column column : list ) {
+				if( column.liveSize() > 0 )
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	public void clear() {
+		ids.clear();
+		names.clear();
+		columns.clear();
+	}
+
+	@Override
+	public String toString() {
+		return "LiteralStore(values=" + size() + ", subjects=" + names.size() + ")";
+	}
+}
@@ -778,6 +778,14 @@ public abstract class Node {
 		mergedTo = node;
 		mergeDepends = ds.copy( abox.getBranch() );
 		node.addMerged( this );
+
+		if( isIndividual() ) {
+			if( isRoot )
+				abox.addMergedIndividual( name );
+			if( node.isRoot )
+				abox.addMergedIndividual( node.name );
+		}
+
 		return true;
 	}
 	
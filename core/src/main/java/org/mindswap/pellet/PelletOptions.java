@@ -127,6 +127,9 @@ public class PelletOptions {
 		FULL_SIZE_ESTIMATE = getBooleanProperty( newOptions, "FULL_SIZE_ESTIMATE",
 				FULL_SIZE_ESTIMATE, oldOptions );
 
+		USE_KB_STATISTICS = getBooleanProperty( newOptions, "USE_KB_STATISTICS",
+				USE_KB_STATISTICS, oldOptions );
+
 		IGNORE_DEPRECATED_TERMS = getBooleanProperty( newOptions, "IGNORE_DEPRECATED_TERMS",
 				IGNORE_DEPRECATED_TERMS, oldOptions );
 
@@ -142,6 +145,15 @@ public class PelletOptions {
 		MAX_ANONYMOUS_CACHE = getIntProperty( newOptions, "MAX_ANONYMOUS_CACHE",
 				MAX_ANONYMOUS_CACHE, oldOptions );
 
+		USE_CONCURRENT_CONCEPT_CACHE = getBooleanProperty( newOptions,
+				"USE_CONCURRENT_CONCEPT_CACHE", USE_CONCURRENT_CONCEPT_CACHE, oldOptions );
+
+		MAX_DATA_RANGE_CACHE = getIntProperty( newOptions, "MAX_DATA_RANGE_CACHE",
+				MAX_DATA_RANGE_CACHE, oldOptions );
+
+		MAX_CANONICAL_LITERALS = getIntProperty( newOptions, "MAX_CANONICAL_LITERALS",
+				MAX_CANONICAL_LITERALS, oldOptions );
+
 		OPTIMIZE_DOWN_MONOTONIC = getBooleanProperty( newOptions, "OPTIMIZE_DOWN_MONOTONIC",
 				OPTIMIZE_DOWN_MONOTONIC, oldOptions );
 
@@ -156,12 +168,29 @@ public class PelletOptions {
 		SAMPLING_RATIO = getDoubleProperty( newOptions, "SAMPLING_RATIO", SAMPLING_RATIO,
 				oldOptions );
 
+		SHARE_DEPENDENCY_SETS = getBooleanProperty( newOptions, "SHARE_DEPENDENCY_SETS",
+				SHARE_DEPENDENCY_SETS, oldOptions );
+
 		SILENT_UNDEFINED_ENTITY_HANDLING = getBooleanProperty( newOptions,
 				"SILENT_UNDEFINED_ENTITY_HANDLING", SILENT_UNDEFINED_ENTITY_HANDLING, oldOptions );
 
 		SIMPLIFY_QUERY = getBooleanProperty( newOptions, "SIMPLIFY_QUERY", SIMPLIFY_QUERY,
 				oldOptions );
 
+		STREAM_QUERY_RESULTS = getBooleanProperty( newOptions, "STREAM_QUERY_RESULTS",
+				STREAM_QUERY_RESULTS, oldOptions );
+
+		QUERY_THREADS = getIntProperty( newOptions, "QUERY_THREADS", QUERY_THREADS, oldOptions );
+
+		EXPLANATION_THREADS = getIntProperty( newOptions, "EXPLANATION_THREADS",
+				EXPLANATION_THREADS, oldOptions );
+
+		USE_QUERY_CACHE = getBooleanProperty( newOptions, "USE_QUERY_CACHE", USE_QUERY_CACHE,
+				oldOptions );
+
+		QUERY_CACHE_MAX_MEMORY = getIntProperty( newOptions, "QUERY_CACHE_MAX_MEMORY",
+				QUERY_CACHE_MAX_MEMORY, oldOptions );
+
 		STATIC_REORDERING_LIMIT = getIntProperty( newOptions, "STATIC_REORDERING_LIMIT",
 				STATIC_REORDERING_LIMIT, oldOptions );
 
@@ -218,6 +247,12 @@ public class PelletOptions {
 		USE_INCREMENTAL_DELETION = getBooleanProperty( newOptions, "USE_INCREMENTAL_DELETION",
 				USE_INCREMENTAL_DELETION, oldOptions );
 
+		USE_INCREMENTAL_TBOX_DELETION = getBooleanProperty( newOptions,
+				"USE_INCREMENTAL_TBOX_DELETION", USE_INCREMENTAL_TBOX_DELETION, oldOptions );
+
+		USE_LITERAL_STORE = getBooleanProperty( newOptions, "USE_LITERAL_STORE",
+				USE_LITERAL_STORE, oldOptions );
+
 		USE_NAIVE_QUERY_ENGINE = getBooleanProperty( newOptions, "USE_NAIVE_QUERY_ENGINE",
 				USE_NAIVE_QUERY_ENGINE, oldOptions );
 
@@ -230,6 +265,9 @@ public class PelletOptions {
 		USE_SMART_RESTORE = getBooleanProperty( newOptions, "USE_SMART_RESTORE", USE_SMART_RESTORE, oldOptions);
 
 		USE_TRACING = getBooleanProperty( newOptions, "USE_TRACING", USE_TRACING, oldOptions );
+
+		USE_QUICKXPLAIN_PRUNING = getBooleanProperty( newOptions, "USE_QUICKXPLAIN_PRUNING",
+				USE_QUICKXPLAIN_PRUNING, oldOptions );
 		
 		USE_UNIQUE_NAME_ASSUMPTION = getBooleanProperty( newOptions, "USE_UNIQUE_NAME_ASSUMPTION",
 				USE_UNIQUE_NAME_ASSUMPTION, oldOptions );
@@ -246,6 +284,9 @@ public class PelletOptions {
 		PROCESS_JENA_UPDATES_INCREMENTALLY = getBooleanProperty(newOptions, "PROCESS_JENA_UPDATES_INCREMENTALLY",
 		                PROCESS_JENA_UPDATES_INCREMENTALLY, oldOptions);
 		
+		PROCESS_JENA_TBOX_UPDATES_INCREMENTALLY = getBooleanProperty(newOptions, "PROCESS_JENA_TBOX_UPDATES_INCREMENTALLY",
+		                PROCESS_JENA_TBOX_UPDATES_INCREMENTALLY, oldOptions);
+		
 		IGNORE_ANNOTATION_CLASSES = getBooleanProperty(newOptions, "IGNORE_ANNOTATION_CLASSES",
 		                IGNORE_ANNOTATION_CLASSES, oldOptions);
 		
@@ -454,6 +495,18 @@ public class PelletOptions {
 	public static boolean								USE_INVERSE_CACHING						= true;
 	
 	public static boolean								USE_ANYWHERE_BLOCKING					= true;
+
+	/**
+	 * Find the candidate blockers for anywhere blocking by looking up the
+	 * individuals whose labels have the same signature as the blocked
+	 * individual instead of searching the completion graph. Only individuals
+	 * with the same label (and for double blocking the same parent label and
+	 * incoming roles) are found this way so for subset blocking the
+	 * completion graph is still searched if the index does not contain a
+	 * blocker. For equality and double blocking the index contains all the
+	 * candidate blockers and the completion graph is not searched.
+	 */
+	public static boolean								USE_BLOCKING_INDEX						= false;
 	
 	/**
 	 * The maximum number of cached pseudo models for anonymous classes. The
@@ -468,6 +521,32 @@ public class PelletOptions {
 	 */
 	public static int									MAX_ANONYMOUS_CACHE						= 20000;
 
+	/**
+	 * Use a thread-safe concept cache that is shared by the copies of a KB
+	 * answering queries in different threads instead of giving each copy a
+	 * private copy of the cache. The least recently used anonymous classes are
+	 * removed separately for each of a fixed number of partitions of the
+	 * cache when {@link #MAX_ANONYMOUS_CACHE} is reached.
+	 */
+	public static boolean								USE_CONCURRENT_CONCEPT_CACHE			= false;
+
+	/**
+	 * The maximum number of data ranges and data range satisfiability results
+	 * cached by the datatype reasoner for each kind of entry. The least
+	 * recently used entries are removed when the limit is reached. Setting
+	 * this value to 0 disables the cache.
+	 */
+	public static int									MAX_DATA_RANGE_CACHE					= 10000;
+
+	/**
+	 * The maximum number of literals whose canonical representation and value
+	 * are kept by the datatype reasoner so that each lexical form is parsed
+	 * only once and literal nodes share their value objects. The least
+	 * recently used entries are removed when the limit is reached. Setting
+	 * this value to 0 disables the table.
+	 */
+	public static int									MAX_CANONICAL_LITERALS					= 100000;
+
 	/**
 	 * To decide if individual <code>i</code> has type class <code>c</code>
 	 * check if the edges from cached model of <code>c</code> to nominal nodes
@@ -528,6 +607,14 @@ public class PelletOptions {
 	 */
 	public static boolean								COPY_ON_WRITE							= true;
 
+	/**
+	 * Share the branch sets of dependency sets, i.e. equal branch sets created
+	 * during completion are represented by the same instance and the union of
+	 * two branch sets is computed only once. This reduces the number of
+	 * objects allocated for tableaux with many nondeterministic branches.
+	 */
+	public static boolean								SHARE_DEPENDENCY_SETS					= true;
+
 	/**
 	 * Control the behavior if a function such as kb.getInstances(),
 	 * kb.getTypes(), kb.getPropertyValues() is called with a parameter that is
@@ -606,6 +693,53 @@ public class PelletOptions {
 	 */
 	public static boolean								SIMPLIFY_QUERY							= true;
 
+	/**
+	 * Compute the answers of SPARQL-DL queries executed through the Jena
+	 * interface lazily. When this option is on, the query engine produces
+	 * answers on demand as the result set is iterated, so the first rows are
+	 * available before the whole answer set is computed and the answers are
+	 * never held in memory all at once. Streamed result sets are plain (not
+	 * rewindable) Jena result sets that can only be iterated once and should
+	 * be closed if they are not exhausted.
+	 */
+	public static boolean								STREAM_QUERY_RESULTS					= false;
+
+	/**
+	 * The maximum number of threads used to evaluate the independent parts of
+	 * a query, i.e. the disconnected components of a query and the branches
+	 * of a UNION, concurrently. Each additional thread answers its part of
+	 * the query against its own copy of the ABox so using more than one
+	 * thread pays off only for expensive queries. The copies share the
+	 * classification and realization results, so the parts are evaluated
+	 * concurrently only if the KB has already been realized. Parts that
+	 * have neither constants nor distinguished variables are always answered
+	 * sequentially. A value of 1 disables concurrent evaluation.
+	 */
+	public static int									QUERY_THREADS							= 1;
+
+	/**
+	 * The number of threads used to explore the hitting set tree when
+	 * multiple glass box explanations are computed. Each thread uses its own
+	 * reasoner built for the locality module of the explained class. A value
+	 * of 1 disables concurrent exploration.
+	 */
+	public static int									EXPLANATION_THREADS						= 1;
+
+	/**
+	 * Cache the answers of SPARQL-DL queries. A repeated query is answered
+	 * from the cache and a query that is subsumed by a cached query is
+	 * answered by checking only the cached answers of that query. The cache
+	 * is cleared whenever the KB changes.
+	 */
+	public static boolean								USE_QUERY_CACHE							= false;
+
+	/**
+	 * The approximate amount of memory (in bytes) the query cache of a KB may
+	 * use. Least recently used answers are removed when this limit is
+	 * exceeded.
+	 */
+	public static int									QUERY_CACHE_MAX_MEMORY					= 32 * 1024 * 1024;
+
 	/**
 	 * The ratio of individuals that will be inspected while generating the size
 	 * estimate. The query reordering optimization uses size estimates for
@@ -629,6 +763,15 @@ public class PelletOptions {
 	 */
 	public static boolean								FULL_SIZE_ESTIMATE						= false;
 
+	/**
+	 * This option controls if exact class and property statistics will be
+	 * collected when the KB is realized. When the statistics are available
+	 * (either collected or loaded from a previous session) the size
+	 * estimates used for query reordering are read from the statistics
+	 * instead of being computed by sampling.
+	 */
+	public static boolean								USE_KB_STATISTICS						= true;
+
 	public static boolean								CACHE_RETRIEVAL							= false;
 
 	public static boolean								USE_TRACING								= false;
@@ -737,6 +880,39 @@ public class PelletOptions {
 																										&& USE_INCREMENTAL_CONSISTENCY
 																										&& USE_TRACING;
 
+	/**
+	 * Flag set if class axioms can be removed from the KB without reloading.
+	 * The TBox records which asserted axioms each normalized or absorbed axiom
+	 * was obtained from even if USE_TRACING is false, which adds a small
+	 * memory overhead per axiom. When only schema axioms have been removed
+	 * since the last classification, the previous classification results are
+	 * used to skip the satisfiability and subsumption tests whose outcome
+	 * cannot have changed.
+	 */
+	public static boolean								USE_INCREMENTAL_TBOX_DELETION			= true;
+
+	/**
+	 * Flag set if asserted data property values should be kept in a compact
+	 * store outside the ABox. Values of a property are moved to the ABox only
+	 * when reasoning may need them, i.e. when the property is used in a class
+	 * expression, a rule or a query atom other than a property value, is
+	 * functional, has a domain or a disjoint property, or when a value is not
+	 * valid for its range. This reduces the memory used for ABoxes with a
+	 * large number of data values. The values in the store can only be
+	 * accessed through the query functions of the KB. Ignored if USE_TRACING
+	 * is set.
+	 */
+	public static boolean								USE_LITERAL_STORE						= false;
+
+	/**
+	 * Flag set if glass box explanations should be pruned with a
+	 * divide-and-conquer (QuickXplain) search over the syntactic locality
+	 * module of the traced axioms. If the flag is not set, axioms are removed
+	 * from the traced explanation one at a time which needs one
+	 * satisfiability test per axiom.
+	 */
+	public static boolean								USE_QUICKXPLAIN_PRUNING					= true;
+
 	/**
 	 * Flag if the completion queue should be maintained through incremental
 	 * deletions. It can be the case that a removal of a syntactic assertion
@@ -801,6 +977,15 @@ public class PelletOptions {
 	
 	public static boolean 								PROCESS_JENA_UPDATES_INCREMENTALLY		= true;
 
+	/**
+	 * When Jena updates are processed incrementally, also apply the additions
+	 * and removals of simple schema triples (class and property declarations,
+	 * sub class, equivalent and disjoint classes between named classes,
+	 * sub property, domain and range) to the KB instead of reloading the
+	 * changed graph. Ignored if PROCESS_JENA_UPDATES_INCREMENTALLY is false.
+	 */
+	public static boolean 								PROCESS_JENA_TBOX_UPDATES_INCREMENTALLY	= true;
+
 	/**
 	 * In some ontologies, such as the ones from OBO, annotations may be nested and contain type assertions on
 	 * annotation values. Such type assertions will be treated as regular assertions and processed by the reasoner.
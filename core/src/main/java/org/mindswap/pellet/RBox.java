@@ -739,10 +739,6 @@ public class RBox {
 	}
 
 	public boolean removeDomain(ATerm p, ATermAppl domain) {
-		if (!PelletOptions.USE_TRACING) {
-			return false;
-		}
-
 		final Role r = getRole(p);
 		if (r == null) {
 			return false;
@@ -772,10 +768,6 @@ public class RBox {
 	}
 
 	public boolean removeRange(ATerm p, ATermAppl range) {
-		if (!PelletOptions.USE_TRACING) {
-			return false;
-		}
-
 		final Role r = getRole(p);
 		if (r == null) {
 			return false;
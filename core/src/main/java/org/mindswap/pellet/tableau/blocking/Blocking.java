@@ -101,9 +101,16 @@ public abstract class Blocking {
 	
 	protected boolean isDirectlyBlockedInt(Individual blocked) {
 		Individual parentBlocked = blocked.getParent();
-		if( blocked.isRoot() || parentBlocked.isRoot() )
+		if( blocked.isRoot() )
 			return false;
 		
+		if( parentBlocked.isRoot() ) {
+			// children of root nodes are never blocked but they can block
+			if( useBlockingIndex() )
+				blocked.getABox().getBlockingIndex().register( blocked, getSignature( blocked ) );
+			return false;
+		}
+		
 		BlockingContext cxt = new BlockingContext( blocked );		
 		while( cxt.moveBlockerUp() ) {			
 	    	if( isDirectlyBlockedBy( cxt ) )  {
@@ -117,12 +124,91 @@ public abstract class Blocking {
 		if( PelletOptions.USE_ANYWHERE_BLOCKING ) {					
 			assert cxt.blocker.isRoot();
 
+			if( PelletOptions.USE_BLOCKING_INDEX ) {
+				if( isDirectlyBlockedByIndex( cxt ) )
+					return true;
+
+				// the index only finds blockers with the same signature so
+				// unless the signatures have to be equal a blocker with a
+				// larger label is searched in the descendants
+				if( !isSignatureRequired() && isDirectlyBlockedByDescendant( cxt, 0 ) )
+					return true;
+
+				blocked.getABox().getBlockingIndex().register( blocked, getSignature( blocked ) );
+				return false;
+			}
+
 			return isDirectlyBlockedByDescendant( cxt, 0 );			
 		}
 		
 		return false;
 	}
 
+	private static boolean useBlockingIndex() {
+		return PelletOptions.USE_ANYWHERE_BLOCKING && PelletOptions.USE_BLOCKING_INDEX;
+	}
+
+	/**
+	 * Returns <code>true</code> if an individual can only be blocked by an
+	 * individual with the same signature. Every individual that is not
+	 * blocked is registered in the {@link BlockingIndex} under its current
+	 * signature when it is checked so the index contains all the candidate
+	 * blockers and the completion graph is not searched when the index does
+	 * not contain a blocker. A blocker whose label changed since it was last
+	 * checked is found once it is checked again.
+	 */
+	protected boolean isSignatureRequired() {
+		return false;
+	}
+
+	/**
+	 * Checks if the individual is blocked by one of the individuals in the
+	 * {@link BlockingIndex} that has the same signature. The blocker of the
+	 * context is restored if the individual is not blocked.
+	 */
+	protected boolean isDirectlyBlockedByIndex(BlockingContext cxt) {
+		Individual blocked = cxt.blocked;
+		Individual root = cxt.blocker;
+		BlockingIndex index = blocked.getABox().getBlockingIndex();
+
+		for( Individual blocker : index.getCandidates( getSignature( blocked ) ) ) {
+			// descendants of the blocked individual cannot block it and the
+			// ancestors have already been checked
+			if( blocker == blocked || isAncestor( blocked, blocker ) || isAncestor( blocker, blocked ) )
+				continue;
+
+			if( cxt.moveBlockerDown( blocker ) && isDirectlyBlockedBy( cxt ) ) {
+				blocked.setBlocked( true );
+				if( log.isLoggable( Level.FINER ) )
+					log.finer( blocked + " blocked by " + blocker );
+				return true;
+			}
+		}
+
+		cxt.blocker = root;
+		cxt.rolesToBlocked = null;
+
+		return false;
+	}
+
+	private static boolean isAncestor(Individual ancestor, Individual ind) {
+		for( Individual parent = ind.getParent(); parent != null; parent = parent.getParent() ) {
+			if( parent == ancestor )
+				return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Returns the signature used to find candidate blockers for the given
+	 * individual in the {@link BlockingIndex}. Individuals that can block each
+	 * other should have the same signature. The default signature is computed
+	 * from the label of the individual.
+	 */
+	protected long getSignature(Individual ind) {
+		return BlockingIndex.signature( ind.getTypes() );
+	}
+
 	protected boolean isDirectlyBlockedByDescendant(BlockingContext cxt, int depth) {
 		if (depth > 3) {
 			return true;
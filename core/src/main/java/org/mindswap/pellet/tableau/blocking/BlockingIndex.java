@@ -0,0 +1,218 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.tableau.blocking;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.mindswap.pellet.ABox;
+import org.mindswap.pellet.Individual;
+import org.mindswap.pellet.Role;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Blocking Index
+ * </p>
+ * <p>
+ * Description: Index of the individuals that may block other individuals in
+ * the completion graph keyed by the signature of their labels. Anywhere
+ * blocking uses the index to find the candidate blockers with the same
+ * signature as the blocked individual instead of searching the completion
+ * graph. An individual is registered in the index after a blocking check
+ * finds it is not blocked, i.e. when it is about to be expanded, under the
+ * signature of its label at that time. The registrations are recorded in a
+ * trail in the order they are made so the registrations made after a branch
+ * was created are undone, and the registrations they replaced are restored,
+ * by popping the trail when the branch is restored. The index is only a
+ * source of candidates: the blocking conditions are still checked for each
+ * candidate so an outdated registration cannot cause an individual to be
+ * blocked incorrectly.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class BlockingIndex {
+	private static class Registration {
+		private Individual		ind;
+		private long			signature;
+		private int				branch;
+		private Registration	previous;
+	}
+
+	private ABox							abox;
+
+	private Map<Long, List<Individual>>		blockers;
+
+	private Map<Individual, Registration>	registrations;
+
+	private List<Registration>				trail;
+
+	public BlockingIndex(ABox abox) {
+		this.abox = abox;
+		this.blockers = new HashMap<Long, List<Individual>>();
+		this.registrations = new IdentityHashMap<Individual, Registration>();
+		this.trail = new ArrayList<Registration>();
+	}
+
+	/**
+	 * Returns the signature of a set of concepts that does not depend on the
+	 * order of the concepts.
+	 */
+	public static long signature(Collection<ATermAppl> types) {
+		long signature = types.size();
+		for( ATermAppl c : types ) {
+			signature += mix( c.hashCode() );
+		}
+		return signature;
+	}
+
+	/**
+	 * Returns the signature of a set of roles that does not depend on the
+	 * order of the roles.
+	 */
+	public static long roleSignature(Collection<Role> roles) {
+		long signature = roles.size();
+		for( Role r : roles ) {
+			signature += mix( r.getName().hashCode() );
+		}
+		return signature;
+	}
+
+	/**
+	 * Spreads the bits of a 32-bit hash code over 64 bits so that sums of
+	 * hash codes rarely collide.
+	 */
+	private static long mix(int hash) {
+		long h = hash * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 29);
+	}
+
+	/**
+	 * Registers the individual as a candidate blocker for individuals with the
+	 * given signature. A previous registration of the individual with a
+	 * different signature is replaced.
+	 */
+	public void register(Individual ind, long signature) {
+		Registration previous = registrations.get( ind );
+		if( previous != null ) {
+			if( previous.signature == signature )
+				return;
+
+			unindex( ind, previous.signature );
+		}
+
+		Registration reg = new Registration();
+		reg.ind = ind;
+		reg.signature = signature;
+		reg.branch = abox.getBranch();
+		reg.previous = previous;
+
+		registrations.put( ind, reg );
+		trail.add( reg );
+		index( ind, signature );
+	}
+
+	/**
+	 * Returns the individuals registered with the given signature. Individuals
+	 * that have been removed from the ABox, pruned or merged are removed from
+	 * the index and not returned. The returned list should not be modified
+	 * and is only valid until the index is updated.
+	 */
+	public List<Individual> getCandidates(long signature) {
+		List<Individual> list = blockers.get( signature );
+		if( list == null )
+			return Collections.emptyList();
+
+		for( Iterator<Individual> i = list.iterator(); i.hasNext(); ) {
+			Individual ind = i.next();
+			if( abox.getIndividual( ind.getName() ) != ind || ind.isPruned() || ind.isMerged() ) {
+				i.remove();
+				registrations.remove( ind );
+			}
+		}
+
+		if( list.isEmpty() ) {
+			blockers.remove( signature );
+		}
+
+		return list;
+	}
+
+	/**
+	 * Removes the registrations made after the given branch was created and
+	 * restores the registrations they replaced. Only the trail entries of the
+	 * removed registrations are visited.
+	 */
+	public void restore(int branch) {
+		for( int i = trail.size() - 1; i >= 0 && trail.get( i ).branch > branch; i-- ) {
+			Registration reg = trail.remove( i );
+
+			// the individual has been dropped from the index since
+			if( registrations.get( reg.ind ) != reg )
+				continue;
+
+			unindex( reg.ind, reg.signature );
+
+			Registration previous = reg.previous;
+			while( previous != null && previous.branch > branch )
+				previous = previous.previous;
+
+			if( previous != null ) {
+				registrations.put( reg.ind, previous );
+				index( reg.ind, previous.signature );
+			}
+			else {
+				registrations.remove( reg.ind );
+			}
+		}
+	}
+
+	private void index(Individual ind, long signature) {
+		List<Individual> list = blockers.get( signature );
+		if( list == null ) {
+			list = new ArrayList<Individual>( 2 );
+			blockers.put( signature, list );
+		}
+		list.add( ind );
+	}
+
+	private void unindex(Individual ind, long signature) {
+		List<Individual> list = blockers.get( signature );
+		if( list != null ) {
+			for( int i = 0, n = list.size(); i < n; i++ ) {
+				if( list.get( i ) == ind ) {
+					list.remove( i );
+					break;
+				}
+			}
+			if( list.isEmpty() )
+				blockers.remove( signature );
+		}
+	}
+
+	/**
+	 * Returns the number of registered individuals.
+	 */
+	public int size() {
+		return registrations.size();
+	}
+
+	public void clear() {
+		blockers.clear();
+		registrations.clear();
+		trail.clear();
+	}
+}
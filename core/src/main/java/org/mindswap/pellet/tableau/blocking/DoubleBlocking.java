@@ -30,7 +30,10 @@
 
 package org.mindswap.pellet.tableau.blocking;
 
+import java.util.Set;
+
 import org.mindswap.pellet.Individual;
+import org.mindswap.pellet.Role;
 import org.mindswap.pellet.utils.SetUtils;
 
 /**
@@ -54,6 +57,28 @@ public class DoubleBlocking extends Blocking {
 	private DoubleBlocking() {		
 	}
 
+	/**
+	 * Double blocking requires the labels of the parents and the incoming
+	 * roles to be equal so they are included in the signature.
+	 */
+	@Override
+	protected long getSignature(Individual ind) {
+		long signature = BlockingIndex.signature( ind.getTypes() );
+		Individual parent = ind.getParent();
+		if( parent != null ) {
+			signature = 31 * signature + BlockingIndex.signature( parent.getTypes() );
+			Set<Role> roles = BlockingContext.getIncomingRoles( ind );
+			if( roles != null )
+				signature = 31 * signature + BlockingIndex.roleSignature( roles );
+		}
+		return signature;
+	}
+
+	@Override
+	protected boolean isSignatureRequired() {
+		return true;
+	}
+
 	public boolean isDirectlyBlockedBy(BlockingContext cxt) {
 		Individual parentBlocked = cxt.blocked.getParent();
 		Individual parentBlocker = cxt.blocker.getParent();
@@ -52,6 +52,14 @@ public class EqualityBlocking extends Blocking {
 	private EqualityBlocking() {		
 	}
 
+	/**
+	 * Equality blocking requires the labels to be equal.
+	 */
+	@Override
+	protected boolean isSignatureRequired() {
+		return true;
+	}
+
 	public boolean isDirectlyBlockedBy(BlockingContext cxt) {
 	    return block1.isBlocked( cxt ) && block2.isBlocked( cxt );
 	}	
@@ -74,6 +74,18 @@ public class CachedConceptNode implements CachedNode {
 		}
 	}
 
+	/**
+	 * Creates a cached node from previously saved information.
+	 */
+	CachedConceptNode(ATermAppl name, EdgeList inEdges, EdgeList outEdges,
+			Map<ATermAppl, DependencySet> types, boolean isIndependent) {
+		this.name = name;
+		this.inEdges = inEdges;
+		this.outEdges = outEdges;
+		this.types = types;
+		this.isIndependent = isIndependent;
+	}
+
 	private void collectComplexPropertyValues(Individual subj) {
 		Set<Role> collected = new HashSet<Role>();
 		for( Edge edge : subj.getOutEdges() ) {
@@ -0,0 +1,274 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.tableau.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.exceptions.InternalReasonerException;
+import org.mindswap.pellet.utils.ATermUtils;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Concurrent Concept Cache
+ * </p>
+ * <p>
+ * Description: Thread-safe implementation of Concept Cache that can be shared
+ * by ABoxes used by different threads. Primitive concepts and their negations
+ * are kept in a concurrent map so they can be read without locking. Complex
+ * concepts are kept in a fixed number of stripes selected by the hash code of
+ * the concept where each stripe is an LRU map guarded by its own lock, so
+ * threads only contend when they access the same stripe. The least recently
+ * used complex concept of a stripe is removed when the stripe is full, which
+ * means the maximum size is enforced per stripe and the total number of
+ * complex concepts is rounded up to a multiple of the number of stripes.
+ * Cached nodes are immutable so they can be read by any thread once they are
+ * published in the cache. The views returned by {@link #keySet()},
+ * {@link #values()} and {@link #entrySet()} are snapshots.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class ConcurrentConceptCache extends AbstractConceptCache implements ConceptCache {
+	private static final int							STRIPES	= 16;
+
+	private ConcurrentMap<ATermAppl, CachedNode>		primitive;
+
+	private LinkedHashMap<ATermAppl, CachedNode>[]		nonPrimitive;
+
+	private CacheSafety									cacheSafety;
+
+	/**
+	 * Creates an empty cache with no size restrictions
+	 */
+	public ConcurrentConceptCache(KnowledgeBase kb) {
+		this( kb, Integer.MAX_VALUE );
+	}
+
+	/**
+	 * Creates an empty cache with at most <code>maxSize</code> elements which
+	 * are neither named or negations of names.
+	 *
+	 * @param maxSize
+	 */
+	@SuppressWarnings( { "unchecked", "serial" })
+	public ConcurrentConceptCache(KnowledgeBase kb, int maxSize) {
+		super( maxSize );
+
+		cacheSafety = CacheSafetyFactory.createCacheSafety( kb.getExpressivity() );
+
+		primitive = new ConcurrentHashMap<ATermAppl, CachedNode>();
+		nonPrimitive = new LinkedHashMap[STRIPES];
+		for( int i = 0; i < STRIPES; i++ ) {
+			nonPrimitive[i] = new LinkedHashMap<ATermAppl, CachedNode>( 16, 0.75f, true ) {
+				protected boolean removeEldestEntry(Map.Entry<ATermAppl, CachedNode> eldest) {
+					return size() > getStripeMaxSize();
+				}
+			};
+		}
+	}
+
+	public CacheSafety getSafety() {
+		return cacheSafety;
+	}
+
+	private int getStripeMaxSize() {
+		int maxSize = getMaxSize();
+		int stripeMaxSize = maxSize / STRIPES + (maxSize % STRIPES == 0
+			? 0
+			: 1);
+		return Math.max( 1, stripeMaxSize );
+	}
+
+	private LinkedHashMap<ATermAppl, CachedNode> getStripe(Object key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return nonPrimitive[h & (STRIPES - 1)];
+	}
+
+	private static boolean isPrimitive(Object key) {
+		return (key instanceof ATermAppl) && ATermUtils.isPrimitiveOrNegated( (ATermAppl) key );
+	}
+
+	/**
+	 * Stores the satisfiability of a concept unless a result has already been
+	 * stored, possibly by another thread.
+	 */
+	@Override
+	public boolean putSat(ATermAppl c, boolean isSatisfiable) {
+		CachedNode node = isSatisfiable
+			? CachedNodeFactory.createSatisfiableNode()
+			: CachedNodeFactory.createBottomNode();
+
+		CachedNode cached = putIfAbsent( c, node );
+		if( cached != null ) {
+			if( isSatisfiable != !cached.isBottom() )
+				throw new InternalReasonerException( "Caching inconsistent results for " + c );
+			return false;
+		}
+
+		if( !isSatisfiable ) {
+			put( ATermUtils.negate( c ), CachedNodeFactory.createTopNode() );
+		}
+
+		return true;
+	}
+
+	/**
+	 * Associates the node with the concept unless there is already a node
+	 * associated with the concept.
+	 *
+	 * @return the node already associated with the concept or
+	 *         <code>null</code> if the given node was added
+	 */
+	public CachedNode putIfAbsent(ATermAppl key, CachedNode value) {
+		if( isPrimitive( key ) )
+			return primitive.putIfAbsent( key, value );
+
+		LinkedHashMap<ATermAppl, CachedNode> stripe = getStripe( key );
+		synchronized( stripe ) {
+			CachedNode cached = stripe.get( key );
+			if( cached == null )
+				stripe.put( key, value );
+			return cached;
+		}
+	}
+
+	public void clear() {
+		primitive.clear();
+		for( LinkedHashMap<ATermAppl, CachedNode> stripe : nonPrimitive ) {
+			synchronized( stripe ) {
+				stripe.clear();
+			}
+		}
+	}
+
+	public boolean containsKey(Object key) {
+		if( isPrimitive( key ) )
+			return primitive.containsKey( key );
+
+		LinkedHashMap<ATermAppl, CachedNode> stripe = getStripe( key );
+		synchronized( stripe ) {
+			return stripe.containsKey( key );
+		}
+	}
+
+	public boolean containsValue(Object value) {
+		if( primitive.containsValue( value ) )
+			return true;
+
+		for( LinkedHashMap<ATermAppl, CachedNode> stripe : nonPrimitive ) {
+			synchronized( stripe ) {
+				if( stripe.containsValue( value ) )
+					return true;
+			}
+		}
+
+		return false;
+	}
+
+	public Set<Map.Entry<ATermAppl, CachedNode>> entrySet() {
+		// the entries of a stripe are only valid while its lock is held
+		Map<ATermAppl, CachedNode> copy = new HashMap<ATermAppl, CachedNode>( primitive );
+		for( LinkedHashMap<ATermAppl, CachedNode> stripe : nonPrimitive ) {
+			synchronized( stripe ) {
+				copy.putAll( stripe );
+			}
+		}
+		return copy.entrySet();
+	}
+
+	public CachedNode get(Object key) {
+		if( isPrimitive( key ) )
+			return primitive.get( key );
+
+		LinkedHashMap<ATermAppl, CachedNode> stripe = getStripe( key );
+		synchronized( stripe ) {
+			return stripe.get( key );
+		}
+	}
+
+	public boolean isEmpty() {
+		return size() == 0;
+	}
+
+	public Set<ATermAppl> keySet() {
+		Set<ATermAppl> keys = new HashSet<ATermAppl>( primitive.keySet() );
+		for( LinkedHashMap<ATermAppl, CachedNode> stripe : nonPrimitive ) {
+			synchronized( stripe ) {
+				keys.addAll( stripe.keySet() );
+			}
+		}
+		return keys;
+	}
+
+	public CachedNode put(ATermAppl key, CachedNode value) {
+		if( isPrimitive( key ) )
+			return primitive.put( key, value );
+
+		LinkedHashMap<ATermAppl, CachedNode> stripe = getStripe( key );
+		synchronized( stripe ) {
+			return stripe.put( key, value );
+		}
+	}
+
+	public void putAll(Map<? extends ATermAppl, ? extends CachedNode> t) {
+		for( Map.Entry<? extends ATermAppl, ? extends CachedNode> entry : t.entrySet() ) {
+			put( entry.getKey(), entry.getValue() );
+		}
+	}
+
+	public CachedNode remove(Object key) {
+		if( isPrimitive( key ) )
+			return primitive.remove( key );
+
+		LinkedHashMap<ATermAppl, CachedNode> stripe = getStripe( key );
+		synchronized( stripe ) {
+			return stripe.remove( key );
+		}
+	}
+
+	public int size() {
+		return primitive.size() + getNonPrimitiveSize();
+	}
+
+	private int getNonPrimitiveSize() {
+		int size = 0;
+		for( LinkedHashMap<ATermAppl, CachedNode> stripe : nonPrimitive ) {
+			synchronized( stripe ) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+
+	public Collection<CachedNode> values() {
+		List<CachedNode> values = new ArrayList<CachedNode>( primitive.values() );
+		for( LinkedHashMap<ATermAppl, CachedNode> stripe : nonPrimitive ) {
+			synchronized( stripe ) {
+				values.addAll( stripe.values() );
+			}
+		}
+		return values;
+	}
+
+	public String toString() {
+		return "[Cache size: " + primitive.size() + "," + getNonPrimitiveSize() + "]";
+	}
+}
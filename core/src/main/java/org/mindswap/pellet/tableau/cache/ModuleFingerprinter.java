@@ -0,0 +1,462 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.tableau.cache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.Role;
+import org.mindswap.pellet.utils.ATermUtils;
+
+import aterm.ATerm;
+import aterm.ATermAppl;
+import aterm.ATermInt;
+import aterm.ATermList;
+
+/**
+ * <p>
+ * Title: Module Fingerprinter
+ * </p>
+ * <p>
+ * Description: Computes fingerprints of the syntactic bottom locality modules
+ * of concepts. The module of a concept contains the asserted TBox axioms that
+ * are not bottom-local with respect to the signature of the module and the
+ * descriptions of the roles in that signature. Axioms outside the module can be
+ * satisfied by interpreting the symbols outside the signature as empty so the
+ * satisfiability of a concept, and of the conjunction of two concepts, depends
+ * only on the module. The fingerprint of a module is an order independent
+ * 64-bit hash of the string representation of its axioms so it can be compared
+ * across sessions to decide whether a result computed in an earlier session is
+ * still valid. Fingerprints are only meaningful for KBs without nominals.
+ * Modules are computed when they are first requested and remembered, so a new
+ * fingerprinter should be created when the TBox or the RBox changes.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class ModuleFingerprinter {
+	private static class Module {
+		private Set<ATermAppl>	signature;
+		private long			fingerprint;
+	}
+
+	private KnowledgeBase						kb;
+
+	/**
+	 * Axioms indexed by the class and role names they contain
+	 */
+	private Map<ATermAppl, List<ATermAppl>>		axiomIndex;
+
+	/**
+	 * Axioms that are not local with respect to any signature and belong to
+	 * every module
+	 */
+	private List<ATermAppl>						globalAxioms;
+
+	private Map<ATermAppl, Module>				modules;
+
+	public ModuleFingerprinter(KnowledgeBase kb) {
+		this.kb = kb;
+		this.modules = new HashMap<ATermAppl, Module>();
+	}
+
+	/**
+	 * Returns the fingerprint of the module of the given concept.
+	 */
+	public long getFingerprint(ATermAppl c) {
+		return getModule( c ).fingerprint;
+	}
+
+	/**
+	 * Returns the fingerprint of the module of the conjunction of the given
+	 * concepts. The fingerprint depends on the order of the concepts.
+	 */
+	public long getFingerprint(ATermAppl c1, ATermAppl c2) {
+		Module m1 = getModule( c1 );
+		Module m2 = getModule( c2 );
+
+		Set<ATermAppl> signature = new HashSet<ATermAppl>( m1.signature );
+		signature.addAll( m2.signature );
+
+		// an axiom that is local with respect to both modules but not to their
+		// union contains symbols from both differences of the signatures so it
+		// is enough to check the axioms of the smaller difference
+		List<ATermAppl> diff1 = difference( m1.signature, m2.signature );
+		List<ATermAppl> diff2 = difference( m2.signature, m1.signature );
+		List<ATermAppl> queue = diff1.size() < diff2.size()
+			? diff1
+			: diff2;
+
+		long extra = close( signature, queue, m1.signature, m2.signature, false );
+
+		return 31 * m1.fingerprint + m2.fingerprint + extra;
+	}
+
+	/**
+	 * Returns true if all the class and role names used in the given term are
+	 * in the signature of the module of the given concept.
+	 */
+	public boolean isInModule(ATermAppl c, ATermAppl term) {
+		Set<ATermAppl> signature = getModule( c ).signature;
+		Set<ATermAppl> symbols = new HashSet<ATermAppl>();
+		collectSymbols( term, symbols );
+
+		return signature.containsAll( symbols );
+	}
+
+	private Module getModule(ATermAppl c) {
+		Module module = modules.get( c );
+		if( module == null ) {
+			if( axiomIndex == null )
+				index();
+
+			Set<ATermAppl> signature = new HashSet<ATermAppl>();
+			collectSymbols( c, signature );
+			long fingerprint = 0;
+			for( ATermAppl axiom : globalAxioms ) {
+				collectSymbols( axiom, signature );
+				fingerprint += hash( axiom.toString() );
+			}
+
+			List<ATermAppl> queue = new ArrayList<ATermAppl>( signature );
+			Set<ATermAppl> empty = new HashSet<ATermAppl>();
+			fingerprint += close( signature, queue, empty, empty, true );
+
+			module = new Module();
+			module.signature = signature;
+			module.fingerprint = fingerprint;
+			modules.put( c, module );
+		}
+
+		return module;
+	}
+
+	private void index() {
+		axiomIndex = new HashMap<ATermAppl, List<ATermAppl>>();
+		globalAxioms = new ArrayList<ATermAppl>();
+
+		Set<ATermAppl> empty = new HashSet<ATermAppl>();
+		for( ATermAppl axiom : kb.getTBox().getAssertedAxioms() ) {
+			if( !isLocal( axiom, empty ) ) {
+				globalAxioms.add( axiom );
+				continue;
+			}
+
+			Set<ATermAppl> symbols = new HashSet<ATermAppl>();
+			collectSymbols( axiom, symbols );
+			for( ATermAppl symbol : symbols ) {
+				List<ATermAppl> axioms = axiomIndex.get( symbol );
+				if( axioms == null ) {
+					axioms = new ArrayList<ATermAppl>( 2 );
+					axiomIndex.put( symbol, axioms );
+				}
+				axioms.add( axiom );
+			}
+		}
+	}
+
+	/**
+	 * Extends the signature until every axiom that is not local with respect
+	 * to the signature has its symbols in the signature. Only the axioms and
+	 * roles that were not already part of the modules with the given base
+	 * signatures contribute to the returned hash.
+	 *
+	 * @param signature
+	 *            the signature to extend
+	 * @param queue
+	 *            symbols whose axioms should be checked
+	 * @param base1
+	 *            signature of a module already included
+	 * @param base2
+	 *            signature of a module already included
+	 * @param describeQueue
+	 *            if the roles in the initial queue should be described
+	 * @return the hash of the axioms and roles added to the module
+	 */
+	private long close(Set<ATermAppl> signature, List<ATermAppl> queue, Set<ATermAppl> base1,
+			Set<ATermAppl> base2, boolean describeQueue) {
+		long hash = 0;
+		Set<ATermAppl> included = new HashSet<ATermAppl>();
+		int initial = queue.size();
+		for( int i = 0; i < queue.size(); i++ ) {
+			ATermAppl symbol = queue.get( i );
+
+			List<ATermAppl> axioms = axiomIndex.get( symbol );
+			if( axioms != null ) {
+				for( ATermAppl axiom : axioms ) {
+					if( included.contains( axiom ) || isLocal( axiom, signature )
+							|| !isLocal( axiom, base1 ) || !isLocal( axiom, base2 ) )
+						continue;
+
+					included.add( axiom );
+					hash += hash( axiom.toString() );
+					addSymbols( axiom, signature, queue );
+				}
+			}
+
+			Role role = kb.getRBox().getRole( symbol );
+			if( role != null && (describeQueue || i >= initial) ) {
+				hash += describe( role, signature, queue );
+			}
+		}
+
+		return hash;
+	}
+
+	private void addSymbols(ATermAppl term, Set<ATermAppl> signature, List<ATermAppl> queue) {
+		Set<ATermAppl> symbols = new HashSet<ATermAppl>();
+		collectSymbols( term, symbols );
+		for( ATermAppl symbol : symbols ) {
+			if( signature.add( symbol ) )
+				queue.add( symbol );
+		}
+	}
+
+	/**
+	 * Returns the hash of the description of a role and adds the symbols used
+	 * in the description to the signature.
+	 */
+	private long describe(Role role, Set<ATermAppl> signature, List<ATermAppl> queue) {
+		String name = role.getName().toString();
+		StringBuilder flags = new StringBuilder( name );
+		flags.append( ' ' ).append( role.getType() );
+		if( role.isTransitive() )
+			flags.append( " Transitive" );
+		if( role.isReflexive() )
+			flags.append( " Reflexive" );
+		if( role.isIrreflexive() )
+			flags.append( " Irreflexive" );
+		if( role.isSymmetric() )
+			flags.append( " Symmetric" );
+		if( role.isAsymmetric() )
+			flags.append( " Asymmetric" );
+		if( role.isFunctional() )
+			flags.append( " Functional" );
+		if( role.isInverseFunctional() )
+			flags.append( " InverseFunctional" );
+
+		long hash = hash( flags.toString() );
+
+		for( ATermAppl domain : role.getDomains() ) {
+			hash += hash( name + " domain " + domain );
+			addSymbols( domain, signature, queue );
+		}
+		for( ATermAppl range : role.getRanges() ) {
+			hash += hash( name + " range " + range );
+			addSymbols( range, signature, queue );
+		}
+		for( Role sup : role.getSuperRoles() ) {
+			hash += hash( name + " subPropertyOf " + sup.getName() );
+			addSymbols( sup.getName(), signature, queue );
+		}
+		for( ATermList chain : role.getSubRoleChains() ) {
+			hash += hash( name + " chain " + chain );
+			addSymbols( chain, signature, queue );
+		}
+		for( Role disjoint : role.getDisjointRoles() ) {
+			hash += hash( name + " disjointWith " + disjoint.getName() );
+			addSymbols( disjoint.getName(), signature, queue );
+		}
+		Role inverse = role.getInverse();
+		if( inverse != null ) {
+			hash += hash( name + " inverseOf " + inverse.getName() );
+			addSymbols( inverse.getName(), signature, queue );
+		}
+
+		return hash;
+	}
+
+	private void addSymbols(ATermList list, Set<ATermAppl> signature, List<ATermAppl> queue) {
+		for( ; !list.isEmpty(); list = list.getNext() ) {
+			addSymbols( (ATermAppl) list.getFirst(), signature, queue );
+		}
+	}
+
+	/**
+	 * Collects the class and role names used in a term.
+	 */
+	private void collectSymbols(ATerm term, Set<ATermAppl> symbols) {
+		if( term instanceof ATermList ) {
+			for( ATermList list = (ATermList) term; !list.isEmpty(); list = list.getNext() ) {
+				collectSymbols( list.getFirst(), symbols );
+			}
+		}
+		else if( term instanceof ATermAppl ) {
+			ATermAppl appl = (ATermAppl) term;
+			if( ATermUtils.isPrimitive( appl ) ) {
+				if( isSymbol( appl ) )
+					symbols.add( appl );
+			}
+			else if( !ATermUtils.isLiteral( appl ) ) {
+				for( int i = 0, n = appl.getArity(); i < n; i++ ) {
+					collectSymbols( appl.getArgument( i ), symbols );
+				}
+			}
+		}
+	}
+
+	private boolean isSymbol(ATermAppl name) {
+		if( name.equals( ATermUtils.TOP ) || name.equals( ATermUtils.BOTTOM ) )
+			return false;
+
+		return kb.isClass( name ) || kb.getRBox().getRole( name ) != null;
+	}
+
+	private boolean isLocal(ATermAppl axiom, Set<ATermAppl> signature) {
+		if( axiom.getAFun().equals( ATermUtils.SUBFUN ) ) {
+			return isBottom( (ATermAppl) axiom.getArgument( 0 ), signature )
+					|| isTop( (ATermAppl) axiom.getArgument( 1 ), signature );
+		}
+		else if( axiom.getAFun().equals( ATermUtils.EQCLASSFUN ) ) {
+			ATermAppl c1 = (ATermAppl) axiom.getArgument( 0 );
+			ATermAppl c2 = (ATermAppl) axiom.getArgument( 1 );
+			return (isBottom( c1, signature ) && isBottom( c2, signature ))
+					|| (isTop( c1, signature ) && isTop( c2, signature ));
+		}
+		else if( axiom.getAFun().equals( ATermUtils.DISJOINTFUN ) ) {
+			return isBottom( (ATermAppl) axiom.getArgument( 0 ), signature )
+					|| isBottom( (ATermAppl) axiom.getArgument( 1 ), signature );
+		}
+		else if( axiom.getAFun().equals( ATermUtils.DISJOINTSFUN ) ) {
+			int nonBottom = 0;
+			for( ATermList list = (ATermList) axiom.getArgument( 0 ); !list.isEmpty(); list = list
+					.getNext() ) {
+				if( !isBottom( (ATermAppl) list.getFirst(), signature ) )
+					nonBottom++;
+			}
+			return nonBottom <= 1;
+		}
+
+		// unknown axioms are never considered to be local
+		return false;
+	}
+
+	/**
+	 * Returns true if the concept is empty in every interpretation where the
+	 * symbols outside the signature are interpreted as empty.
+	 */
+	private boolean isBottom(ATermAppl c, Set<ATermAppl> signature) {
+		if( c.equals( ATermUtils.BOTTOM ) )
+			return true;
+		else if( ATermUtils.isPrimitive( c ) )
+			return isSymbol( c ) && !signature.contains( c );
+		else if( ATermUtils.isNot( c ) )
+			return isTop( (ATermAppl) c.getArgument( 0 ), signature );
+		else if( ATermUtils.isAnd( c ) ) {
+			for( ATermList list = (ATermList) c.getArgument( 0 ); !list.isEmpty(); list = list
+					.getNext() ) {
+				if( isBottom( (ATermAppl) list.getFirst(), signature ) )
+					return true;
+			}
+			return false;
+		}
+		else if( ATermUtils.isOr( c ) ) {
+			for( ATermList list = (ATermList) c.getArgument( 0 ); !list.isEmpty(); list = list
+					.getNext() ) {
+				if( !isBottom( (ATermAppl) list.getFirst(), signature ) )
+					return false;
+			}
+			return true;
+		}
+		else if( ATermUtils.isSomeValues( c ) ) {
+			return isEmptyRole( c.getArgument( 0 ), signature )
+					|| isBottom( (ATermAppl) c.getArgument( 1 ), signature );
+		}
+		else if( ATermUtils.isMin( c ) ) {
+			return ((ATermInt) c.getArgument( 1 )).getInt() > 0
+					&& (isEmptyRole( c.getArgument( 0 ), signature ) || isBottom(
+							(ATermAppl) c.getArgument( 2 ), signature ));
+		}
+		else if( ATermUtils.isSelf( c ) ) {
+			return isEmptyRole( c.getArgument( 0 ), signature );
+		}
+
+		return false;
+	}
+
+	/**
+	 * Returns true if the concept is equivalent to TOP in every interpretation
+	 * where the symbols outside the signature are interpreted as empty.
+	 */
+	private boolean isTop(ATermAppl c, Set<ATermAppl> signature) {
+		if( c.equals( ATermUtils.TOP ) )
+			return true;
+		else if( ATermUtils.isNot( c ) )
+			return isBottom( (ATermAppl) c.getArgument( 0 ), signature );
+		else if( ATermUtils.isAnd( c ) ) {
+			for( ATermList list = (ATermList) c.getArgument( 0 ); !list.isEmpty(); list = list
+					.getNext() ) {
+				if( !isTop( (ATermAppl) list.getFirst(), signature ) )
+					return false;
+			}
+			return true;
+		}
+		else if( ATermUtils.isOr( c ) ) {
+			for( ATermList list = (ATermList) c.getArgument( 0 ); !list.isEmpty(); list = list
+					.getNext() ) {
+				if( isTop( (ATermAppl) list.getFirst(), signature ) )
+					return true;
+			}
+			return false;
+		}
+		else if( ATermUtils.isAllValues( c ) ) {
+			return isEmptyRole( c.getArgument( 0 ), signature )
+					|| isTop( (ATermAppl) c.getArgument( 1 ), signature );
+		}
+		else if( ATermUtils.isMax( c ) ) {
+			return isEmptyRole( c.getArgument( 0 ), signature )
+					|| isBottom( (ATermAppl) c.getArgument( 2 ), signature );
+		}
+
+		return false;
+	}
+
+	private boolean isEmptyRole(ATerm r, Set<ATermAppl> signature) {
+		if( r instanceof ATermList ) {
+			// property chains are empty if any of the properties is empty
+			for( ATermList list = (ATermList) r; !list.isEmpty(); list = list.getNext() ) {
+				if( isEmptyRole( list.getFirst(), signature ) )
+					return true;
+			}
+			return false;
+		}
+
+		ATermAppl role = (ATermAppl) r;
+		if( ATermUtils.isInv( role ) )
+			role = (ATermAppl) role.getArgument( 0 );
+
+		return ATermUtils.isPrimitive( role ) && isSymbol( role ) && !signature.contains( role );
+	}
+
+	private static List<ATermAppl> difference(Set<ATermAppl> set1, Set<ATermAppl> set2) {
+		List<ATermAppl> diff = new ArrayList<ATermAppl>();
+		for( ATermAppl e : set1 ) {
+			if( !set2.contains( e ) )
+				diff.add( e );
+		}
+		return diff;
+	}
+
+	/**
+	 * Returns a 64-bit FNV-1a hash of a string which, unlike the hash codes of
+	 * terms, is the same in every session.
+	 */
+	private static long hash(String str) {
+		long h = 0xcbf29ce484222325L;
+		for( int i = 0, n = str.length(); i < n; i++ ) {
+			h ^= str.charAt( i );
+			h *= 0x100000001b3L;
+		}
+		return h;
+	}
+}
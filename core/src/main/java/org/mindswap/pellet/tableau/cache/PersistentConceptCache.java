@@ -0,0 +1,453 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.tableau.cache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mindswap.pellet.DependencySet;
+import org.mindswap.pellet.Edge;
+import org.mindswap.pellet.EdgeList;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.Role;
+import org.mindswap.pellet.utils.ATermUtils;
+import org.mindswap.pellet.utils.Bool;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.utils.CollectionUtils;
+
+/**
+ * <p>
+ * Title: Persistent Concept Cache
+ * </p>
+ * <p>
+ * Description: A concept cache tier that is saved to a file and reused by
+ * later sessions. The cache stores the satisfiability of named concepts and
+ * their negations together with the types and edges of their cached root
+ * nodes, and the satisfiability of the conjunctions checked for subsumption,
+ * i.e. whether two cached nodes can be merged. Every entry is stored with the
+ * fingerprint of the module the result depends on (see
+ * {@link ModuleFingerprinter}) and an entry is only returned if the
+ * fingerprint computed for the current KB is the same. Entries whose
+ * fingerprint has changed are discarded. Only the parts of a cached node that
+ * use symbols from the module of the concept are stored; dependency sets are
+ * reduced to whether they are independent or not.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class PersistentConceptCache {
+	public final static Logger	log				= Logger.getLogger( PersistentConceptCache.class
+														.getName() );
+
+	private static final int	MAGIC			= 0x50434331;
+
+	private static final int	VERSION			= 1;
+
+	private static final byte	TOP				= 0;
+	private static final byte	BOTTOM			= 1;
+	private static final byte	SATISFIABLE		= 2;
+	private static final byte	NODE			= 3;
+
+	private static final byte	OUT_EDGE		= 1;
+	private static final byte	INDEPENDENT		= 2;
+
+	private static class Entry {
+		private long		fingerprint;
+		private byte		kind;
+		private boolean		isIndependent;
+		private ATermAppl[]	types;
+		private boolean[]	typeIndependent;
+		private ATermAppl[]	edgeRoles;
+		private ATermAppl[]	edgeNeighbors;
+		private byte[]		edgeFlags;
+	}
+
+	private File					file;
+
+	private Map<ATermAppl, Entry>	entries;
+
+	private boolean					modified;
+
+	private int						hits;
+
+	private int						invalidated;
+
+	/**
+	 * Creates a cache that is saved to the given file. If the file exists the
+	 * entries saved in it are loaded. A file that cannot be read is logged and
+	 * ignored so the cache starts empty.
+	 */
+	public PersistentConceptCache(File file) {
+		this.file = file;
+		this.entries = new HashMap<ATermAppl, Entry>();
+
+		if( file.exists() ) {
+			try {
+				load();
+			} catch( IOException e ) {
+				log.log( Level.WARNING, "Cannot read the concept cache from " + file, e );
+				entries.clear();
+			}
+		}
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	/**
+	 * Returns the cached node for a named concept or its negation. Null is
+	 * returned if there is no entry for the concept or the fingerprint of the
+	 * entry is different.
+	 */
+	public CachedNode get(KnowledgeBase kb, ATermAppl c, long fingerprint) {
+		Entry entry = getEntry( c, fingerprint );
+		if( entry == null )
+			return null;
+
+		CachedNode node = toNode( kb, c, entry );
+		if( node == null ) {
+			discard( c );
+			return null;
+		}
+
+		hits++;
+
+		return node;
+	}
+
+	/**
+	 * Stores the cached node of a named concept or its negation. Types and
+	 * edges that use symbols outside the module of the concept are not stored.
+	 */
+	public void put(ATermAppl c, long fingerprint, CachedNode node, ModuleFingerprinter modules) {
+		Entry entry = new Entry();
+		entry.fingerprint = fingerprint;
+		if( node.isBottom() )
+			entry.kind = BOTTOM;
+		else if( node.isTop() )
+			entry.kind = TOP;
+		else if( !node.isComplete() || !(node instanceof CachedConceptNode) )
+			entry.kind = SATISFIABLE;
+		else {
+			entry.kind = NODE;
+			entry.isIndependent = node.isIndependent();
+
+			List<ATermAppl> types = new ArrayList<ATermAppl>();
+			List<Boolean> typeIndependent = new ArrayList<Boolean>();
+			for( Map.Entry<ATermAppl, DependencySet> e : node.getDepends().entrySet() ) {
+				if( modules.isInModule( c, e.getKey() ) ) {
+					types.add( e.getKey() );
+					typeIndependent.add( e.getValue().isIndependent() );
+				}
+			}
+			entry.types = types.toArray( new ATermAppl[types.size()] );
+			entry.typeIndependent = new boolean[types.size()];
+			for( int i = 0; i < entry.typeIndependent.length; i++ ) {
+				entry.typeIndependent[i] = typeIndependent.get( i );
+			}
+
+			List<Edge> edges = new ArrayList<Edge>();
+			for( Edge edge : node.getOutEdges() ) {
+				if( modules.isInModule( c, edge.getRole().getName() ) )
+					edges.add( edge );
+			}
+			int outCount = edges.size();
+			for( Edge edge : node.getInEdges() ) {
+				if( modules.isInModule( c, edge.getRole().getName() ) )
+					edges.add( edge );
+			}
+			entry.edgeRoles = new ATermAppl[edges.size()];
+			entry.edgeNeighbors = new ATermAppl[edges.size()];
+			entry.edgeFlags = new byte[edges.size()];
+			for( int i = 0; i < edges.size(); i++ ) {
+				Edge edge = edges.get( i );
+				boolean out = i < outCount;
+				entry.edgeRoles[i] = edge.getRole().getName();
+				entry.edgeNeighbors[i] = out
+					? edge.getToName()
+					: edge.getFromName();
+				entry.edgeFlags[i] = (byte) ((out
+					? OUT_EDGE
+					: 0) | (edge.getDepends().isIndependent()
+					? INDEPENDENT
+					: 0));
+			}
+		}
+
+		entries.put( c, entry );
+		modified = true;
+	}
+
+	/**
+	 * Returns the cached satisfiability of a concept, e.g. the conjunction of
+	 * two concepts checked for subsumption.
+	 */
+	public Bool getSat(ATermAppl c, long fingerprint) {
+		Entry entry = getEntry( c, fingerprint );
+		if( entry == null )
+			return Bool.UNKNOWN;
+
+		hits++;
+
+		return Bool.create( entry.kind != BOTTOM );
+	}
+
+	/**
+	 * Stores the satisfiability of a concept.
+	 */
+	public void putSat(ATermAppl c, long fingerprint, boolean isSatisfiable) {
+		Entry entry = new Entry();
+		entry.fingerprint = fingerprint;
+		entry.kind = isSatisfiable
+			? SATISFIABLE
+			: BOTTOM;
+
+		entries.put( c, entry );
+		modified = true;
+	}
+
+	private Entry getEntry(ATermAppl c, long fingerprint) {
+		Entry entry = entries.get( c );
+		if( entry == null )
+			return null;
+
+		if( entry.fingerprint != fingerprint ) {
+			if( log.isLoggable( Level.FINE ) )
+				log.fine( "Discarding cached result for " + ATermUtils.toString( c ) );
+			discard( c );
+			return null;
+		}
+
+		return entry;
+	}
+
+	private void discard(ATermAppl c) {
+		entries.remove( c );
+		invalidated++;
+		modified = true;
+	}
+
+	private CachedNode toNode(KnowledgeBase kb, ATermAppl c, Entry entry) {
+		switch ( entry.kind ) {
+		case TOP:
+			return CachedNodeFactory.createTopNode();
+		case BOTTOM:
+			return CachedNodeFactory.createBottomNode();
+		case SATISFIABLE:
+			return CachedNodeFactory.createSatisfiableNode();
+		default:
+			Map<ATermAppl, DependencySet> types = CollectionUtils.makeIdentityMap( entry.types.length );
+			for( int i = 0; i < entry.types.length; i++ ) {
+				types.put( entry.types[i], dependency( entry.typeIndependent[i] ) );
+			}
+
+			EdgeList outEdges = new EdgeList();
+			EdgeList inEdges = new EdgeList();
+			for( int i = 0; i < entry.edgeRoles.length; i++ ) {
+				Role role = kb.getRole( entry.edgeRoles[i] );
+				if( role == null )
+					return null;
+
+				DependencySet ds = dependency( (entry.edgeFlags[i] & INDEPENDENT) != 0 );
+				if( (entry.edgeFlags[i] & OUT_EDGE) != 0 )
+					outEdges.addEdge( new CachedOutEdge( role, entry.edgeNeighbors[i], ds ) );
+				else
+					inEdges.addEdge( new CachedInEdge( role, entry.edgeNeighbors[i], ds ) );
+			}
+
+			return new CachedConceptNode( c, inEdges, outEdges, types, entry.isIndependent );
+		}
+	}
+
+	private static DependencySet dependency(boolean isIndependent) {
+		return isIndependent
+			? DependencySet.INDEPENDENT
+			: DependencySet.DUMMY;
+	}
+
+	/**
+	 * Returns true if the cache has been changed since it was loaded or saved.
+	 */
+	public boolean isModified() {
+		return modified;
+	}
+
+	/**
+	 * Returns the number of entries in the cache.
+	 */
+	public int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Returns the number of results returned from the cache.
+	 */
+	public int getHits() {
+		return hits;
+	}
+
+	/**
+	 * Returns the number of entries discarded because the module they depend
+	 * on has changed.
+	 */
+	public int getInvalidated() {
+		return invalidated;
+	}
+
+	public void clear() {
+		entries.clear();
+		modified = true;
+	}
+
+	/**
+	 * Saves the cache to its file. The cache is first written to a temporary
+	 * file which then replaces the file so an interrupted save does not
+	 * corrupt the previously saved cache.
+	 */
+	public void save() throws IOException {
+		Map<ATermAppl, Integer> ids = new HashMap<ATermAppl, Integer>();
+		List<ATermAppl> terms = new ArrayList<ATermAppl>();
+		for( Map.Entry<ATermAppl, Entry> e : entries.entrySet() ) {
+			id( e.getKey(), ids, terms );
+			Entry entry = e.getValue();
+			if( entry.kind == NODE ) {
+				for( ATermAppl type : entry.types )
+					id( type, ids, terms );
+				for( ATermAppl role : entry.edgeRoles )
+					id( role, ids, terms );
+				for( ATermAppl neighbor : entry.edgeNeighbors )
+					id( neighbor, ids, terms );
+			}
+		}
+
+		File parent = file.getAbsoluteFile().getParentFile();
+		File tmp = File.createTempFile( file.getName(), ".tmp", parent );
+		DataOutputStream out = new DataOutputStream( new BufferedOutputStream(
+				new FileOutputStream( tmp ) ) );
+		try {
+			out.writeInt( MAGIC );
+			out.writeInt( VERSION );
+
+			out.writeInt( terms.size() );
+			for( ATermAppl term : terms ) {
+				byte[] bytes = term.toString().getBytes( "UTF-8" );
+				out.writeInt( bytes.length );
+				out.write( bytes );
+			}
+
+			out.writeInt( entries.size() );
+			for( Map.Entry<ATermAppl, Entry> e : entries.entrySet() ) {
+				Entry entry = e.getValue();
+				out.writeInt( ids.get( e.getKey() ) );
+				out.writeLong( entry.fingerprint );
+				out.writeByte( entry.kind );
+				if( entry.kind == NODE ) {
+					out.writeBoolean( entry.isIndependent );
+					out.writeInt( entry.types.length );
+					for( int i = 0; i < entry.types.length; i++ ) {
+						out.writeInt( ids.get( entry.types[i] ) );
+						out.writeBoolean( entry.typeIndependent[i] );
+					}
+					out.writeInt( entry.edgeRoles.length );
+					for( int i = 0; i < entry.edgeRoles.length; i++ ) {
+						out.writeByte( entry.edgeFlags[i] );
+						out.writeInt( ids.get( entry.edgeRoles[i] ) );
+						out.writeInt( ids.get( entry.edgeNeighbors[i] ) );
+					}
+				}
+			}
+		} finally {
+			out.close();
+		}
+
+		if( !tmp.renameTo( file ) ) {
+			// renaming over an existing file fails on some platforms
+			file.delete();
+			if( !tmp.renameTo( file ) ) {
+				tmp.delete();
+				throw new IOException( "Cannot write the concept cache to " + file );
+			}
+		}
+
+		modified = false;
+	}
+
+	private static void id(ATermAppl term, Map<ATermAppl, Integer> ids, List<ATermAppl> terms) {
+		if( !ids.containsKey( term ) ) {
+			ids.put( term, terms.size() );
+			terms.add( term );
+		}
+	}
+
+	private void load() throws IOException {
+		DataInputStream in = new DataInputStream( new BufferedInputStream(
+				new FileInputStream( file ) ) );
+		try {
+			if( in.readInt() != MAGIC || in.readInt() != VERSION ) {
+				log.warning( "Ignoring the concept cache in " + file
+						+ " written in an unknown format" );
+				return;
+			}
+
+			ATermAppl[] terms = new ATermAppl[in.readInt()];
+			for( int i = 0; i < terms.length; i++ ) {
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully( bytes );
+				terms[i] = (ATermAppl) ATermUtils.getFactory().parse( new String( bytes, "UTF-8" ) );
+			}
+
+			int count = in.readInt();
+			for( int n = 0; n < count; n++ ) {
+				ATermAppl c = terms[in.readInt()];
+				Entry entry = new Entry();
+				entry.fingerprint = in.readLong();
+				entry.kind = in.readByte();
+				if( entry.kind == NODE ) {
+					entry.isIndependent = in.readBoolean();
+					int typeCount = in.readInt();
+					entry.types = new ATermAppl[typeCount];
+					entry.typeIndependent = new boolean[typeCount];
+					for( int i = 0; i < typeCount; i++ ) {
+						entry.types[i] = terms[in.readInt()];
+						entry.typeIndependent[i] = in.readBoolean();
+					}
+					int edgeCount = in.readInt();
+					entry.edgeRoles = new ATermAppl[edgeCount];
+					entry.edgeNeighbors = new ATermAppl[edgeCount];
+					entry.edgeFlags = new byte[edgeCount];
+					for( int i = 0; i < edgeCount; i++ ) {
+						entry.edgeFlags[i] = in.readByte();
+						entry.edgeRoles[i] = terms[in.readInt()];
+						entry.edgeNeighbors[i] = terms[in.readInt()];
+					}
+				}
+				entries.put( c, entry );
+			}
+		} finally {
+			in.close();
+		}
+
+		if( log.isLoggable( Level.FINE ) )
+			log.fine( "Loaded " + entries.size() + " cached results from " + file );
+	}
+}
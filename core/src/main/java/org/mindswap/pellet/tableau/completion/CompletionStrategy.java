@@ -1082,6 +1082,7 @@ public abstract class CompletionStrategy {
 		// Timer timer = timers.startTimer("restore");
 		abox.setBranch(br.getBranch());
 		abox.setClash(null);
+		abox.restoreBlockingIndex(br.getBranch());
 		// Setting the anonCount to the value at the time of branch creation is incorrect
 		// when SMART_RESTORE option is turned on. If we create an anon node after branch
 		// creation but node depends on an earlier branch restore operation will not remove
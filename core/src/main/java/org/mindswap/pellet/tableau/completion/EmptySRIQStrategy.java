@@ -478,6 +478,7 @@ public class EmptySRIQStrategy extends CompletionStrategy {
 
 		abox.setBranch( br.getBranch() );
 		abox.setClash( null );
+		abox.restoreBlockingIndex( br.getBranch() );
         // Setting the anonCount to the value at the time of branch creation is incorrect
         // when SMART_RESTORE option is turned on. If we create an anon node after branch
         // creation but node depends on an earlier branch restore operation will not remove
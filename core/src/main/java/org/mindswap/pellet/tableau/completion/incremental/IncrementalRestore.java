@@ -8,8 +8,8 @@ package org.mindswap.pellet.tableau.completion.incremental;
 
 import java.util.logging.Level;
 
-import java.util.ArrayList;
 import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -25,7 +25,6 @@ import org.mindswap.pellet.Role;
 import org.mindswap.pellet.exceptions.InternalReasonerException;
 import org.mindswap.pellet.tableau.branch.Branch;
 import org.mindswap.pellet.utils.ATermUtils;
-import org.mindswap.pellet.utils.intset.IntSet;
 
 import aterm.ATermAppl;
 
@@ -79,7 +78,12 @@ public class IncrementalRestore {
 				? kb.getABox().getBranchEffectTracker().getAll( branch.getBranch().getBranch() )
 				: kb.getABox().getNodeNames();
 	
-			List<IntSet> updatedList = new ArrayList<IntSet>();
+			// the same DependencySet object may be used for several types and
+			// edges so we need to track which ones have been updated, so we do
+			// not process the same dependency set multiple times
+			Map<DependencySet, DependencySet> updated = new IdentityHashMap<DependencySet, DependencySet>();
+			int removedBranch = branch.getBranch().getBranch();
+			int lastBranch = kb.getABox().getBranches().size();
 	
 			for( ATermAppl a : allEffects ) {
 	
@@ -90,73 +94,13 @@ public class IncrementalRestore {
 				Map<ATermAppl,DependencySet> types = node.getDepends();
 	
 				for( Entry<ATermAppl,DependencySet> entry : types.entrySet() ) {
-					// get ds for type
-					DependencySet tDS = entry.getValue();
-	
-					// DependencySet.copy() does not create a new bitset object,
-					// so we need to track which bitsets have been
-					// updated, so we do not process the same bitset multiple
-					// times
-					boolean exit = false;
-					for( int i = 0; i < updatedList.size(); i++ ) {
-						if( updatedList.get( i ) == tDS.getDepends() )
-							exit = true;
-					}
-	
-					if( exit )
-						continue;
-	
-					updatedList.add( tDS.getDepends() );
-	
-					// update branch if necessary
-					if( tDS.getBranch() > branch.getBranch().getBranch() ) {
-						tDS = tDS.copy( tDS.getBranch() - 1 );
-					}
-	
-					for( int i = branch.getBranch().getBranch(); i <= kb.getABox().getBranches().size(); i++ ) {
-						// update dependency set
-						if( tDS.contains( i ) ) {
-							tDS.remove( i );
-							tDS.add( i - 1 );
-						}
-					}
-					
-					entry.setValue( tDS );
+					entry.setValue( shiftBranches( entry.getValue(), removedBranch, lastBranch, updated ) );
 				}
 	
 				// update edge depdencies
 				EdgeList edges = node.getInEdges();
 				for( Edge edge: edges ) {
-					DependencySet tDS = edge.getDepends();
-	
-					// DependencySet.copy() does not create a new bitset object,
-					// so we need to track which bitsets have been
-					// updated, so we do not process the same bitset multiple
-					// times
-					boolean exit = false;
-					for( int i = 0; i < updatedList.size(); i++ ) {
-						if( updatedList.get( i ) == tDS.getDepends() )
-							exit = true;
-					}
-	
-					if( exit )
-						continue;
-	
-					updatedList.add( tDS.getDepends() );
-	
-					// update branch if necessary
-					if( tDS.getBranch() > branch.getBranch().getBranch() )
-						tDS = tDS.copy( edge.getDepends().getBranch() - 1 );
-	
-					for( int i = branch.getBranch().getBranch(); i <= kb.getABox().getBranches().size(); i++ ) {
-						// update dependency set
-						if( tDS.contains( i ) ) {
-							tDS.remove( i );
-							tDS.add( i - 1 );
-						}
-					}
-					
-					edge.setDepends( tDS );
+					edge.setDepends( shiftBranches( edge.getDepends(), removedBranch, lastBranch, updated ) );
 				}
 	
 				// //TODO:The following code update outedges as well - after
@@ -227,6 +171,37 @@ public class IncrementalRestore {
 		}
 	}
 
+	/**
+	 * Returns the dependency set where the branches after the removed branch
+	 * are shifted down by one. Dependency sets do not modify their branch sets
+	 * in place so the given dependency set is only changed if its branch number
+	 * does not need to be updated.
+	 */
+	private static DependencySet shiftBranches(DependencySet ds, int removedBranch, int lastBranch,
+			Map<DependencySet, DependencySet> updated) {
+		DependencySet tDS = updated.get( ds );
+		if( tDS != null )
+			return tDS;
+
+		// update branch if necessary
+		tDS = ds;
+		if( tDS.getBranch() > removedBranch )
+			tDS = tDS.copy( tDS.getBranch() - 1 );
+
+		for( int i = removedBranch; i <= lastBranch; i++ ) {
+			// update dependency set
+			if( tDS.contains( i ) ) {
+				tDS.remove( i );
+				tDS.add( i - 1 );
+			}
+		}
+
+		updated.put( ds, tDS );
+		updated.put( tDS, tDS );
+
+		return tDS;
+	}
+
 	/**
 	 * Restore a clash dependency
 	 * 
@@ -97,6 +97,8 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 
 	private Map<ATermAppl, ConceptFlag>	conceptFlags;
 
+	private Taxonomy<ATermAppl>			previousTaxonomy;
+
 	public CDOptimizedTaxonomyBuilder() {
 
 	}
@@ -105,6 +107,17 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 		this.kb = kb;
 	}
 
+	/**
+	 * Sets the taxonomy that was computed before some axioms were removed from
+	 * the KB. Removing axioms never makes a satisfiable class unsatisfiable or
+	 * turns a non-subsumption into a subsumption, so satisfiability and
+	 * subsumption tests whose answer is already known from this taxonomy are
+	 * skipped.
+	 */
+	public void setPreviousTaxonomy(Taxonomy<ATermAppl> previousTaxonomy) {
+		this.previousTaxonomy = previousTaxonomy;
+	}
+
 	public void setProgressMonitor(ProgressMonitor monitor) {
 		if( monitor == null ) {
 	        this.monitor = new SilentProgressMonitor();
@@ -227,6 +240,10 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 		// Reset the definition order, so the sorted copy can be gc'd
 		createDefinitionOrder();
 
+		if( completed ) {
+			previousTaxonomy = null;
+		}
+
 		taxonomy.assertValid();
 		
 		if( log.isLoggable( Level.FINER ) ) {
@@ -335,7 +352,9 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 			ATermAppl c2 = (ATermAppl) axiom.getArgument( 1 );
 
 			boolean equivalent = axiom.getAFun().equals( ATermUtils.EQCLASSFUN );
-			Set<ATermAppl> explanation = tbox.getAxiomExplanation( axiom );
+			Set<ATermAppl> explanation = PelletOptions.USE_TRACING
+				? tbox.getAxiomExplanation( axiom )
+				: Collections.<ATermAppl>emptySet();
 
 			boolean reverseArgs = !ATermUtils.isPrimitive( c1 ) && ATermUtils.isPrimitive( c2 );
 			if( equivalent && reverseArgs ) {
@@ -764,8 +783,13 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 	        log.finer( "Satisfiable " );
         }
 
+		TaxonomyNode<ATermAppl> previousNode = (previousTaxonomy == null)
+			? null
+			: previousTaxonomy.getNode( c );
+
 		Timer t = kb.timers.startTimer( "classifySat" );
-		boolean isSatisfiable = kb.getABox().isSatisfiable( c, true );
+		boolean isSatisfiable = (previousNode != null && previousNode != previousTaxonomy.getBottom())
+			|| kb.getABox().isSatisfiable( c, true );
 		t.stop();
 
 		if( log.isLoggable( Level.FINER ) ) {
@@ -785,7 +809,8 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 
 			t = kb.timers.startTimer( "classifySatNot" );
 			ATermAppl notC = ATermUtils.makeNot( c );
-			isSatisfiable = kb.getABox().isSatisfiable( notC, true );
+			isSatisfiable = (previousNode != null && previousNode != previousTaxonomy.getTop())
+				|| kb.getABox().isSatisfiable( notC, true );
 			t.stop();
 
 			if( !isSatisfiable ) {
@@ -1212,7 +1237,8 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 							+ "]..." );
 		}
 
-		boolean result = kb.getABox().isSubClassOf( sub, sup );
+		boolean result = !isPreviousNonSubsumption( sup, sub )
+				&& kb.getABox().isSubClassOf( sub, sup );
 
 		if( log.isLoggable( Level.FINER ) ) {
 			String sign = (kb.getABox().stats.satisfiabilityCount > count)
@@ -1227,6 +1253,41 @@ public class CDOptimizedTaxonomyBuilder implements TaxonomyBuilder {
 		return result;
 	}
 
+	/**
+	 * Checks if the previous taxonomy shows that <code>sup</code> does not
+	 * subsume <code>sub</code>. Hidden nodes are not linked from their subs so
+	 * only visible super nodes are checked.
+	 */
+	private boolean isPreviousNonSubsumption(ATermAppl sup, ATermAppl sub) {
+		if( previousTaxonomy == null ) {
+			return false;
+		}
+
+		TaxonomyNode<ATermAppl> supNode = previousTaxonomy.getNode( sup );
+		TaxonomyNode<ATermAppl> subNode = previousTaxonomy.getNode( sub );
+		if( supNode == null || subNode == null || supNode.isHidden()
+				|| supNode == previousTaxonomy.getTop() || subNode == previousTaxonomy.getBottom() ) {
+			return false;
+		}
+
+		Set<TaxonomyNode<ATermAppl>> visited = new HashSet<TaxonomyNode<ATermAppl>>();
+		List<TaxonomyNode<ATermAppl>> visit = new ArrayList<TaxonomyNode<ATermAppl>>();
+		visit.add( subNode );
+		for( int i = 0; i < visit.size(); i++ ) {
+			TaxonomyNode<ATermAppl> node = visit.get( i );
+			if( node == supNode ) {
+				return false;
+			}
+			for( TaxonomyNode<ATermAppl> next : node.getSupers() ) {
+				if( visited.add( next ) ) {
+					visit.add( next );
+				}
+			}
+		}
+
+		return true;
+	}
+
 	private void mark(Set<ATermAppl> set, Map<ATermAppl, Boolean> marked, Boolean value) {
 		for( ATermAppl c : set ) {
 			marked.put( c, value );
@@ -66,10 +66,12 @@ public class RuleAbsorber {
 	}
 	
 	private KnowledgeBase kb;
+	private TBoxExpImpl tbox;
 	private TuBox Tu;
 	
 	public RuleAbsorber(TBoxExpImpl tbox) {
 		this.kb = tbox.getKB();
+		this.tbox = tbox;
 		this.Tu = tbox.Tu;
 	}
 
@@ -107,9 +109,11 @@ public class RuleAbsorber {
 		List<RuleAtom> headAtoms  = new ArrayList<RuleAtom>();
 		processClass( var, ATermUtils.negate( head ), headAtoms, 1 );
 		
-		Rule rule = new Rule(headAtoms, bodyAtoms, explanation);
+		Rule rule = new Rule(headAtoms, bodyAtoms, TBoxExpImpl.traced( explanation ));
 		kb.addRule( rule );
 		
+		tbox.getAbsorbedAxioms().addAll( explanation );
+		
 
 		if( log.isLoggable( Level.FINE ) )
 			log.fine( "Absorbed rule: " + rule );
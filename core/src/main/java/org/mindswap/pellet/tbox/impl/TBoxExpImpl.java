@@ -139,6 +139,44 @@ public class TBoxExpImpl implements TBox {
 		return Collections.emptySet();
 	}
 
+	/**
+	 * Returns <code>true</code> if the asserted axioms each TBox axiom was
+	 * obtained from are recorded, which is required to remove axioms.
+	 */
+	private static boolean isTrackingDependencies() {
+		return PelletOptions.USE_TRACING || PelletOptions.USE_INCREMENTAL_TBOX_DELETION;
+	}
+
+	/**
+	 * Returns the explanation that should be attached to the facts created
+	 * outside the TBox when an axiom is absorbed. The dependencies recorded
+	 * only to support axiom removal are not passed on to the reasoner.
+	 */
+	static Set<ATermAppl> traced(Set<ATermAppl> explanation) {
+		return PelletOptions.USE_TRACING
+			? explanation
+			: Collections.<ATermAppl>emptySet();
+	}
+
+	/**
+	 * Returns <code>true</code> if the dependencies of the given axiom have
+	 * been recorded when it was added.
+	 */
+	private boolean isTracked(ATermAppl axiom) {
+		if( reverseExplain.containsKey( axiom ) )
+			return true;
+
+		Set<Set<ATermAppl>> explains = tboxAxioms.get( axiom );
+		if( explains != null ) {
+			for( Set<ATermAppl> explain : explains ) {
+				if( explain.contains( axiom ) )
+					return true;
+			}
+		}
+
+		return false;
+	}
+
 	/**
 	 * Add a new explanation for the given axiom. If a previous explanation
 	 * exists this will be stored as another explanation.
@@ -152,7 +190,7 @@ public class TBoxExpImpl implements TBox {
 			log.fine( "Axiom: " + ATermUtils.toString( axiom ) + " Explanation: " + explain );
 
 		boolean added = false;
-		if( !PelletOptions.USE_TRACING ) {
+		if( !isTrackingDependencies() ) {
 			added = tboxAxioms.put( axiom, SINGLE_EMPTY_SET ) == null;
 		}
 		else {
@@ -184,7 +222,7 @@ public class TBoxExpImpl implements TBox {
 		
 		List<ATermAppl> axioms = null;
 
-		Set<ATermAppl> explain = PelletOptions.USE_TRACING
+		Set<ATermAppl> explain = isTrackingDependencies()
 			? Collections.singleton( axiom )
 			: Collections.<ATermAppl>emptySet();
 		
@@ -310,9 +348,15 @@ public class TBoxExpImpl implements TBox {
 
 	public boolean removeAxiom(ATermAppl dependantAxiom, ATermAppl explanationAxiom) {
 
-		if( !PelletOptions.USE_TRACING ) {
+		if( !isTrackingDependencies() ) {
 			if( log.isLoggable( Level.FINE ) )
-				log.fine( "Cannot remove axioms when PelletOptions.USE_TRACING is false" );
+				log.fine( "Cannot remove axioms when PelletOptions.USE_TRACING and PelletOptions.USE_INCREMENTAL_TBOX_DELETION are false" );
+			return false;
+		}
+
+		if( !isTracked( explanationAxiom ) ) {
+			if( log.isLoggable( Level.FINE ) )
+				log.fine( "Cannot remove axioms whose dependencies have not been recorded" );
 			return false;
 		}
 
@@ -348,12 +392,6 @@ public class TBoxExpImpl implements TBox {
 			Set<ATermAppl> sideEffects) {
 		boolean success = false;
 
-		if( !PelletOptions.USE_TRACING ) {
-			if( log.isLoggable( Level.FINE ) )
-				log.fine( "Cannot remove axioms when PelletOptions.USE_TRACING is false" );
-			return false;
-		}
-
 		if( log.isLoggable( Level.FINE ) )
 			log.fine( "Removing " + ATermUtils.toString(explanationAxiom) );
 
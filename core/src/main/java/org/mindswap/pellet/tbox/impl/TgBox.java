@@ -260,7 +260,7 @@ public class TgBox extends TBoxBase {
 				tbox.getAbsorbedAxioms().addAll( explanation );
 
 				kb.addIndividual( ind );
-				kb.addType( ind, allInvPC, new DependencySet( explanation ) );
+				kb.addType( ind, allInvPC, new DependencySet( TBoxExpImpl.traced( explanation ) ) );
 
 				return true;
 			}
@@ -285,7 +285,7 @@ public class TgBox extends TBoxBase {
 
 		tbox.getAbsorbedAxioms().addAll( explain );
 
-		DependencySet ds = new DependencySet( explain );
+		DependencySet ds = new DependencySet( TBoxExpImpl.traced( explain ) );
 		while( !list.isEmpty() ) {
 			ATermAppl nominal = (ATermAppl) list.getFirst();
 			ATermAppl ind = (ATermAppl) nominal.getArgument( 0 );
@@ -306,7 +306,7 @@ public class TgBox extends TBoxBase {
 				
 				ATermAppl domain = ATermUtils.makeNot( ATermUtils.makeAnd( ATermUtils
 						.makeList( set ) ) );
-				kb.addDomain( r, domain, explanation );
+				kb.addDomain( r, domain, TBoxExpImpl.traced( explanation ) );
 
 				if( log.isLoggable( Level.FINE ) )
 					log.fine( "Absorb domain: " + ATermUtils.toString( r ) + " " + ATermUtils.toString( domain ) );
@@ -328,7 +328,7 @@ public class TgBox extends TBoxBase {
 					i.remove();
 					ATermAppl domain = ATermUtils.makeNot( ATermUtils.makeAnd( ATermUtils
 							.makeList( set ) ) );
-					kb.addDomain( r, domain, explanation );
+					kb.addDomain( r, domain, TBoxExpImpl.traced( explanation ) );
 					if( log.isLoggable( Level.FINE ) )
 						log.fine( "Absorb domain: " + ATermUtils.toString( r ) + " " + ATermUtils.toString( domain ) );					
 					tbox.getAbsorbedAxioms().addAll( explanation );
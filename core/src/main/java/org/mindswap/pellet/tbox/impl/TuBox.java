@@ -180,7 +180,7 @@ public class TuBox extends TBoxBase {
 				ATerm r = unfolded.getArgument( 0 );
 				ATermAppl range = (ATermAppl) unfolded.getArgument( 1 );
 
-				kb.addRange( r, range, explain );
+				kb.addRange( r, range, TBoxExpImpl.traced( explain ) );
 
 				tbox.getAbsorbedAxioms().addAll( explain );
 			}
@@ -193,7 +193,7 @@ public class TuBox extends TBoxBase {
 						ATerm r = term.getArgument( 0 );
 						ATermAppl range = (ATermAppl) term.getArgument( 1 );
 
-						kb.addRange( r, range, explain );
+						kb.addRange( r, range, TBoxExpImpl.traced( explain ) );
 
 						tbox.getAbsorbedAxioms().addAll( explain );
 					}
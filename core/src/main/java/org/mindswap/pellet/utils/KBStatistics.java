@@ -0,0 +1,490 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public
+// License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of
+// proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.utils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mindswap.pellet.Individual;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.Node;
+import org.mindswap.pellet.Role;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Statistics catalog for a knowledge base
+ * </p>
+ * <p>
+ * Description: Exact instance counts for named classes, distinct
+ * subject/object counts and degree histograms for properties and the number
+ * of property assertions whose subject is an instance of a given class and
+ * the average number of sames and differents of an individual. The catalog
+ * is built from the results of realization and can be saved and loaded so
+ * the query cost model does not have to sample the ABox again when the KB is
+ * loaded in a new session. An assertion may change the inferred
+ * types and property values of any number of individuals so the update
+ * functions of {@link KnowledgeBase} clear the catalog whenever the KB is
+ * changed, except for assertions that already hold, and the catalog is built
+ * again at the next realization. Unlike {@link SizeEstimate}, which is
+ * recreated every time the KB is prepared, the catalog lives as long as the
+ * KB.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class KBStatistics {
+	public static final Logger	log					= Logger.getLogger( KBStatistics.class.getName() );
+
+	/**
+	 * Number of buckets in degree histograms. Bucket <code>i</code> counts the
+	 * subjects whose degree is in the range <code>[2^i, 2^(i+1))</code> and
+	 * the last bucket counts all the larger degrees.
+	 */
+	public static final int		HISTOGRAM_BUCKETS	= 16;
+
+	private static final String	FORMAT_VERSION		= "pellet-statistics-2";
+
+	public static class PropertyStatistics {
+		private int			pairs;
+
+		private int			subjects;
+
+		private int			objects;
+
+		private final int[]	histogram	= new int[HISTOGRAM_BUCKETS];
+
+		public int getPairs() {
+			return pairs;
+		}
+
+		public int getSubjects() {
+			return subjects;
+		}
+
+		public int getObjects() {
+			return objects;
+		}
+
+		/**
+		 * Returns the degree histogram for the subjects of this property. The
+		 * returned array should not be modified.
+		 */
+		public int[] getHistogram() {
+			return histogram;
+		}
+
+		/**
+		 * Average number of values for a subject that has at least one value.
+		 */
+		public double avgObjectsPerSubject() {
+			return subjects == 0
+				? 1
+				: (double) pairs / subjects;
+		}
+
+		/**
+		 * Average number of subjects for an object that has at least one
+		 * subject.
+		 */
+		public double avgSubjectsPerObject() {
+			return objects == 0
+				? 1
+				: (double) pairs / objects;
+		}
+
+		/**
+		 * Upper bound of the largest non-empty histogram bucket.
+		 */
+		public int maxDegree() {
+			for( int i = HISTOGRAM_BUCKETS - 1; i >= 0; i-- ) {
+				if( histogram[i] > 0 )
+					return i == HISTOGRAM_BUCKETS - 1
+						? Integer.MAX_VALUE
+						: (1 << (i + 1)) - 1;
+			}
+			return 0;
+		}
+
+		private void addDegree(int degree) {
+			if( degree > 0 )
+				histogram[bucket( degree )]++;
+		}
+	}
+
+	private final Map<ATermAppl, Integer>					instances;
+
+	private final Map<ATermAppl, Integer>					directInstances;
+
+	private final Map<ATermAppl, PropertyStatistics>		properties;
+
+	private final Map<ATermAppl, Map<ATermAppl, Integer>>	correlations;
+
+	private int												individualCount;
+
+	private double											avgTypes;
+
+	private double											avgDirectTypes;
+
+	private double											avgSames;
+
+	private double											avgDifferents;
+
+	private boolean											complete;
+
+	public KBStatistics() {
+		instances = new HashMap<ATermAppl, Integer>();
+		directInstances = new HashMap<ATermAppl, Integer>();
+		properties = new HashMap<ATermAppl, PropertyStatistics>();
+		correlations = new HashMap<ATermAppl, Map<ATermAppl, Integer>>();
+	}
+
+	private static int bucket(int degree) {
+		int bucket = 31 - Integer.numberOfLeadingZeros( degree );
+		return Math.min( bucket, HISTOGRAM_BUCKETS - 1 );
+	}
+
+	/**
+	 * Returns <code>true</code> if the catalog has been built (or loaded) and
+	 * can be used instead of sampling.
+	 */
+	public boolean isComplete() {
+		return complete;
+	}
+
+	/**
+	 * Removes all the statistics and marks the catalog incomplete so it is
+	 * built again at the next realization.
+	 */
+	public void clear() {
+		instances.clear();
+		directInstances.clear();
+		properties.clear();
+		correlations.clear();
+		individualCount = 0;
+		avgTypes = 0;
+		avgDirectTypes = 0;
+		avgSames = 0;
+		avgDifferents = 0;
+		complete = false;
+	}
+
+	/**
+	 * Builds the catalog from a realized KB. This is called at the end of
+	 * realization so the instance counts are read directly from the
+	 * taxonomy.
+	 */
+	public void build(KnowledgeBase kb) {
+		if( !kb.isRealized() )
+			return;
+
+		Timer timer = kb.timers.startTimer( "statistics" );
+
+		clear();
+
+		for( ATermAppl c : kb.getAllClasses() ) {
+			instances.put( c, kb.getInstances( c ).size() );
+			directInstances.put( c, kb.getInstances( c, true ).size() );
+		}
+
+		Set<ATermAppl> roles = kb.getProperties();
+		Map<ATermAppl, Set<ATermAppl>> objectsPP = new HashMap<ATermAppl, Set<ATermAppl>>();
+		for( ATermAppl p : roles ) {
+			properties.put( p, new PropertyStatistics() );
+			objectsPP.put( p, new HashSet<ATermAppl>() );
+		}
+
+		long typeCount = 0;
+		long directTypeCount = 0;
+		long sameCount = 0;
+		long differentCount = 0;
+
+		for( ATermAppl ind : kb.getIndividuals() ) {
+			individualCount++;
+
+			Set<ATermAppl> types = SetUtils.union( kb.getTypes( ind ) );
+			typeCount += types.size();
+			directTypeCount += kb.getTypes( ind, true ).size();
+
+			// sames and differents are read from the completion graph so the
+			// counts include the individual itself and the obvious
+			// differents without additional consistency checks
+			Individual node = (Individual) kb.getABox().getIndividual( ind ).getSame();
+			Set<ATermAppl> sames = new HashSet<ATermAppl>();
+			kb.getABox().getSames( node, sames, sames );
+			sameCount += sames.size();
+			for( Node other : node.getDifferents() ) {
+				if( other.isRootNominal() )
+					differentCount++;
+			}
+
+			for( ATermAppl p : roles ) {
+				Role role = kb.getRBox().getRole( p );
+				if( role == null || !(role.isObjectRole() || role.isDatatypeRole()) )
+					continue;
+
+				List<ATermAppl> values;
+				if( role.isObjectRole() ) {
+					Set<ATermAppl> knowns = new HashSet<ATermAppl>();
+					Set<ATermAppl> unknowns = new HashSet<ATermAppl>();
+					kb.getABox().getObjectPropertyValues( ind, role, knowns, unknowns, true );
+					values = new ArrayList<ATermAppl>( knowns );
+				}
+				else {
+					values = kb.getABox().getObviousDataPropertyValues( ind, role, null );
+				}
+
+				int degree = values.size();
+				if( degree == 0 )
+					continue;
+
+				PropertyStatistics stats = properties.get( p );
+				stats.pairs += degree;
+				stats.subjects++;
+				stats.addDegree( degree );
+				objectsPP.get( p ).addAll( values );
+
+				for( ATermAppl c : types )
+					addCorrelation( c, p, degree );
+			}
+		}
+
+		for( ATermAppl p : roles )
+			properties.get( p ).objects = objectsPP.get( p ).size();
+
+		avgTypes = individualCount == 0
+			? 1
+			: (double) typeCount / individualCount;
+		avgDirectTypes = individualCount == 0
+			? 1
+			: (double) directTypeCount / individualCount;
+		avgSames = individualCount == 0
+			? 1
+			: (double) sameCount / individualCount;
+		avgDifferents = individualCount == 0
+			? 0
+			: (double) differentCount / individualCount;
+
+		complete = true;
+
+		timer.stop();
+
+		if( log.isLoggable( Level.FINE ) )
+			log.fine( "Statistics computed in " + timer.getLast() + " ms for "
+					+ instances.size() + " classes and " + properties.size() + " properties" );
+	}
+
+	private void addCorrelation(ATermAppl c, ATermAppl p, int count) {
+		Map<ATermAppl, Integer> map = correlations.get( c );
+		if( map == null ) {
+			map = new HashMap<ATermAppl, Integer>();
+			correlations.put( c, map );
+		}
+		Integer old = map.get( p );
+		map.put( p, old == null
+			? count
+			: old + count );
+	}
+
+	public boolean containsClass(ATermAppl c) {
+		return complete && instances.containsKey( c );
+	}
+
+	public boolean containsProperty(ATermAppl p) {
+		return complete && properties.containsKey( p );
+	}
+
+	public int getInstanceCount(ATermAppl c, boolean direct) {
+		Integer count = (direct
+			? directInstances
+			: instances).get( c );
+		return count == null
+			? 0
+			: count;
+	}
+
+	public PropertyStatistics getPropertyStatistics(ATermAppl p) {
+		return properties.get( p );
+	}
+
+	/**
+	 * Returns the number of <code>p</code> assertions whose subject is an
+	 * instance of <code>c</code> or -1 if this is not known.
+	 */
+	public int getCorrelation(ATermAppl c, ATermAppl p) {
+		if( !containsClass( c ) || !containsProperty( p ) )
+			return -1;
+
+		Map<ATermAppl, Integer> map = correlations.get( c );
+		Integer count = map == null
+			? null
+			: map.get( p );
+		return count == null
+			? 0
+			: count;
+	}
+
+	public int getIndividualCount() {
+		return individualCount;
+	}
+
+	public double avgTypesPerIndividual(boolean direct) {
+		return direct
+			? avgDirectTypes
+			: avgTypes;
+	}
+
+	/**
+	 * Returns the average number of individuals known to be the same as an
+	 * individual, including the individual itself.
+	 */
+	public double avgSamesPerIndividual() {
+		return avgSames;
+	}
+
+	/**
+	 * Returns the average number of individuals known to be different from an
+	 * individual.
+	 */
+	public double avgDifferentsPerIndividual() {
+		return avgDifferents;
+	}
+
+	public Set<ATermAppl> getClasses() {
+		return Collections.unmodifiableSet( instances.keySet() );
+	}
+
+	public Set<ATermAppl> getProperties() {
+		return Collections.unmodifiableSet( properties.keySet() );
+	}
+
+	/**
+	 * Saves the catalog to the given stream in a line based text format. The
+	 * stream is flushed but not closed.
+	 */
+	public void save(OutputStream out) throws IOException {
+		PrintWriter writer = new PrintWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8 ) );
+
+		writer.println( FORMAT_VERSION );
+		writer.println( "I\t" + individualCount + "\t" + avgTypes + "\t" + avgDirectTypes + "\t"
+				+ avgSames + "\t" + avgDifferents );
+
+		for( Map.Entry<ATermAppl, Integer> entry : instances.entrySet() ) {
+			ATermAppl c = entry.getKey();
+			if( !ATermUtils.isPrimitive( c ) )
+				continue;
+			writer.println( "C\t" + c.getName() + "\t" + entry.getValue() + "\t"
+					+ getInstanceCount( c, true ) );
+		}
+
+		for( Map.Entry<ATermAppl, PropertyStatistics> entry : properties.entrySet() ) {
+			PropertyStatistics stats = entry.getValue();
+			StringBuilder line = new StringBuilder( "P\t" );
+			line.append( entry.getKey().getName() ).append( '\t' ).append( stats.pairs )
+					.append( '\t' ).append( stats.subjects ).append( '\t' ).append( stats.objects );
+			for( int count : stats.histogram )
+				line.append( '\t' ).append( count );
+			writer.println( line );
+		}
+
+		for( Map.Entry<ATermAppl, Map<ATermAppl, Integer>> entry : correlations.entrySet() ) {
+			if( !ATermUtils.isPrimitive( entry.getKey() ) )
+				continue;
+			for( Map.Entry<ATermAppl, Integer> corr : entry.getValue().entrySet() ) {
+				writer.println( "X\t" + entry.getKey().getName() + "\t" + corr.getKey().getName()
+						+ "\t" + corr.getValue() );
+			}
+		}
+
+		writer.flush();
+	}
+
+	/**
+	 * Replaces the contents of this catalog with the statistics read from the
+	 * given stream. The stream is not closed.
+	 */
+	public void load(InputStream in) throws IOException {
+		BufferedReader reader = new BufferedReader( new InputStreamReader( in, StandardCharsets.UTF_8 ) );
+
+		String header = reader.readLine();
+		if( !FORMAT_VERSION.equals( header ) )
+			throw new IOException( "Unrecognized statistics format: " + header );
+
+		clear();
+
+		try {
+			String line;
+			while( (line = reader.readLine()) != null ) {
+				if( line.length() == 0 )
+					continue;
+
+				String[] fields = line.split( "\t" );
+				switch ( fields[0].charAt( 0 ) ) {
+				case 'I':
+					individualCount = Integer.parseInt( fields[1] );
+					avgTypes = Double.parseDouble( fields[2] );
+					avgDirectTypes = Double.parseDouble( fields[3] );
+					avgSames = Double.parseDouble( fields[4] );
+					avgDifferents = Double.parseDouble( fields[5] );
+					break;
+				case 'C': {
+					ATermAppl c = ATermUtils.makeTermAppl( fields[1] );
+					instances.put( c, Integer.parseInt( fields[2] ) );
+					directInstances.put( c, Integer.parseInt( fields[3] ) );
+					break;
+				}
+				case 'P': {
+					PropertyStatistics stats = new PropertyStatistics();
+					stats.pairs = Integer.parseInt( fields[2] );
+					stats.subjects = Integer.parseInt( fields[3] );
+					stats.objects = Integer.parseInt( fields[4] );
+					for( int i = 0; i < HISTOGRAM_BUCKETS && i + 5 < fields.length; i++ )
+						stats.histogram[i] = Integer.parseInt( fields[i + 5] );
+					properties.put( ATermUtils.makeTermAppl( fields[1] ), stats );
+					break;
+				}
+				case 'X':
+					addCorrelation( ATermUtils.makeTermAppl( fields[1] ), ATermUtils.makeTermAppl( fields[2] ), Integer
+							.parseInt( fields[3] ) );
+					break;
+				default:
+					throw new IOException( "Invalid statistics entry: " + line );
+				}
+			}
+		} catch( RuntimeException e ) {
+			clear();
+			throw new IOException( "Invalid statistics data", e );
+		}
+
+		complete = true;
+	}
+
+	@Override
+	public String toString() {
+		return "Statistics[individuals=" + individualCount + ", classes=" + instances.size()
+				+ ", properties=" + properties.size() + "]";
+	}
+}
@@ -70,6 +70,8 @@ public class SizeEstimate {
 
 	private KnowledgeBase			kb;
 
+	private KBStatistics			statistics;
+
 	private boolean					computed			= false;
 
 	private int						pCount;
@@ -176,6 +178,7 @@ public class SizeEstimate {
 
 	public SizeEstimate(KnowledgeBase kb) {
 		this.kb = kb;
+		this.statistics = kb.getStatistics();
 
 		init();
 	}
@@ -331,6 +334,11 @@ public class SizeEstimate {
 		concepts.removeAll( instancesPC.keySet() );
 		properties.removeAll( pairsPP.keySet() );
 
+		// concepts and properties whose sizes will be computed by sampling,
+		// i.e. the ones not found in the statistics catalog
+		final Collection<ATermAppl> sampledConcepts = new HashSet<ATermAppl>();
+		final Collection<ATermAppl> sampledProperties = new HashSet<ATermAppl>();
+
 		final Timer timer = kb.timers.startTimer( "sizeEstimate" );
 
 		log.fine( "Size estimation started" );
@@ -385,9 +393,14 @@ public class SizeEstimate {
 				instancesPC.put( c, kb.getInstances( c ).size() );
 				directInstancesPC.put( c, kb.getInstances( c, true ).size() );
 			}
+			else if( statistics.containsClass( c ) ) {
+				instancesPC.put( c, statistics.getInstanceCount( c, false ) );
+				directInstancesPC.put( c, statistics.getInstanceCount( c, true ) );
+			}
 			else {
 				instancesPC.put( c, 0 );
 				directInstancesPC.put( c, 0 );
+				sampledConcepts.add( c );
 
 				if( CHECK_CONCEPT_SAT ) {
 					if( !kb.isSatisfiable( c ) )
@@ -415,9 +428,20 @@ public class SizeEstimate {
 			directSuperProperties.put( p, kb.getSuperProperties( p, true ).size() );
 			equivProperties.put( p, kb.getEquivalentProperties( p ).size() + 1 );
 			inverses.put( p, kb.getInverses( p ).size() );
+
+			if( !statistics.containsProperty( p ) )
+				sampledProperties.add( p );
 		}
 
-		for( final ATermAppl ind : kb.getIndividuals() ) {
+		// with complete statistics there is nothing left to sample unless
+		// some of the requested terms were not known when the statistics were
+		// collected
+		final boolean useSampling = !statistics.isComplete() || !sampledConcepts.isEmpty()
+				|| !sampledProperties.isEmpty();
+
+		for( final ATermAppl ind : useSampling
+			? kb.getIndividuals()
+			: EMPTY_SET ) {
 			if( !kb.isIndividual( ind ) )
 				continue;
 
@@ -436,7 +460,7 @@ public class SizeEstimate {
 				classesPI.put( ind, 0 );
 				directClassesPI.put( ind, 0 );
 
-				for( final ATermAppl c : concepts ) {
+				for( final ATermAppl c : sampledConcepts ) {
 					// estimate for number of instances per given class
 
 					Bool isKnownType = kb.getABox().isKnownType( ind, c );
@@ -452,7 +476,7 @@ public class SizeEstimate {
 				}
 			}
 
-			for( final ATermAppl p : properties ) {
+			for( final ATermAppl p : sampledProperties ) {
 				Role role = kb.getRBox().getRole( p );
 
 				int knownSize = 0;
@@ -494,12 +518,18 @@ public class SizeEstimate {
 		}
 
 		if( !computed ) {
-			avgClassesPI = average( classesPI.values() );
-			avgDirectClassesPI = average( directClassesPI.values() );
+			if( statistics.isComplete() && classesPI.isEmpty() ) {
+				avgClassesPI = statistics.avgTypesPerIndividual( false );
+				avgDirectClassesPI = statistics.avgTypesPerIndividual( true );
+			}
+			else {
+				avgClassesPI = average( classesPI.values() );
+				avgDirectClassesPI = average( directClassesPI.values() );
+			}
 		}
 
 		if( !kb.isRealized() ) {
-			for( final ATermAppl c : concepts ) {
+			for( final ATermAppl c : sampledConcepts ) {
 				int size = instancesPC.get( c );
 				// post processing in case of sampling
 				if( size == 0 )
@@ -519,7 +549,9 @@ public class SizeEstimate {
 			final int avgCPI = Double.valueOf( avgClassesPI ).intValue();
 			final int avgDCPI = Double.valueOf( avgDirectClassesPI ).intValue();
 
-			for( final ATermAppl i : kb.getIndividuals() ) {
+			for( final ATermAppl i : useSampling
+				? kb.getIndividuals()
+				: EMPTY_SET ) {
 				Integer size = classesPI.get( i );
 
 				if( size == null ) {
@@ -547,20 +579,33 @@ public class SizeEstimate {
 		}
 
 		for( final ATermAppl p : properties ) {
-			int size = size( p );
-			if( size == 0 )
-				pairsPP.put( p, 1 );
-			else
-				pairsPP.put( p, (int) (size / PelletOptions.SAMPLING_RATIO) );
-
 			Role role = kb.getRBox().getRole( p );
 			ATermAppl invP = (role.getInverse() != null)
 				? role.getInverse().getName()
 				: null;
-			int subjCount = pSubj.get( p );
+
+			int size;
+			int subjCount;
+			int objCount;
+			if( sampledProperties.contains( p ) ) {
+				size = size( p );
+				if( size == 0 )
+					pairsPP.put( p, 1 );
+				else
+					pairsPP.put( p, (int) (size / PelletOptions.SAMPLING_RATIO) );
+				subjCount = pSubj.get( p );
+				objCount = pObj.get( p );
+			}
+			else {
+				KBStatistics.PropertyStatistics stats = statistics.getPropertyStatistics( p );
+				size = stats.getPairs();
+				pairsPP.put( p, Math.max( size, 1 ) );
+				subjCount = stats.getSubjects();
+				objCount = stats.getObjects();
+			}
+
 			if( subjCount == 0 )
 				subjCount = 1;
-			int objCount = pObj.get( p );
 			if( objCount == 0 )
 				objCount = 1;
 
@@ -589,8 +634,14 @@ public class SizeEstimate {
 
 		avgInstancesPC = average( instancesPC.values() );
 		avgDirectInstances = average( directInstancesPC.values() );
-		avgSamesPI = average( sames.values() );
-		avgDifferentsPI = average( differents.values() );
+		if( statistics.isComplete() && sames.isEmpty() ) {
+			avgSamesPI = statistics.avgSamesPerIndividual();
+			avgDifferentsPI = statistics.avgDifferentsPerIndividual();
+		}
+		else {
+			avgSamesPI = average( sames.values() );
+			avgDifferentsPI = average( differents.values() );
+		}
 
 		avgSubClasses = average( subClasses.values() );
 		avgDirectSubClasses = average( directSubClasses.values() );
@@ -695,6 +746,11 @@ public class SizeEstimate {
 			return map.get( i );
 		}
 
+		// individuals are not sampled when statistics are available
+		if( statistics.isComplete() ) {
+			return (int) Math.ceil( avgClassesPerInstance( direct ) );
+		}
+
 		throw new InternalReasonerException( "Instance number estimate : " + i + " is not found!" );
 	}
 
@@ -900,6 +956,9 @@ public class SizeEstimate {
 		if( sames.containsKey( sup ) ) {
 			return sames.get( sup );
 		}
+		else if( statistics.isComplete() ) {
+			return statistics.avgSamesPerIndividual();
+		}
 
 		throw new InternalReasonerException( "Sames estimate for " + sup + " is not found!" );
 	}
@@ -908,8 +967,11 @@ public class SizeEstimate {
 		if( differents.containsKey( sup ) ) {
 			return differents.get( sup );
 		}
+		else if( statistics.isComplete() ) {
+			return statistics.avgDifferentsPerIndividual();
+		}
 
-		throw new InternalReasonerException( "Sames estimate for " + sup + " is not found!" );
+		throw new InternalReasonerException( "Differents estimate for " + sup + " is not found!" );
 	}
 
 	public double disjoints(ATermAppl sup) {
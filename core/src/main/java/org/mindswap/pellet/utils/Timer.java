@@ -90,7 +90,7 @@ public class Timer {
 								// upper most function call so we need to discard other starts
 	private long timeout;		// Point at which a call to check throws an exception
 	private long lastTime;		// time that has elapsed between last start()-stop() period
-	private boolean interrupted; // Tells whether this timer has been interrupted
+	private volatile boolean interrupted; // Tells whether this timer has been interrupted (possibly by another thread)
 	
 	private Timer parent;		// the parent timer
 
@@ -232,6 +232,13 @@ public class Timer {
 		interrupted = true;
 	}
 	
+	/**
+	 * Clear a pending interrupt that has not been consumed by a check() call yet.
+	 */
+	public void clearInterrupt() {
+		interrupted = false;
+	}
+	
 	/**
 	 * Return true if timer has been started with a {@link #start()} call but not has been 
 	 * stopped with a {@link #stop()} call. 
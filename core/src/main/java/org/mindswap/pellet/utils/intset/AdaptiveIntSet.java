@@ -0,0 +1,460 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.utils.intset;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>
+ * Title:
+ * </p>
+ * <p>
+ * Description: An IntSet that chooses its representation based on the
+ * density of its elements. Sparse sets are stored as a sorted array, dense
+ * sets as a bitmap starting at the minimum element and sets that consist of a
+ * few ranges of consecutive integers as a sorted array of ranges. The
+ * representation with the smallest footprint is chosen every time the set
+ * changes. The arrays of a representation are never modified after they are
+ * created so copies share them, which makes {@link #copy()} a constant time
+ * operation.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class AdaptiveIntSet implements IntSet {
+	public enum Representation {
+		/**
+		 * Sorted array of elements
+		 */
+		ARRAY,
+		/**
+		 * Bitmap where bit <code>i</code> is set if <code>min + i</code> is in
+		 * the set
+		 */
+		BITMAP,
+		/**
+		 * Sorted array of ranges where each range is stored as its first and
+		 * last element
+		 */
+		RUNS
+	}
+
+	private static final int[]	EMPTY	= new int[0];
+
+	private Representation		rep;
+
+	/**
+	 * Elements for ARRAY, ranges for RUNS representation
+	 */
+	private int[]				ints;
+
+	/**
+	 * Bits for BITMAP representation
+	 */
+	private long[]				bits;
+
+	/**
+	 * The element corresponding to the first bit for BITMAP representation
+	 */
+	private int					base;
+
+	private int					size;
+
+	private int					hash;
+
+	public AdaptiveIntSet() {
+		set( EMPTY, 0 );
+	}
+
+	public AdaptiveIntSet(AdaptiveIntSet other) {
+		rep = other.rep;
+		ints = other.ints;
+		bits = other.bits;
+		base = other.base;
+		size = other.size;
+		hash = other.hash;
+	}
+
+	/**
+	 * Sets the elements of this set to the first <code>n</code> elements of
+	 * the given array which should be sorted and duplicate-free.
+	 */
+	private void set(int[] values, int n) {
+		size = n;
+		hash = 0;
+		bits = null;
+
+		if( n == 0 ) {
+			rep = Representation.ARRAY;
+			ints = EMPTY;
+			return;
+		}
+
+		int min = values[0];
+		int max = values[n - 1];
+		int runs = 1;
+		for( int i = 1; i < n; i++ ) {
+			if( values[i] != values[i - 1] + 1 )
+				runs++;
+		}
+
+		// costs are measured in ints
+		long arrayCost = n;
+		long bitmapCost = 2 * ((((long) max - min) >>> 6) + 1);
+		long runsCost = 2L * runs;
+
+		if( runsCost < arrayCost && runsCost <= bitmapCost ) {
+			rep = Representation.RUNS;
+			ints = new int[2 * runs];
+			ints[0] = min;
+			for( int i = 1, r = 1; i < n; i++ ) {
+				if( values[i] != values[i - 1] + 1 ) {
+					ints[r++] = values[i - 1];
+					ints[r++] = values[i];
+				}
+			}
+			ints[ints.length - 1] = max;
+		}
+		else if( bitmapCost < arrayCost ) {
+			rep = Representation.BITMAP;
+			ints = null;
+			base = min;
+			bits = new long[(int) (bitmapCost / 2)];
+			for( int i = 0; i < n; i++ ) {
+				int offset = values[i] - min;
+				bits[offset >>> 6] |= 1L << offset;
+			}
+		}
+		else {
+			rep = Representation.ARRAY;
+			ints = (n == values.length)
+				? values
+				: Arrays.copyOf( values, n );
+		}
+	}
+
+	/**
+	 * Returns the elements of this set in ascending order. The returned array
+	 * may be shared with this set and should not be modified.
+	 */
+	private int[] values() {
+		if( rep == Representation.ARRAY )
+			return ints;
+
+		int[] values = new int[size];
+		IntIterator i = iterator();
+		for( int n = 0; n < size; n++ ) {
+			values[n] = i.next();
+		}
+		return values;
+	}
+
+	private static int[] sortedValues(IntSet set) {
+		if( set instanceof AdaptiveIntSet )
+			return ((AdaptiveIntSet) set).values();
+
+		int[] values = new int[set.size()];
+		int n = 0;
+		IntIterator i = set.iterator();
+		while( i.hasNext() ) {
+			values[n++] = i.next();
+		}
+		Arrays.sort( values );
+		return values;
+	}
+
+	/**
+	 * Sets this set to the union of the given sorted arrays.
+	 */
+	private void setToUnionOf(int[] ints1, int[] ints2) {
+		int size1 = ints1.length;
+		int size2 = ints2.length;
+		int[] values = new int[size1 + size2];
+		int n = 0;
+		int i1 = 0;
+		int i2 = 0;
+		while( i1 < size1 && i2 < size2 ) {
+			int v1 = ints1[i1];
+			int v2 = ints2[i2];
+			if( v1 < v2 ) {
+				values[n++] = v1;
+				i1++;
+			}
+			else if( v2 < v1 ) {
+				values[n++] = v2;
+				i2++;
+			}
+			else {
+				values[n++] = v1;
+				i1++;
+				i2++;
+			}
+		}
+		while( i1 < size1 ) {
+			values[n++] = ints1[i1++];
+		}
+		while( i2 < size2 ) {
+			values[n++] = ints2[i2++];
+		}
+
+		set( values, n );
+	}
+
+	/**
+	 * Returns the representation currently used by this set.
+	 */
+	public Representation getRepresentation() {
+		return rep;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void add(int value) {
+		if( contains( value ) )
+			return;
+
+		int[] values = values();
+		int index = -Arrays.binarySearch( values, value ) - 1;
+		int[] newValues = new int[size + 1];
+		System.arraycopy( values, 0, newValues, 0, index );
+		newValues[index] = value;
+		System.arraycopy( values, index, newValues, index + 1, size - index );
+
+		set( newValues, size + 1 );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addAll(IntSet values) {
+		if( !values.isEmpty() )
+			setToUnionOf( values(), sortedValues( values ) );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean contains(int value) {
+		switch ( rep ) {
+		case ARRAY:
+			return Arrays.binarySearch( ints, value ) >= 0;
+		case BITMAP:
+			long offset = (long) value - base;
+			return offset >= 0 && offset < 64L * bits.length
+				&& (bits[(int) (offset >>> 6)] & (1L << offset)) != 0;
+		default:
+			// find the last range that starts before the value
+			int low = 0;
+			int high = ints.length / 2 - 1;
+			while( low <= high ) {
+				int mid = (low + high) >>> 1;
+				if( ints[2 * mid] <= value )
+					low = mid + 1;
+				else
+					high = mid - 1;
+			}
+			return high >= 0 && value <= ints[2 * high + 1];
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IntSet copy() {
+		return new AdaptiveIntSet( this );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Returns an iterator over the values of this set in ascending order.
+	 */
+	public IntIterator iterator() {
+		switch ( rep ) {
+		case ARRAY:
+			return new IntIterator() {
+				private int	next	= 0;
+
+				public boolean hasNext() {
+					return next < size;
+				}
+
+				public int next() {
+					if( !hasNext() )
+						throw new NoSuchElementException();
+
+					return ints[next++];
+				}
+			};
+		case BITMAP:
+			return new IntIterator() {
+				private int		remaining	= size;
+				private int		word		= 0;
+				private long	current		= bits[0];
+
+				public boolean hasNext() {
+					return remaining > 0;
+				}
+
+				public int next() {
+					if( !hasNext() )
+						throw new NoSuchElementException();
+
+					while( current == 0 )
+						current = bits[++word];
+
+					int bit = Long.numberOfTrailingZeros( current );
+					current &= current - 1;
+					remaining--;
+
+					return base + (word << 6) + bit;
+				}
+			};
+		default:
+			return new IntIterator() {
+				private int	remaining	= size;
+				private int	run			= 0;
+				private int	next		= ints[0];
+
+				public boolean hasNext() {
+					return remaining > 0;
+				}
+
+				public int next() {
+					if( !hasNext() )
+						throw new NoSuchElementException();
+
+					int value = next;
+					remaining--;
+					if( remaining > 0 ) {
+						if( value == ints[2 * run + 1] )
+							next = ints[2 * ++run];
+						else
+							next = value + 1;
+					}
+
+					return value;
+				}
+			};
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int max() {
+		if( isEmpty() )
+			throw new NoSuchElementException();
+
+		if( rep == Representation.BITMAP ) {
+			int last = bits.length - 1;
+			return base + (last << 6) + 63 - Long.numberOfLeadingZeros( bits[last] );
+		}
+
+		return ints[ints.length - 1];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int min() {
+		if( isEmpty() )
+			throw new NoSuchElementException();
+
+		return (rep == Representation.BITMAP)
+			? base
+			: ints[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void remove(int value) {
+		if( !contains( value ) )
+			return;
+
+		int[] values = values();
+		int index = Arrays.binarySearch( values, value );
+		int[] newValues = new int[size - 1];
+		System.arraycopy( values, 0, newValues, 0, index );
+		System.arraycopy( values, index + 1, newValues, index, size - index - 1 );
+
+		set( newValues, size - 1 );
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public IntSet union(IntSet values) {
+		AdaptiveIntSet union = new AdaptiveIntSet( this );
+		union.addAll( values );
+
+		return union;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int size() {
+		return size;
+	}
+
+	public int hashCode() {
+		if( hash == 0 ) {
+			int h = 1;
+			IntIterator i = iterator();
+			while( i.hasNext() ) {
+				h = 31 * h + i.next();
+			}
+			hash = h;
+		}
+
+		return hash;
+	}
+
+	public boolean equals(Object o) {
+		if( o == this )
+			return true;
+		if( !(o instanceof IntSet) )
+			return false;
+		IntSet that = (IntSet) o;
+		if( this.size() != that.size() )
+			return false;
+		if( that instanceof AdaptiveIntSet && this.hashCode() != that.hashCode() )
+			return false;
+		IntIterator i = this.iterator();
+		while( i.hasNext() ) {
+			if( !that.contains( i.next() ) )
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public String toString() {
+		StringBuilder buf = new StringBuilder();
+		buf.append( '[' );
+		IntIterator i = iterator();
+		while( i.hasNext() ) {
+			if( buf.length() > 1 )
+				buf.append( ", " );
+			buf.append( i.next() );
+		}
+		buf.append( ']' );
+		return buf.toString();
+	}
+}
@@ -19,7 +19,8 @@ package org.mindswap.pellet.utils.intset;
  */
 public class IntSetFactory {
 	public static IntSet create() {
-		return new ArrayIntSet();
+		return new AdaptiveIntSet();
+//		return new ArrayIntSet();
 //		return new BitIntSet();
 //		return new ShiftedBitIntSet();
 //		return new HashIntSet();
@@ -0,0 +1,141 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.utils.intset;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * Title:
+ * </p>
+ * <p>
+ * Description: Keeps a canonical instance for equal IntSets and memoizes the
+ * unions of canonical instances so that computing the same union again
+ * returns the same instance without allocating a new set. Interned sets are
+ * shared and should never be modified; a modified copy should be interned
+ * instead. Only {@link AdaptiveIntSet}s are interned, other sets are returned
+ * as they are. The number of interned sets is bounded; when the bound is
+ * reached the table is cleared which only affects how much sharing is done
+ * later. This class is not thread-safe.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class IntSetInterner {
+	private static final int	DEFAULT_MAX_SIZE		= 1 << 16;
+
+	private static final int	UNION_CACHE_SIZE		= 1 << 12;
+
+	private int					maxSize;
+
+	private Map<IntSet, IntSet>	sets;
+
+	/**
+	 * Direct-mapped cache of unions where the arguments and the result of a
+	 * union are stored at consecutive positions
+	 */
+	private IntSet[]			unions;
+
+	private long				internHits;
+
+	private long				unionHits;
+
+	public IntSetInterner() {
+		this( DEFAULT_MAX_SIZE );
+	}
+
+	public IntSetInterner(int maxSize) {
+		this.maxSize = maxSize;
+		this.sets = new HashMap<IntSet, IntSet>();
+		this.unions = new IntSet[3 * UNION_CACHE_SIZE];
+	}
+
+	/**
+	 * Returns the canonical instance that is equal to the given set. If there
+	 * is no such instance the given set becomes the canonical instance and
+	 * should not be modified afterwards.
+	 */
+	public IntSet intern(IntSet set) {
+		if( !(set instanceof AdaptiveIntSet) )
+			return set;
+
+		IntSet canonical = sets.get( set );
+		if( canonical != null ) {
+			internHits++;
+			return canonical;
+		}
+
+		if( sets.size() >= maxSize )
+			sets.clear();
+		sets.put( set, set );
+
+		return set;
+	}
+
+	/**
+	 * Returns the canonical instance for the union of two sets. The given sets
+	 * are not modified.
+	 */
+	public IntSet union(IntSet set1, IntSet set2) {
+		if( set1 == set2 || set2.isEmpty() )
+			return intern( set1 );
+		if( set1.isEmpty() )
+			return intern( set2 );
+
+		// union is commutative so the cache position should not depend on the
+		// order of arguments
+		int h = System.identityHashCode( set1 ) + System.identityHashCode( set2 );
+		int index = 3 * ((h ^ (h >>> 16)) & (UNION_CACHE_SIZE - 1));
+		IntSet cached1 = unions[index];
+		IntSet cached2 = unions[index + 1];
+		if( (cached1 == set1 && cached2 == set2) || (cached1 == set2 && cached2 == set1) ) {
+			unionHits++;
+			return unions[index + 2];
+		}
+
+		IntSet union = intern( set1.union( set2 ) );
+
+		unions[index] = set1;
+		unions[index + 1] = set2;
+		unions[index + 2] = union;
+
+		return union;
+	}
+
+	/**
+	 * Removes all the canonical instances and memoized unions.
+	 */
+	public void clear() {
+		sets.clear();
+		Arrays.fill( unions, null );
+	}
+
+	/**
+	 * Returns the number of canonical instances.
+	 */
+	public int size() {
+		return sets.size();
+	}
+
+	/**
+	 * Returns the number of times an existing canonical instance was returned
+	 * by {@link #intern(IntSet)}.
+	 */
+	public long getInternHits() {
+		return internHits;
+	}
+
+	/**
+	 * Returns the number of unions found in the memo.
+	 */
+	public long getUnionHits() {
+		return unionHits;
+	}
+}
@@ -8,9 +8,13 @@ package com.clarkparsia.owlapi.explanation;
 
 
 import java.lang.ref.SoftReference;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -27,8 +31,13 @@ import org.semanticweb.owlapi.model.OWLObjectComplementOf;
 import org.semanticweb.owlapi.model.OWLObjectIntersectionOf;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyChangeException;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.OWLRuntimeException;
 
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+import uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor;
+
 import aterm.ATermAppl;
 
 import com.clarkparsia.owlapi.explanation.util.DefinitionTracker;
@@ -84,6 +93,11 @@ public class GlassBoxExplanation extends SingleExplanationGeneratorImpl {
 	
 	private AxiomConverter axiomConverter;
 
+	/**
+	 * Manager of the temporary ontologies created to prune explanations
+	 */
+	private OWLOntologyManager debuggingManager = OWL.manager;
+
 	public GlassBoxExplanation(OWLOntology ontology, PelletReasonerFactory factory) {
 		this( factory, factory.createReasoner( ontology ) );
 		disposeReasoner = true;
@@ -99,6 +113,26 @@ public class GlassBoxExplanation extends SingleExplanationGeneratorImpl {
 		axiomConverter = new AxiomConverter( reasoner );
 	}
 	
+	/**
+	 * Sets the manager used for the temporary ontologies that are created to
+	 * prune explanations. The default is the shared {@link OWL#manager} which
+	 * is not thread-safe so explanation generators used by different threads
+	 * at the same time should each be given their own manager.
+	 */
+	public void setDebuggingManager(OWLOntologyManager debuggingManager) {
+		this.debuggingManager = debuggingManager;
+	}
+
+	private OWLOntology createDebuggingOntology(Set<OWLAxiom> axioms) {
+		try {
+			OWLOntology ontology = debuggingManager.createOntology();
+			OntologyUtils.addAxioms( ontology, axioms );
+			return ontology;
+		} catch( OWLOntologyCreationException e ) {
+			throw new OWLRuntimeException( e );
+		}
+	}
+
 	private OWLClass getNegation(OWLClassExpression desc) {
 		if( !(desc instanceof OWLObjectComplementOf) )
 			return null;
@@ -235,7 +269,9 @@ public class GlassBoxExplanation extends SingleExplanationGeneratorImpl {
 			if( log.isLoggable( Level.FINE ) )
 				log.fine( "Explanation " + explanation );
 
-			Set<OWLAxiom> prunedExplanation = pruneExplanation( unsatClass, explanation, true );
+			Set<OWLAxiom> prunedExplanation = PelletOptions.USE_QUICKXPLAIN_PRUNING
+				? pruneExplanationQuickXplain( unsatClass, explanation )
+				: pruneExplanation( unsatClass, explanation, true );
 			
 			int prunedAxiomCount = explanation.size() - prunedExplanation.size();
 			if( log.isLoggable( Level.FINE ) && prunedAxiomCount > 0 ) {
@@ -300,7 +336,7 @@ public class GlassBoxExplanation extends SingleExplanationGeneratorImpl {
 				return prunedExplanation;
 
 			// create an ontology from the explanation axioms
-			OWLOntology debuggingOntology = OWL.Ontology( explanation );
+			OWLOntology debuggingOntology = createDebuggingOntology( explanation );
 			
 			DefinitionTracker defTracker = new DefinitionTracker( debuggingOntology );
 
@@ -357,8 +393,8 @@ public class GlassBoxExplanation extends SingleExplanationGeneratorImpl {
 				reasoner.dispose();
 			}
 			
-			OWL.manager.removeOntology( debuggingOntology );
-			OWL.manager.removeOntologyChangeListener( defTracker );			
+			debuggingManager.removeOntology( debuggingOntology );
+			debuggingManager.removeOntologyChangeListener( defTracker );			
 
 			return prunedExplanation;
 		} catch( OWLOntologyChangeException e ) {
@@ -366,6 +402,155 @@ public class GlassBoxExplanation extends SingleExplanationGeneratorImpl {
 		}
 	}
 
+	/**
+	 * <p>Prunes the given explanation with the divide-and-conquer strategy of
+	 * QuickXplain. The candidate axioms are first restricted to the syntactic
+	 * locality module of the traced axioms for the signature of the class.
+	 * Then the candidates are split in two halves recursively and a half is
+	 * dropped as a whole when the other half (together with the axioms already
+	 * kept) is enough for the unsatisfiability. For an explanation with
+	 * <i>k</i> axioms out of <i>n</i> candidates this needs
+	 * <i>O(k log(n/k))</i> satisfiability tests instead of <i>n</i>.
+	 * 
+	 * <p>All the tests are run on a single reasoner created for an ontology
+	 * that only contains the candidate axioms. The ontology is updated with
+	 * the difference between the axiom sets of consecutive tests.
+	 */
+	private Set<OWLAxiom> pruneExplanationQuickXplain(OWLClassExpression unsatClass,
+			Set<OWLAxiom> explanation) {
+		if( explanation.size() <= 1 )
+			return new HashSet<OWLAxiom>( explanation );
+
+		try {
+			OWLOntology debuggingOntology = createDebuggingOntology( explanation );
+
+			Set<OWLAxiom> candidates = explanation;
+			if( !unsatClass.isOWLThing() ) {
+				// a locality module of the signature preserves the
+				// satisfiability of the class
+				SyntacticLocalityModuleExtractor extractor = new SyntacticLocalityModuleExtractor(
+						debuggingManager, debuggingOntology, ModuleType.STAR );
+				candidates = new HashSet<OWLAxiom>( extractor.extract( unsatClass.getSignature() ) );
+				candidates.retainAll( explanation );
+			}
+
+			QuickXplain quickXplain = new QuickXplain( unsatClass, debuggingOntology );
+
+			if( candidates.size() < explanation.size()
+					&& quickXplain.isSatisfiable( candidates ) ) {
+				log.warning( "Module of " + unsatClass + " is not enough for the explanation "
+						+ explanation );
+				candidates = explanation;
+			}
+
+			Set<OWLAxiom> prunedExplanation;
+			if( quickXplain.isSatisfiable( candidates ) ) {
+				log.warning( "Explanation incomplete: Concept " + unsatClass
+						+ " is satisfiable in the explanation " + explanation );
+				prunedExplanation = new HashSet<OWLAxiom>( explanation );
+			}
+			else {
+				prunedExplanation = quickXplain.prune( Collections.<OWLAxiom> emptySet(), false,
+						new ArrayList<OWLAxiom>( candidates ) );
+			}
+
+			quickXplain.dispose();
+
+			return prunedExplanation;
+		} catch( OWLOntologyChangeException e ) {
+			throw new OWLRuntimeException( e );
+		}
+	}
+
+	/**
+	 * Runs the satisfiability tests of QuickXplain on a dedicated reasoner.
+	 */
+	private class QuickXplain {
+		private final OWLClassExpression		unsatClass;
+
+		private final OWLOntology				ontology;
+
+		private final DefinitionTracker			defTracker;
+
+		private final PelletReasoner			reasoner;
+
+		/**
+		 * Axioms currently in the ontology
+		 */
+		private final Set<OWLAxiom>				axioms;
+
+		private final Map<Set<OWLAxiom>, Boolean>	results;
+
+		public QuickXplain(OWLClassExpression unsatClass, OWLOntology ontology) {
+			this.unsatClass = unsatClass;
+			this.ontology = ontology;
+
+			defTracker = new DefinitionTracker( ontology );
+			reasoner = getReasonerFactory().createNonBufferingReasoner( ontology );
+			axioms = new HashSet<OWLAxiom>( ontology.getAxioms() );
+			results = new HashMap<Set<OWLAxiom>, Boolean>();
+		}
+
+		/**
+		 * Returns the minimal subset of <code>candidates</code> that makes the
+		 * class unsatisfiable together with the <code>background</code>
+		 * axioms. <code>hasDelta</code> is set if axioms have been added to
+		 * the background since the last test.
+		 */
+		public Set<OWLAxiom> prune(Set<OWLAxiom> background, boolean hasDelta,
+				List<OWLAxiom> candidates) throws OWLOntologyChangeException {
+			if( hasDelta && !isSatisfiable( background ) )
+				return Collections.emptySet();
+
+			if( candidates.size() == 1 ) {
+				if( log.isLoggable( Level.FINER ) )
+					log.finer( "Keep " + candidates.get( 0 ) );
+
+				return new HashSet<OWLAxiom>( candidates );
+			}
+
+			int split = candidates.size() / 2;
+			List<OWLAxiom> first = candidates.subList( 0, split );
+			List<OWLAxiom> second = candidates.subList( split, candidates.size() );
+
+			Set<OWLAxiom> secondPart = prune( SetUtils.union( background, first ), true, second );
+			Set<OWLAxiom> firstPart = prune( SetUtils.union( background, secondPart ), !secondPart
+					.isEmpty(), first );
+
+			return SetUtils.union( firstPart, secondPart );
+		}
+
+		/**
+		 * Checks the satisfiability of the class w.r.t. the given axioms only.
+		 */
+		public boolean isSatisfiable(Set<OWLAxiom> test) throws OWLOntologyChangeException {
+			Boolean result = results.get( test );
+			if( result != null )
+				return result;
+
+			OntologyUtils.removeAxioms( ontology, SetUtils.difference( axioms, test ) );
+			OntologyUtils.addAxioms( ontology, SetUtils.difference( test, axioms ) );
+			axioms.clear();
+			axioms.addAll( test );
+
+			reasoner.getKB().prepare();
+
+			result = !defTracker.isDefined( unsatClass )
+					|| GlassBoxExplanation.this.isSatisfiable( reasoner, unsatClass, false );
+			results.put( new HashSet<OWLAxiom>( test ), result );
+
+			return result;
+		}
+
+		public void dispose() {
+			// remove the listener and the ontology to avoid memory leaks
+			reasoner.dispose();
+
+			debuggingManager.removeOntology( ontology );
+			debuggingManager.removeOntologyChangeListener( defTracker );
+		}
+	}
+
 	@Override
 	public PelletReasoner getReasoner() {
 		return (PelletReasoner) super.getReasoner();
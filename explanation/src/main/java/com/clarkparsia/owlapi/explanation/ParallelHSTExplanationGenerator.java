@@ -0,0 +1,514 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.owlapi.explanation;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.utils.Pair;
+import org.mindswap.pellet.utils.SetUtils;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLRuntimeException;
+
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+import uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor;
+
+import com.clarkparsia.owlapi.explanation.util.ExplanationProgressMonitor;
+import com.clarkparsia.owlapiv3.OntologyUtils;
+import com.clarkparsia.pellet.owlapiv3.PelletReasoner;
+import com.clarkparsia.pellet.owlapiv3.PelletReasonerFactory;
+
+/**
+ * <p>
+ * Title: ParallelHSTExplanationGenerator
+ * </p>
+ * <p>
+ * Description: Computes multiple glass box explanations by exploring the
+ * hitting set tree (HST) concurrently. The nodes of the tree are explained by
+ * a pool of worker threads, each of which owns a reasoner over a private copy
+ * of the syntactic locality module of the explained class, so the original
+ * ontology and reasoner are never modified. Every worker also has its own
+ * ontology manager for the copy and for the ontologies created while pruning
+ * explanations since ontology managers are not thread-safe. A worker removes the axioms on the
+ * path of a node from its copy and computes one explanation with
+ * {@link GlassBoxExplanation}. The calling thread expands the nodes: a path
+ * that has been seen before, or that contains a path on which the class was
+ * satisfiable, is not explored again, and an explanation that does not
+ * intersect a path is reused for that path without calling a reasoner. The
+ * explanations found so far are kept in a concurrent set that the workers
+ * also check before reasoning. The exploration stops as soon as the requested
+ * number of explanations have been found.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class ParallelHSTExplanationGenerator {
+	static {
+		GlassBoxExplanation.setup();
+	}
+
+	public static final Logger				log	= Logger
+														.getLogger( ParallelHSTExplanationGenerator.class
+																.getName() );
+
+	private final PelletReasoner			reasoner;
+
+	private final PelletReasonerFactory		factory;
+
+	private final int						threads;
+
+	private ExecutorService					executor;
+
+	private ExplanationProgressMonitor		monitor;
+
+	/**
+	 * Axioms in the imports closure of the root ontology and the module
+	 * extractor for these axioms. Both are created on first use.
+	 */
+	private Set<OWLAxiom>					closureAxioms;
+
+	private OWLOntology						closureOntology;
+
+	private OWLOntologyManager				closureManager;
+
+	private SyntacticLocalityModuleExtractor	extractor;
+
+	public ParallelHSTExplanationGenerator(PelletReasoner reasoner) {
+		this( reasoner, PelletOptions.EXPLANATION_THREADS );
+	}
+
+	public ParallelHSTExplanationGenerator(PelletReasoner reasoner, int threads) {
+		if( threads < 1 )
+			throw new IllegalArgumentException( "Number of threads should be positive: " + threads );
+
+		this.reasoner = reasoner;
+		this.factory = new PelletReasonerFactory();
+		this.threads = threads;
+	}
+
+	public PelletReasoner getReasoner() {
+		return reasoner;
+	}
+
+	public void setProgressMonitor(ExplanationProgressMonitor monitor) {
+		this.monitor = monitor;
+	}
+
+	/**
+	 * Returns a single explanation for the given class expression, or an
+	 * empty set if the class expression is satisfiable.
+	 */
+	public Set<OWLAxiom> getExplanation(OWLClassExpression unsatClass) {
+		Set<Set<OWLAxiom>> explanations = getExplanations( unsatClass, 1 );
+
+		return explanations.isEmpty()
+			? Collections.<OWLAxiom> emptySet()
+			: explanations.iterator().next();
+	}
+
+	/**
+	 * Returns all the explanations for the given class expression, or an empty
+	 * set if the class expression is satisfiable.
+	 */
+	public Set<Set<OWLAxiom>> getExplanations(OWLClassExpression unsatClass) {
+		return getExplanations( unsatClass, 0 );
+	}
+
+	/**
+	 * Returns at most <code>maxExplanations</code> explanations for the given
+	 * class expression, or an empty set if the class expression is
+	 * satisfiable.
+	 *
+	 * @param maxExplanations
+	 *            maximum number of explanations, or 0 to get all the
+	 *            explanations
+	 */
+	public Set<Set<OWLAxiom>> getExplanations(OWLClassExpression unsatClass, int maxExplanations) {
+		if( log.isLoggable( Level.FINE ) )
+			log.fine( "Explain: " + unsatClass + " Max: " + maxExplanations );
+
+		Search search = new Search( unsatClass, getModule( unsatClass ), maxExplanations );
+		try {
+			search.run();
+		} finally {
+			search.dispose();
+		}
+
+		if( monitor != null )
+			monitor.foundAllExplanations();
+
+		return search.result;
+	}
+
+	/**
+	 * Returns the axioms the explanations of the given class are contained
+	 * in. This is the STAR locality module for the signature of the class or
+	 * the whole imports closure when the inconsistency is explained.
+	 */
+	private Set<OWLAxiom> getModule(OWLClassExpression unsatClass) {
+		if( closureAxioms == null ) {
+			closureAxioms = new HashSet<OWLAxiom>();
+			for( OWLOntology ont : reasoner.getRootOntology().getImportsClosure() )
+				closureAxioms.addAll( ont.getAxioms() );
+		}
+
+		if( unsatClass.isOWLThing() )
+			return closureAxioms;
+
+		if( extractor == null ) {
+			closureManager = OWLManager.createOWLOntologyManager();
+			try {
+				closureOntology = closureManager.createOntology();
+			} catch( OWLOntologyCreationException e ) {
+				throw new OWLRuntimeException( e );
+			}
+			OntologyUtils.addAxioms( closureOntology, closureAxioms );
+			extractor = new SyntacticLocalityModuleExtractor( closureManager, closureOntology,
+					ModuleType.STAR );
+		}
+
+		return extractor.extract( unsatClass.getSignature() );
+	}
+
+	private synchronized ExecutorService getExecutor() {
+		if( executor == null ) {
+			executor = Executors.newFixedThreadPool( threads, new ThreadFactory() {
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread( r, "explanation-worker" );
+					t.setDaemon( true );
+					return t;
+				}
+			} );
+		}
+
+		return executor;
+	}
+
+	/**
+	 * Disposes the worker threads and the copies of the ontology.
+	 */
+	public synchronized void dispose() {
+		if( executor != null ) {
+			executor.shutdownNow();
+			executor = null;
+		}
+
+		closureOntology = null;
+		closureManager = null;
+
+		extractor = null;
+		closureAxioms = null;
+	}
+
+	/**
+	 * A reasoner over a private copy of the module. A worker is used by one
+	 * thread at a time.
+	 */
+	private class Worker {
+		private final OWLOntology			ontology;
+
+		private final PelletReasoner		workerReasoner;
+
+		private final GlassBoxExplanation	expGen;
+
+		/**
+		 * Axioms currently removed from the copy of the module
+		 */
+		private final Set<OWLAxiom>			removed;
+
+		public Worker(Set<OWLAxiom> module) {
+			OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+			try {
+				ontology = manager.createOntology();
+			} catch( OWLOntologyCreationException e ) {
+				throw new OWLRuntimeException( e );
+			}
+			OntologyUtils.addAxioms( ontology, module );
+
+			workerReasoner = factory.createNonBufferingReasoner( ontology );
+			expGen = new GlassBoxExplanation( factory, workerReasoner );
+			expGen.setDebuggingManager( manager );
+			removed = new HashSet<OWLAxiom>();
+		}
+
+		public Set<OWLAxiom> explain(OWLClassExpression unsatClass, Set<OWLAxiom> path) {
+			OntologyUtils.updateOntology( ontology, SetUtils.difference( removed, path ), SetUtils
+					.difference( path, removed ) );
+			removed.clear();
+			removed.addAll( path );
+
+			expGen.beginTransaction();
+			try {
+				return expGen.getExplanation( unsatClass );
+			} finally {
+				expGen.endTransaction();
+			}
+		}
+
+		public void dispose() {
+			expGen.dispose();
+			workerReasoner.dispose();
+			ontology.getOWLOntologyManager().removeOntology( ontology );
+		}
+	}
+
+	/**
+	 * The state of the exploration of one hitting set tree. All the fields
+	 * except the explanations, the idle workers and the stop flags are only
+	 * accessed by the calling thread.
+	 */
+	private class Search {
+		private final OWLClassExpression											unsatClass;
+
+		private final Set<OWLAxiom>												module;
+
+		private final int														maxExplanations;
+
+		private final Set<Set<OWLAxiom>>										result;
+
+		/**
+		 * Explanations found so far, shared with the workers
+		 */
+		private final Set<Set<OWLAxiom>>										explanations;
+
+		private final BlockingQueue<Worker>										idleWorkers;
+
+		private final Set<Set<OWLAxiom>>										visitedPaths;
+
+		/**
+		 * Paths on which the class is satisfiable
+		 */
+		private final List<Set<OWLAxiom>>										closedPaths;
+
+		private final CompletionService<Pair<Set<OWLAxiom>, Set<OWLAxiom>>>	completion;
+
+		private int																pending;
+
+		/**
+		 * Set when no more nodes should be explained, nodes that have not
+		 * been started yet return without calling a reasoner
+		 */
+		private volatile boolean												done;
+
+		/**
+		 * Set when the search is disposed, workers released afterwards are
+		 * disposed instead of becoming idle. Guarded by the idle workers.
+		 */
+		private boolean															disposed;
+
+		public Search(OWLClassExpression unsatClass, Set<OWLAxiom> module, int maxExplanations) {
+			this.unsatClass = unsatClass;
+			this.module = module;
+			this.maxExplanations = maxExplanations;
+
+			result = new LinkedHashSet<Set<OWLAxiom>>();
+			explanations = Collections
+					.newSetFromMap( new ConcurrentHashMap<Set<OWLAxiom>, Boolean>() );
+			idleWorkers = new LinkedBlockingQueue<Worker>();
+			visitedPaths = new HashSet<Set<OWLAxiom>>();
+			closedPaths = new ArrayList<Set<OWLAxiom>>();
+			completion = new ExecutorCompletionService<Pair<Set<OWLAxiom>, Set<OWLAxiom>>>(
+					getExecutor() );
+		}
+
+		public void run() {
+			Set<OWLAxiom> root = Collections.emptySet();
+			visitedPaths.add( root );
+			submit( root );
+
+			RuntimeException error = null;
+			while( pending > 0 ) {
+				Pair<Set<OWLAxiom>, Set<OWLAxiom>> node;
+				try {
+					node = completion.take().get();
+				} catch( InterruptedException e ) {
+					Thread.currentThread().interrupt();
+					error = new OWLRuntimeException( e );
+					stop();
+					break;
+				} catch( ExecutionException e ) {
+					if( error == null )
+						error = new OWLRuntimeException( e.getCause() );
+					stop();
+					continue;
+				} finally {
+					pending--;
+				}
+
+				if( !done )
+					expand( node.first, node.second );
+			}
+
+			if( error != null )
+				throw error;
+		}
+
+		private void submit(final Set<OWLAxiom> path) {
+			pending++;
+			completion.submit( new Callable<Pair<Set<OWLAxiom>, Set<OWLAxiom>>>() {
+				public Pair<Set<OWLAxiom>, Set<OWLAxiom>> call() {
+					if( done )
+						return null;
+
+					// an explanation found after the node was created may
+					// already hit the path
+					Set<OWLAxiom> explanation = findDisjoint( path );
+					if( explanation != null )
+						return Pair.create( path, explanation );
+
+					Worker worker = idleWorkers.poll();
+					if( worker == null )
+						worker = new Worker( module );
+					try {
+						explanation = worker.explain( unsatClass, path );
+					} finally {
+						release( worker );
+					}
+
+					return Pair.create( path, explanation );
+				}
+			} );
+		}
+
+		private void release(Worker worker) {
+			synchronized( idleWorkers ) {
+				if( !disposed ) {
+					idleWorkers.add( worker );
+					return;
+				}
+			}
+
+			worker.dispose();
+		}
+
+		private Set<OWLAxiom> findDisjoint(Set<OWLAxiom> path) {
+			for( Set<OWLAxiom> explanation : explanations ) {
+				if( SetUtils.intersects( explanation, path ) )
+					continue;
+				return explanation;
+			}
+
+			return null;
+		}
+
+		private boolean isClosed(Set<OWLAxiom> path) {
+			for( Set<OWLAxiom> closed : closedPaths ) {
+				if( path.containsAll( closed ) )
+					return true;
+			}
+
+			return false;
+		}
+
+		/**
+		 * Records the explanation computed for a path and creates the child
+		 * nodes. Nodes that can reuse an explanation are expanded right away.
+		 */
+		private void expand(Set<OWLAxiom> path, Set<OWLAxiom> explanation) {
+			Deque<Pair<Set<OWLAxiom>, Set<OWLAxiom>>> nodes = new ArrayDeque<Pair<Set<OWLAxiom>, Set<OWLAxiom>>>();
+			nodes.push( Pair.create( path, explanation ) );
+
+			while( !nodes.isEmpty() && !done ) {
+				Pair<Set<OWLAxiom>, Set<OWLAxiom>> node = nodes.pop();
+				path = node.first;
+				explanation = node.second;
+
+				if( explanation.isEmpty() ) {
+					closedPaths.add( path );
+					continue;
+				}
+
+				if( explanations.add( explanation ) ) {
+					result.add( explanation );
+
+					if( log.isLoggable( Level.FINE ) )
+						log.fine( "Explanation " + result.size() + ": " + explanation );
+
+					if( monitor != null ) {
+						monitor.foundExplanation( explanation );
+						if( monitor.isCancelled() ) {
+							stop();
+							return;
+						}
+					}
+
+					if( maxExplanations > 0 && result.size() >= maxExplanations ) {
+						stop();
+						return;
+					}
+				}
+
+				for( OWLAxiom axiom : explanation ) {
+					Set<OWLAxiom> child = new HashSet<OWLAxiom>( path );
+					child.add( axiom );
+					if( !visitedPaths.add( child ) || isClosed( child ) )
+						continue;
+
+					Set<OWLAxiom> reused = findDisjoint( child );
+					if( reused != null )
+						nodes.push( Pair.create( child, reused ) );
+					else
+						submit( child );
+				}
+			}
+		}
+
+		/**
+		 * Stops the exploration. Nodes that are being explained are allowed to
+		 * finish and {@link #run()} waits for them so the workers can be
+		 * disposed safely.
+		 */
+		private void stop() {
+			done = true;
+		}
+
+		/**
+		 * Disposes the idle workers. A worker that is still explaining a node,
+		 * which only happens if the calling thread was interrupted, is disposed
+		 * when its node finishes.
+		 */
+		public void dispose() {
+			synchronized( idleWorkers ) {
+				disposed = true;
+			}
+
+			for( Worker worker : idleWorkers )
+				worker.dispose();
+			idleWorkers.clear();
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ParallelHST(" + threads + ")";
+	}
+}
@@ -9,12 +9,14 @@ package com.clarkparsia.owlapi.explanation;
 import java.util.Set;
 
 import com.google.common.collect.ImmutableSet;
+import org.mindswap.pellet.PelletOptions;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClassAssertionAxiom;
 import org.semanticweb.owlapi.model.OWLClassExpression;
 import org.semanticweb.owlapi.model.OWLDataFactory;
 import org.semanticweb.owlapi.model.OWLIndividual;
 import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
 import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
 
 import com.clarkparsia.pellet.owlapiv3.PelletReasoner;
@@ -44,6 +46,18 @@ public class PelletExplanation {
 	
 	private HSTExplanationGenerator expGen;
 	
+	/**
+	 * Single explanation generator used by expGen if glass box explanations
+	 * are used
+	 */
+	private GlassBoxExplanation glassBoxExp;
+	
+	/**
+	 * Generator used for multiple glass box explanations if more than one
+	 * explanation thread is allowed
+	 */
+	private ParallelHSTExplanationGenerator parallelExpGen;
+	
 	private SatisfiabilityConverter converter;
 
 	private boolean disposeReasoner = false;
@@ -66,18 +80,35 @@ public class PelletExplanation {
 		factory = reasoner.getManager().getOWLDataFactory();
 		
 		// Create a single explanation generator
+		if( useGlassBox )
+			glassBoxExp = new GlassBoxExplanation( reasoner );
 		TransactionAwareSingleExpGen singleExp = useGlassBox 
-			? new GlassBoxExplanation( reasoner )
+			? glassBoxExp
 			: new BlackBoxExplanation( reasoner.getRootOntology(), new PelletReasonerFactory(), reasoner );
 
 		// Create multiple explanation generator
 		expGen = new HSTExplanationGenerator( singleExp );		
+		
+		if( useGlassBox && PelletOptions.EXPLANATION_THREADS > 1 )
+			parallelExpGen = new ParallelHSTExplanationGenerator( reasoner );
 
 		// Create the converter that will translate axioms into class expressions
 		converter = new SatisfiabilityConverter( factory );
 	}
 	
 	
+	/**
+	 * Sets the manager used for the temporary ontologies created while glass
+	 * box explanations are computed. See
+	 * {@link GlassBoxExplanation#setDebuggingManager(OWLOntologyManager)}.
+	 * Explanations computed by different threads at the same time should each
+	 * use their own manager.
+	 */
+	public void setDebuggingManager(OWLOntologyManager manager) {
+		if( glassBoxExp != null )
+			glassBoxExp.setDebuggingManager( manager );
+	}
+	
 	 public Set<OWLAxiom> getEntailmentExplanation(OWLAxiom axiom) {
     	OWLClassExpression unsatClass = converter.convert( axiom );
     	return getUnsatisfiableExplanation( unsatClass );
@@ -157,6 +188,8 @@ public class PelletExplanation {
      *         set if the concept is satisfiable
      */
     public Set<Set<OWLAxiom>> getUnsatisfiableExplanations(OWLClassExpression unsatClass) {
+    	if( parallelExpGen != null )
+    		return parallelExpGen.getExplanations( unsatClass );
     	return expGen.getExplanations( unsatClass );
     }
     
@@ -175,7 +208,10 @@ public class PelletExplanation {
      */
     public Set<Set<OWLAxiom>> getUnsatisfiableExplanations(OWLClassExpression unsatClass, int maxExplanations) {
 	    if (maxExplanations == ALL_EXPLANATIONS) {
-		    return expGen.getExplanations( unsatClass );
+		    return getUnsatisfiableExplanations( unsatClass );
+	    }
+	    if (parallelExpGen != null) {
+		    return parallelExpGen.getExplanations( unsatClass, maxExplanations );
 	    }
     	return expGen.getExplanations( unsatClass, maxExplanations );
     }
@@ -188,6 +224,9 @@ public class PelletExplanation {
 			expGen.getReasoner().dispose();
 		}
 		expGen.dispose();
+		if (parallelExpGen != null) {
+			parallelExpGen.dispose();
+		}
 	}
 }
 
@@ -0,0 +1,360 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.owlapi.explanation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLClassExpression;
+import org.semanticweb.owlapi.model.OWLEquivalentClassesAxiom;
+import org.semanticweb.owlapi.model.OWLObjectExactCardinality;
+import org.semanticweb.owlapi.model.OWLObjectIntersectionOf;
+import org.semanticweb.owlapi.model.OWLObjectMinCardinality;
+import org.semanticweb.owlapi.model.OWLObjectSomeValuesFrom;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
+
+/**
+ * <p>
+ * Title: UnsatisfiableClassesExplanation
+ * </p>
+ * <p>
+ * Description: Explains a batch of unsatisfiable classes by separating root
+ * and derived unsatisfiable classes. A class is derived if one of its told
+ * superclasses or equivalent classes forces an instance of another
+ * unsatisfiable class (as a named class, a conjunct, an existential
+ * restriction or a minimum cardinality restriction) and that class does not
+ * depend back on it. Only the root classes are explained with the reasoner.
+ * The explanations of a derived class are composed from the axiom that links
+ * it to the class it depends on and the explanations of that class. A
+ * composed explanation entails the unsatisfiability of the derived class but
+ * a derived class may have other explanations that are not reported.
+ * Explanations are interned by a fingerprint of their axioms so explanations
+ * shared by many classes are stored once. Results are reported to a
+ * {@link Listener} as soon as each class is explained, roots first.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class UnsatisfiableClassesExplanation {
+	public static final Logger	log	= Logger.getLogger( UnsatisfiableClassesExplanation.class
+											.getName() );
+
+	/**
+	 * Receives the explanations of the unsatisfiable classes.
+	 */
+	public interface Listener {
+		/**
+		 * Called once for each unsatisfiable class.
+		 *
+		 * @param unsatClass
+		 *            the unsatisfiable class
+		 * @param dependency
+		 *            the unsatisfiable class the explanations were composed
+		 *            from, or <code>null</code> if the class is a root
+		 * @param explanations
+		 *            explanations of the class
+		 */
+		public void explained(OWLClass unsatClass, OWLClass dependency,
+				Set<Set<OWLAxiom>> explanations);
+	}
+
+	private final PelletExplanation							explanation;
+
+	private final Set<OWLClass>								unsatClasses;
+
+	/**
+	 * Axioms linking an unsatisfiable class to the other unsatisfiable classes
+	 * it depends on
+	 */
+	private final Map<OWLClass, Map<OWLClass, OWLAxiom>>	dependencies;
+
+	/**
+	 * Root classes followed by the derived classes in the order they are
+	 * explained
+	 */
+	private final List<OWLClass>							order;
+
+	private final Map<OWLClass, OWLClass>					dependency;
+
+	private final Map<Long, List<Set<OWLAxiom>>>			justifications;
+
+	private final Map<OWLClass, Set<Set<OWLAxiom>>>			results;
+
+	public UnsatisfiableClassesExplanation(PelletExplanation explanation, OWLOntology ontology,
+			Set<OWLClass> unsatClasses) {
+		this.explanation = explanation;
+		this.unsatClasses = new LinkedHashSet<OWLClass>( unsatClasses );
+		this.unsatClasses.remove( ontology.getOWLOntologyManager().getOWLDataFactory()
+				.getOWLNothing() );
+
+		dependencies = new HashMap<OWLClass, Map<OWLClass, OWLAxiom>>();
+		order = new ArrayList<OWLClass>();
+		dependency = new HashMap<OWLClass, OWLClass>();
+		justifications = new HashMap<Long, List<Set<OWLAxiom>>>();
+		results = new HashMap<OWLClass, Set<Set<OWLAxiom>>>();
+
+		for( OWLOntology ont : ontology.getImportsClosure() ) {
+			for( OWLSubClassOfAxiom axiom : ont.getAxioms( AxiomType.SUBCLASS_OF ) ) {
+				if( !axiom.getSubClass().isAnonymous() )
+					addDependencies( axiom.getSubClass().asOWLClass(), axiom.getSuperClass(), axiom );
+			}
+			for( OWLEquivalentClassesAxiom axiom : ont.getAxioms( AxiomType.EQUIVALENT_CLASSES ) ) {
+				for( OWLClassExpression c : axiom.getClassExpressions() ) {
+					if( c.isAnonymous() )
+						continue;
+					for( OWLClassExpression d : axiom.getClassExpressions() ) {
+						if( d != c )
+							addDependencies( c.asOWLClass(), d, axiom );
+					}
+				}
+			}
+		}
+
+		computeOrder();
+	}
+
+	private void addDependencies(OWLClass cls, OWLClassExpression sup, OWLAxiom axiom) {
+		if( !unsatClasses.contains( cls ) )
+			return;
+
+		Set<OWLClass> forced = new HashSet<OWLClass>();
+		collectForcedClasses( sup, forced );
+		forced.retainAll( unsatClasses );
+		forced.remove( cls );
+		if( forced.isEmpty() )
+			return;
+
+		Map<OWLClass, OWLAxiom> deps = dependencies.get( cls );
+		if( deps == null ) {
+			deps = new LinkedHashMap<OWLClass, OWLAxiom>();
+			dependencies.put( cls, deps );
+		}
+		for( OWLClass dep : forced ) {
+			if( !deps.containsKey( dep ) )
+				deps.put( dep, axiom );
+		}
+	}
+
+	/**
+	 * Collects the named classes an instance of the given class expression is
+	 * necessarily related to, i.e. if any of these classes is unsatisfiable so
+	 * is the class expression.
+	 */
+	private static void collectForcedClasses(OWLClassExpression c, Set<OWLClass> forced) {
+		if( !c.isAnonymous() )
+			forced.add( c.asOWLClass() );
+		else if( c instanceof OWLObjectIntersectionOf ) {
+			for( OWLClassExpression conjunct : ((OWLObjectIntersectionOf) c).getOperands() )
+				collectForcedClasses( conjunct, forced );
+		}
+		else if( c instanceof OWLObjectSomeValuesFrom )
+			collectForcedClasses( ((OWLObjectSomeValuesFrom) c).getFiller(), forced );
+		else if( c instanceof OWLObjectMinCardinality ) {
+			if( ((OWLObjectMinCardinality) c).getCardinality() > 0 )
+				collectForcedClasses( ((OWLObjectMinCardinality) c).getFiller(), forced );
+		}
+		else if( c instanceof OWLObjectExactCardinality ) {
+			if( ((OWLObjectExactCardinality) c).getCardinality() > 0 )
+				collectForcedClasses( ((OWLObjectExactCardinality) c).getFiller(), forced );
+		}
+	}
+
+	private Set<OWLClass> getReachable(OWLClass cls) {
+		Set<OWLClass> reachable = new HashSet<OWLClass>();
+		LinkedList<OWLClass> queue = new LinkedList<OWLClass>();
+		queue.add( cls );
+		while( !queue.isEmpty() ) {
+			Map<OWLClass, OWLAxiom> deps = dependencies.get( queue.removeFirst() );
+			if( deps == null )
+				continue;
+			for( OWLClass dep : deps.keySet() ) {
+				if( reachable.add( dep ) )
+					queue.add( dep );
+			}
+		}
+
+		return reachable;
+	}
+
+	/**
+	 * A class is a root if every class it depends on (directly or indirectly)
+	 * depends back on it. Derived classes are ordered so that a class comes
+	 * after the class its explanations are composed from.
+	 */
+	private void computeOrder() {
+		Map<OWLClass, Set<OWLClass>> reachable = new HashMap<OWLClass, Set<OWLClass>>();
+		for( OWLClass cls : unsatClasses )
+			reachable.put( cls, getReachable( cls ) );
+
+		for( OWLClass cls : unsatClasses ) {
+			boolean isRoot = true;
+			for( OWLClass dep : reachable.get( cls ) ) {
+				if( !reachable.get( dep ).contains( cls ) ) {
+					isRoot = false;
+					break;
+				}
+			}
+			if( isRoot )
+				order.add( cls );
+		}
+
+		Set<OWLClass> ordered = new HashSet<OWLClass>( order );
+		boolean changed = true;
+		while( changed ) {
+			changed = false;
+			for( OWLClass cls : unsatClasses ) {
+				if( ordered.contains( cls ) )
+					continue;
+
+				for( OWLClass dep : dependencies.get( cls ).keySet() ) {
+					if( ordered.contains( dep ) ) {
+						dependency.put( cls, dep );
+						order.add( cls );
+						ordered.add( cls );
+						changed = true;
+						break;
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the unsatisfiable classes that will be explained with the
+	 * reasoner.
+	 */
+	public Set<OWLClass> getRootClasses() {
+		Set<OWLClass> roots = new LinkedHashSet<OWLClass>( order );
+		roots.removeAll( dependency.keySet() );
+		return roots;
+	}
+
+	/**
+	 * Returns the unsatisfiable class the explanations of the given class are
+	 * composed from or <code>null</code> if the class is a root.
+	 */
+	public OWLClass getDependency(OWLClass unsatClass) {
+		return dependency.get( unsatClass );
+	}
+
+	/**
+	 * Explains all the unsatisfiable classes and reports the results to the
+	 * listener as each class is explained.
+	 *
+	 * @param maxExplanations
+	 *            maximum number of explanations for each class, or 0 for all
+	 *            the explanations
+	 */
+	public void explain(int maxExplanations, Listener listener) {
+		if( log.isLoggable( Level.FINE ) )
+			log.fine( "Unsatisfiable classes: " + unsatClasses.size() + " Roots: "
+					+ getRootClasses().size() );
+
+		for( OWLClass cls : order ) {
+			OWLClass dep = dependency.get( cls );
+			Set<Set<OWLAxiom>> explanations = (dep == null)
+				? null
+				: compose( cls, dep, maxExplanations );
+
+			if( explanations == null || explanations.isEmpty() ) {
+				// roots and derived classes whose dependency could not be
+				// explained are explained with the reasoner
+				dep = null;
+				explanations = intern( maxExplanations > 0
+					? explanation.getUnsatisfiableExplanations( cls, maxExplanations )
+					: explanation.getUnsatisfiableExplanations( cls ) );
+			}
+
+			results.put( cls, explanations );
+			listener.explained( cls, dep, explanations );
+		}
+	}
+
+	private Set<Set<OWLAxiom>> compose(OWLClass cls, OWLClass dep, int maxExplanations) {
+		Set<Set<OWLAxiom>> depExplanations = results.get( dep );
+		if( depExplanations == null || depExplanations.isEmpty() )
+			return null;
+
+		OWLAxiom link = dependencies.get( cls ).get( dep );
+		Set<Set<OWLAxiom>> composed = new LinkedHashSet<Set<OWLAxiom>>();
+		for( Set<OWLAxiom> depExplanation : depExplanations ) {
+			if( maxExplanations > 0 && composed.size() >= maxExplanations )
+				break;
+
+			Set<OWLAxiom> axioms = new HashSet<OWLAxiom>( depExplanation );
+			axioms.add( link );
+			composed.add( intern( axioms ) );
+		}
+
+		return composed;
+	}
+
+	private Set<Set<OWLAxiom>> intern(Set<Set<OWLAxiom>> explanations) {
+		Set<Set<OWLAxiom>> result = new LinkedHashSet<Set<OWLAxiom>>();
+		for( Set<OWLAxiom> axioms : explanations )
+			result.add( intern( axioms ) );
+		return result;
+	}
+
+	/**
+	 * Returns the stored explanation with the same axioms or stores the given
+	 * one.
+	 */
+	private Set<OWLAxiom> intern(Set<OWLAxiom> axioms) {
+		Long key = fingerprint( axioms );
+		List<Set<OWLAxiom>> candidates = justifications.get( key );
+		if( candidates == null ) {
+			candidates = new ArrayList<Set<OWLAxiom>>( 1 );
+			justifications.put( key, candidates );
+		}
+		for( Set<OWLAxiom> candidate : candidates ) {
+			if( candidate.equals( axioms ) )
+				return candidate;
+		}
+
+		Set<OWLAxiom> stored = Collections.unmodifiableSet( axioms );
+		candidates.add( stored );
+		return stored;
+	}
+
+	/**
+	 * Returns an order independent 64-bit fingerprint of a set of axioms.
+	 */
+	private static long fingerprint(Set<OWLAxiom> axioms) {
+		long fingerprint = axioms.size();
+		for( OWLAxiom axiom : axioms ) {
+			long h = axiom.hashCode() * 0x9E3779B97F4A7C15L;
+			fingerprint += h ^ (h >>> 29);
+		}
+		return fingerprint;
+	}
+
+	/**
+	 * Returns the number of distinct explanations stored.
+	 */
+	public int getJustificationCount() {
+		int count = 0;
+		for( List<Set<OWLAxiom>> candidates : justifications.values() )
+			count += candidates.size();
+		return count;
+	}
+}
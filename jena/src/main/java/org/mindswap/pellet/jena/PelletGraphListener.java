@@ -13,6 +13,7 @@ import java.util.Set;
 
 import org.mindswap.pellet.KnowledgeBase;
 import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.PropertyType;
 import org.mindswap.pellet.utils.ATermUtils;
 import org.mindswap.pellet.utils.iterator.IteratorUtils;
 
@@ -31,7 +32,9 @@ import com.hp.hpl.jena.vocabulary.RDF;
 /**
  * A graph listener that listens to graph change events and if possible processes the change event. The listener is
  * passed a possibly union graph but the listener is attached only to leaf (non-union) graphs. The listener keeps track
- * which graph is changed and also checks if subgraphs are added or removed from the root graph.
+ * which graph is changed and also checks if subgraphs are added or removed from the root graph. ABox assertions and
+ * simple schema triples that use only named terms are applied to the KB directly, any other change causes the graph
+ * to be reloaded.
  *
  * @author Evren Sirin
  */
@@ -49,6 +52,8 @@ public class PelletGraphListener implements GraphListener {
 
   private boolean enabled;
 
+  private boolean processTBoxChanges;
+
   public PelletGraphListener(final Graph rootGraph, final KnowledgeBase kb, final boolean enabled) {
     this.rootGraph = rootGraph;
     this.kb = kb;
@@ -59,6 +64,8 @@ public class PelletGraphListener implements GraphListener {
 
     statementDeleted = false;
 
+    processTBoxChanges = true;
+
     if (enabled) {
       collectLeafGraphs(rootGraph, Collections.<Graph> emptySet());
     }
@@ -92,6 +99,49 @@ public class PelletGraphListener implements GraphListener {
     }
   }
 
+  private void addTBoxTriple(final Triple t) {
+    final ATermAppl s = JenaUtils.makeATerm(t.getSubject());
+    final ATermAppl o = JenaUtils.makeATerm(t.getObject());
+
+    switch (BuiltinTerm.find(t.getPredicate())) {
+      case RDF_type:
+        final BuiltinTerm type = BuiltinTerm.find(t.getObject());
+        if (type == BuiltinTerm.OWL_ObjectProperty)
+          kb.addObjectProperty(s);
+        else if (type == BuiltinTerm.OWL_DatatypeProperty)
+          kb.addDatatypeProperty(s);
+        else
+          kb.addClass(s);
+        break;
+      case RDFS_subClassOf:
+        kb.addClass(s);
+        kb.addClass(o);
+        kb.addSubClass(s, o);
+        break;
+      case OWL_equivalentClass:
+        kb.addClass(s);
+        kb.addClass(o);
+        kb.addEquivalentClass(s, o);
+        break;
+      case OWL_disjointWith:
+        kb.addClass(s);
+        kb.addClass(o);
+        kb.addDisjointClass(s, o);
+        break;
+      case RDFS_subPropertyOf:
+        kb.addSubProperty(s, o);
+        break;
+      case RDFS_domain:
+        kb.addDomain(s, o);
+        break;
+      case RDFS_range:
+        kb.addRange(s, o);
+        break;
+      default:
+        throw new IllegalArgumentException("Not a supported schema triple: " + t);
+    }
+  }
+
   /**
    * Checks if the graph can be u[dated incrementally
    *
@@ -143,6 +193,32 @@ public class PelletGraphListener implements GraphListener {
     }
   }
 
+  /**
+   * Removes the axiom corresponding to the given schema triple from the KB.
+   *
+   * @return <code>false</code> if the axiom could not be removed incrementally
+   */
+  private boolean deleteTBoxTriple(final Triple t) {
+    final ATermAppl s = JenaUtils.makeATerm(t.getSubject());
+    final ATermAppl o = JenaUtils.makeATerm(t.getObject());
+
+    switch (BuiltinTerm.find(t.getPredicate())) {
+      case RDFS_subClassOf:
+        return kb.removeAxiom(ATermUtils.makeSub(s, o));
+      case OWL_equivalentClass:
+        return kb.removeAxiom(ATermUtils.makeEqClasses(s, o));
+      case OWL_disjointWith:
+        return kb.removeAxiom(ATermUtils.makeDisjoint(s, o));
+      case RDFS_domain:
+        return kb.removeDomain(s, o);
+      case RDFS_range:
+        return kb.removeRange(s, o);
+      default:
+        // declarations and property hierarchy cannot be removed from the KB
+        return false;
+    }
+  }
+
   public void dispose() {
     for (final Graph graph : leafGraphs) {
       graph.getEventManager().unregister(this);
@@ -227,6 +303,73 @@ public class PelletGraphListener implements GraphListener {
     return true;
   }
 
+  /**
+   * Checks if the given triple is a schema triple that can be applied to the KB without reloading the graph. Only
+   * triples between named terms are detected: class and property declarations, sub class, equivalent class and
+   * disjoint class axioms, and sub property, domain and range axioms for properties that exist in the KB.
+   *
+   * @param t
+   * @return
+   */
+  private boolean isTBoxChange(final Triple t) {
+    if (!PelletOptions.PROCESS_JENA_TBOX_UPDATES_INCREMENTALLY || !processTBoxChanges) {
+      return false;
+    }
+
+    final Node s = t.getSubject();
+    final Node o = t.getObject();
+
+    // anonymous terms are class expressions or lists that span several triples
+    if (!s.isURI() || !o.isURI()) {
+      return false;
+    }
+
+    final BuiltinTerm predicate = BuiltinTerm.find(t.getPredicate());
+    if (predicate == null) {
+      return false;
+    }
+
+    switch (predicate) {
+      case RDF_type:
+        final BuiltinTerm type = BuiltinTerm.find(o);
+        return BuiltinTerm.find(s) == null && (type == BuiltinTerm.OWL_Class || type == BuiltinTerm.RDFS_Class
+            || type == BuiltinTerm.OWL_ObjectProperty || type == BuiltinTerm.OWL_DatatypeProperty);
+      case RDFS_subClassOf:
+      case OWL_equivalentClass:
+      case OWL_disjointWith:
+        return isClass(s) && isClass(o);
+      case RDFS_subPropertyOf: {
+        final PropertyType type = kb.getPropertyType(JenaUtils.makeATerm(s));
+        return type != PropertyType.UNTYPED && type == kb.getPropertyType(JenaUtils.makeATerm(o));
+      }
+      case RDFS_domain:
+        return kb.isProperty(JenaUtils.makeATerm(s)) && isClass(o);
+      case RDFS_range: {
+        final ATermAppl p = JenaUtils.makeATerm(s);
+        if (kb.isObjectProperty(p)) {
+          return isClass(o);
+        }
+        return kb.isDatatypeProperty(p) && kb.isDatatype(JenaUtils.makeATerm(o));
+      }
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Checks if the given named node can be used as a class, i.e. it is not a builtin term other than owl:Thing and
+   * owl:Nothing and it is not used as a property, datatype or individual in the KB.
+   */
+  private boolean isClass(final Node node) {
+    final BuiltinTerm term = BuiltinTerm.find(node);
+    if (term != null) {
+      return term == BuiltinTerm.OWL_Thing || term == BuiltinTerm.OWL_Nothing;
+    }
+
+    final ATermAppl c = JenaUtils.makeATerm(node);
+    return !kb.isProperty(c) && !kb.isDatatype(c) && !kb.isIndividual(c);
+  }
+
   public boolean isChanged() {
     if (statementDeleted || !changedGraphs.isEmpty()) {
       return true;
@@ -254,11 +397,14 @@ public class PelletGraphListener implements GraphListener {
     if (canUpdateIncrementally) {
       while (it.hasNext()) {
         final Triple t = it.next();
-        if (!isABoxChange(t)) {
+        if (isABoxChange(t)) {
+          addABoxTriple(t);
+        } else if (isTBoxChange(t)) {
+          addTBoxTriple(t);
+        } else {
           canUpdateIncrementally = false;
           break;
         }
-        addABoxTriple(t);
       }
     }
 
@@ -276,6 +422,8 @@ public class PelletGraphListener implements GraphListener {
   public void notifyAddTriple(final Graph g, final Triple t) {
     if (canUpdateIncrementally(g) && isABoxChange(t)) {
       addABoxTriple(t);
+    } else if (canUpdateIncrementally(g) && isTBoxChange(t)) {
+      addTBoxTriple(t);
     } else {
       changedGraphs.add(g);
     }
@@ -298,11 +446,12 @@ public class PelletGraphListener implements GraphListener {
     if (canUpdateIncrementally) {
       while (it.hasNext()) {
         final Triple t = it.next();
-        if (!isABoxChange(t)) {
+        if (isABoxChange(t)) {
+          deleteABoxTriple(t);
+        } else if (!isTBoxChange(t) || !deleteTBoxTriple(t)) {
           canUpdateIncrementally = false;
           break;
         }
-        deleteABoxTriple(t);
       }
     }
 
@@ -321,7 +470,7 @@ public class PelletGraphListener implements GraphListener {
   public void notifyDeleteTriple(final Graph g, final Triple t) {
     if (canUpdateIncrementally(g) && isABoxChange(t)) {
       deleteABoxTriple(t);
-    } else {
+    } else if (!canUpdateIncrementally(g) || !isTBoxChange(t) || !deleteTBoxTriple(t)) {
       statementDeleted = true;
       changedGraphs.add(g);
     }
@@ -338,6 +487,14 @@ public class PelletGraphListener implements GraphListener {
     statementDeleted = false;
   }
 
+  /**
+   * Sets if schema triples can be applied to the KB incrementally. This should be disabled if the schema triples in
+   * the graphs are not loaded into the KB.
+   */
+  public void setProcessTBoxChanges(final boolean processTBoxChanges) {
+    this.processTBoxChanges = processTBoxChanges;
+  }
+
   public void setEnabled(final boolean enabled) {
     if (this.enabled == enabled) {
       return;
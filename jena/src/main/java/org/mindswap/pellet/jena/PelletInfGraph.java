@@ -91,6 +91,8 @@ public class PelletInfGraph extends BaseInfGraph implements InfGraph {
 	
 	private Graph				deductionsGraph;
 	
+	private int					deductionsVersion;
+	
 	private boolean				autoDetectChanges;
 	
 	private boolean				skipBuiltinPredicates;
@@ -121,6 +123,9 @@ public class PelletInfGraph extends BaseInfGraph implements InfGraph {
 			loader.setLoadTBox(false);
 		}
 		
+		// schema triples in the data graphs are ignored by the loader
+		graphListener.setProcessTBoxChanges( loader.isLoadTBox() );
+		
 		rebind();
 	}
 	
@@ -301,6 +306,13 @@ public class PelletInfGraph extends BaseInfGraph implements InfGraph {
 
 		classify();
 
+		// changes applied incrementally by the graph listener do not reset
+		// the deductions so check if the KB changed after extraction
+		if( deductionsGraph != null && deductionsVersion != kb.getVersion() ) {
+			deductionsGraph.close();
+			deductionsGraph = null;
+		}
+
 		if( deductionsGraph == null ) {
 			if( log.isLoggable( Level.FINE ) ) {
 	            log.fine( "Realizing PelletInfGraph..." );
@@ -313,6 +325,7 @@ public class PelletInfGraph extends BaseInfGraph implements InfGraph {
 
 			Model extractedModel = extractor.extractModel();
 			deductionsGraph = extractedModel.getGraph();
+			deductionsVersion = kb.getVersion();
 
 			if( log.isLoggable( Level.FINE ) ) {
 	            log.fine( "done." );
@@ -0,0 +1,620 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.jena.graph.loader;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.apache.jena.riot.Lang;
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.RDFLanguages;
+import org.apache.jena.riot.system.StreamRDFBase;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.PropertyType;
+import org.mindswap.pellet.Role;
+import org.mindswap.pellet.exceptions.InternalReasonerException;
+import org.mindswap.pellet.exceptions.UnsupportedFeatureException;
+import org.mindswap.pellet.jena.BuiltinTerm;
+import org.mindswap.pellet.jena.JenaUtils;
+import org.mindswap.pellet.utils.ATermUtils;
+import org.mindswap.pellet.utils.AnnotationClasses;
+import org.mindswap.pellet.utils.Timer;
+
+import aterm.ATermAppl;
+
+import com.hp.hpl.jena.graph.Factory;
+import com.hp.hpl.jena.graph.Graph;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.Triple;
+
+/**
+ * <p>
+ * Title: Streaming loader
+ * </p>
+ * <p>
+ * Description: Loads N-Triples, Turtle or RDF/XML files into a KB without
+ * building a Jena graph for the instance data. Parsing is done by background
+ * threads: N-Triples files are split into line-aligned chunks that are parsed
+ * concurrently, other syntaxes are parsed by one thread per file. Parsed
+ * triples are passed in batches through a bounded queue to the calling thread
+ * which is the only thread that creates terms and modifies the KB. Type
+ * assertions and the values of properties already declared in the KB are added
+ * to the ABox directly. Every other triple (schema axioms, triples with blank
+ * nodes, values of undeclared properties) is collected in a residual graph that
+ * is loaded with {@link DefaultGraphLoader} at the end. The schema should
+ * therefore be loaded into the KB first so that the instance data can be
+ * streamed.
+ * </p>
+ * <p>
+ * Blank node labels are scoped to a file so the N-Triples lines that mention
+ * blank nodes are kept aside while the chunks of a file are parsed and are
+ * parsed together once all the chunks of that file are done. At most
+ * {@link #setMaxBlankNodeBytes(long)} bytes of such lines are kept for a file
+ * and loading fails as soon as a file exceeds this limit.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class StreamingLoader {
+	public static final Logger		log					= Logger.getLogger( StreamingLoader.class
+																.getName() );
+
+	/**
+	 * How often (in milliseconds) the calling thread checks the state of the
+	 * parser threads while the queue is empty
+	 */
+	private static final long		POLL_INTERVAL		= 100;
+
+	/**
+	 * Maximum number of cached terms, the cache is emptied when it gets full
+	 */
+	private static final int		TERM_CACHE_SIZE		= 100000;
+
+	private final KnowledgeBase		kb;
+
+	private int						threads				= Runtime.getRuntime()
+																.availableProcessors();
+
+	private int						batchSize			= 10000;
+
+	private int						chunkSize			= 4 * 1024 * 1024;
+
+	private long					maxBlankNodeBytes	= 64L * 1024 * 1024;
+
+	private final Map<Node, ATermAppl>	terms			= new HashMap<Node, ATermAppl>();
+
+	private final Set<Node>			ontologies			= new HashSet<Node>();
+
+	private Graph					residual;
+
+	private long					streamedTriples;
+
+	private long					residualTriples;
+
+	// state shared with the parser threads
+	private BlockingQueue<Triple[]>	queue;
+
+	private AtomicInteger			pending;
+
+	private AtomicReference<Throwable>	error;
+
+	private Semaphore				chunks;
+
+	private ExecutorService			parsers;
+
+	public StreamingLoader(KnowledgeBase kb) {
+		this.kb = kb;
+	}
+
+	/**
+	 * Sets the number of threads used to parse N-Triples chunks.
+	 */
+	public void setThreads(int threads) {
+		this.threads = Math.max( 1, threads );
+	}
+
+	/**
+	 * Sets the number of triples passed from the parser threads to the
+	 * loading thread at once.
+	 */
+	public void setBatchSize(int batchSize) {
+		this.batchSize = Math.max( 1, batchSize );
+	}
+
+	/**
+	 * Sets the approximate size (in bytes) of the N-Triples chunks parsed by
+	 * each thread. Chunks are extended to the end of the last line they
+	 * contain.
+	 */
+	public void setChunkSize(int chunkSize) {
+		this.chunkSize = Math.max( 1, chunkSize );
+	}
+
+	/**
+	 * Sets the maximum size (in bytes) of the N-Triples lines with blank nodes
+	 * that are kept in memory for a single file until all the chunks of the
+	 * file are parsed. Loading fails with an
+	 * {@link UnsupportedFeatureException} if a file has more.
+	 */
+	public void setMaxBlankNodeBytes(long maxBlankNodeBytes) {
+		this.maxBlankNodeBytes = Math.max( 0, maxBlankNodeBytes );
+	}
+
+	/**
+	 * Returns the number of triples added to the KB without going through a
+	 * Jena graph by the last load.
+	 */
+	public long getStreamedTriples() {
+		return streamedTriples;
+	}
+
+	/**
+	 * Returns the number of triples loaded through {@link DefaultGraphLoader}
+	 * by the last load.
+	 */
+	public long getResidualTriples() {
+		return residualTriples;
+	}
+
+	/**
+	 * Loads the given files or URLs into the KB. The syntax of each file is
+	 * determined by its extension, RDF/XML is used if the extension is not
+	 * recognized.
+	 */
+	public void load(String... fileNames) throws UnsupportedFeatureException {
+		Timer timer = kb.timers.startTimer( "load" );
+
+		init();
+
+		try {
+			for( String fileName : fileNames ) {
+				Lang lang = RDFLanguages.filenameToLang( fileName, Lang.RDFXML );
+				if( lang.equals( Lang.NTRIPLES ) ) {
+					submit( new ChunkReader( fileName ) );
+				}
+				else {
+					submit( new FileParser( fileName ) );
+				}
+			}
+
+			consume();
+		} finally {
+			parsers.shutdownNow();
+			queue = null;
+			chunks = null;
+			parsers = null;
+			terms.clear();
+			ontologies.clear();
+		}
+
+		residualTriples = residual.size();
+		if( residualTriples > 0 ) {
+			DefaultGraphLoader loader = new DefaultGraphLoader();
+			loader.setKB( kb );
+			loader.load( Collections.singleton( residual ) );
+		}
+		residual = null;
+
+		timer.stop();
+
+		if( log.isLoggable( Level.FINE ) ) {
+			log.fine( "Streamed " + streamedTriples + " triples, loaded " + residualTriples
+					+ " triples from graph in " + timer.getLast() + " ms" );
+		}
+	}
+
+	private void init() {
+		streamedTriples = 0;
+		residualTriples = 0;
+		residual = Factory.createGraphMem();
+		queue = new ArrayBlockingQueue<Triple[]>( 4 * threads );
+		pending = new AtomicInteger();
+		error = new AtomicReference<Throwable>();
+		chunks = new Semaphore( threads );
+		// readers block while waiting for chunk permits so they need threads
+		// of their own in addition to the chunk parsers
+		parsers = Executors.newCachedThreadPool( new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread( r, "pellet-loader" );
+				t.setDaemon( true );
+				return t;
+			}
+		} );
+	}
+
+	private void submit(final Runnable task) {
+		pending.incrementAndGet();
+		parsers.execute( new Runnable() {
+			public void run() {
+				try {
+					task.run();
+				} catch( Throwable e ) {
+					error.compareAndSet( null, e );
+				} finally {
+					pending.decrementAndGet();
+				}
+			}
+		} );
+	}
+
+	/**
+	 * Processes the batches produced by the parser threads until all the
+	 * parsers are finished. Batches are always put into the queue before the
+	 * pending counter is decremented so there is nothing left once the counter
+	 * reaches zero and the queue is empty.
+	 */
+	private void consume() {
+		try {
+			while( true ) {
+				Triple[] batch = queue.poll( POLL_INTERVAL, TimeUnit.MILLISECONDS );
+				if( batch != null ) {
+					for( Triple triple : batch ) {
+						processTriple( triple );
+					}
+				}
+				else if( error.get() != null ) {
+					break;
+				}
+				else if( pending.get() == 0 && queue.isEmpty() ) {
+					break;
+				}
+			}
+		} catch( InterruptedException e ) {
+			throw new InternalReasonerException( e );
+		}
+
+		Throwable e = error.get();
+		if( e instanceof RuntimeException ) {
+			throw (RuntimeException) e;
+		}
+		if( e instanceof Error ) {
+			throw (Error) e;
+		}
+		if( e != null ) {
+			throw new InternalReasonerException( e );
+		}
+	}
+
+	private ATermAppl node2term(Node node) {
+		ATermAppl term = terms.get( node );
+		if( term == null ) {
+			if( terms.size() >= TERM_CACHE_SIZE ) {
+				terms.clear();
+			}
+			term = JenaUtils.makeATerm( node );
+			terms.put( node, term );
+		}
+		return term;
+	}
+
+	private void processTriple(Triple triple) {
+		Node s = triple.getSubject();
+		Node p = triple.getPredicate();
+		Node o = triple.getObject();
+
+		if( s.isBlank() || o.isBlank() ) {
+			residual.add( triple );
+			return;
+		}
+
+		BuiltinTerm builtinTerm = BuiltinTerm.find( p );
+
+		if( builtinTerm != null ) {
+			if( builtinTerm.equals( BuiltinTerm.RDF_type ) ) {
+				BuiltinTerm type = BuiltinTerm.find( o );
+				if( type == null ) {
+					ATermAppl ot = node2term( o );
+					if( !AnnotationClasses.contains( ot ) ) {
+						ATermAppl st = node2term( s );
+						if( ATermUtils.isPrimitive( ot ) ) {
+							kb.addClass( ot );
+						}
+						kb.addIndividual( st );
+						kb.addType( st, ot );
+					}
+					streamedTriples++;
+					return;
+				}
+				else if( type.equals( BuiltinTerm.OWL2_NamedIndividual )
+						|| type.equals( BuiltinTerm.OWL_Thing ) ) {
+					kb.addIndividual( node2term( s ) );
+					streamedTriples++;
+					return;
+				}
+				else if( type.equals( BuiltinTerm.OWL_Ontology ) ) {
+					ontologies.add( s );
+				}
+			}
+
+			residual.add( triple );
+			return;
+		}
+
+		ATermAppl pt = node2term( p );
+		Role role = kb.getProperty( pt );
+		PropertyType propType = (role == null)
+			? PropertyType.UNTYPED
+			: role.getType();
+
+		if( propType == PropertyType.OBJECT && o.isURI() ) {
+			ATermAppl st = node2term( s );
+			ATermAppl ot = node2term( o );
+			kb.addIndividual( st );
+			kb.addIndividual( ot );
+			kb.addPropertyValue( pt, st, ot );
+		}
+		else if( propType == PropertyType.DATATYPE && o.isLiteral() ) {
+			ATermAppl st = node2term( s );
+			ATermAppl ot = node2term( o );
+			String datatypeURI = ((ATermAppl) ot.getArgument( 2 )).getName();
+			kb.addIndividual( st );
+			if( !datatypeURI.equals( "" ) ) {
+				ATermAppl dt = ATermUtils.makeTermAppl( datatypeURI );
+				if( !kb.isDatatype( dt ) ) {
+					kb.addDatatype( dt );
+				}
+			}
+			kb.addPropertyValue( pt, st, ot );
+		}
+		else if( propType == PropertyType.ANNOTATION ) {
+			// ontology annotations are skipped by the graph loader too
+			if( !ontologies.contains( s ) ) {
+				kb.addAnnotation( node2term( s ), pt, node2term( o ) );
+			}
+		}
+		else {
+			residual.add( triple );
+			return;
+		}
+
+		streamedTriples++;
+	}
+
+	/**
+	 * Collects the parsed triples into batches for the loading thread.
+	 */
+	private class BatchSink extends StreamRDFBase {
+		private Triple[]	batch	= new Triple[batchSize];
+
+		private int			size	= 0;
+
+		@Override
+		public void triple(Triple triple) {
+			batch[size++] = triple;
+			if( size == batchSize ) {
+				flush();
+			}
+		}
+
+		public void flush() {
+			if( size == 0 ) {
+				return;
+			}
+
+			try {
+				queue.put( size == batch.length
+					? batch
+					: Arrays.copyOf( batch, size ) );
+			} catch( InterruptedException e ) {
+				throw new InternalReasonerException( e );
+			}
+
+			batch = new Triple[batchSize];
+			size = 0;
+		}
+	}
+
+	/**
+	 * Parses a file that cannot be split into chunks.
+	 */
+	private class FileParser implements Runnable {
+		private final String	fileName;
+
+		public FileParser(String fileName) {
+			this.fileName = fileName;
+		}
+
+		public void run() {
+			BatchSink sink = new BatchSink();
+			RDFDataMgr.parse( sink, fileName );
+			sink.flush();
+		}
+	}
+
+	/**
+	 * Splits an N-Triples file into chunks that end at a line boundary and
+	 * submits each chunk to be parsed by another thread. The number of chunks
+	 * in memory is limited by the chunk permits. Once all the chunks are
+	 * parsed the lines with blank nodes set aside by the chunks are parsed and
+	 * released.
+	 */
+	private class ChunkReader implements Runnable {
+		private final String				fileName;
+
+		private final ByteArrayOutputStream	bnodeLines	= new ByteArrayOutputStream();
+
+		/**
+		 * Released once for each parsed chunk
+		 */
+		private final Semaphore				parsed		= new Semaphore( 0 );
+
+		private int							submitted	= 0;
+
+		public ChunkReader(String fileName) {
+			this.fileName = fileName;
+		}
+
+		public void run() {
+			InputStream in = RDFDataMgr.open( fileName );
+			try {
+				byte[] buffer = new byte[chunkSize];
+				int length = 0;
+
+				while( true ) {
+					if( length == buffer.length ) {
+						// a line longer than the chunk size
+						buffer = Arrays.copyOf( buffer, 2 * buffer.length );
+					}
+
+					int read = in.read( buffer, length, buffer.length - length );
+					if( read < 0 ) {
+						break;
+					}
+					length += read;
+
+					int end = length;
+					while( end > 0 && buffer[end - 1] != '\n' ) {
+						end--;
+					}
+
+					if( end > 0 && length > chunkSize / 2 ) {
+						submitChunk( Arrays.copyOf( buffer, end ) );
+						System.arraycopy( buffer, end, buffer, 0, length - end );
+						length -= end;
+					}
+				}
+
+				if( length > 0 ) {
+					submitChunk( Arrays.copyOf( buffer, length ) );
+				}
+				buffer = null;
+
+				// the scope of the blank node labels ends with the file
+				parsed.acquire( submitted );
+				if( bnodeLines.size() > 0 ) {
+					BatchSink sink = new BatchSink();
+					RDFDataMgr.parse( sink, new ByteArrayInputStream( bnodeLines.toByteArray() ),
+							Lang.NTRIPLES );
+					sink.flush();
+				}
+			} catch( IOException e ) {
+				throw new InternalReasonerException( e );
+			} catch( InterruptedException e ) {
+				throw new InternalReasonerException( e );
+			} finally {
+				try {
+					in.close();
+				} catch( IOException e ) {
+					log.log( Level.FINE, "Cannot close " + fileName, e );
+				}
+			}
+		}
+
+		private void submitChunk(final byte[] chunk) throws InterruptedException {
+			chunks.acquire();
+			submitted++;
+			submit( new Runnable() {
+				public void run() {
+					try {
+						parseChunk( chunk, bnodeLines );
+					} finally {
+						chunks.release();
+						parsed.release();
+					}
+				}
+			} );
+		}
+	}
+
+	/**
+	 * Parses a chunk of N-Triples. Blank node labels are scoped to a single
+	 * parser run so the lines mentioning blank nodes are put aside to be
+	 * parsed together with the other such lines of the file.
+	 */
+	private void parseChunk(byte[] chunk, ByteArrayOutputStream bnodeLines) {
+		byte[] named = chunk;
+		int namedLength = chunk.length;
+
+		if( containsBlankNode( chunk, 0, chunk.length ) ) {
+			named = new byte[chunk.length];
+			namedLength = 0;
+
+			List<int[]> blankLines = new ArrayList<int[]>();
+			int start = 0;
+			while( start < chunk.length ) {
+				int end = start;
+				while( end < chunk.length && chunk[end] != '\n' ) {
+					end++;
+				}
+				if( end < chunk.length ) {
+					end++;
+				}
+
+				if( containsBlankNode( chunk, start, end ) ) {
+					blankLines.add( new int[] { start, end } );
+				}
+				else {
+					System.arraycopy( chunk, start, named, namedLength, end - start );
+					namedLength += end - start;
+				}
+
+				start = end;
+			}
+
+			synchronized( bnodeLines ) {
+				long size = bnodeLines.size();
+				for( int[] line : blankLines ) {
+					size += line[1] - line[0] + 1;
+				}
+				if( size > maxBlankNodeBytes ) {
+					throw new UnsupportedFeatureException( "Lines with blank nodes in a file exceed "
+							+ maxBlankNodeBytes + " bytes, see StreamingLoader.setMaxBlankNodeBytes" );
+				}
+
+				for( int[] line : blankLines ) {
+					bnodeLines.write( chunk, line[0], line[1] - line[0] );
+					if( chunk[line[1] - 1] != '\n' ) {
+						bnodeLines.write( '\n' );
+					}
+				}
+			}
+		}
+
+		if( namedLength > 0 ) {
+			BatchSink sink = new BatchSink();
+			RDFDataMgr.parse( sink, new ByteArrayInputStream( named, 0, namedLength ),
+					Lang.NTRIPLES );
+			sink.flush();
+		}
+	}
+
+	/**
+	 * Returns <code>true</code> if the given part of the chunk contains a
+	 * blank node label. Literals containing "_:" are also reported which only
+	 * causes the line to be loaded through the graph.
+	 */
+	private static boolean containsBlankNode(byte[] chunk, int start, int end) {
+		for( int i = start; i < end - 1; i++ ) {
+			if( chunk[i] == '_' && chunk[i + 1] == ':' ) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -6,6 +6,7 @@
 
 package com.clarkparsia.modularity;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -36,6 +37,7 @@ import com.clarkparsia.pellet.owlapiv3.PelletReasonerFactory;
 import com.clarkparsia.pellet.owlapiv3.ProgressAdapter;
 import com.google.common.base.Optional;
 import com.google.common.base.Strings;
+import com.google.common.io.ByteStreams;
 import com.google.common.collect.Sets;
 import org.mindswap.pellet.exceptions.PelletRuntimeException;
 import org.mindswap.pellet.taxonomy.Taxonomy;
@@ -113,6 +115,8 @@ public class IncrementalReasoner extends AbstractOWLListeningReasoner {
 		String REALIZED_PROPERTY = "realized";
 
 		String ONTOLOGY_IRI_PROPERTY = "ontologyIRI";
+
+		String STATISTICS_FILE_NAME = "Statistics";
 	}
 
 	/**
@@ -168,6 +172,7 @@ public class IncrementalReasoner extends AbstractOWLListeningReasoner {
 		}
 		else {
 			Properties properties = new Properties();
+			byte[] statistics = null;
 
 			try (ZipInputStream zipInputStream = new ZipInputStream(new FileInputStream(config.getFile()))) {
 
@@ -184,6 +189,12 @@ public class IncrementalReasoner extends AbstractOWLListeningReasoner {
 				currentEntry = zipInputStream.getNextEntry();
 				if ((currentEntry != null) && (Persistence.PROPERTIES_FILE_NAME.equals(currentEntry.getName()))) {
 					properties.load(zipInputStream);
+					currentEntry = zipInputStream.getNextEntry();
+				}
+
+				// statistics are optional since they are only available for realized KBs
+				if ((currentEntry != null) && (Persistence.STATISTICS_FILE_NAME.equals(currentEntry.getName()))) {
+					statistics = ByteStreams.toByteArray(zipInputStream);
 				}
 			}
 			catch (IOException e) {
@@ -211,6 +222,15 @@ public class IncrementalReasoner extends AbstractOWLListeningReasoner {
 			reasoner = config.getReasoner() != null ? config.getReasoner() : config.createReasoner(ontology);
 			ontology = reasoner.getRootOntology();
 
+			if (statistics != null) {
+				try {
+					reasoner.getKB().getStatistics().load(new ByteArrayInputStream(statistics));
+				}
+				catch (IOException e) {
+					log.log(Level.WARNING, "Ignoring invalid statistics in " + config.getFile(), e);
+				}
+			}
+
 			OntologyDiff diff = OntologyDiff.diffAxiomsWithOntologies(extractor.getAxioms(), Collections.singleton(ontology));
 
 			for (OWLAxiom addition : diff.getAdditions()) {
@@ -642,6 +662,14 @@ public class IncrementalReasoner extends AbstractOWLListeningReasoner {
 				properties.setProperty(Persistence.ONTOLOGY_IRI_PROPERTY, ontIRI.get().toString());
 			}
 			properties.store(zipOutputStream, Persistence.PROPERTIES_FILE_COMMENT);
+
+			// save the statistics used by the query engine
+			if (reasoner.getKB().getStatistics().isComplete()) {
+				ZipEntry statisticsEntry = new ZipEntry(Persistence.STATISTICS_FILE_NAME);
+				zipOutputStream.putNextEntry(statisticsEntry);
+
+				reasoner.getKB().getStatistics().save(new UncloseableOutputStream(zipOutputStream));
+			}
 		}
 		finally {
 			zipOutputStream.close();
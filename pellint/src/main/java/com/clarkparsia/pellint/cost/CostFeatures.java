@@ -0,0 +1,200 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellint.cost;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.utils.KBOperation;
+import org.mindswap.pellet.utils.SizeEstimate;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+
+import com.clarkparsia.pellet.expressivity.Expressivity;
+import com.clarkparsia.pellet.owlapiv3.PelletReasoner;
+import com.clarkparsia.pellet.owlapiv3.PelletReasonerFactory;
+import com.clarkparsia.pellint.lintpattern.LintPattern;
+import com.clarkparsia.pellint.model.Lint;
+import com.clarkparsia.pellint.model.OntologyLints;
+import com.clarkparsia.pellint.util.CollectionUtil;
+
+/**
+ * <p>
+ * Title: Cost Features
+ * </p>
+ * <p>
+ * Description: Numeric features of an ontology used by the {@link CostModel}
+ * to predict reasoning time. Features are computed from the ontology size,
+ * the {@link Expressivity} and {@link SizeEstimate} of the corresponding
+ * knowledge base and the lints found by Pellint. Size and lint features are
+ * on a logarithmic scale. The lint features are also kept per axiom so the
+ * axioms that contribute most to the predicted cost can be reported.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class CostFeatures {
+	public static final String INTERCEPT = "intercept";
+	public static final String AXIOMS = "axioms";
+	public static final String CLASSES = "classes";
+	public static final String INDIVIDUALS = "individuals";
+	public static final String ESTIMATED_CLASSIFICATION = "estimate.classification";
+	public static final String EL = "expressivity.EL";
+	public static final String NOMINALS = "expressivity.nominals";
+	public static final String INVERSES = "expressivity.inverses";
+	public static final String CARDINALITY = "expressivity.cardinality";
+	public static final String TRANSITIVITY = "expressivity.transitivity";
+	public static final String COMPLEX_SUB_ROLES = "expressivity.complexSubRoles";
+	public static final String KEYS = "expressivity.keys";
+	public static final String DATATYPES = "expressivity.datatypes";
+	public static final String LINT_PREFIX = "lint.";
+
+	private Map<String, Double> m_Values;
+	private Map<OWLAxiom, Map<String, Double>> m_AxiomValues;
+
+	public CostFeatures() {
+		m_Values = new TreeMap<String, Double>();
+		m_AxiomValues = CollectionUtil.makeMap();
+		m_Values.put(INTERCEPT, 1.0);
+	}
+
+	/**
+	 * Computes the features of the given ontology (including its imports) from
+	 * the lints found for it.
+	 */
+	public static CostFeatures compute(OWLOntology ontology, OntologyLints lints) {
+		CostFeatures features = new CostFeatures();
+
+		PelletReasoner reasoner = PelletReasonerFactory.getInstance().createNonBufferingReasoner(ontology);
+		try {
+			KnowledgeBase kb = reasoner.getKB();
+			Expressivity expressivity = kb.getExpressivity();
+			SizeEstimate estimate = kb.getSizeEstimate();
+
+			int axiomCount = 0;
+			for (OWLOntology ont : ontology.getImportsClosure()) {
+				axiomCount += ont.getLogicalAxiomCount();
+			}
+
+			features.set(AXIOMS, log(axiomCount));
+			features.set(CLASSES, log(kb.getClasses().size()));
+			features.set(INDIVIDUALS, log(kb.getIndividuals().size()));
+			features.set(ESTIMATED_CLASSIFICATION, log(estimate.getCost(KBOperation.GET_SUB_OR_SUPERCLASSES)));
+
+			features.set(EL, flag(expressivity.isEL()));
+			features.set(NOMINALS, flag(expressivity.hasNominal()));
+			features.set(INVERSES, flag(expressivity.hasInverse()));
+			features.set(CARDINALITY, flag(expressivity.hasCardinalityQ() || expressivity.hasCardinality()
+					|| expressivity.hasFunctionality()));
+			features.set(TRANSITIVITY, flag(expressivity.hasTransitivity()));
+			features.set(COMPLEX_SUB_ROLES, flag(expressivity.hasComplexSubRoles()));
+			features.set(KEYS, flag(expressivity.hasKeys()));
+			features.set(DATATYPES, flag(expressivity.hasUserDefinedDatatype()));
+		} finally {
+			reasoner.dispose();
+		}
+
+		for (LintPattern pattern : lints.getLintPatterns()) {
+			String feature = getLintFeature(pattern);
+			for (Lint lint : lints.getLints(pattern)) {
+				features.addLint(feature, lint, ontology);
+			}
+		}
+
+		return features;
+	}
+
+	/**
+	 * Returns the name of the feature that counts the lints of the given
+	 * pattern. Pattern parameters are not part of the name so a calibrated
+	 * model can be used with different pattern configurations.
+	 */
+	public static String getLintFeature(LintPattern pattern) {
+		return LINT_PREFIX + pattern.getClass().getSimpleName();
+	}
+
+	private void addLint(String feature, Lint lint, OWLOntology ontology) {
+		double value = (lint.getSeverity() == null) ? 1.0 : log(lint.getSeverity().doubleValue());
+		add(feature, value);
+
+		Set<? extends OWLAxiom> axioms = lint.getParticipatingAxioms();
+		if (axioms.isEmpty()) {
+			// lints found at the ontology level are attributed to the
+			// definitions of the classes they are about
+			Set<OWLAxiom> classAxioms = CollectionUtil.makeSet();
+			for (OWLClass cls : lint.getParticipatingClasses()) {
+				for (OWLOntology ont : ontology.getImportsClosure()) {
+					classAxioms.addAll(ont.getSubClassAxiomsForSubClass(cls));
+					classAxioms.addAll(ont.getEquivalentClassesAxioms(cls));
+				}
+			}
+			axioms = classAxioms;
+		}
+
+		if (axioms.isEmpty()) {
+			return;
+		}
+
+		double share = value / axioms.size();
+		for (OWLAxiom axiom : axioms) {
+			Map<String, Double> axiomValues = m_AxiomValues.get(axiom);
+			if (axiomValues == null) {
+				axiomValues = new TreeMap<String, Double>();
+				m_AxiomValues.put(axiom, axiomValues);
+			}
+			Double old = axiomValues.get(feature);
+			axiomValues.put(feature, (old == null) ? share : old + share);
+		}
+	}
+
+	public void set(String feature, double value) {
+		m_Values.put(feature, value);
+	}
+
+	public void add(String feature, double value) {
+		Double old = m_Values.get(feature);
+		m_Values.put(feature, (old == null) ? value : old + value);
+	}
+
+	/**
+	 * @return The value of the feature or 0 if the feature is not set.
+	 */
+	public double get(String feature) {
+		Double value = m_Values.get(feature);
+		return (value == null) ? 0.0 : value;
+	}
+
+	public Set<String> getFeatureNames() {
+		return Collections.unmodifiableSet(m_Values.keySet());
+	}
+
+	/**
+	 * @return The lint features of each axiom that participates in a lint. The
+	 *         value of a lint feature is shared among the axioms of the lint.
+	 */
+	public Map<OWLAxiom, Map<String, Double>> getAxiomFeatures() {
+		return Collections.unmodifiableMap(m_AxiomValues);
+	}
+
+	private static double log(double value) {
+		return Math.log(1 + Math.max(0, value));
+	}
+
+	private static double flag(boolean value) {
+		return value ? 1.0 : 0.0;
+	}
+
+	@Override
+	public String toString() {
+		return m_Values.toString();
+	}
+}
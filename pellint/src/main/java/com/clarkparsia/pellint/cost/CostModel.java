@@ -0,0 +1,291 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellint.cost;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+/**
+ * <p>
+ * Title: Cost Model
+ * </p>
+ * <p>
+ * Description: A log-linear model that predicts the time (in milliseconds) of
+ * a reasoning task from {@link CostFeatures}, i.e. the logarithm of the time is
+ * the weighted sum of the features. There is a separate set of weights for
+ * each task. The weight of a lint feature that has no weight of its own is
+ * given by the {@link #LINT_DEFAULT} weight of the task. The built-in weights
+ * are rough guesses; a model calibrated from recorded runs of the reasoner on
+ * the ontologies of interest should be used for any real decision.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class CostModel {
+	public static final String CLASSIFICATION = "classification";
+	public static final String CONSISTENCY = "consistency";
+
+	public static final String PROPERTY_PREFIX = "pellint.cost.";
+	public static final String LINT_DEFAULT = CostFeatures.LINT_PREFIX + "*";
+
+	/**
+	 * Strength of the pull towards the current weights during calibration. Keeps
+	 * the weights of features that do not vary among the recorded runs stable.
+	 */
+	private static final double REGULARIZATION = 1.0;
+
+	/**
+	 * An axiom and the factor by which it multiplies the predicted time.
+	 */
+	public static class CostDriver {
+		private OWLAxiom m_Axiom;
+		private double m_Factor;
+
+		public CostDriver(OWLAxiom axiom, double factor) {
+			m_Axiom = axiom;
+			m_Factor = factor;
+		}
+
+		public OWLAxiom getAxiom() {
+			return m_Axiom;
+		}
+
+		public double getFactor() {
+			return m_Factor;
+		}
+	}
+
+	private Map<String, Map<String, Double>> m_Weights;
+
+	public CostModel() {
+		m_Weights = new TreeMap<String, Map<String, Double>>();
+	}
+
+	/**
+	 * @return A model with uncalibrated built-in weights.
+	 */
+	public static CostModel getDefault() {
+		CostModel model = new CostModel();
+
+		model.setWeight(CLASSIFICATION, CostFeatures.ESTIMATED_CLASSIFICATION, 0.5);
+		model.setWeight(CLASSIFICATION, CostFeatures.EL, -1.0);
+		model.setWeight(CLASSIFICATION, CostFeatures.NOMINALS, 1.5);
+		model.setWeight(CLASSIFICATION, CostFeatures.INVERSES, 0.7);
+		model.setWeight(CLASSIFICATION, CostFeatures.CARDINALITY, 0.7);
+		model.setWeight(CLASSIFICATION, CostFeatures.TRANSITIVITY, 0.3);
+		model.setWeight(CLASSIFICATION, CostFeatures.COMPLEX_SUB_ROLES, 0.5);
+		model.setWeight(CLASSIFICATION, CostFeatures.KEYS, 0.3);
+		model.setWeight(CLASSIFICATION, CostFeatures.DATATYPES, 0.3);
+		model.setWeight(CLASSIFICATION, LINT_DEFAULT, 0.2);
+		model.setWeight(CLASSIFICATION, CostFeatures.LINT_PREFIX + "GCIPattern", 0.3);
+
+		model.setWeight(CONSISTENCY, CostFeatures.AXIOMS, 0.6);
+		model.setWeight(CONSISTENCY, CostFeatures.INDIVIDUALS, 0.3);
+		model.setWeight(CONSISTENCY, CostFeatures.NOMINALS, 1.0);
+		model.setWeight(CONSISTENCY, CostFeatures.INVERSES, 0.3);
+		model.setWeight(CONSISTENCY, CostFeatures.CARDINALITY, 0.5);
+		model.setWeight(CONSISTENCY, LINT_DEFAULT, 0.1);
+		model.setWeight(CONSISTENCY, CostFeatures.LINT_PREFIX + "TooManyDifferentIndividualsPattern", 0.5);
+
+		return model;
+	}
+
+	/**
+	 * Loads a model from properties of the form
+	 * <code>pellint.cost.&lt;task&gt;.&lt;feature&gt;=&lt;weight&gt;</code>.
+	 */
+	public static CostModel load(Properties properties) {
+		CostModel model = new CostModel();
+		for (String key : properties.stringPropertyNames()) {
+			if (!key.startsWith(PROPERTY_PREFIX)) {
+				continue;
+			}
+
+			String name = key.substring(PROPERTY_PREFIX.length());
+			int dot = name.indexOf('.');
+			if (dot <= 0) {
+				throw new IllegalArgumentException("Invalid cost model property: " + key);
+			}
+
+			String value = properties.getProperty(key).trim();
+			try {
+				model.setWeight(name.substring(0, dot), name.substring(dot + 1), Double.parseDouble(value));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid weight for " + key + ": " + value);
+			}
+		}
+		return model;
+	}
+
+	public Properties toProperties() {
+		Properties properties = new Properties();
+		for (Map.Entry<String, Map<String, Double>> task : m_Weights.entrySet()) {
+			for (Map.Entry<String, Double> weight : task.getValue().entrySet()) {
+				properties.setProperty(PROPERTY_PREFIX + task.getKey() + "." + weight.getKey(),
+						String.valueOf(weight.getValue()));
+			}
+		}
+		return properties;
+	}
+
+	public Set<String> getTasks() {
+		return Collections.unmodifiableSet(m_Weights.keySet());
+	}
+
+	public void setWeight(String task, String feature, double weight) {
+		Map<String, Double> weights = m_Weights.get(task);
+		if (weights == null) {
+			weights = new TreeMap<String, Double>();
+			m_Weights.put(task, weights);
+		}
+		weights.put(feature, weight);
+	}
+
+	public double getWeight(String task, String feature) {
+		Map<String, Double> weights = m_Weights.get(task);
+		if (weights == null) {
+			return 0.0;
+		}
+
+		Double weight = weights.get(feature);
+		if (weight == null && feature.startsWith(CostFeatures.LINT_PREFIX)) {
+			weight = weights.get(LINT_DEFAULT);
+		}
+		return (weight == null) ? 0.0 : weight;
+	}
+
+	/**
+	 * @return The predicted time of the task in milliseconds.
+	 */
+	public double predict(String task, CostFeatures features) {
+		double logTime = 0.0;
+		for (String feature : features.getFeatureNames()) {
+			logTime += getWeight(task, feature) * features.get(feature);
+		}
+		return Math.exp(logTime);
+	}
+
+	/**
+	 * Returns the axioms that increase the predicted time of the task the most,
+	 * in decreasing order of their contribution.
+	 */
+	public List<CostDriver> getCostDrivers(String task, CostFeatures features, int max) {
+		List<CostDriver> drivers = new ArrayList<CostDriver>();
+		for (Map.Entry<OWLAxiom, Map<String, Double>> entry : features.getAxiomFeatures().entrySet()) {
+			double logFactor = 0.0;
+			for (Map.Entry<String, Double> value : entry.getValue().entrySet()) {
+				logFactor += getWeight(task, value.getKey()) * value.getValue();
+			}
+			if (logFactor > 0) {
+				drivers.add(new CostDriver(entry.getKey(), Math.exp(logFactor)));
+			}
+		}
+
+		Collections.sort(drivers, new Comparator<CostDriver>() {
+			public int compare(CostDriver d0, CostDriver d1) {
+				return Double.compare(d1.getFactor(), d0.getFactor());
+			}
+		});
+
+		return (drivers.size() > max) ? drivers.subList(0, max) : drivers;
+	}
+
+	/**
+	 * Fits the weights of a task to recorded runs with ridge regression on the
+	 * logarithm of the times. Weights are pulled towards their current values
+	 * so a few runs only adjust the model instead of replacing it.
+	 *
+	 * @param features the features of the ontologies of the recorded runs
+	 * @param times the recorded times of the task in milliseconds
+	 */
+	public void calibrate(String task, List<CostFeatures> features, List<Double> times) {
+		if (features.size() != times.size()) {
+			throw new IllegalArgumentException("Number of feature sets and times differ");
+		}
+
+		Set<String> featureNames = new TreeSet<String>();
+		for (CostFeatures f : features) {
+			featureNames.addAll(f.getFeatureNames());
+		}
+		List<String> names = new ArrayList<String>(featureNames);
+		int n = names.size();
+
+		double[][] a = new double[n][n + 1];
+		for (int i = 0; i < n; i++) {
+			a[i][i] = REGULARIZATION;
+			a[i][n] = REGULARIZATION * getWeight(task, names.get(i));
+		}
+
+		for (int r = 0; r < features.size(); r++) {
+			double y = Math.log(Math.max(1.0, times.get(r)));
+			double[] x = new double[n];
+			for (int i = 0; i < n; i++) {
+				x[i] = features.get(r).get(names.get(i));
+			}
+			for (int i = 0; i < n; i++) {
+				if (x[i] == 0) {
+					continue;
+				}
+				for (int j = 0; j < n; j++) {
+					a[i][j] += x[i] * x[j];
+				}
+				a[i][n] += x[i] * y;
+			}
+		}
+
+		double[] w = solve(a);
+		for (int i = 0; i < n; i++) {
+			setWeight(task, names.get(i), w[i]);
+		}
+	}
+
+	/**
+	 * Solves the linear system given as an augmented matrix with Gaussian
+	 * elimination. The matrix is positive definite due to regularization.
+	 */
+	private static double[] solve(double[][] a) {
+		int n = a.length;
+		for (int col = 0; col < n; col++) {
+			int pivot = col;
+			for (int row = col + 1; row < n; row++) {
+				if (Math.abs(a[row][col]) > Math.abs(a[pivot][col])) {
+					pivot = row;
+				}
+			}
+			double[] tmp = a[col];
+			a[col] = a[pivot];
+			a[pivot] = tmp;
+
+			for (int row = col + 1; row < n; row++) {
+				double factor = a[row][col] / a[col][col];
+				for (int k = col; k <= n; k++) {
+					a[row][k] -= factor * a[col][k];
+				}
+			}
+		}
+
+		double[] x = new double[n];
+		for (int row = n - 1; row >= 0; row--) {
+			double sum = a[row][n];
+			for (int k = row + 1; k < n; k++) {
+				sum -= a[row][k] * x[k];
+			}
+			x[row] = sum / a[row][row];
+		}
+		return x;
+	}
+}
@@ -83,6 +83,18 @@ public class OntologyLints {
 		lints.addAll(newLints);
 	}
 	
+	public Set<LintPattern> getLintPatterns() {
+		return Collections.unmodifiableSet(m_Lints.keySet());
+	}
+	
+	public List<Lint> getLints(LintPattern pattern) {
+		List<Lint> lints = m_Lints.get(pattern);
+		if (lints == null) {
+			return Collections.emptyList();
+		}
+		return Collections.unmodifiableList(lints);
+	}
+	
 	public void sort(Comparator<? super Lint> comparator) {
 		for (List<Lint> lints : m_Lints.values()) {
 			Collections.sort(lints, comparator);
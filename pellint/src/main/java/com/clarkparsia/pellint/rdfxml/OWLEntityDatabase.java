@@ -62,7 +62,6 @@ public class OWLEntityDatabase {
 	private Set<RDFNode>			m_RDFClasses		= CollectionUtil.makeSet();
 	// TODO: why is this Resource and everything else is RDFNode?  classes should be typed as Resource as well & Individuals, etc.
 	private Set<Resource>			m_Restrictions		= CollectionUtil.makeSet();
-	private Set<RDFNode>			m_Literals			= CollectionUtil.makeSet();
 	private Set<Literal>			m_LiteralsAsClass  = CollectionUtil.makeSet();
 	private Set<Literal>			m_LiteralsAsIndividuals = CollectionUtil.makeSet();
 	private Set<Resource>			m_ResourcesAsLiterals = CollectionUtil.makeSet();
@@ -99,8 +98,13 @@ public class OWLEntityDatabase {
 		return m_Restrictions;
 	}
 
+	/**
+	 * Literals are not stored so memory use does not grow with the number of
+	 * distinct literal values. Every literal used in the ontology is passed to
+	 * this method so a literal is known to the database if and only if it is
+	 * a literal.
+	 */
 	public void addLiteral(RDFNode s) {
-		m_Literals.add( s );
 	}
 
 	public void addClass(RDFNode s) {
@@ -304,7 +308,7 @@ public class OWLEntityDatabase {
 		return m_Ontologies.contains( s ) || m_Classes.contains( s ) || m_Datatypes.contains( s )
 				|| m_Individuals.contains( s ) || m_AllRoles.contains( s )
 				|| m_RDFClasses.contains( s ) || (s.isResource() && m_Restrictions.contains( s ))
-				|| m_Literals.contains( s ) || m_SWRLVariables.contains( s );
+				|| s.isLiteral() || m_SWRLVariables.contains( s );
 	}
 
 	public Map<RDFNode, List<String>> getAllMultiTypedResources() {
@@ -329,7 +333,6 @@ public class OWLEntityDatabase {
 			definiteResourcesByType.put( "Class", m_Classes.getDefiniteElements() );
 			definiteResourcesByType.put( "Datatype", m_Datatypes.getDefiniteElements() );
 			definiteResourcesByType.put( "Individual", m_Individuals );
-			definiteResourcesByType.put( "Literal", m_Literals );
 		}
 
 		definiteResourcesByType.put( "Annotation Property", m_AnnotationRoles.getDefiniteElements() );
@@ -344,6 +347,17 @@ public class OWLEntityDatabase {
 			allDefiniteResources.addAll( definiteResources );
 		}
 
+		if (!excludeValidPunning) {
+			// only the literals that have another type matter here
+			Set<RDFNode> literals = CollectionUtil.makeSet();
+			for( RDFNode node : allDefiniteResources ) {
+				if( node.isLiteral() ) {
+					literals.add( node );
+				}
+			}
+			definiteResourcesByType.put( "Literal", literals );
+		}
+
 		Map<RDFNode, List<String>> multiTypedResources = CollectionUtil.makeMap();
 		for( RDFNode node : allDefiniteResources ) {
 			List<String> types = CollectionUtil.makeList();
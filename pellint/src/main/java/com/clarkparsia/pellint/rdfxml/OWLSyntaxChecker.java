@@ -58,6 +58,17 @@ public class OWLSyntaxChecker {
 	final static Collection<Property>			RESTRICTION_PROPS;
 	final static Collection<Resource>			DATA_RANGE_FACETS;
 	final static Collection<Resource>			SWRL_BUILT_INS;
+	/*
+	 * predicates of the statements that are kept in memory when validating a
+	 * stream of statements because their values are looked up while processing
+	 * other statements
+	 */
+	final static Collection<Property>			LOOKUP_PROPS;
+	final static Collection<String>				BUILT_IN_NAMESPACES;
+	/*
+	 * number of statements read from a stream that are processed at once
+	 */
+	final static int							STREAM_BATCH_SIZE	= 1000;
 
 	static {
 		RESTRICTION_PROPS = Arrays.asList( 
@@ -78,6 +89,31 @@ public class OWLSyntaxChecker {
 			DATA_RANGE_FACETS.add( ResourceFactory.createResource( v.getName().getName() ) );
 		}
 
+		LOOKUP_PROPS = CollectionUtil.<Property> asSet( 
+				RDF.first, 
+				RDF.rest, 
+				OWL.onProperty, 
+				OWL.hasValue, 
+				OWL.someValuesFrom, 
+				OWL.allValuesFrom, 
+				OWL2.onClass, 
+				OWL2.onDataRange, 
+				OWL2.sourceIndividual, 
+				OWL2.assertionProperty, 
+				OWL2.targetValue, 
+				OWL2.targetIndividual, 
+				SWRL.classPredicate, 
+				SWRL.propertyPredicate, 
+				SWRL.dataRange, 
+				SWRL.argument1, 
+				SWRL.argument2 );
+
+		BUILT_IN_NAMESPACES = CollectionUtil.asSet( 
+				RDF.getURI(), 
+				RDFS.getURI(), 
+				OWL.getURI(), 
+				SWRL.getURI() );
+
 		SWRL_BUILT_INS = CollectionUtil.makeSet();
 		for( SWRLBuiltInsVocabulary v : SWRLBuiltInsVocabulary.values() ) {
             SWRL_BUILT_INS.add(ResourceFactory.createResource(v.getIRI()
@@ -115,6 +151,90 @@ public class OWLSyntaxChecker {
 	public RDFLints validate(RDFModel model) {
 		m_Model = model;
 
+		init();
+
+		processLists();
+		processTypes();
+		processTriples();
+		processRestrictions();
+
+		return reportLints();
+	}
+
+	/**
+	 * Validates the document with the given URI (and its imports if requested)
+	 * without loading it into memory. The documents are read twice. The first
+	 * pass keeps only the statements needed to look up lists, restrictions and
+	 * built-in types, and records other type statements as the entities are
+	 * seen. The second pass checks every statement as it is read. The result is
+	 * the same as validating the {@link RDFModel} of the documents but memory
+	 * use depends on the number of entities and schema statements rather than
+	 * the number of statements.
+	 */
+	public RDFLints validate(String uri, boolean loadImports) {
+		final RDFModel model = new RDFModel();
+		final Set<RDFNode> typeObjects = CollectionUtil.makeSet();
+		m_Model = model;
+
+		init();
+
+		RDFStreamReader reader = new RDFStreamReader();
+		List<String> documents = reader.read( uri, loadImports, new RDFStreamReader.StatementHandler() {
+			public void handle(Statement stmt) {
+				if( isLookupStatement( stmt ) ) {
+					model.addStatement( stmt );
+				}
+				else if( stmt.getPredicate().equals( RDF.type ) ) {
+					// same as the last case of processTypes
+					m_OWLEntities.addIndividual( stmt.getSubject() );
+					typeObjects.add( stmt.getObject() );
+				}
+			}
+		} );
+
+		processListHeads();
+		processTypes();
+		for( RDFNode o : typeObjects ) {
+			m_OWLEntities.assumeClass( o );
+		}
+
+		final List<Statement> batch = CollectionUtil.makeList();
+		reader.read( documents, new RDFStreamReader.StatementHandler() {
+			public void handle(Statement stmt) {
+				// statements are processed in batches as they are read
+				batch.add( stmt );
+				if( batch.size() == STREAM_BATCH_SIZE ) {
+					processTriples( batch );
+					batch.clear();
+				}
+			}
+		} );
+		processTriples( batch );
+		processRestrictions();
+
+		return reportLints();
+	}
+
+	/**
+	 * Returns <code>true</code> if the statement may be looked up while other
+	 * statements are processed: list structure, restriction and SWRL atom
+	 * arguments and type statements with a built-in type.
+	 */
+	private static boolean isLookupStatement(Statement stmt) {
+		Property p = stmt.getPredicate();
+		if( p.equals( RDF.type ) ) {
+			RDFNode o = stmt.getObject();
+			if( !o.isURIResource() ) {
+				return false;
+			}
+			String ns = o.asResource().getNameSpace();
+			return BUILT_IN_NAMESPACES.contains( ns );
+		}
+
+		return LOOKUP_PROPS.contains( p );
+	}
+
+	private void init() {
 		m_OWLEntities = new OWLEntityDatabase();
 		m_OWLEntities.addAnnotationRole( RDFS.label );
 		m_OWLEntities.addAnnotationRole( RDFS.comment );
@@ -139,12 +259,6 @@ public class OWLSyntaxChecker {
 
 		m_Lists = CollectionUtil.makeMap();
 		m_Lists.put( RDF.nil, CollectionUtil.<RDFNode> makeList() );
-
-		processTypes();
-		processTriples();
-		processRestrictions();
-
-		return reportLints();
 	}
 
 	private RDFLints reportLints() {
@@ -251,8 +365,7 @@ public class OWLSyntaxChecker {
 		createList( head, list );
 	}
 
-	private void processTypes() {
-		// list pre-processing
+	private void processLists() {
 		for( Statement stmt : m_Model.getStatementsByPredicate( RDF.first ) ) {
 			Resource s = stmt.getSubject();
 			for( Statement aStmt : m_Model.getStatementsByObject( s ) ) {
@@ -263,7 +376,30 @@ public class OWLSyntaxChecker {
 				}
 			}
 		}
+	}
+
+	/**
+	 * Creates the lists starting at list nodes that are not the rest of another
+	 * list node. Used instead of {@link #processLists()} when the statements
+	 * that refer to the lists are not kept in the model.
+	 */
+	private void processListHeads() {
+		for( Statement stmt : m_Model.getStatementsByPredicate( RDF.first ) ) {
+			Resource s = stmt.getSubject();
+			boolean isRest = false;
+			for( Statement aStmt : m_Model.getStatementsByObject( s ) ) {
+				if( aStmt.getPredicate().equals( RDF.rest ) ) {
+					isRest = true;
+					break;
+				}
+			}
+			if( !isRest ) {
+				createList( s );
+			}
+		}
+	}
 
+	private void processTypes() {
 		List<Statement> processLater = CollectionUtil.makeList();
 		for( Statement stmt : m_Model.getStatementsByPredicate( RDF.type ) ) {
 			Resource s = stmt.getSubject();
@@ -511,7 +647,11 @@ public class OWLSyntaxChecker {
 	}
 
 	private void processTriples() {
-		for( Statement stmt : m_Model.getStatements() ) {
+		processTriples( m_Model.getStatements() );
+	}
+
+	private void processTriples(List<Statement> statements) {
+		for( Statement stmt : statements ) {
 			Resource s = stmt.getSubject();
 			Property p = stmt.getPredicate();
 			RDFNode o = stmt.getObject();
@@ -0,0 +1,124 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellint.rdfxml;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.jena.riot.RDFDataMgr;
+import org.apache.jena.riot.system.StreamRDFBase;
+
+import com.clarkparsia.pellint.util.CollectionUtil;
+import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.graph.NodeFactory;
+import com.hp.hpl.jena.graph.Triple;
+import com.hp.hpl.jena.rdf.model.AnonId;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.vocabulary.OWL;
+
+/**
+ * <p>
+ * Title: RDF Stream Reader
+ * </p>
+ * <p>
+ * Description: Parses RDF documents and passes each statement to a handler as
+ * it is parsed, without building a model. Blank nodes are labeled by the
+ * document they occur in and the order of their first occurrence so reading the
+ * same documents again yields the same blank nodes, which allows multi-pass
+ * processing of documents too large to keep in memory.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class RDFStreamReader {
+	public interface StatementHandler {
+		void handle(Statement stmt);
+	}
+
+	/**
+	 * Used only to wrap triples as statements, no statement is added to it
+	 */
+	private Model m_Model = ModelFactory.createDefaultModel();
+
+	/**
+	 * Reads the document with the given URI and, if requested, the documents it
+	 * imports (transitively).
+	 *
+	 * @return The URIs of all the documents read, in the order they were read.
+	 */
+	public List<String> read(String uri, boolean loadImports, StatementHandler handler) {
+		List<String> documents = CollectionUtil.makeList();
+		Set<String> seen = CollectionUtil.makeSet();
+		documents.add(uri);
+		seen.add(uri);
+
+		for (int i = 0; i < documents.size(); i++) {
+			Sink sink = new Sink(i, handler, loadImports ? documents : null, seen);
+			RDFDataMgr.parse(sink, documents.get(i));
+		}
+
+		return documents;
+	}
+
+	/**
+	 * Reads the given documents, e.g. the documents returned by a previous
+	 * call to {@link #read(String, boolean, StatementHandler)}.
+	 */
+	public void read(List<String> documents, StatementHandler handler) {
+		for (int i = 0; i < documents.size(); i++) {
+			RDFDataMgr.parse(new Sink(i, handler, null, null), documents.get(i));
+		}
+	}
+
+	private class Sink extends StreamRDFBase {
+		private int m_Document;
+		private StatementHandler m_Handler;
+		private List<String> m_Imports;
+		private Set<String> m_Seen;
+		private Map<Node, Node> m_BNodes = CollectionUtil.makeMap();
+
+		public Sink(int document, StatementHandler handler, List<String> imports, Set<String> seen) {
+			m_Document = document;
+			m_Handler = handler;
+			m_Imports = imports;
+			m_Seen = seen;
+		}
+
+		@Override
+		public void triple(Triple triple) {
+			Node s = relabel(triple.getSubject());
+			Node o = relabel(triple.getObject());
+			if (s != triple.getSubject() || o != triple.getObject()) {
+				triple = Triple.create(s, triple.getPredicate(), o);
+			}
+
+			if (m_Imports != null && triple.getPredicate().equals(OWL.imports.asNode()) && o.isURI()
+					&& m_Seen.add(o.getURI())) {
+				m_Imports.add(o.getURI());
+			}
+
+			m_Handler.handle(m_Model.asStatement(triple));
+		}
+
+		private Node relabel(Node node) {
+			if (!node.isBlank()) {
+				return node;
+			}
+
+			Node label = m_BNodes.get(node);
+			if (label == null) {
+				label = NodeFactory.createAnon(new AnonId(m_Document + ":" + m_BNodes.size()));
+				m_BNodes.put(node, label);
+			}
+			return label;
+		}
+	}
+}
@@ -43,7 +43,16 @@ public class SlicedResultSet implements ResultSet {
 	 * {@inheritDoc}
 	 */
     public boolean hasNext() {
-        return row < limit && results.hasNext();
+    	if( row >= limit ) {
+    		// stop computing results that will never be returned
+    		if( results instanceof SparqlDLResultSet )
+    			((SparqlDLResultSet) results).close();
+    		else if( results instanceof StreamingResultSet )
+    			((StreamingResultSet) results).close();
+    		return false;
+    	}
+    	
+        return results.hasNext();
     }
 
 	/**
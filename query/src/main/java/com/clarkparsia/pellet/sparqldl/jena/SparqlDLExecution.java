@@ -21,17 +21,21 @@ import java.util.logging.Logger;
 import aterm.ATermAppl;
 import org.mindswap.pellet.KnowledgeBase;
 import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.exceptions.PelletRuntimeException;
 import org.mindswap.pellet.exceptions.UnsupportedQueryException;
 import org.mindswap.pellet.jena.JenaUtils;
 import org.mindswap.pellet.jena.PelletInfGraph;
 
+import com.clarkparsia.pellet.sparqldl.engine.QueryMonitor;
 import com.clarkparsia.pellet.sparqldl.model.QueryParameters;
+import com.clarkparsia.pellet.sparqldl.model.QueryResult;
 import com.clarkparsia.pellet.sparqldl.parser.ARQParser;
 import com.hp.hpl.jena.graph.Graph;
 import com.hp.hpl.jena.graph.Triple;
 import com.hp.hpl.jena.query.Dataset;
 import com.hp.hpl.jena.query.DatasetFactory;
 import com.hp.hpl.jena.query.Query;
+import com.hp.hpl.jena.query.QueryCancelledException;
 import com.hp.hpl.jena.query.QueryException;
 import com.hp.hpl.jena.query.QueryExecException;
 import com.hp.hpl.jena.query.QueryExecution;
@@ -80,6 +84,16 @@ class SparqlDLExecution implements QueryExecution {
 
 	private boolean purePelletQueryExec = false;
 
+	private SparqlDLResultSet resultSet;
+
+	private QueryMonitor monitor;
+
+	private long timeout1 = -1;
+
+	private long timeout2 = -1;
+
+	private boolean closed = false;
+
 	private boolean handleVariableSPO = true;
 
 	public SparqlDLExecution(String query, Model source) {
@@ -156,10 +170,15 @@ class SparqlDLExecution implements QueryExecution {
 
 			Template template = query.getConstructTemplate();
 
-			while (results.hasNext()) {
-				Map bNodeMap = new HashMap();
-				Binding binding = results.nextBinding();
-				template.subst(set, bNodeMap, binding);
+			try {
+				while (results.hasNext()) {
+					Map bNodeMap = new HashMap();
+					Binding binding = results.nextBinding();
+					template.subst(set, bNodeMap, binding);
+				}
+			}
+			finally {
+				close();
 			}
 
 			for (Iterator iter = set.iterator(); iter.hasNext();) {
@@ -168,8 +187,6 @@ class SparqlDLExecution implements QueryExecution {
 				if (stmt != null)
 					model.add(stmt);
 			}
-
-			close();
 		}
 
 		return model;
@@ -184,8 +201,17 @@ class SparqlDLExecution implements QueryExecution {
 
 		ResultSet results = exec();
 
-		return (results != null) ? results.hasNext() : QueryExecutionFactory.create(query, source, initialBinding)
-		                .execAsk();
+		if (results == null) {
+			return QueryExecutionFactory.create(query, source, initialBinding).execAsk();
+		}
+
+		try {
+			return results.hasNext();
+		}
+		finally {
+			// one answer is enough, do not compute the rest
+			close();
+		}
 	}
 
 	/**
@@ -240,12 +266,48 @@ class SparqlDLExecution implements QueryExecution {
 			// bindings manually)
 			q.setQueryParameters(queryParameters);
 
-			ResultSet results = new SparqlDLResultSet(com.clarkparsia.pellet.sparqldl.engine.QueryEngine.exec(q),
-			                source.getDefaultModel(), queryParameters);
+			// close the results of a previous execution, if any
+			closeResults();
+
+			if (monitor != null && monitor.isCancelled()) {
+				throw new QueryCancelledException();
+			}
+			monitor = new QueryMonitor(kb, timeout1, timeout2);
+
+			boolean streaming = PelletOptions.STREAM_QUERY_RESULTS;
+			QueryResult answers;
+			try {
+				answers = streaming
+				                ? com.clarkparsia.pellet.sparqldl.engine.QueryEngine.execStreaming(q, monitor)
+				                : com.clarkparsia.pellet.sparqldl.engine.QueryEngine.exec(q, monitor);
+			}
+			catch (PelletRuntimeException e) {
+				if (monitor.isCancelled()) {
+					throw new QueryCancelledException();
+				}
+				throw e;
+			}
+
+			resultSet = new SparqlDLResultSet(answers, source.getDefaultModel(), queryParameters);
+			resultSet.setMonitor(monitor);
+
+			// streamed answers are not stored so the result set cannot be
+			// rewound
+			ResultSet results = streaming
+			                ? new StreamingResultSet(resultSet)
+			                : resultSet;
 
 			List<SortCondition> sortConditions = query.getOrderBy();
 			if (sortConditions != null && !sortConditions.isEmpty()) {
-				results = new SortedResultSet(results, sortConditions);
+				// sorting reads all the answers so the stream is released
+				// if that fails
+				try {
+					results = new SortedResultSet(results, sortConditions);
+				}
+				catch (RuntimeException e) {
+					closeResults();
+					throw e;
+				}
 			}
 
 			if (query.hasOffset() || query.hasLimit()) {
@@ -269,9 +331,23 @@ class SparqlDLExecution implements QueryExecution {
 		}
 	}
 
+	/**
+	 * {@inheritDoc} The computation of the results is stopped and the result
+	 * set throws a {@link QueryCancelledException} when it is accessed.
+	 */
 	@Override
 	public void abort() {
-		throw new UnsupportedOperationException("Not supported yet!");
+		if (monitor == null) {
+			// make sure a query that has not been started yet does not run
+			PelletInfGraph pelletInfGraph = (PelletInfGraph) source.getDefaultModel().getGraph();
+			monitor = new QueryMonitor(pelletInfGraph.getKB());
+		}
+
+		monitor.cancel();
+
+		if (resultSet != null) {
+			resultSet.close();
+		}
 	}
 
 	/**
@@ -280,6 +356,16 @@ class SparqlDLExecution implements QueryExecution {
 	@Override
 	public void close() {
 		log.fine("Closing PelletQueryExecution '" + hashCode() + "'.");
+
+		closeResults();
+		closed = true;
+	}
+
+	private void closeResults() {
+		if (resultSet != null) {
+			resultSet.close();
+			resultSet = null;
+		}
 	}
 
 	@Override
@@ -357,8 +443,7 @@ class SparqlDLExecution implements QueryExecution {
 	 */
 	@Override
 	public long getTimeout1() {
-		// not supported yet
-		return -1;
+		return timeout1;
 	}
 
 	/**
@@ -366,17 +451,15 @@ class SparqlDLExecution implements QueryExecution {
 	 */
 	@Override
 	public long getTimeout2() {
-		// not supported yet
-		return -1;
-
+		return timeout2;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void setTimeout(long arg0) {
-		// not supported yet
+	public void setTimeout(long timeout) {
+		setTimeout(timeout, TimeUnit.MILLISECONDS);
 	}
 
 	/**
@@ -384,28 +467,35 @@ class SparqlDLExecution implements QueryExecution {
 	 */
 
 	@Override
-	public void setTimeout(long arg0, TimeUnit arg1) {
-		// not supported yet
+	public void setTimeout(long timeout, TimeUnit timeUnit) {
+		// overall timeout is recorded as the second timeout
+		this.timeout1 = -1;
+		this.timeout2 = asMillis(timeout, timeUnit);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void setTimeout(long arg0, long arg1) {
-		// not supported yet
+	public void setTimeout(long timeout1, long timeout2) {
+		setTimeout(timeout1, TimeUnit.MILLISECONDS, timeout2, TimeUnit.MILLISECONDS);
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public void setTimeout(long arg0, TimeUnit arg1, long arg2, TimeUnit arg3) {
-		// not supported yet
+	public void setTimeout(long timeout1, TimeUnit timeUnit1, long timeout2, TimeUnit timeUnit2) {
+		this.timeout1 = asMillis(timeout1, timeUnit1);
+		this.timeout2 = asMillis(timeout2, timeUnit2);
+	}
+
+	private static long asMillis(long duration, TimeUnit timeUnit) {
+		return (duration < 0) ? -1 : timeUnit.toMillis(duration);
 	}
 
 	@Override
 	public boolean isClosed() {
-		return false;
+		return closed;
 	}
 }
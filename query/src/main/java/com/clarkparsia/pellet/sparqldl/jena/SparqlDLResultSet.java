@@ -12,14 +12,18 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 
+import org.mindswap.pellet.exceptions.PelletRuntimeException;
 import org.mindswap.pellet.jena.JenaUtils;
 
 import aterm.ATermAppl;
 
+import com.clarkparsia.pellet.sparqldl.engine.QueryMonitor;
 import com.clarkparsia.pellet.sparqldl.model.QueryParameters;
 import com.clarkparsia.pellet.sparqldl.model.QueryResult;
 import com.clarkparsia.pellet.sparqldl.model.ResultBinding;
+import com.clarkparsia.pellet.sparqldl.model.StreamingQueryResult;
 import com.hp.hpl.jena.graph.Node;
+import com.hp.hpl.jena.query.QueryCancelledException;
 import com.hp.hpl.jena.query.QuerySolution;
 import com.hp.hpl.jena.query.ResultSetRewindable;
 import com.hp.hpl.jena.rdf.model.Model;
@@ -62,6 +66,8 @@ public class SparqlDLResultSet implements ResultSetRewindable {
 
 	private QueryParameters			parameters;
 
+	private QueryMonitor			monitor;
+
 	public SparqlDLResultSet(QueryResult answers, Model model) {
 		this( answers, model, null, null );
 	}
@@ -109,19 +115,39 @@ public class SparqlDLResultSet implements ResultSetRewindable {
 		return queryResult;
 	}
 
+	/**
+	 * Sets the monitor controlling the execution of the query. Once the
+	 * monitor is cancelled this result set throws
+	 * {@link QueryCancelledException}.
+	 */
+	public void setMonitor(QueryMonitor monitor) {
+		this.monitor = monitor;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
 	public boolean hasNext() {
-		return bindings.hasNext();
+		checkCancelled();
+		try {
+			return bindings.hasNext();
+		} catch( PelletRuntimeException e ) {
+			throw translate( e );
+		}
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	public Binding nextBinding() {
+		checkCancelled();
+		final ResultBinding binding;
+		try {
+			binding = bindings.next();
+		} catch( PelletRuntimeException e ) {
+			throw translate( e );
+		}
 		index++;
-		final ResultBinding binding = bindings.next();
 
 		BindingMap result = parent == null
 			? new BindingHashMap()
@@ -160,6 +186,21 @@ public class SparqlDLResultSet implements ResultSetRewindable {
 		return result;
 	}
 
+	private void checkCancelled() {
+		if( monitor != null && monitor.isCancelled() ) {
+			close();
+			throw new QueryCancelledException();
+		}
+	}
+
+	private RuntimeException translate(PelletRuntimeException e) {
+		if( monitor != null && monitor.isCancelled() ) {
+			close();
+			return new QueryCancelledException();
+		}
+		return e;
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -228,6 +269,15 @@ public class SparqlDLResultSet implements ResultSetRewindable {
 	public int size() {
 		return queryResult.size();
 	}
+
+	/**
+	 * Stops the computation of the remaining results if the results are
+	 * being streamed. No more results will be returned after this call.
+	 */
+	public void close() {
+		if( queryResult instanceof StreamingQueryResult )
+			((StreamingQueryResult) queryResult).close();
+	}
 	
 	public Model getResourceModel() {
 		return model;
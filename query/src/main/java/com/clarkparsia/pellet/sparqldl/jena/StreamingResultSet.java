@@ -0,0 +1,105 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.sparqldl.jena;
+
+import java.util.List;
+
+import com.hp.hpl.jena.query.QuerySolution;
+import com.hp.hpl.jena.query.ResultSet;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.sparql.engine.binding.Binding;
+
+/**
+ * <p>
+ * Title: ResultSet for streamed SPARQL-DL results
+ * </p>
+ * <p>
+ * Description: A result set over the answers of a query that are computed
+ * while the result set is iterated (see
+ * {@link org.mindswap.pellet.PelletOptions#STREAM_QUERY_RESULTS}). The
+ * answers are not stored so unlike {@link SparqlDLResultSet} this result set
+ * cannot be rewound and it can be iterated only once. It should be closed if
+ * it is not exhausted so the computation of the remaining answers is
+ * stopped.
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class StreamingResultSet implements ResultSet {
+	private SparqlDLResultSet	results;
+
+	public StreamingResultSet(SparqlDLResultSet results) {
+		this.results = results;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public boolean hasNext() {
+		return results.hasNext();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Binding nextBinding() {
+		return results.nextBinding();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public QuerySolution nextSolution() {
+		return results.nextSolution();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public QuerySolution next() {
+		return nextSolution();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public List<String> getResultVars() {
+		return results.getResultVars();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public int getRowNumber() {
+		return results.getRowNumber();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void remove() throws UnsupportedOperationException {
+		results.remove();
+	}
+
+	/**
+	 * Stops the computation of the remaining results. No more results will be
+	 * returned after this call.
+	 */
+	public void close() {
+		results.close();
+	}
+
+	public Model getResourceModel() {
+		return results.getResourceModel();
+	}
+
+	@Override
+	public String toString() {
+		return results.toString();
+	}
+}
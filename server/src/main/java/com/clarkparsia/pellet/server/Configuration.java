@@ -18,6 +18,8 @@ public class Configuration {
 	public static String PELLET_PORT = "pellet.port";
 	public static String PELLET_UPDATE_INTERVAL = "pellet.update.interval.sec";
 	public static String PELLET_MANAGEMENT_PASSWORD = "pellet.password";
+	public static String PELLET_EXPLANATION_THREADS = "pellet.explanation.threads";
+	public static String PELLET_EXPLANATION_TIMEOUT = "pellet.explanation.timeout.sec";
 
 	public static String getProperty(Properties properties, String key, String defaultValue) {
 		String val = properties.getProperty(key, defaultValue);
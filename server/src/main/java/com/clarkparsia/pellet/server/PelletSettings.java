@@ -3,6 +3,8 @@ package com.clarkparsia.pellet.server;
 import javax.inject.Inject;
 import java.util.Properties;
 
+import com.clarkparsia.pellet.server.reasoner.LocalSchemaReasoner;
+
 /**
  * Created by rgrinberg on 6/5/17.
  */
@@ -36,6 +38,14 @@ public class PelletSettings {
         return Configuration.getPropertyAsInteger(settings, Configuration.PELLET_UPDATE_INTERVAL, UPDATE_INTERVAL_DEFAULT_IN_SECONDS);
     }
 
+    public int explanationThreads() {
+        return Configuration.getPropertyAsInteger(settings, Configuration.PELLET_EXPLANATION_THREADS, LocalSchemaReasoner.DEFAULT_EXPLANATION_THREADS);
+    }
+
+    public int explanationTimeoutInSeconds() {
+        return Configuration.getPropertyAsInteger(settings, Configuration.PELLET_EXPLANATION_TIMEOUT, LocalSchemaReasoner.DEFAULT_EXPLANATION_TIMEOUT_IN_SECONDS);
+    }
+
 	public String managementPassword() {
 		final String pass = Configuration.getProperty(settings, Configuration.PELLET_MANAGEMENT_PASSWORD, null);
 		if (pass == null) {
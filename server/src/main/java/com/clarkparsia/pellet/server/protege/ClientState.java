@@ -8,6 +8,8 @@
 
 package com.clarkparsia.pellet.server.protege;
 
+import java.util.concurrent.ExecutorService;
+
 import com.clarkparsia.modularity.IncrementalReasoner;
 import com.clarkparsia.pellet.server.reasoner.LocalSchemaReasoner;
 import com.clarkparsia.pellet.service.reasoner.SchemaReasoner;
@@ -30,6 +32,13 @@ public class ClientState implements AutoCloseable {
 		this.version = version;
 	}
 
+	public ClientState(final IncrementalReasoner reasoner, final int version, final ExecutorService explanationExecutor, final int explanationTimeoutInSec) {
+		// create the reasoner with a copy of the incremental reasoner so it won't be affected if the original reasoner is updated
+		this.reasoner = new LocalSchemaReasoner(reasoner, explanationExecutor, explanationTimeoutInSec);
+		this.ontology = reasoner.getRootOntology();
+		this.version = version;
+	}
+
 	public SchemaReasoner getReasoner() {
 		return reasoner;
 	}
@@ -14,6 +14,7 @@ import java.nio.file.Path;
 import java.util.Objects;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -35,6 +36,7 @@ import org.semanticweb.owlapi.model.SetOntologyID;
 
 import com.clarkparsia.modularity.IncrementalReasoner;
 import com.clarkparsia.modularity.IncrementalReasonerConfiguration;
+import com.clarkparsia.pellet.server.reasoner.LocalSchemaReasoner;
 import com.google.common.base.Charsets;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -75,10 +77,28 @@ public class ProtegeOntologyState implements AutoCloseable {
 
 	public final Path path;
 
+	/**
+	 * Pool computing the explanations of all clients, shared with the other ontologies of the server
+	 */
+	private final ExecutorService explanationExecutor;
+
+	private final int explanationTimeoutInSec;
+
 	public ProtegeOntologyState(final LocalHttpClient client,
 															final ProjectId projectId,
 															final Path path) throws IOException, ClientRequestException, AuthorizationException {
+		this(client, projectId, path, LocalSchemaReasoner.defaultExplanationExecutor(),
+		     LocalSchemaReasoner.DEFAULT_EXPLANATION_TIMEOUT_IN_SECONDS);
+	}
+
+	public ProtegeOntologyState(final LocalHttpClient client,
+															final ProjectId projectId,
+															final Path path,
+															final ExecutorService explanationExecutor,
+															final int explanationTimeoutInSec) throws IOException, ClientRequestException, AuthorizationException {
 		this.path = path;
+		this.explanationExecutor = explanationExecutor;
+		this.explanationTimeoutInSec = explanationTimeoutInSec;
 
 		IncrementalReasonerConfiguration config = IncrementalReasoner.config().manager(MANAGER);
 		OWLOntology ont = null;
@@ -257,7 +277,7 @@ public class ProtegeOntologyState implements AutoCloseable {
 	private synchronized ClientState newClientState(final UUID user) {
 		int version = getVersion();
 		LOGGER.info("Creating new client for " + user + " with revision " + version);
-		return new ClientState(reasoner, version);
+		return new ClientState(reasoner, version, explanationExecutor, explanationTimeoutInSec);
 	}
 
 	public int hashCode() {
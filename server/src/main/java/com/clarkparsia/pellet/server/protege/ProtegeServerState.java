@@ -2,6 +2,7 @@ package com.clarkparsia.pellet.server.protege;
 
 import com.clarkparsia.pellet.server.PelletSettings;
 import com.clarkparsia.pellet.server.ProtegeSettings;
+import com.clarkparsia.pellet.server.reasoner.LocalSchemaReasoner;
 import com.google.common.base.Optional;
 import com.google.common.collect.Maps;
 import com.google.inject.Inject;
@@ -18,6 +19,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
@@ -42,6 +44,11 @@ public final class ProtegeServerState implements AutoCloseable {
 	private Map<IRI, ProtegeOntologyState> ontologies;
 	private final PelletSettings pelletSettings;
 
+	/**
+	 * Pool computing the explanations for the clients of all ontologies
+	 */
+	private ExecutorService explanationExecutor;
+
 	@Inject
 	public ProtegeServerState(final PelletSettings pelletSettings,
 														final ProtegeSettings protegeSettings,
@@ -57,6 +64,7 @@ public final class ProtegeServerState implements AutoCloseable {
 		this.manager = OWLManager.createOWLOntologyManager();
 		this.ontologies = Maps.newConcurrentMap();
 		this.client = ProtegeServiceUtils.connect(protegeSettings);
+		this.explanationExecutor = LocalSchemaReasoner.newExplanationExecutor(pelletSettings.explanationThreads());
 
 		Set<String> onts = this.ontologyProvider.classifiableProjects();
 		for (String ont : onts) {
@@ -107,7 +115,8 @@ public final class ProtegeServerState implements AutoCloseable {
 		try {
 			ProjectId projectID = new ProjectIdImpl(ontologyPath);
 			result = new ProtegeOntologyState(client, projectID,
-				Paths.get(pelletSettings.home()).resolve(projectID.get()).resolve("reasoner_state.bin"));
+				Paths.get(pelletSettings.home()).resolve(projectID.get()).resolve("reasoner_state.bin"),
+				explanationExecutor, pelletSettings.explanationTimeoutInSeconds());
 			LOGGER.info("Loaded revision " + result.getVersion());
 			if (result.isSnapShotLoaded()) {
 				result.update();
@@ -117,7 +126,8 @@ public final class ProtegeServerState implements AutoCloseable {
 				removeOntology(result.getIRI().get());
 				
 				result = new ProtegeOntologyState(client, projectID,
-						Paths.get(pelletSettings.home()).resolve(projectID.get()).resolve("reasoner_state.bin"));
+						Paths.get(pelletSettings.home()).resolve(projectID.get()).resolve("reasoner_state.bin"),
+				explanationExecutor, pelletSettings.explanationTimeoutInSeconds());
 								
 			}
 		}
@@ -157,5 +167,6 @@ public final class ProtegeServerState implements AutoCloseable {
 		for (ProtegeOntologyState ontology : ontologies()) {
 			ontology.close();
 		}
+		explanationExecutor.shutdownNow();
 	}
 }
@@ -8,9 +8,19 @@
 
 package com.clarkparsia.pellet.server.reasoner;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -20,10 +30,15 @@ import com.clarkparsia.owlapiv3.ImmutableNodeSet;
 import com.clarkparsia.owlapiv3.OWLListeningReasoner;
 import com.clarkparsia.owlapiv3.OntologyUtils;
 import com.clarkparsia.pellet.owlapiv3.PelletReasoner;
+import com.clarkparsia.pellet.owlapiv3.PelletReasonerFactory;
 import com.clarkparsia.pellet.service.reasoner.SchemaQuery;
 import com.clarkparsia.pellet.service.reasoner.SchemaQueryType;
 import com.clarkparsia.pellet.service.reasoner.SchemaReasoner;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.exceptions.TimeoutException;
+import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.EntityType;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLClass;
@@ -31,15 +46,30 @@ import org.semanticweb.owlapi.model.OWLDataProperty;
 import org.semanticweb.owlapi.model.OWLLogicalEntity;
 import org.semanticweb.owlapi.model.OWLObject;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyCreationException;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+import org.semanticweb.owlapi.model.OWLRuntimeException;
 import org.semanticweb.owlapi.model.OWLSubClassOfAxiom;
 import org.semanticweb.owlapi.reasoner.InferenceType;
 import org.semanticweb.owlapi.reasoner.NodeSet;
 import org.semanticweb.owlapi.reasoner.OWLReasoner;
+import uk.ac.manchester.cs.owlapi.modularity.ModuleType;
+import uk.ac.manchester.cs.owlapi.modularity.SyntacticLocalityModuleExtractor;
 
 /**
+ * Schema reasoner backed by a shared {@link IncrementalReasoner}. Explanations are computed by a pool of worker threads
+ * shared by all the reasoners of the server, each request using an isolated reasoner and ontology manager built from
+ * the locality module of the explained axiom, so explanation requests never modify the shared reasoner and do not
+ * block queries.
+ *
  * @author Evren Sirin
  */
 public class LocalSchemaReasoner implements SchemaReasoner {
+	public static final int DEFAULT_EXPLANATION_THREADS = 2;
+
+	public static final int DEFAULT_EXPLANATION_TIMEOUT_IN_SECONDS = 60;
+
 	private static final Map<EntityType<?>, EntityQueryEvaluator> QUERY_EVALUATORS = ImmutableMap
 		                                                                                 .<EntityType<?>, EntityQueryEvaluator>builder()
 		                                                                                 .put(EntityType.CLASS, new ClassQueryEvaluator())
@@ -47,23 +77,69 @@ public class LocalSchemaReasoner implements SchemaReasoner {
 		                                                                                 .put(EntityType.DATA_PROPERTY, new DataPropertyQueryEvaluator())
 		                                                                                 .build();
 
+	/**
+	 * Pool used by the reasoners that are not given one explicitly
+	 */
+	private static final ExecutorService DEFAULT_EXPLANATION_EXECUTOR = newExplanationExecutor(DEFAULT_EXPLANATION_THREADS);
+
 	private final OWLListeningReasoner reasoner;
 
-	private final PelletExplanation explanation;
 	private final ReadWriteLock lock = new ReentrantReadWriteLock();
 
+	private final ExecutorService explanationExecutor;
+
+	private final long explanationTimeout;
+
+	/**
+	 * Explanation requests of this reasoner that have not finished yet
+	 */
+	private final Set<ExplanationTask> explanationTasks = Collections.newSetFromMap(new ConcurrentHashMap<ExplanationTask, Boolean>());
+
 	public LocalSchemaReasoner(final IncrementalReasoner incremental) {
-		this(incremental, incremental.getReasoner());
+		this(incremental, DEFAULT_EXPLANATION_EXECUTOR, DEFAULT_EXPLANATION_TIMEOUT_IN_SECONDS);
 	}
 
-	private LocalSchemaReasoner(final OWLListeningReasoner reasoner,
-	                            final PelletReasoner pellet) {
-		this.reasoner = reasoner;
-		this.explanation = new PelletExplanation(pellet);
+	/**
+	 * @param incremental               the shared reasoner
+	 * @param explanationExecutor       pool computing explanations, shared with other reasoners and not shut down by
+	 *                                  {@link #close()}
+	 * @param explanationTimeoutInSec   maximum time in seconds an explanation request may take
+	 */
+	public LocalSchemaReasoner(final IncrementalReasoner incremental,
+	                           final ExecutorService explanationExecutor,
+	                           final int explanationTimeoutInSec) {
+		this.reasoner = incremental;
+		this.explanationExecutor = explanationExecutor;
+		this.explanationTimeout = TimeUnit.SECONDS.toMillis(explanationTimeoutInSec);
 
 		reasoner.setListenChanges(true);
 	}
 
+	/**
+	 * Returns the pool used by the reasoners that are not given one explicitly.
+	 */
+	public static ExecutorService defaultExplanationExecutor() {
+		return DEFAULT_EXPLANATION_EXECUTOR;
+	}
+
+	/**
+	 * Creates a pool of explanation worker threads that can be shared by all the reasoners of a server. Idle worker
+	 * threads are stopped so the pool does not hold any threads when no explanations are requested.
+	 */
+	public static ExecutorService newExplanationExecutor(final int threads) {
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+		                                                     new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+			@Override
+			public Thread newThread(final Runnable r) {
+				Thread t = new Thread(r, "explanation-worker");
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+
 	@Override
 	public <T extends OWLObject> NodeSet<T> query(final SchemaQuery query) {
 		lock.readLock().lock();
@@ -79,17 +155,123 @@ public class LocalSchemaReasoner implements SchemaReasoner {
 
 	@Override
 	public Set<Set<OWLAxiom>> explain(final OWLAxiom axiom, final int limit) {
-		// explanation generator makes changes to the ontology so we need to acquire the write lock to prevent overlapping updates
-		lock.writeLock().lock();
-		// we disable change tracking in the reasoner not to lose the current state. after explanations are computed ontology
-		// would be left back in its original state so we can resume listening changes
-		reasoner.setListenChanges(false);
+		// only the module of the axiom is read from the shared ontology, explanation generator modifies an isolated
+		// copy of the module so queries can run concurrently
+		final Set<OWLAxiom> module;
+		lock.readLock().lock();
 		try {
-			return explanation.getEntailmentExplanations(axiom, limit);
+			module = extractModule(axiom);
 		}
 		finally {
-			reasoner.setListenChanges(true);
-			lock.writeLock().unlock();
+			lock.readLock().unlock();
+		}
+
+		ExplanationTask task = new ExplanationTask(axiom, module, limit);
+		explanationTasks.add(task);
+		try {
+			Future<Set<Set<OWLAxiom>>> result = explanationExecutor.submit(task);
+			try {
+				return result.get(explanationTimeout, TimeUnit.MILLISECONDS);
+			}
+			catch (java.util.concurrent.TimeoutException e) {
+				task.cancel();
+				throw new TimeoutException("Explanation of " + axiom + " timed out after " + explanationTimeout + " ms");
+			}
+			catch (InterruptedException e) {
+				task.cancel();
+				Thread.currentThread().interrupt();
+				throw new OWLRuntimeException(e);
+			}
+			catch (ExecutionException e) {
+				throw Throwables.propagate(e.getCause());
+			}
+		}
+		finally {
+			explanationTasks.remove(task);
+		}
+	}
+
+	/**
+	 * Returns the axioms of the shared ontology that are in the STAR locality module of the signature of the axiom.
+	 * Explanations of the axiom only contain axioms from this module.
+	 */
+	private Set<OWLAxiom> extractModule(final OWLAxiom axiom) {
+		OWLOntology ontology = reasoner.getRootOntology();
+		SyntacticLocalityModuleExtractor extractor =
+			new SyntacticLocalityModuleExtractor(ontology.getOWLOntologyManager(), ontology, ModuleType.STAR);
+		return extractor.extract(axiom.getSignature());
+	}
+
+	/**
+	 * Computes the explanations of an axiom with a reasoner and an ontology manager created only for this request so
+	 * neither the shared reasoner nor any manager used by other threads is touched. Interrupting the worker thread does
+	 * not stop the tableau so a task is cancelled by interrupting the timers of its knowledge base instead.
+	 */
+	private class ExplanationTask implements Callable<Set<Set<OWLAxiom>>> {
+		private final OWLAxiom axiom;
+
+		private final Set<OWLAxiom> module;
+
+		private final int limit;
+
+		private volatile boolean cancelled = false;
+
+		private volatile KnowledgeBase kb;
+
+		private ExplanationTask(final OWLAxiom axiom, final Set<OWLAxiom> module, final int limit) {
+			this.axiom = axiom;
+			this.module = module;
+			this.limit = limit;
+		}
+
+		@Override
+		public Set<Set<OWLAxiom>> call() {
+			if (cancelled) {
+				throw new CancellationException();
+			}
+
+			OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+			OWLOntology ontology;
+			try {
+				ontology = manager.createOntology();
+			}
+			catch (OWLOntologyCreationException e) {
+				throw new OWLRuntimeException(e);
+			}
+			OntologyUtils.addAxioms(ontology, module);
+
+			PelletReasoner pellet = PelletReasonerFactory.getInstance().createReasoner(ontology);
+			PelletExplanation explanation = null;
+			try {
+				kb = pellet.getKB();
+				kb.setTimeout(explanationTimeout);
+				// the task might have been cancelled before the knowledge base was visible to cancel()
+				if (cancelled) {
+					throw new CancellationException();
+				}
+
+				explanation = new PelletExplanation(pellet);
+				explanation.setDebuggingManager(manager);
+				return explanation.getEntailmentExplanations(axiom, limit);
+			}
+			finally {
+				if (explanation != null) {
+					explanation.dispose();
+				}
+				pellet.dispose();
+				manager.removeOntology(ontology);
+			}
+		}
+
+		/**
+		 * Stops the task if it is running or prevents it from running if it is still queued.
+		 */
+		public void cancel() {
+			cancelled = true;
+			KnowledgeBase running = kb;
+			if (running != null) {
+				running.timers.interrupt();
+			}
 		}
 	}
 
@@ -128,7 +310,10 @@ public class LocalSchemaReasoner implements SchemaReasoner {
 
 	@Override
 	public void close() throws Exception {
-		explanation.dispose();
+		// the pool is shared with other reasoners so only the requests of this reasoner are cancelled
+		for (ExplanationTask task : explanationTasks) {
+			task.cancel();
+		}
 		reasoner.dispose();
 	}
 
@@ -0,0 +1,107 @@
+// Copyright (c) 2006 - 2015, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public
+// License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of
+// proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.server.reasoner;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+
+import com.clarkparsia.modularity.IncrementalReasoner;
+import com.clarkparsia.owlapiv3.OWL;
+import com.clarkparsia.owlapiv3.OntologyUtils;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mindswap.pellet.exceptions.TimeoutException;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class LocalSchemaReasonerTest {
+	private static final OWLClass A = OWL.Class("http://www.example.org/test#A");
+	private static final OWLClass B = OWL.Class("http://www.example.org/test#B");
+	private static final OWLClass C = OWL.Class("http://www.example.org/test#C");
+	private static final OWLClass D = OWL.Class("http://www.example.org/test#D");
+	private static final OWLClass E = OWL.Class("http://www.example.org/test#E");
+
+	private ExecutorService executor;
+
+	private OWLOntology ontology;
+
+	private IncrementalReasoner incremental;
+
+	@Before
+	public void before() throws Exception {
+		executor = LocalSchemaReasoner.newExplanationExecutor(2);
+
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		ontology = manager.createOntology();
+		OntologyUtils.addAxioms(ontology, ImmutableSet.<OWLAxiom>of(OWL.subClassOf(A, B),
+		                                                            OWL.subClassOf(B, C),
+		                                                            OWL.subClassOf(A, C),
+		                                                            OWL.subClassOf(D, E)));
+
+		incremental = IncrementalReasoner.config().createIncrementalReasoner(ontology);
+		incremental.classify();
+	}
+
+	@After
+	public void after() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void explainInModule() throws Exception {
+		LocalSchemaReasoner reasoner = new LocalSchemaReasoner(incremental, executor, 60);
+
+		Set<Set<OWLAxiom>> explanations = reasoner.explain(OWL.subClassOf(A, C), 10);
+
+		Set<Set<OWLAxiom>> expected = ImmutableSet.<Set<OWLAxiom>>of(
+			ImmutableSet.<OWLAxiom>of(OWL.subClassOf(A, C)),
+			ImmutableSet.<OWLAxiom>of(OWL.subClassOf(A, B), OWL.subClassOf(B, C)));
+		assertEquals(expected, explanations);
+
+		// the shared ontology is not modified by the explanation generator
+		assertEquals(4, ontology.getLogicalAxiomCount());
+
+		reasoner.close();
+	}
+
+	@Test
+	public void explainWithSharedPool() throws Exception {
+		// reasoners of different clients use the same pool
+		LocalSchemaReasoner reasoner1 = new LocalSchemaReasoner(incremental, executor, 60);
+		LocalSchemaReasoner reasoner2 = new LocalSchemaReasoner(incremental, executor, 60);
+
+		assertEquals(1, reasoner1.explain(OWL.subClassOf(B, C), 10).size());
+		assertEquals(1, reasoner2.explain(OWL.subClassOf(D, E), 10).size());
+	}
+
+	@Test
+	public void timeout() throws Exception {
+		LocalSchemaReasoner reasoner = new LocalSchemaReasoner(incremental, executor, 0);
+
+		try {
+			reasoner.explain(OWL.subClassOf(A, C), 10);
+			fail("Explanation should time out");
+		}
+		catch (TimeoutException e) {
+			// expected
+		}
+
+		// the cancelled request does not keep the pool from answering later requests
+		LocalSchemaReasoner other = new LocalSchemaReasoner(incremental, executor, 60);
+		assertEquals(2, other.explain(OWL.subClassOf(A, C), 10).size());
+	}
+}
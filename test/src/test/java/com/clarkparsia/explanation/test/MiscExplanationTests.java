@@ -10,9 +10,11 @@ package com.clarkparsia.explanation.test;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
@@ -32,7 +34,9 @@ import org.semanticweb.owlapi.model.OWLIndividual;
 import org.semanticweb.owlapi.model.OWLObjectProperty;
 import org.semanticweb.owlapi.model.OWLOntology;
 
+import com.clarkparsia.owlapi.explanation.ParallelHSTExplanationGenerator;
 import com.clarkparsia.owlapi.explanation.PelletExplanation;
+import com.clarkparsia.owlapi.explanation.UnsatisfiableClassesExplanation;
 import com.clarkparsia.owlapiv3.OWL;
 import com.clarkparsia.pellet.owlapiv3.PelletReasoner;
 import com.clarkparsia.pellet.owlapiv3.PelletReasonerFactory;
@@ -358,4 +362,144 @@ public class MiscExplanationTests {
 			}
 		}
 	}
+
+	@Test
+	public void testQuickXplainPruning() throws Exception {
+		OWLClass A = OWL.Class( "A" );
+		OWLClass C = OWL.Class( "C" );
+		OWLClass D = OWL.Class( "D" );
+
+		Set<OWLAxiom> expected = new HashSet<OWLAxiom>();
+		OWLClass sub = A;
+		for( int i = 0; i < 8; i++ ) {
+			OWLClass sup = OWL.Class( "B" + i );
+			expected.add( OWL.subClassOf( sub, sup ) );
+			sub = sup;
+		}
+		expected.add( OWL.subClassOf( sub, OWL.not( A ) ) );
+
+		Set<OWLAxiom> axioms = new HashSet<OWLAxiom>( expected );
+		axioms.add( OWL.subClassOf( A, C ) );
+		axioms.add( OWL.subClassOf( C, D ) );
+		axioms.add( OWL.subClassOf( D, OWL.Class( "B3" ) ) );
+
+		boolean useQuickXplain = PelletOptions.USE_QUICKXPLAIN_PRUNING;
+		try {
+			for( boolean option : new boolean[] { true, false } ) {
+				PelletOptions.USE_QUICKXPLAIN_PRUNING = option;
+
+				OWLOntology ontology = OWL.Ontology( axioms );
+				PelletReasoner reasoner = PelletReasonerFactory.getInstance().createReasoner( ontology );
+				PelletExplanation explain = new PelletExplanation( reasoner );
+
+				Set<Set<OWLAxiom>> explanations = explain.getUnsatisfiableExplanations( A );
+				assertEquals( 2, explanations.size() );
+				assertTrue( explanations.contains( expected ) );
+
+				reasoner.dispose();
+				OWL.manager.removeOntology( ontology );
+			}
+		} finally {
+			PelletOptions.USE_QUICKXPLAIN_PRUNING = useQuickXplain;
+		}
+	}
+
+	@Test
+	public void testParallelHST() throws Exception {
+		OWLClass A = OWL.Class( "A" );
+		OWLClass B = OWL.Class( "B" );
+		OWLClass C = OWL.Class( "C" );
+		OWLClass D = OWL.Class( "D" );
+		OWLClass E = OWL.Class( "E" );
+
+		Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+		axioms.add( OWL.subClassOf( A, B ) );
+		axioms.add( OWL.subClassOf( A, C ) );
+		axioms.add( OWL.subClassOf( A, D ) );
+		axioms.add( OWL.disjointClasses( B, C ) );
+		axioms.add( OWL.disjointClasses( C, D ) );
+		axioms.add( OWL.subClassOf( B, OWL.not( D ) ) );
+		axioms.add( OWL.subClassOf( E, B ) );
+
+		OWLOntology ontology = OWL.Ontology( axioms );
+		PelletReasoner reasoner = PelletReasonerFactory.getInstance().createReasoner( ontology );
+		PelletExplanation explain = new PelletExplanation( reasoner );
+		ParallelHSTExplanationGenerator parallel = new ParallelHSTExplanationGenerator( reasoner, 3 );
+
+		Set<Set<OWLAxiom>> expected = explain.getUnsatisfiableExplanations( A );
+		assertEquals( 3, expected.size() );
+		assertEquals( expected, parallel.getExplanations( A ) );
+		assertEquals( 2, parallel.getExplanations( A, 2 ).size() );
+		assertTrue( expected.contains( parallel.getExplanation( A ) ) );
+		assertTrue( parallel.getExplanations( E ).isEmpty() );
+
+		parallel.dispose();
+		explain.dispose();
+		reasoner.dispose();
+		OWL.manager.removeOntology( ontology );
+	}
+
+	@Test
+	public void testBatchUnsatisfiableClasses() throws Exception {
+		OWLClass A = OWL.Class( "A" );
+		OWLClass B = OWL.Class( "B" );
+		OWLClass C = OWL.Class( "C" );
+		OWLClass D = OWL.Class( "D" );
+		OWLClass E = OWL.Class( "E" );
+		OWLClass F = OWL.Class( "F" );
+		OWLClass G = OWL.Class( "G" );
+		OWLClass H = OWL.Class( "H" );
+		OWLObjectProperty p = OWL.ObjectProperty( "p" );
+
+		Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
+		axioms.add( OWL.subClassOf( A, B ) );
+		axioms.add( OWL.subClassOf( A, OWL.not( B ) ) );
+		axioms.add( OWL.subClassOf( C, A ) );
+		axioms.add( OWL.subClassOf( D, OWL.some( p, C ) ) );
+		axioms.add( OWL.equivalentClasses( E, OWL.and( D, F ) ) );
+		axioms.add( OWL.subClassOf( G, H ) );
+		axioms.add( OWL.subClassOf( H, G ) );
+		axioms.add( OWL.subClassOf( G, OWL.not( H ) ) );
+
+		OWLOntology ontology = OWL.Ontology( axioms );
+		PelletReasoner reasoner = PelletReasonerFactory.getInstance().createReasoner( ontology );
+		PelletExplanation explain = new PelletExplanation( reasoner );
+
+		Set<OWLClass> unsatClasses = reasoner.getEquivalentClasses( OWL.Nothing ).getEntitiesMinusBottom();
+		assertEquals( 6, unsatClasses.size() );
+
+		UnsatisfiableClassesExplanation batch = new UnsatisfiableClassesExplanation( explain, ontology,
+				unsatClasses );
+		assertEquals( SetUtils.create( A, G, H ), batch.getRootClasses() );
+		assertEquals( A, batch.getDependency( C ) );
+		assertEquals( C, batch.getDependency( D ) );
+		assertEquals( D, batch.getDependency( E ) );
+
+		final List<OWLClass> explained = new ArrayList<OWLClass>();
+		final List<Set<Set<OWLAxiom>>> results = new ArrayList<Set<Set<OWLAxiom>>>();
+		batch.explain( 0, new UnsatisfiableClassesExplanation.Listener() {
+			public void explained(OWLClass unsatClass, OWLClass dependency,
+					Set<Set<OWLAxiom>> explanations) {
+				explained.add( unsatClass );
+				results.add( explanations );
+			}
+		} );
+
+		assertEquals( unsatClasses, new HashSet<OWLClass>( explained ) );
+		assertEquals( 6, explained.size() );
+		assertTrue( explained.indexOf( A ) < explained.indexOf( C ) );
+		assertTrue( explained.indexOf( C ) < explained.indexOf( D ) );
+		assertTrue( explained.indexOf( D ) < explained.indexOf( E ) );
+
+		Set<Set<OWLAxiom>> distinct = new HashSet<Set<OWLAxiom>>();
+		for( int i = 0; i < explained.size(); i++ ) {
+			assertEquals( explain.getUnsatisfiableExplanations( explained.get( i ) ), results.get( i ) );
+			distinct.addAll( results.get( i ) );
+		}
+		assertEquals( distinct.size(), batch.getJustificationCount() );
+
+		explain.dispose();
+		reasoner.dispose();
+		OWL.manager.removeOntology( ontology );
+	}
 }
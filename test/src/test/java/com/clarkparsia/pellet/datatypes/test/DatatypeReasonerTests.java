@@ -32,7 +32,9 @@ import static com.clarkparsia.pellet.utils.TermFactory.restrict;
 import static com.clarkparsia.pellet.utils.TermFactory.term;
 import static com.clarkparsia.pellet.utils.TermFactory.value;
 import static java.util.Collections.singleton;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mindswap.pellet.test.PelletTestCase.assertSubClass;
 
@@ -765,6 +767,48 @@ public class DatatypeReasonerTests {
 		assertSubClass(kb, D, C, false);
 	}
 
+	/**
+	 * Verify that conjunctions that differ only in the order of their elements share the cached result and that the
+	 * cache is cleared when a datatype is defined.
+	 */
+	@Test
+	public void cachedConjunctions() throws InvalidConstrainingFacetException, InvalidLiteralException,
+	                UnrecognizedDatatypeException {
+		final DatatypeReasonerImpl impl = (DatatypeReasonerImpl) reasoner;
+		final ATermAppl dt1 = restrict(INTEGER, minInclusive(literal(1)), maxInclusive(literal(3)));
+		final ATermAppl dt2 = restrict(INTEGER, minInclusive(literal(3)), maxInclusive(literal(5)));
+
+		assertTrue(reasoner.isSatisfiable(Arrays.asList(dt1, dt2)));
+		final int hits = impl.getCache().getHits();
+		assertTrue(reasoner.isSatisfiable(Arrays.asList(dt2, dt1)));
+		assertEquals(hits + 1, impl.getCache().getHits());
+
+		assertTrue(reasoner.containsAtLeast(1, Arrays.asList(dt1, dt2)));
+		assertFalse(reasoner.containsAtLeast(2, Arrays.asList(dt2, dt1)));
+
+		final ATermAppl name = term("http://example.org#smallInt");
+		assertTrue(reasoner.define(name, restrict(INTEGER, maxInclusive(literal(2)))));
+		assertEquals(0, impl.getCache().size());
+		assertFalse(reasoner.isSatisfiable(Arrays.asList(name, dt2)));
+	}
+
+	/**
+	 * Verify that the canonical form of a literal is parsed once and that all forms of a value share the value object.
+	 */
+	@Test
+	public void internedLiterals() throws InvalidLiteralException, UnrecognizedDatatypeException {
+		final DatatypeReasonerImpl impl = (DatatypeReasonerImpl) reasoner;
+		final ATermAppl lexical = literal("01", INTEGER);
+		final ATermAppl canonical = reasoner.getCanonicalRepresentation(lexical);
+
+		assertEquals(literal("1", DECIMAL), canonical);
+		assertSame(canonical, reasoner.getCanonicalRepresentation(lexical));
+
+		final Object value = reasoner.getValue(canonical);
+		assertSame(value, reasoner.getValue(lexical));
+		assertTrue(impl.getLiteralTable().getHits() > 0);
+	}
+
 	@Ignore("See ticket #524")
 	@Test
 	public void incomparableDateTime() throws InvalidConstrainingFacetException, InvalidLiteralException,
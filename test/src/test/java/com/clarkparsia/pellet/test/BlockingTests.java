@@ -17,13 +17,20 @@ import static com.clarkparsia.pellet.utils.TermFactory.inv;
 import static com.clarkparsia.pellet.utils.TermFactory.list;
 import static com.clarkparsia.pellet.utils.TermFactory.max;
 import static com.clarkparsia.pellet.utils.TermFactory.not;
+import static com.clarkparsia.pellet.utils.TermFactory.or;
 import static com.clarkparsia.pellet.utils.TermFactory.some;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import junit.framework.JUnit4TestAdapter;
 
 import org.junit.Test;
+import org.mindswap.pellet.ABox;
+import org.mindswap.pellet.Individual;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.tableau.blocking.BlockingIndex;
 import org.mindswap.pellet.test.AbstractKBTests;
 import org.mindswap.pellet.test.MiscTests;
 
@@ -176,4 +183,87 @@ public class BlockingTests extends AbstractKBTests {
 		assertTrue( kb.isSatisfiable( A ) );
 	}	
 
+	@Test
+	public void blockingIndex() {
+		boolean useBlockingIndex = PelletOptions.USE_BLOCKING_INDEX;
+		try {
+			for( boolean useIndex : new boolean[] { true, false } ) {
+				PelletOptions.USE_BLOCKING_INDEX = useIndex;
+
+				// many equivalent successors in different subtrees
+				kb = new KnowledgeBase();
+				classes( C, D, E );
+				objectProperties( p, q );
+				individuals( a, b );
+
+				kb.addSubClass( D, some( p, D ) );
+				kb.addSubClass( D, some( q, D ) );
+				kb.addSubClass( D, or( C, E ) );
+				kb.addType( a, D );
+				kb.addType( b, D );
+
+				assertTrue( kb.isConsistent() );
+				assertTrue( kb.isSatisfiable( D ) );
+				assertTrue( kb.isSatisfiable( and( D, not( C ) ) ) );
+
+				kb.addSubClass( D, all( p, all( q, not( E ) ) ) );
+				kb.addSubClass( C, not( D ) );
+
+				assertFalse( kb.isSatisfiable( D ) );
+				assertFalse( kb.isConsistent() );
+
+				// inverses require equality blocking
+				kb = new KnowledgeBase();
+				classes( C, D, E );
+				objectProperties( p, q );
+
+				kb.addSubClass( D, some( p, and( D, some( q, D ) ) ) );
+				kb.addSubClass( D, all( inv( p ), E ) );
+
+				assertTrue( kb.isConsistent() );
+				assertTrue( kb.isSatisfiable( D ) );
+				assertFalse( kb.isSatisfiable( and( D, some( inv( q ), and( D, not( E ) ) ) ) ) );
+			}
+		}
+		finally {
+			PelletOptions.USE_BLOCKING_INDEX = useBlockingIndex;
+		}
+	}
+
+	@Test
+	public void blockingIndexRestore() {
+		individuals( a, b );
+		assertTrue( kb.isConsistent() );
+
+		ABox abox = kb.getABox();
+		Individual ia = abox.getIndividual( a );
+		Individual ib = abox.getIndividual( b );
+		BlockingIndex index = new BlockingIndex( abox );
+		int branch = abox.getBranch();
+
+		try {
+			abox.setBranch( branch + 1 );
+			index.register( ia, 1 );
+			abox.setBranch( branch + 2 );
+			index.register( ia, 2 );
+			index.register( ib, 2 );
+			abox.setBranch( branch + 3 );
+			index.register( ib, 3 );
+			assertEquals( asList( ia ), index.getCandidates( 2 ) );
+
+			// the registrations after the branch are undone and the ones they
+			// replaced are restored
+			index.restore( branch + 1 );
+			assertEquals( asList( ia ), index.getCandidates( 1 ) );
+			assertTrue( index.getCandidates( 2 ).isEmpty() );
+			assertTrue( index.getCandidates( 3 ).isEmpty() );
+			assertEquals( 1, index.size() );
+
+			index.restore( branch );
+			assertEquals( 0, index.size() );
+		}
+		finally {
+			abox.setBranch( branch );
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,176 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.test;
+
+import static com.clarkparsia.pellet.utils.TermFactory.TOP;
+import static com.clarkparsia.pellet.utils.TermFactory.and;
+import static com.clarkparsia.pellet.utils.TermFactory.not;
+import static com.clarkparsia.pellet.utils.TermFactory.or;
+import static com.clarkparsia.pellet.utils.TermFactory.some;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.tableau.cache.ModuleFingerprinter;
+import org.mindswap.pellet.tableau.cache.PersistentConceptCache;
+import org.mindswap.pellet.test.AbstractKBTests;
+
+/**
+ * <p>
+ * Title: Persistent Cache Tests
+ * </p>
+ * <p>
+ * Description: Tests for reusing concept satisfiability results saved by a
+ * previous session and for invalidating them when their module changes
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class PersistentCacheTests extends AbstractKBTests {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter( PersistentCacheTests.class );
+	}
+
+	private File	file;
+
+	@Before
+	public void createFile() throws IOException {
+		file = File.createTempFile( "pellet-cache", ".bin" );
+		file.delete();
+	}
+
+	@After
+	public void deleteFile() {
+		file.delete();
+	}
+
+	/**
+	 * Creates a new KB, as a new session would, that uses the cache file.
+	 */
+	private PersistentConceptCache createKB(boolean subBC) {
+		kb = new KnowledgeBase();
+		classes( A, B, C, D, E, F, G );
+
+		kb.addSubClass( A, B );
+		if( subBC )
+			kb.addSubClass( B, C );
+		kb.addSubClass( D, and( A, not( C ) ) );
+		kb.addSubClass( E, or( F, G ) );
+		kb.addSubClass( F, G );
+
+		PersistentConceptCache cache = new PersistentConceptCache( file );
+		kb.setPersistentConceptCache( cache );
+
+		return cache;
+	}
+
+	private void checkResults(boolean subBC) {
+		assertTrue( kb.isSatisfiable( A ) );
+		assertTrue( kb.isSatisfiable( E ) );
+		assertEquals( !subBC, kb.isSatisfiable( D ) );
+		assertEquals( subBC, kb.isSubClassOf( A, C ) );
+		assertTrue( kb.isSubClassOf( E, G ) );
+		assertFalse( kb.isSubClassOf( G, E ) );
+	}
+
+	@Test
+	public void reuseResults() throws IOException {
+		PersistentConceptCache cache = createKB( true );
+		checkResults( true );
+		assertEquals( 0, cache.getHits() );
+		assertTrue( cache.isModified() );
+
+		cache.save();
+		assertFalse( cache.isModified() );
+		assertTrue( file.exists() );
+
+		cache = createKB( true );
+		assertTrue( cache.size() > 0 );
+		checkResults( true );
+		assertTrue( cache.getHits() > 0 );
+		assertEquals( 0, cache.getInvalidated() );
+	}
+
+	@Test
+	public void saveAfterClassification() {
+		PersistentConceptCache cache = createKB( true );
+		kb.classify();
+		assertFalse( cache.isModified() );
+		assertTrue( file.exists() );
+
+		cache = createKB( true );
+		kb.classify();
+		assertTrue( cache.getHits() > 0 );
+		assertTrue( kb.isSubClassOf( E, G ) );
+		assertFalse( kb.isSatisfiable( D ) );
+	}
+
+	@Test
+	public void invalidateChangedModule() throws IOException {
+		PersistentConceptCache cache = createKB( true );
+		checkResults( true );
+		cache.save();
+
+		cache = createKB( false );
+		checkResults( false );
+		assertTrue( cache.getInvalidated() > 0 );
+		// the results for E do not depend on the removed axiom
+		assertTrue( cache.getHits() > 0 );
+	}
+
+	@Test
+	public void fingerprints() {
+		classes( A, B, C, D, E, F );
+		objectProperties( p );
+		kb.addSubClass( A, B );
+		kb.addSubClass( C, D );
+		kb.prepare();
+
+		ModuleFingerprinter modules = new ModuleFingerprinter( kb );
+		long fpA = modules.getFingerprint( A );
+		long fpAD = modules.getFingerprint( A, D );
+
+		// axioms outside the modules
+		kb.addSubClass( C, E );
+		kb.prepare();
+		modules = new ModuleFingerprinter( kb );
+		assertEquals( fpA, modules.getFingerprint( A ) );
+		assertEquals( fpAD, modules.getFingerprint( A, D ) );
+
+		// axiom only in the module of the conjunction
+		kb.addSubClass( and( B, D ), F );
+		kb.prepare();
+		modules = new ModuleFingerprinter( kb );
+		assertEquals( fpA, modules.getFingerprint( A ) );
+		assertFalse( fpAD == modules.getFingerprint( A, D ) );
+
+		// axiom in the module of A
+		kb.addSubClass( B, some( p, TOP ) );
+		kb.prepare();
+		modules = new ModuleFingerprinter( kb );
+		assertFalse( fpA == modules.getFingerprint( A ) );
+		fpA = modules.getFingerprint( A );
+
+		// role axiom for a role in the module of A
+		kb.addDomain( p, E );
+		kb.prepare();
+		modules = new ModuleFingerprinter( kb );
+		assertFalse( fpA == modules.getFingerprint( A ) );
+		assertTrue( modules.isInModule( A, E ) );
+		assertFalse( modules.isInModule( A, C ) );
+	}
+}
@@ -0,0 +1,154 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.test.jena;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import org.junit.Test;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.exceptions.UnsupportedFeatureException;
+import org.mindswap.pellet.jena.graph.loader.StreamingLoader;
+import org.mindswap.pellet.utils.ATermUtils;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Tests for the streaming loader
+ * </p>
+ * <p>
+ * Description:
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class StreamingLoaderTest {
+	private static final String	NS	= "http://example.org/test#";
+
+	private static ATermAppl term(String name) {
+		return ATermUtils.makeTermAppl( NS + name );
+	}
+
+	private static File write(String suffix, String content) throws IOException {
+		File file = File.createTempFile( "pellet-loader", suffix );
+		file.deleteOnExit();
+		Writer out = new OutputStreamWriter( new FileOutputStream( file ), "UTF-8" );
+		try {
+			out.write( content );
+		} finally {
+			out.close();
+		}
+		return file;
+	}
+
+	private static String triple(String s, String p, String o) {
+		return "<" + NS + s + "> <" + NS + p + "> " + o + " .\n";
+	}
+
+	private static KnowledgeBase createKB() {
+		KnowledgeBase kb = new KnowledgeBase();
+		kb.addClass( term( "A" ) );
+		kb.addClass( term( "B" ) );
+		kb.addSubClass( term( "B" ), term( "A" ) );
+		kb.addObjectProperty( term( "p" ) );
+		kb.addDatatypeProperty( term( "d" ) );
+		return kb;
+	}
+
+	@Test
+	public void chunkedNTriples() throws IOException {
+		StringBuilder data = new StringBuilder();
+		for( int i = 0; i < 100; i++ ) {
+			data.append( "<" + NS + "i" + i
+					+ "> <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <" + NS + "B> .\n" );
+			data.append( triple( "i" + i, "p", "<" + NS + "i" + (i + 1) + ">" ) );
+			data.append( triple( "i" + i, "d", "\"" + i
+					+ "\"^^<http://www.w3.org/2001/XMLSchema#integer>" ) );
+		}
+		// blank nodes and undeclared properties go through the graph loader
+		data.append( triple( "i0", "p", "_:x" ) );
+		data.append( "_:x <http://www.w3.org/1999/02/22-rdf-syntax-ns#type> <" + NS + "A> .\n" );
+		data.append( triple( "i0", "q", "<" + NS + "i1>" ) );
+
+		File file = write( ".nt", data.toString() );
+
+		KnowledgeBase kb = createKB();
+		StreamingLoader loader = new StreamingLoader( kb );
+		loader.setThreads( 3 );
+		loader.setBatchSize( 7 );
+		loader.setChunkSize( 256 );
+		loader.load( file.getAbsolutePath() );
+
+		assertEquals( 300, loader.getStreamedTriples() );
+		assertEquals( 3, loader.getResidualTriples() );
+
+		assertTrue( kb.isConsistent() );
+		assertTrue( kb.isType( term( "i99" ), term( "A" ) ) );
+		assertTrue( kb.hasPropertyValue( term( "i5" ), term( "p" ), term( "i6" ) ) );
+		assertTrue( kb.hasPropertyValue( term( "i0" ), term( "q" ), term( "i1" ) ) );
+		assertEquals( 1, kb.getDataPropertyValues( term( "d" ), term( "i42" ) ).size() );
+	}
+
+	@Test
+	public void turtle() throws IOException {
+		File file = write( ".ttl", "@prefix : <" + NS + "> .\n"
+				+ ":a a :B ; :p :b .\n"
+				+ ":b :d \"text\" .\n" );
+
+		KnowledgeBase kb = createKB();
+		StreamingLoader loader = new StreamingLoader( kb );
+		loader.load( file.getAbsolutePath() );
+
+		assertEquals( 3, loader.getStreamedTriples() );
+		assertEquals( 0, loader.getResidualTriples() );
+
+		assertTrue( kb.isType( term( "a" ), term( "A" ) ) );
+		assertTrue( kb.hasPropertyValue( term( "a" ), term( "p" ), term( "b" ) ) );
+		assertTrue( kb.hasPropertyValue( term( "b" ), term( "d" ), ATermUtils
+				.makePlainLiteral( "text" ) ) );
+	}
+
+	@Test
+	public void blankNodesScopedToFile() throws IOException {
+		String type = "<http://www.w3.org/1999/02/22-rdf-syntax-ns#type>";
+		File file1 = write( ".nt", triple( "i0", "p", "_:x" ) + "_:x " + type + " <" + NS + "A> .\n" );
+		File file2 = write( ".nt", triple( "i1", "p", "_:x" ) + "_:x " + type + " <" + NS + "B> .\n" );
+
+		KnowledgeBase kb = createKB();
+		StreamingLoader loader = new StreamingLoader( kb );
+		loader.load( file1.getAbsolutePath(), file2.getAbsolutePath() );
+
+		assertEquals( 4, loader.getResidualTriples() );
+
+		// the same label in different files denotes different blank nodes
+		assertTrue( kb.isType( term( "i0" ), ATermUtils.makeSomeValues( term( "p" ), term( "A" ) ) ) );
+		assertFalse( kb.isType( term( "i0" ), ATermUtils.makeSomeValues( term( "p" ), term( "B" ) ) ) );
+		assertTrue( kb.isType( term( "i1" ), ATermUtils.makeSomeValues( term( "p" ), term( "B" ) ) ) );
+	}
+
+	@Test(expected = UnsupportedFeatureException.class)
+	public void maxBlankNodeBytes() throws IOException {
+		StringBuilder data = new StringBuilder();
+		for( int i = 0; i < 10; i++ ) {
+			data.append( triple( "i" + i, "p", "_:x" + i ) );
+		}
+		File file = write( ".nt", data.toString() );
+
+		StreamingLoader loader = new StreamingLoader( createKB() );
+		loader.setMaxBlankNodeBytes( 100 );
+		loader.load( file.getAbsolutePath() );
+	}
+}
@@ -0,0 +1,137 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.test.query;
+
+import static com.clarkparsia.pellet.sparqldl.model.QueryAtomFactory.PropertyValueAtom;
+import static com.clarkparsia.pellet.sparqldl.model.QueryAtomFactory.TypeAtom;
+import static com.clarkparsia.pellet.sparqldl.model.QueryAtomFactory.UnionAtom;
+import static com.clarkparsia.pellet.utils.TermFactory.var;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mindswap.pellet.PelletOptions;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.sparqldl.engine.QueryEngine;
+import com.clarkparsia.pellet.sparqldl.model.Query;
+import com.clarkparsia.pellet.sparqldl.model.QueryImpl;
+import com.clarkparsia.pellet.sparqldl.model.Query.VarType;
+import com.clarkparsia.pellet.sparqldl.model.ResultBinding;
+
+/**
+ * <p>
+ * Title: Tests for concurrent evaluation of query components
+ * </p>
+ * <p>
+ * Description:
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class TestParallelQueries extends AbstractQueryTest {
+	private int	threads;
+
+	@Before
+	public void setThreads() {
+		threads = PelletOptions.QUERY_THREADS;
+		PelletOptions.QUERY_THREADS = 3;
+	}
+
+	@After
+	public void resetThreads() {
+		PelletOptions.QUERY_THREADS = threads;
+	}
+
+	private void createKB() {
+		classes( A, B, C );
+		objectProperties( p );
+		individuals( a, b, c, d, e );
+
+		kb.addSubClass( C, B );
+		kb.addType( a, A );
+		kb.addType( b, A );
+		kb.addType( c, C );
+		kb.addType( d, B );
+
+		kb.addPropertyValue( p, a, d );
+		kb.addPropertyValue( p, b, e );
+	}
+
+	@Test
+	public void components() {
+		createKB();
+		kb.realize();
+
+		ATermAppl z = var( "z" );
+
+		Query q = query( select( x, y, z ), where( TypeAtom( x, A ), TypeAtom( y, B ),
+				PropertyValueAtom( z, p, e ) ) );
+
+		testQuery( q, new ATermAppl[][] { { a, c, b }, { a, d, b }, { b, c, b }, { b, d, b } } );
+	}
+
+	@Test
+	public void unrealizedKB() {
+		createKB();
+
+		Query q = query( select( x, y ), where( TypeAtom( x, A ), TypeAtom( y, B ) ) );
+
+		testQuery( q, new ATermAppl[][] { { a, c }, { a, d }, { b, c }, { b, d } } );
+
+		// the components are answered sequentially instead of realizing the
+		// KB for the workers
+		assertFalse( kb.isRealized() );
+	}
+
+	@Test
+	public void undistinguishedComponent() {
+		createKB();
+
+		// the second component has neither constants nor distinguished
+		// variables so it is answered by changing the shared RBox
+		Query q = new QueryImpl( kb, true );
+		q.addResultVar( x );
+		q.addDistVar( x, VarType.INDIVIDUAL );
+		q.add( TypeAtom( x, A ) );
+		q.add( PropertyValueAtom( y, p, z ) );
+
+		testQuery( q, new ATermAppl[][] { { a }, { b } } );
+	}
+
+	@Test
+	public void streamedComponents() {
+		createKB();
+
+		Query q = query( select( x, y ), where( TypeAtom( x, A ), TypeAtom( y, B ) ) );
+
+		Set<ResultBinding> answers = new HashSet<ResultBinding>();
+		for( ResultBinding binding : QueryEngine.execStreaming( q ) ) {
+			answers.add( binding );
+		}
+
+		assertEquals( 4, answers.size() );
+	}
+
+	@Test
+	public void union() {
+		createKB();
+
+		Query q = query( select( x ), where( UnionAtom( Arrays.asList(
+				Arrays.asList( TypeAtom( x, A ) ), Arrays.asList( TypeAtom( x, C ) ) ) ) ) );
+
+		testQuery( q, new ATermAppl[][] { { a }, { b }, { c } } );
+	}
+}
@@ -0,0 +1,176 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.test.query;
+
+import static com.clarkparsia.pellet.sparqldl.model.QueryAtomFactory.PropertyValueAtom;
+import static com.clarkparsia.pellet.sparqldl.model.QueryAtomFactory.TypeAtom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.PelletOptions;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.sparqldl.engine.QueryCache;
+import com.clarkparsia.pellet.sparqldl.engine.QueryEngine;
+import com.clarkparsia.pellet.sparqldl.model.Query;
+import com.clarkparsia.pellet.sparqldl.model.ResultBinding;
+
+/**
+ * <p>
+ * Title: Tests for the query answer cache
+ * </p>
+ * <p>
+ * Description:
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class TestQueryCache extends AbstractQueryTest {
+	private boolean	useCache;
+
+	@Before
+	public void enableCache() {
+		useCache = PelletOptions.USE_QUERY_CACHE;
+		PelletOptions.USE_QUERY_CACHE = true;
+	}
+
+	@After
+	public void resetCache() {
+		PelletOptions.USE_QUERY_CACHE = useCache;
+	}
+
+	private void createKB() {
+		classes( A, B, C );
+		objectProperties( p );
+		individuals( a, b, c, d );
+
+		kb.addSubClass( B, A );
+		kb.addType( a, A );
+		kb.addType( b, B );
+		kb.addType( c, B );
+
+		kb.addPropertyValue( p, a, b );
+	}
+
+	@Test
+	public void repeatedQuery() {
+		createKB();
+
+		QueryCache cache = QueryCache.getCache( kb );
+
+		testQuery( query( select( x ), where( TypeAtom( x, A ) ) ), new ATermAppl[][] { { a },
+				{ b }, { c } } );
+		assertEquals( 1, cache.getMisses() );
+
+		testQuery( query( select( x ), where( TypeAtom( x, A ) ) ), new ATermAppl[][] { { a },
+				{ b }, { c } } );
+		assertEquals( 1, cache.getHits() );
+		assertEquals( 1, cache.getMisses() );
+	}
+
+	@Test
+	public void subsumedQuery() {
+		createKB();
+
+		QueryCache cache = QueryCache.getCache( kb );
+
+		testQuery( query( select( x ), where( TypeAtom( x, A ) ) ), new ATermAppl[][] { { a },
+				{ b }, { c } } );
+
+		testQuery( query( select( x ), where( TypeAtom( x, B ) ) ), new ATermAppl[][] { { b },
+				{ c } } );
+		assertEquals( 1, cache.getSubsumptionHits() );
+
+		testQuery( query( select( x, y ), where( PropertyValueAtom( x, p, y ) ) ),
+				new ATermAppl[][] { { a, b } } );
+
+		testQuery( query( select( x, y ), where( PropertyValueAtom( x, p, y ), TypeAtom( y, C ) ) ) );
+		assertEquals( 2, cache.getSubsumptionHits() );
+	}
+
+	@Test
+	public void invalidation() {
+		createKB();
+
+		QueryCache cache = QueryCache.getCache( kb );
+
+		testQuery( query( select( x ), where( TypeAtom( x, B ) ) ), new ATermAppl[][] { { b },
+				{ c } } );
+
+		kb.addType( d, B );
+
+		testQuery( query( select( x ), where( TypeAtom( x, B ) ) ), new ATermAppl[][] { { b },
+				{ c }, { d } } );
+		assertEquals( 0, cache.getHits() );
+		assertEquals( 2, cache.getMisses() );
+
+		kb.addSubClass( C, B );
+		kb.addType( a, C );
+
+		testQuery( query( select( x ), where( TypeAtom( x, B ) ) ), new ATermAppl[][] { { a },
+				{ b }, { c }, { d } } );
+		assertEquals( 0, cache.getHits() );
+	}
+
+	@Test
+	public void streamedQuery() {
+		createKB();
+
+		QueryCache cache = QueryCache.getCache( kb );
+
+		Query q1 = query( select( x ), where( TypeAtom( x, A ) ) );
+		Query q2 = query( select( x ), where( TypeAtom( x, A ) ) );
+
+		Set<ResultBinding> streamed = new HashSet<ResultBinding>();
+		for( ResultBinding binding : QueryEngine.execStreaming( q1 ) ) {
+			streamed.add( binding );
+		}
+		assertEquals( 3, streamed.size() );
+		assertEquals( 1, cache.size() );
+
+		assertEquals( streamed, new HashSet<ResultBinding>( toList( QueryEngine.exec( q2 ) ) ) );
+		assertEquals( 1, cache.getHits() );
+	}
+
+	@Test
+	public void cacheDoesNotRetainKB() throws InterruptedException {
+		createKB();
+
+		testQuery( query( select( x ), where( TypeAtom( x, A ) ) ), new ATermAppl[][] { { a },
+				{ b }, { c } } );
+		assertEquals( 1, QueryCache.getCache( kb ).size() );
+
+		// the cache is kept by the KB so both can be garbage collected
+		WeakReference<KnowledgeBase> ref = new WeakReference<KnowledgeBase>( kb );
+		kb = null;
+		for( int i = 0; i < 20 && ref.get() != null; i++ ) {
+			System.gc();
+			Thread.sleep( 50 );
+		}
+		assertNull( ref.get() );
+	}
+
+	private static List<ResultBinding> toList(Iterable<ResultBinding> result) {
+		List<ResultBinding> list = new ArrayList<ResultBinding>();
+		for( ResultBinding binding : result ) {
+			list.add( binding );
+		}
+		return list;
+	}
+}
@@ -0,0 +1,286 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package com.clarkparsia.pellet.test.query;
+
+import static com.clarkparsia.pellet.sparqldl.model.QueryAtomFactory.PropertyValueAtom;
+import static com.clarkparsia.pellet.sparqldl.model.QueryAtomFactory.TypeAtom;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.mindswap.pellet.exceptions.TimeoutException;
+import org.mindswap.pellet.exceptions.TimerInterruptedException;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.sparqldl.engine.QueryEngine;
+import com.clarkparsia.pellet.sparqldl.engine.QueryMonitor;
+import com.clarkparsia.pellet.sparqldl.model.Query;
+import com.clarkparsia.pellet.sparqldl.model.QueryResult;
+import com.clarkparsia.pellet.sparqldl.model.ResultBinding;
+import com.clarkparsia.pellet.sparqldl.model.ResultBindingImpl;
+import com.clarkparsia.pellet.sparqldl.model.StreamingQueryResult;
+
+/**
+ * <p>
+ * Title: Tests for lazily evaluated query results
+ * </p>
+ * <p>
+ * Description:
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class TestStreamingQueries extends AbstractQueryTest {
+	private void createKB() {
+		classes( A, B );
+		objectProperties( p );
+		individuals( a, b, c, d, e );
+
+		kb.addType( a, A );
+		kb.addType( b, A );
+		kb.addType( c, A );
+		kb.addType( d, B );
+		kb.addType( e, B );
+
+		kb.addPropertyValue( p, a, d );
+		kb.addPropertyValue( p, b, e );
+	}
+
+	private Set<ResultBinding> toSet(QueryResult result) {
+		Set<ResultBinding> set = new HashSet<ResultBinding>();
+		for( ResultBinding binding : result ) {
+			set.add( binding );
+		}
+		return set;
+	}
+
+	@Test
+	public void sameAnswers() {
+		createKB();
+
+		Query q1 = query( select( x, y ), where( PropertyValueAtom( x, p, y ) ) );
+		Query q2 = query( select( x, y ), where( PropertyValueAtom( x, p, y ) ) );
+
+		StreamingQueryResult streamed = QueryEngine.execStreaming( q1 );
+		Set<ResultBinding> expected = toSet( QueryEngine.exec( q2 ) );
+
+		assertEquals( expected, toSet( streamed ) );
+		assertEquals( 2, streamed.size() );
+		assertTrue( streamed.isFinished() );
+	}
+
+	@Test
+	public void disconnectedComponents() {
+		createKB();
+
+		Query q1 = query( select( x, y ), where( TypeAtom( x, A ), TypeAtom( y, B ) ) );
+		Query q2 = query( select( x, y ), where( TypeAtom( x, A ), TypeAtom( y, B ) ) );
+
+		Set<ResultBinding> expected = toSet( QueryEngine.exec( q2 ) );
+		Set<ResultBinding> streamed = toSet( QueryEngine.execStreaming( q1 ) );
+
+		assertEquals( 6, expected.size() );
+		assertEquals( expected, streamed );
+	}
+
+	@Test
+	public void earlyClose() {
+		createKB();
+
+		Query q = query( select( x ), where( TypeAtom( x, A ) ) );
+
+		StreamingQueryResult result = QueryEngine.execStreaming( q );
+		Iterator<ResultBinding> i = result.iterator();
+
+		assertTrue( i.hasNext() );
+		i.next();
+		assertEquals( 1, result.size() );
+
+		result.close();
+
+		// the query engine has been unwound when close returns
+		assertTrue( result.isFinished() );
+		assertFalse( i.hasNext() );
+		assertEquals( 1, result.size() );
+	}
+
+	@Test
+	public void emptyResult() {
+		createKB();
+
+		Query q = query( select( x ), where( TypeAtom( x, A ), TypeAtom( x, B ) ) );
+
+		StreamingQueryResult result = QueryEngine.execStreaming( q );
+
+		assertTrue( result.isEmpty() );
+		assertTrue( result.isFinished() );
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void singlePass() {
+		createKB();
+
+		Query q = query( select( x ), where( TypeAtom( x, A ) ) );
+
+		StreamingQueryResult result = QueryEngine.execStreaming( q );
+		toSet( result );
+		result.iterator();
+	}
+
+	@Test
+	public void abortBeforeExecution() {
+		createKB();
+
+		Query q = query( select( x ), where( TypeAtom( x, A ) ) );
+
+		QueryMonitor monitor = new QueryMonitor( kb );
+		monitor.cancel();
+
+		try {
+			QueryEngine.exec( q, monitor );
+			fail( "Aborted query was executed" );
+		} catch( TimerInterruptedException e ) {
+			// expected
+		}
+
+		// the interrupt should not leak to the following operations
+		assertTrue( kb.isConsistent() );
+		testQuery( query( select( x ), where( TypeAtom( x, B ) ) ), new ATermAppl[][] { { d }, { e } } );
+	}
+
+	@Test
+	public void cancelWhileIdle() {
+		createKB();
+
+		QueryMonitor monitor = new QueryMonitor( kb );
+		monitor.start();
+		monitor.stop();
+
+		// the KB is interrupted only while the query engine is running
+		monitor.cancel();
+
+		assertTrue( monitor.isCancelled() );
+		assertTrue( kb.isConsistent() );
+		testQuery( query( select( x ), where( TypeAtom( x, B ) ) ), new ATermAppl[][] { { d }, { e } } );
+	}
+
+	@Test
+	public void abortStream() {
+		createKB();
+
+		Query q = query( select( x ), where( TypeAtom( x, A ) ) );
+
+		QueryMonitor monitor = new QueryMonitor( kb );
+		StreamingQueryResult result = QueryEngine.execStreaming( q, monitor );
+		Iterator<ResultBinding> i = result.iterator();
+
+		assertTrue( i.hasNext() );
+		i.next();
+
+		monitor.cancel();
+
+		try {
+			i.hasNext();
+			fail( "Aborted query returned more results" );
+		} catch( TimerInterruptedException e ) {
+			// expected
+		}
+
+		assertTrue( monitor.isCancelled() );
+		assertFalse( monitor.isTimedOut() );
+		assertTrue( kb.isConsistent() );
+	}
+
+	@Test
+	public void timeoutWhileIdle() throws InterruptedException {
+		createKB();
+
+		Query q = query( select( x ), where( TypeAtom( x, A ) ) );
+
+		QueryMonitor monitor = new QueryMonitor( kb, 0, 100 );
+		StreamingQueryResult result = QueryEngine.execStreaming( q, monitor );
+		Iterator<ResultBinding> i = result.iterator();
+
+		assertTrue( i.hasNext() );
+		i.next();
+
+		// the time limit expires while the consumer is using the KB
+		Thread.sleep( 500 );
+		assertTrue( monitor.isTimedOut() );
+		assertTrue( kb.isConsistent() );
+		assertTrue( kb.isType( d, B ) );
+
+		try {
+			i.hasNext();
+			fail( "Timed out query returned more results" );
+		} catch( TimeoutException e ) {
+			// expected
+		}
+
+		assertTrue( kb.isConsistent() );
+	}
+
+	/**
+	 * Starts a stream whose producer reports two answers, consumes the first
+	 * one and drops the result without closing it.
+	 */
+	private CountDownLatch dropStream(Query q) {
+		final CountDownLatch unwound = new CountDownLatch( 1 );
+
+		StreamingQueryResult result = new StreamingQueryResult( q, new StreamingQueryResult.Producer() {
+			public void produce(QueryResult sink) {
+				try {
+					for( ATermAppl ind : new ATermAppl[] { a, b } ) {
+						ResultBindingImpl binding = new ResultBindingImpl();
+						binding.setValue( x, ind );
+						sink.add( binding );
+					}
+				} finally {
+					unwound.countDown();
+				}
+			}
+
+			public void suspend() {
+			}
+
+			public void resume() {
+			}
+		} );
+
+		assertTrue( result.iterator().hasNext() );
+
+		return unwound;
+	}
+
+	@Test
+	public void droppedStream() throws InterruptedException {
+		createKB();
+
+		Query q = query( select( x ), where( TypeAtom( x, A ) ) );
+
+		CountDownLatch unwound = dropStream( q );
+
+		// the producer is suspended after the first answer until the result
+		// is collected
+		for( int i = 0; i < 30 && unwound.getCount() > 0; i++ ) {
+			System.gc();
+			unwound.await( 1, TimeUnit.SECONDS );
+		}
+
+		assertEquals( 0, unwound.getCount() );
+	}
+}
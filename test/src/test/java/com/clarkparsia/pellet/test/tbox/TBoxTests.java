@@ -15,6 +15,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mindswap.pellet.utils.ATermUtils.makeAnd;
+import static org.mindswap.pellet.utils.ATermUtils.makeDisjoint;
 import static org.mindswap.pellet.utils.ATermUtils.makeEqClasses;
 import static org.mindswap.pellet.utils.ATermUtils.makeNot;
 import static org.mindswap.pellet.utils.ATermUtils.makeOr;
@@ -172,4 +173,90 @@ public class TBoxTests extends AbstractKBTests {
 			PelletOptions.USE_TRACING = oldTracing;
 		}
 	}
+
+	@Test
+	public void removeAxiomsWithoutTracing() {
+		boolean oldTracing = PelletOptions.USE_TRACING;
+		PelletOptions.USE_TRACING = false;
+		try {
+			classes( A, B, C, D );
+
+			ATermAppl axiom = makeSub( A, B );
+			tbox.addAxiom( axiom );
+			tbox.addAxiom( makeSub( C, D ) );
+
+			prepareTBox();
+
+			assertTrue( tbox.removeAxiom( axiom ) );
+
+			prepareTBox();
+
+			assertEquals( Collections.singleton( makeSub( C, D ) ), tbox.getAssertedAxioms() );
+			assertFalse( tbox.unfold( A ).hasNext() );
+			assertTrue( tbox.unfold( C ).hasNext() );
+		} finally {
+			PelletOptions.USE_TRACING = oldTracing;
+		}
+	}
+
+	@Test
+	public void reclassifyAfterRemoval() {
+		boolean oldTracing = PelletOptions.USE_TRACING;
+		PelletOptions.USE_TRACING = false;
+		try {
+			classes( A, B, C, D );
+
+			ATermAppl axiom = makeSub( B, A );
+			kb.addSubClass( B, A );
+			kb.addSubClass( C, B );
+			kb.addSubClass( D, A );
+			kb.addDisjointClass( B, D );
+			kb.addSubClass( D, C );
+
+			kb.classify();
+
+			assertTrue( kb.isSubClassOf( C, A ) );
+			assertFalse( kb.isSatisfiable( D ) );
+
+			assertTrue( kb.removeAxiom( makeDisjoint( B, D ) ) );
+			assertTrue( kb.removeAxiom( axiom ) );
+
+			kb.classify();
+
+			assertTrue( kb.isSatisfiable( D ) );
+			assertTrue( kb.isSubClassOf( D, B ) );
+			assertFalse( kb.isSubClassOf( C, A ) );
+			assertFalse( kb.isSubClassOf( B, A ) );
+			assertEquals( Collections.singleton( Collections.singleton( B ) ), kb.getSuperClasses( C, true ) );
+		} finally {
+			PelletOptions.USE_TRACING = oldTracing;
+		}
+	}
+
+	@Test
+	public void reclassifyAfterRemovalWithCachedModels() {
+		boolean oldTracing = PelletOptions.USE_TRACING;
+		PelletOptions.USE_TRACING = false;
+		try {
+			classes( C, D, E );
+			objectProperties( p );
+
+			ATermAppl axiom = makeSub( C, D );
+			kb.addEquivalentClass( C, some( p, E ) );
+			kb.addSubClass( C, D );
+
+			kb.classify();
+
+			assertTrue( kb.isSubClassOf( C, D ) );
+
+			assertTrue( kb.removeAxiom( axiom ) );
+
+			kb.classify();
+
+			assertFalse( kb.isSubClassOf( C, D ) );
+			assertFalse( kb.isSubClassOf( some( p, E ), D ) );
+		} finally {
+			PelletOptions.USE_TRACING = oldTracing;
+		}
+	}
 }
@@ -6,6 +6,7 @@ import junit.framework.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Suite;
 
+import com.clarkparsia.pellint.test.cost.CostModelTest;
 import com.clarkparsia.pellint.test.lintpattern.LintPatternLoaderTest;
 import com.clarkparsia.pellint.test.lintpattern.axiom.EquivalentToAllValuePatternTest;
 import com.clarkparsia.pellint.test.lintpattern.axiom.EquivalentToComplementPatternTest;
@@ -62,7 +63,8 @@ import com.clarkparsia.pellint.test.util.OptimizedDirectedMultigraphTest;
 	TooManyDifferentIndividualsPatternTest.class,
 	OWLSyntaxCheckerTest.class,
 	OWLDatatypeTest.class,
-	OWL2DLProfileViolationsTest.class
+	OWL2DLProfileViolationsTest.class,
+	CostModelTest.class
 })
 public class PellintTestSuite {
 	
@@ -0,0 +1,102 @@
+package com.clarkparsia.pellint.test.cost;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLException;
+
+import com.clarkparsia.owlapiv3.OWL;
+import com.clarkparsia.pellint.cost.CostFeatures;
+import com.clarkparsia.pellint.cost.CostModel;
+import com.clarkparsia.pellint.lintpattern.axiom.GCIPattern;
+import com.clarkparsia.pellint.model.Lint;
+import com.clarkparsia.pellint.model.OntologyLints;
+import com.clarkparsia.pellint.test.PellintTestCase;
+
+/**
+ * <p>
+ * Title: 
+ * </p>
+ * <p>
+ * Description: 
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class CostModelTest extends PellintTestCase {
+
+	@Test
+	public void testLintFeatures() throws OWLException {
+		OWLAxiom gci = OWL.subClassOf(m_P0SomeC1, m_Cls[2]);
+		addAxiom(gci);
+		addAxiom(OWL.subClassOf(m_Cls[0], m_Cls[1]));
+
+		GCIPattern pattern = new GCIPattern();
+		Lint lint = pattern.match(m_Ontology, gci);
+		assertNotNull(lint);
+
+		OntologyLints lints = new OntologyLints(m_Ontology);
+		lints.addLint(pattern, lint);
+
+		CostFeatures features = CostFeatures.compute(m_Ontology, lints);
+		assertEquals(1.0, features.get(CostFeatures.getLintFeature(pattern)), DOUBLE_DELTA);
+		assertEquals(Math.log(3), features.get(CostFeatures.AXIOMS), DOUBLE_DELTA);
+		assertEquals(1.0, features.get(CostFeatures.EL), DOUBLE_DELTA);
+		assertEquals(0.0, features.get(CostFeatures.NOMINALS), DOUBLE_DELTA);
+
+		CostModel model = CostModel.getDefault();
+		List<CostModel.CostDriver> drivers = model.getCostDrivers(CostModel.CLASSIFICATION, features, 10);
+		assertEquals(1, drivers.size());
+		assertEquals(gci, drivers.get(0).getAxiom());
+		assertTrue(drivers.get(0).getFactor() > 1.0);
+
+		CostFeatures withoutLint = CostFeatures.compute(m_Ontology, new OntologyLints(m_Ontology));
+		assertTrue(model.predict(CostModel.CLASSIFICATION, features) > model.predict(CostModel.CLASSIFICATION, withoutLint));
+	}
+
+	@Test
+	public void testProperties() {
+		CostModel model = CostModel.getDefault();
+		CostModel loaded = CostModel.load(model.toProperties());
+
+		assertEquals(model.getTasks(), loaded.getTasks());
+		assertEquals(0.5, loaded.getWeight(CostModel.CLASSIFICATION, CostFeatures.ESTIMATED_CLASSIFICATION), DOUBLE_DELTA);
+		assertEquals(model.getWeight(CostModel.CLASSIFICATION, CostModel.LINT_DEFAULT),
+				loaded.getWeight(CostModel.CLASSIFICATION, CostFeatures.LINT_PREFIX + "UnknownPattern"), DOUBLE_DELTA);
+		assertEquals(0.0, loaded.getWeight("unknown", CostFeatures.AXIOMS), DOUBLE_DELTA);
+	}
+
+	@Test
+	public void testCalibration() {
+		Random random = new Random(42);
+		List<CostFeatures> runs = new ArrayList<CostFeatures>();
+		List<Double> times = new ArrayList<Double>();
+		for (int i = 0; i < 200; i++) {
+			CostFeatures features = new CostFeatures();
+			features.set(CostFeatures.AXIOMS, 10 * random.nextDouble());
+			features.set(CostFeatures.NOMINALS, random.nextBoolean() ? 1.0 : 0.0);
+			runs.add(features);
+			times.add(Math.exp(0.5 + 0.8 * features.get(CostFeatures.AXIOMS) + 2.0 * features.get(CostFeatures.NOMINALS)));
+		}
+
+		CostModel model = new CostModel();
+		assertFalse(model.getTasks().contains(CostModel.CLASSIFICATION));
+		model.calibrate(CostModel.CLASSIFICATION, runs, times);
+
+		assertEquals(0.8, model.getWeight(CostModel.CLASSIFICATION, CostFeatures.AXIOMS), 0.05);
+		assertEquals(2.0, model.getWeight(CostModel.CLASSIFICATION, CostFeatures.NOMINALS), 0.05);
+		for (int i = 0; i < runs.size(); i++) {
+			double predicted = model.predict(CostModel.CLASSIFICATION, runs.get(i));
+			assertEquals(1.0, predicted / times.get(i), 0.2);
+		}
+	}
+}
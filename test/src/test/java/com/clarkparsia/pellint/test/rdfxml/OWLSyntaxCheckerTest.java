@@ -6,15 +6,25 @@
 
 package com.clarkparsia.pellint.test.rdfxml;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
 import org.junit.Before;
 import org.junit.Test;
 
 import com.clarkparsia.pellint.rdfxml.OWLSyntaxChecker;
 import com.clarkparsia.pellint.rdfxml.RDFLints;
 import com.clarkparsia.pellint.rdfxml.RDFModel;
+import com.clarkparsia.pellint.rdfxml.RDFModelReader;
 import com.hp.hpl.jena.rdf.model.Literal;
 import com.hp.hpl.jena.rdf.model.Property;
 import com.hp.hpl.jena.rdf.model.RDFNode;
@@ -241,4 +251,37 @@ public class OWLSyntaxCheckerTest {
 		checker.setExcludeValidPunnings(true);
 		assertInvalid();		
 	}
+
+	@Test
+	public void testStreaming() throws IOException {
+		File file = File.createTempFile("pellint", ".ttl");
+		file.deleteOnExit();
+		Writer writer = new FileWriter(file);
+		try {
+			writer.write("@prefix : <" + NS + "> .\n"
+					+ "@prefix owl: <http://www.w3.org/2002/07/owl#> .\n"
+					+ "@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n"
+					+ "@prefix xsd: <http://www.w3.org/2001/XMLSchema#> .\n"
+					+ ":C a owl:Class ; rdfs:subClassOf :D , [ a owl:Restriction ; owl:onProperty :P ; owl:someValuesFrom :E ] .\n"
+					+ ":F owl:intersectionOf ( :C :G ) .\n"
+					+ ":P a owl:ObjectProperty .\n"
+					+ ":a a :C ; :Q \"1\"^^xsd:integer ; :P :b ; :P \"lit\" .\n");
+		} finally {
+			writer.close();
+		}
+		String uri = file.toURI().toString();
+
+		RDFLints expected = checker.validate(new RDFModelReader().read(uri, false));
+		RDFLints actual = new OWLSyntaxChecker().validate(uri, false);
+
+		assertFalse(expected.isEmpty());
+		assertEquals(sortedLines(expected), sortedLines(actual));
+		assertEquals(expected.getMissingStatements().size(), actual.getMissingStatements().size());
+	}
+
+	private static List<String> sortedLines(RDFLints lints) {
+		List<String> lines = Arrays.asList(lints.toString().split("\n"));
+		Collections.sort(lines);
+		return lines;
+	}
 }
@@ -3481,4 +3481,63 @@ public class JenaTests {
 		assertTrue(graph.isClassified());
 	}
 
+	@Test
+	public void testIncrementalSchemaUpdate() {
+		// the taxonomy is extended only by the tableau classifier
+		final Properties newOptions = new PropertiesBuilder().set("PROCESS_JENA_UPDATES_INCREMENTALLY", "true")
+				.set("DISABLE_EL_CLASSIFIER", "true").build();
+		final Properties oldOptions = PelletOptions.setOptions(newOptions);
+		try {
+			String ns = "urn:test:";
+
+			Resource a = ResourceFactory.createResource( ns + "a" );
+			Resource d = ResourceFactory.createResource( ns + "d" );
+			Resource A = ResourceFactory.createResource( ns + "A" );
+			Resource B = ResourceFactory.createResource( ns + "B" );
+			Resource C = ResourceFactory.createResource( ns + "C" );
+			Resource D = ResourceFactory.createResource( ns + "D" );
+
+			OntModel model = ModelFactory.createOntologyModel( PelletReasonerFactory.THE_SPEC );
+			model.add(A, RDF.type, OWL.Class);
+			model.add(B, RDF.type, OWL.Class);
+			model.add(C, RDF.type, OWL.Class);
+			model.add(A, RDFS.subClassOf, B);
+			model.add(a, RDF.type, A);
+
+			PelletInfGraph graph = (PelletInfGraph) model.getGraph();
+			graph.setAutoDetectChanges(true);
+			graph.classify();
+			assertTrue(graph.isClassified());
+
+			KnowledgeBase kb = graph.getKB();
+			long loads = kb.timers.getTimer("load").getCount();
+
+			// a new class below an existing one is inserted into the taxonomy
+			model.add(D, RDF.type, OWL.Class);
+			model.add(D, RDFS.subClassOf, A);
+			model.add(d, RDF.type, D);
+
+			graph.classify();
+			assertTrue(graph.isClassified());
+			assertTrue(model.contains(D, RDFS.subClassOf, B));
+			assertTrue(model.contains(d, RDF.type, B));
+			assertTrue(model.contains(D, RDFS.subClassOf, A));
+
+			// other schema changes are applied to the KB in place
+			model.add(B, RDFS.subClassOf, C);
+			assertTrue(model.contains(a, RDF.type, C));
+
+			assertEquals(loads, kb.timers.getTimer("load").getCount());
+
+			// removals are applied in place only with tracing, otherwise the
+			// graph is reloaded
+			model.remove(A, RDFS.subClassOf, B);
+			assertFalse(model.contains(a, RDF.type, B));
+			assertFalse(model.contains(d, RDF.type, C));
+			assertTrue(model.contains(d, RDF.type, A));
+		} finally {
+			PelletOptions.setOptions(oldOptions);
+		}
+	}
+
 }
@@ -0,0 +1,199 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.test;
+
+import static com.clarkparsia.pellet.utils.TermFactory.TOP_LIT;
+import static com.clarkparsia.pellet.utils.TermFactory.literal;
+import static com.clarkparsia.pellet.utils.TermFactory.maxExclusive;
+import static com.clarkparsia.pellet.utils.TermFactory.min;
+import static com.clarkparsia.pellet.utils.TermFactory.minInclusive;
+import static com.clarkparsia.pellet.utils.TermFactory.restrict;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mindswap.pellet.PelletOptions;
+
+import aterm.ATermAppl;
+
+import com.clarkparsia.pellet.datatypes.Datatypes;
+
+/**
+ * <p>
+ * Title: Literal Store Tests
+ * </p>
+ * <p>
+ * Description: Tests for the data property values kept outside the ABox
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class LiteralStoreTests extends AbstractKBTests {
+	private boolean	useLiteralStore;
+
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter( LiteralStoreTests.class );
+	}
+
+	@Before
+	public void enableLiteralStore() {
+		useLiteralStore = PelletOptions.USE_LITERAL_STORE;
+		PelletOptions.USE_LITERAL_STORE = true;
+	}
+
+	@After
+	public void resetLiteralStore() {
+		PelletOptions.USE_LITERAL_STORE = useLiteralStore;
+	}
+
+	@Test
+	public void storedValues() {
+		dataProperties( p, q );
+		kb.addSubProperty( q, p );
+		individuals( a, b );
+
+		kb.addPropertyValue( p, a, literal( 5 ) );
+		kb.addPropertyValue( q, a, literal( "x" ) );
+		kb.addPropertyValue( p, b, literal( "01", Datatypes.INTEGER ) );
+		kb.addPropertyValue( p, b, literal( 2.5 ) );
+
+		assertTrue( kb.isConsistent() );
+		assertEquals( 4, kb.getLiteralStore().size() );
+		assertTrue( kb.getABox().getIndividual( a ).getOutEdges().isEmpty() );
+
+		assertEquals( new HashSet<ATermAppl>( Arrays.asList( literal( 5 ), literal( "x" ) ) ),
+				new HashSet<ATermAppl>( kb.getDataPropertyValues( p, a ) ) );
+		assertEquals( Arrays.asList( literal( "x" ) ), kb.getDataPropertyValues( q, a ) );
+		assertEquals( Arrays.asList( literal( 2.5 ) ), kb.getDataPropertyValues( p, b,
+				Datatypes.DOUBLE ) );
+
+		assertTrue( kb.hasPropertyValue( a, p, null ) );
+		assertTrue( kb.hasPropertyValue( b, p, literal( 1 ) ) );
+		assertFalse( kb.hasPropertyValue( b, q, null ) );
+		assertEquals( Arrays.asList( a ), kb.getIndividualsWithProperty( p, literal( 5 ) ) );
+
+		assertTrue( kb.removePropertyValue( p, a, literal( 5 ) ) );
+		assertEquals( Arrays.asList( literal( "x" ) ), kb.getDataPropertyValues( p, a ) );
+		assertEquals( 3, kb.getLiteralStore().size() );
+	}
+
+	@Test
+	public void functionalPropertyMaterialized() {
+		dataProperties( p, q );
+		kb.addFunctionalProperty( p );
+		individuals( a );
+
+		kb.addPropertyValue( p, a, literal( 1 ) );
+		kb.addPropertyValue( p, a, literal( 2 ) );
+		kb.addPropertyValue( q, a, literal( 3 ) );
+
+		assertFalse( kb.isConsistent() );
+		assertEquals( 1, kb.getLiteralStore().size() );
+	}
+
+	@Test
+	public void invalidRangeMaterialized() {
+		dataProperties( p );
+		kb.addRange( p, Datatypes.INTEGER );
+		individuals( a );
+
+		kb.addPropertyValue( p, a, literal( 1 ) );
+
+		assertTrue( kb.isConsistent() );
+		assertEquals( 1, kb.getLiteralStore().size() );
+
+		kb.addPropertyValue( p, a, literal( "x" ) );
+
+		assertFalse( kb.isConsistent() );
+		assertTrue( kb.getLiteralStore().isEmpty() );
+	}
+
+	@Test
+	public void mergedIndividualMaterialized() {
+		dataProperties( p );
+		individuals( a, b, c );
+		kb.addSame( a, b );
+
+		kb.addPropertyValue( p, a, literal( 1 ) );
+		kb.addPropertyValue( p, c, literal( 2 ) );
+
+		assertTrue( kb.isConsistent() );
+		// only the values of the merged individual are moved to the ABox
+		assertEquals( 1, kb.getLiteralStore().size() );
+		assertEquals( Arrays.asList( literal( 1 ) ), kb.getDataPropertyValues( p, b ) );
+		assertEquals( Arrays.asList( literal( 2 ) ), kb.getDataPropertyValues( p, c ) );
+	}
+
+	@Test
+	public void classExpressionMaterialized() {
+		dataProperties( p, q, r );
+		kb.addSubProperty( q, p );
+		individuals( a, b );
+
+		kb.addPropertyValue( q, a, literal( 1 ) );
+		kb.addPropertyValue( q, a, literal( 2 ) );
+		kb.addPropertyValue( r, b, literal( 3 ) );
+
+		assertTrue( kb.isConsistent() );
+		assertEquals( 3, kb.getLiteralStore().size() );
+
+		assertTrue( kb.isType( a, min( p, 2, TOP_LIT ) ) );
+		assertFalse( kb.isType( b, min( p, 1, TOP_LIT ) ) );
+
+		List<ATermAppl> values = kb.getDataPropertyValues( p, a );
+		assertEquals( 2, values.size() );
+		assertEquals( 1, kb.getLiteralStore().size() );
+
+		// new values of a materialized property are added to the ABox
+		kb.addPropertyValue( p, b, literal( 4 ) );
+		assertTrue( kb.isType( b, min( p, 1, TOP_LIT ) ) );
+		assertEquals( 1, kb.getLiteralStore().size() );
+	}
+
+	@Test
+	public void rangeAndPrefixLookups() {
+		dataProperties( p, q );
+		kb.addSubProperty( q, p );
+		kb.addFunctionalProperty( q );
+		individuals( a, b, c );
+
+		kb.addPropertyValue( p, a, literal( 5 ) );
+		kb.addPropertyValue( p, a, literal( "abc" ) );
+		kb.addPropertyValue( q, b, literal( 10 ) );
+		kb.addPropertyValue( p, b, literal( "abd" ) );
+		kb.addPropertyValue( p, c, literal( 15 ) );
+		kb.addPropertyValue( p, c, literal( "b" ) );
+
+		assertTrue( kb.isConsistent() );
+
+		ATermAppl range = restrict( Datatypes.INTEGER, minInclusive( literal( 5 ) ),
+				maxExclusive( literal( 15 ) ) );
+		Map<ATermAppl, List<ATermAppl>> values = kb.getDataPropertyValuesInRange( p, range );
+		assertEquals( 2, values.size() );
+		assertEquals( Arrays.asList( literal( 5 ) ), values.get( a ) );
+		assertEquals( Arrays.asList( literal( 10 ) ), values.get( b ) );
+
+		values = kb.getDataPropertyValuesWithPrefix( p, "ab" );
+		assertEquals( 2, values.size() );
+		assertEquals( Arrays.asList( literal( "abc" ) ), values.get( a ) );
+		assertEquals( Arrays.asList( literal( "abd" ) ), values.get( b ) );
+
+		assertTrue( kb.getDataPropertyValuesWithPrefix( q, "ab" ).isEmpty() );
+		assertEquals( Arrays.asList( c ), kb.getIndividualsWithProperty( p, literal( 15 ) ) );
+	}
+}
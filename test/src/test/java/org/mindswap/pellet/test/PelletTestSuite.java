@@ -12,6 +12,9 @@ import org.junit.runners.Suite.SuiteClasses;
 import org.mindswap.pellet.test.inctest.IncConsistencyTests;
 import org.mindswap.pellet.test.inctest.IncJenaConsistencyTests;
 import org.mindswap.pellet.test.rules.RulesTestSuite;
+import org.mindswap.pellet.test.utils.ConcurrentConceptCacheTests;
+import org.mindswap.pellet.test.utils.IntSetTests;
+import org.mindswap.pellet.test.utils.KBStatisticsTest;
 
 import com.clarkparsia.TestATermManchesterSyntaxRenderer;
 import com.clarkparsia.explanation.test.ExplanationTestSuite;
@@ -19,6 +22,7 @@ import com.clarkparsia.modularity.test.ModularityTestSuite;
 import com.clarkparsia.pellet.datatypes.test.DatatypesSuite;
 import com.clarkparsia.pellet.test.BlockingTests;
 import com.clarkparsia.pellet.test.CacheSafetyTests;
+import com.clarkparsia.pellet.test.PersistentCacheTests;
 import com.clarkparsia.pellet.test.TestKnowledgeBase;
 import com.clarkparsia.pellet.test.annotations.AnnotationsTestSuite;
 import com.clarkparsia.pellet.test.classification.ClassificationTestSuite;
@@ -41,9 +45,14 @@ import java.nio.file.Paths;
 	TracingTests.class,
 	MiscTests.class,
 	MergeTests.class,
+	LiteralStoreTests.class,
+	IntSetTests.class,
+	KBStatisticsTest.class,
+	ConcurrentConceptCacheTests.class,
 	RBoxTestSuite.class,
 	BlockingTests.class,
 	CacheSafetyTests.class,
+	PersistentCacheTests.class,
 	JenaTests.class,
 	OWLAPIv3Tests.class,
 	OWLPrimerTests.class,
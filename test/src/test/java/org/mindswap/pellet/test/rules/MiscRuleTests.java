@@ -22,6 +22,7 @@ import static com.clarkparsia.pellet.utils.TermFactory.value;
 import static java.util.Collections.singleton;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.mindswap.pellet.test.PelletTestCase.assertIteratorValues;
@@ -729,6 +730,180 @@ public class MiscRuleTests extends AbstractKBTests {
 	
 	}
 
+	@Test
+	public void reteRestoreJoin() {
+		// tokens joined in a branch that is later closed should be removed
+		// from the beta memories whereas the tokens created before the
+		// branch should remain
+
+		ATermAppl A = term( "A" );
+		ATermAppl B = term( "B" );
+		ATermAppl C = term( "C" );
+		ATermAppl E = term( "E" );
+		ATermAppl F = term( "F" );
+
+		ATermAppl p = term( "p" );
+
+		ATermAppl x = term( "x" );
+		ATermAppl y = term( "y" );
+		ATermAppl z = term( "z" );
+
+		kb.addClass( A );
+		kb.addClass( B );
+		kb.addClass( C );
+		kb.addClass( E );
+		kb.addClass( F );
+
+		kb.addObjectProperty( p );
+
+		kb.addIndividual( x );
+		kb.addIndividual( y );
+		kb.addIndividual( z );
+
+		kb.addType( x, or( A, B ) );
+		kb.addType( x, C );
+		kb.addType( y, not( E ) );
+		kb.addPropertyValue( p, x, y );
+		kb.addPropertyValue( p, x, z );
+
+		AtomIVariable v = new AtomIVariable( "v" );
+		AtomIVariable w = new AtomIVariable( "w" );
+
+		kb.addRule( new Rule( Collections.singleton( new ClassAtom( E, w ) ), Arrays.asList(
+				new ClassAtom( A, v ), new IndividualPropertyAtom( p, v, w ) ) ) );
+		kb.addRule( new Rule( Collections.singleton( new ClassAtom( F, w ) ), Arrays.asList(
+				new ClassAtom( C, v ), new IndividualPropertyAtom( p, v, w ) ) ) );
+
+		assertTrue( kb.isConsistent() );
+
+		assertTrue( kb.isType( x, B ) );
+		assertFalse( kb.isType( x, A ) );
+		assertFalse( kb.isType( z, E ) );
+		assertTrue( kb.isType( y, F ) );
+		assertTrue( kb.isType( z, F ) );
+	}
+
+	@Test
+	public void reteReuseNetwork() {
+		// the network compiled for the consistency check is reused for the
+		// following instance checks and dropped when a rule is added
+
+		ATermAppl A = term( "A" );
+		ATermAppl B = term( "B" );
+		ATermAppl C = term( "C" );
+
+		ATermAppl p = term( "p" );
+
+		ATermAppl x = term( "x" );
+		ATermAppl y = term( "y" );
+		ATermAppl z = term( "z" );
+
+		kb.addClass( A );
+		kb.addClass( B );
+		kb.addClass( C );
+
+		kb.addObjectProperty( p );
+
+		kb.addIndividual( x );
+		kb.addIndividual( y );
+		kb.addIndividual( z );
+
+		kb.addType( x, A );
+		kb.addType( y, A );
+		kb.addPropertyValue( p, x, z );
+
+		AtomIVariable v = new AtomIVariable( "v" );
+
+		kb.addRule( new Rule( Collections.singleton( new ClassAtom( B, v ) ), Arrays.asList(
+				new ClassAtom( A, v ), new IndividualPropertyAtom( p, v, new AtomIConstant( z ) ) ) ) );
+
+		assertTrue( kb.isConsistent() );
+
+		assertNotNull( kb.getRuleNetwork() );
+
+		assertTrue( kb.isType( x, B ) );
+		assertFalse( kb.isType( y, B ) );
+		assertFalse( kb.isType( x, C ) );
+		assertNotNull( kb.getRuleNetwork() );
+
+		kb.addRule( new Rule( Collections.singleton( new ClassAtom( C, v ) ), Collections
+				.singleton( new ClassAtom( B, v ) ) ) );
+		assertNull( kb.getRuleNetwork() );
+
+		assertTrue( kb.isType( x, C ) );
+		assertFalse( kb.isType( y, C ) );
+	}
+
+	@Test
+	public void reteIndexedJoins() {
+		// joins on two variables, comparisons between the values of two atoms
+		// and comparisons with a constant on the first atom
+
+		ATermAppl C = term( "C" );
+
+		ATermAppl age = term( "age" );
+		ATermAppl older = term( "older" );
+		ATermAppl p = term( "p" );
+		ATermAppl s = term( "s" );
+		ATermAppl t = term( "t" );
+
+		ATermAppl a = term( "a" );
+		ATermAppl b = term( "b" );
+		ATermAppl c = term( "c" );
+
+		kb.addClass( C );
+
+		kb.addDatatypeProperty( age );
+		kb.addObjectProperty( older );
+		kb.addObjectProperty( p );
+		kb.addObjectProperty( s );
+		kb.addObjectProperty( t );
+
+		kb.addIndividual( a );
+		kb.addIndividual( b );
+		kb.addIndividual( c );
+
+		kb.addPropertyValue( age, a, literal( "10", Datatypes.INT ) );
+		kb.addPropertyValue( age, b, literal( "20", Datatypes.INTEGER ) );
+		kb.addPropertyValue( age, c, literal( "30", Datatypes.INT ) );
+
+		kb.addPropertyValue( p, a, b );
+		kb.addPropertyValue( s, a, b );
+		kb.addPropertyValue( p, a, c );
+		kb.addPropertyValue( s, b, c );
+
+		AtomIVariable x = new AtomIVariable( "x" );
+		AtomIVariable y = new AtomIVariable( "y" );
+		AtomDVariable v = new AtomDVariable( "v" );
+		AtomDVariable w = new AtomDVariable( "w" );
+
+		kb.addRule( new Rule( Collections.singleton( new IndividualPropertyAtom( older, y, x ) ),
+				Arrays.asList( new DatavaluedPropertyAtom( age, x, v ), new DatavaluedPropertyAtom(
+						age, y, w ), new BuiltInAtom( SWRLB + "lessThan", v, w ) ) ) );
+		kb.addRule( new Rule( Collections.singleton( new IndividualPropertyAtom( t, x, y ) ),
+				Arrays.asList( new IndividualPropertyAtom( p, x, y ), new IndividualPropertyAtom(
+						s, x, y ) ) ) );
+		kb.addRule( new Rule( Collections.singleton( new ClassAtom( C, x ) ), Arrays.asList(
+				new DatavaluedPropertyAtom( age, x, v ), new BuiltInAtom( SWRLB + "greaterThan", v,
+						new AtomDConstant( literal( "15", Datatypes.INTEGER ) ) ) ) ) );
+
+		assertTrue( kb.isConsistent() );
+
+		assertTrue( kb.hasPropertyValue( b, older, a ) );
+		assertTrue( kb.hasPropertyValue( c, older, a ) );
+		assertTrue( kb.hasPropertyValue( c, older, b ) );
+		assertFalse( kb.hasPropertyValue( a, older, b ) );
+		assertFalse( kb.hasPropertyValue( a, older, a ) );
+
+		assertTrue( kb.hasPropertyValue( a, t, b ) );
+		assertFalse( kb.hasPropertyValue( a, t, c ) );
+		assertFalse( kb.hasPropertyValue( b, t, c ) );
+
+		assertFalse( kb.isType( a, C ) );
+		assertTrue( kb.isType( b, C ) );
+		assertTrue( kb.isType( c, C ) );
+	}
+
 	@Test
 	public void testEmptyRuleHead1() {
 		
@@ -0,0 +1,177 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.test.utils;
+
+import static com.clarkparsia.pellet.utils.TermFactory.and;
+import static com.clarkparsia.pellet.utils.TermFactory.not;
+import static com.clarkparsia.pellet.utils.TermFactory.or;
+import static com.clarkparsia.pellet.utils.TermFactory.term;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+import org.mindswap.pellet.KnowledgeBase;
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.exceptions.InternalReasonerException;
+import org.mindswap.pellet.tableau.cache.CachedNodeFactory;
+import org.mindswap.pellet.tableau.cache.ConcurrentConceptCache;
+import org.mindswap.pellet.utils.ATermUtils;
+
+import aterm.ATermAppl;
+
+/**
+ * <p>
+ * Title: Concurrent Concept Cache Tests
+ * </p>
+ * <p>
+ * Description: Tests for the thread-safe concept cache and for sharing it
+ * between the copies of a KB used by different threads
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class ConcurrentConceptCacheTests {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter( ConcurrentConceptCacheTests.class );
+	}
+
+	private static final int	THREADS	= 8;
+
+	private static ATermAppl primitive(int i) {
+		return term( "C" + i );
+	}
+
+	private static ATermAppl complex(int i) {
+		return and( primitive( i ), not( primitive( i + 1 ) ) );
+	}
+
+	@Test
+	public void boundedComplexConcepts() {
+		ConcurrentConceptCache cache = new ConcurrentConceptCache( new KnowledgeBase(), 32 );
+
+		for( int i = 0; i < 1000; i++ ) {
+			cache.put( primitive( i ), CachedNodeFactory.createSatisfiableNode() );
+			cache.put( not( primitive( i ) ), CachedNodeFactory.createSatisfiableNode() );
+			cache.put( complex( i ), CachedNodeFactory.createSatisfiableNode() );
+		}
+
+		// named concepts and their negations are never removed
+		for( int i = 0; i < 1000; i++ ) {
+			assertTrue( cache.containsKey( primitive( i ) ) );
+			assertTrue( cache.containsKey( not( primitive( i ) ) ) );
+		}
+		assertTrue( cache.size() <= 2000 + 32 );
+		assertTrue( cache.containsKey( complex( 999 ) ) );
+		assertFalse( cache.containsKey( complex( 0 ) ) );
+		assertEquals( cache.size(), cache.keySet().size() );
+		assertEquals( cache.size(), cache.entrySet().size() );
+		assertEquals( cache.size(), cache.values().size() );
+	}
+
+	@Test
+	public void putSat() {
+		ConcurrentConceptCache cache = new ConcurrentConceptCache( new KnowledgeBase() );
+		ATermAppl c = primitive( 0 );
+
+		assertTrue( cache.putSat( c, false ) );
+		assertTrue( cache.get( c ).isBottom() );
+		assertTrue( cache.get( not( c ) ).isTop() );
+		assertFalse( cache.putSat( c, false ) );
+		assertTrue( cache.getSat( c ).isFalse() );
+
+		try {
+			cache.putSat( c, true );
+			assertTrue( "Inconsistent results should not be cached", false );
+		} catch( InternalReasonerException e ) {
+			// expected
+		}
+
+		assertTrue( cache.putSat( complex( 0 ), true ) );
+		assertSame( CachedNodeFactory.createSatisfiableNode(), cache.putIfAbsent( complex( 0 ),
+				CachedNodeFactory.createTopNode() ) );
+	}
+
+	@Test
+	public void concurrentUpdates() throws Exception {
+		final ConcurrentConceptCache cache = new ConcurrentConceptCache( new KnowledgeBase(), 64 );
+		final int n = 2000;
+
+		ExecutorService executor = Executors.newFixedThreadPool( THREADS );
+		try {
+			List<Future<Integer>> results = new ArrayList<Future<Integer>>();
+			for( int t = 0; t < THREADS; t++ ) {
+				results.add( executor.submit( new Callable<Integer>() {
+					public Integer call() {
+						int added = 0;
+						for( int i = 0; i < n; i++ ) {
+							// every thread caches the same results
+							if( cache.putSat( primitive( i ), i % 2 == 0 ) )
+								added++;
+							cache.put( complex( i ), CachedNodeFactory.createSatisfiableNode() );
+							cache.get( complex( i / 2 ) );
+						}
+						return added;
+					}
+				} ) );
+			}
+
+			// each result is added by exactly one thread
+			int added = 0;
+			for( Future<Integer> result : results ) {
+				added += result.get();
+			}
+			assertEquals( n, added );
+		} finally {
+			executor.shutdown();
+		}
+
+		for( int i = 0; i < n; i++ ) {
+			assertEquals( i % 2 == 0, cache.getSat( primitive( i ) ).isTrue() );
+		}
+		assertTrue( cache.size() <= n + n / 2 + 64 );
+	}
+
+	@Test
+	public void sharedByQueryCopies() {
+		boolean useConcurrentCache = PelletOptions.USE_CONCURRENT_CONCEPT_CACHE;
+		PelletOptions.USE_CONCURRENT_CONCEPT_CACHE = true;
+		try {
+			ATermAppl A = term( "A" );
+			ATermAppl B = term( "B" );
+			ATermAppl C = term( "C" );
+
+			KnowledgeBase kb = new KnowledgeBase();
+			kb.addClass( A );
+			kb.addClass( B );
+			kb.addClass( C );
+			kb.addSubClass( A, or( B, C ) );
+			kb.classify();
+
+			KnowledgeBase copy = kb.copyForQuery();
+			assertSame( kb.getABox().getCache(), copy.getABox().getCache() );
+
+			ATermAppl c = and( A, not( B ) );
+			assertTrue( copy.isSatisfiable( c ) );
+			assertNotNull( kb.getABox().getCache().get( ATermUtils.normalize( c ) ) );
+		} finally {
+			PelletOptions.USE_CONCURRENT_CONCEPT_CACHE = useConcurrentCache;
+		}
+	}
+}
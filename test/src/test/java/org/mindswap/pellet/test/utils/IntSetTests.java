@@ -0,0 +1,202 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.TreeSet;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+import org.mindswap.pellet.DependencySet;
+import org.mindswap.pellet.PelletOptions;
+import org.mindswap.pellet.utils.intset.AdaptiveIntSet;
+import org.mindswap.pellet.utils.intset.AdaptiveIntSet.Representation;
+import org.mindswap.pellet.utils.intset.IntIterator;
+import org.mindswap.pellet.utils.intset.IntSet;
+import org.mindswap.pellet.utils.intset.IntSetInterner;
+
+/**
+ * <p>
+ * Title: IntSet Tests
+ * </p>
+ * <p>
+ * Description: Tests for the adaptive IntSet representations and the sharing
+ * of dependency sets
+ * </p>
+ * <p>
+ * Company: Clark & Parsia, LLC. <http://www.clarkparsia.com>
+ * </p>
+ */
+public class IntSetTests {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter( IntSetTests.class );
+	}
+
+	private static AdaptiveIntSet create(int... values) {
+		AdaptiveIntSet set = new AdaptiveIntSet();
+		for( int value : values ) {
+			set.add( value );
+		}
+		return set;
+	}
+
+	private static AdaptiveIntSet range(int first, int last) {
+		AdaptiveIntSet set = new AdaptiveIntSet();
+		for( int value = first; value <= last; value++ ) {
+			set.add( value );
+		}
+		return set;
+	}
+
+	private static void assertContents(TreeSet<Integer> expected, IntSet set) {
+		assertEquals( expected.size(), set.size() );
+		assertEquals( expected.isEmpty(), set.isEmpty() );
+		if( !expected.isEmpty() ) {
+			assertEquals( expected.first().intValue(), set.min() );
+			assertEquals( expected.last().intValue(), set.max() );
+		}
+
+		IntIterator i = set.iterator();
+		for( Integer value : expected ) {
+			assertTrue( i.hasNext() );
+			assertEquals( value.intValue(), i.next() );
+			assertTrue( set.contains( value ) );
+		}
+		assertFalse( i.hasNext() );
+
+		for( int value = -5; value < 300; value++ ) {
+			assertEquals( expected.contains( value ), set.contains( value ) );
+		}
+	}
+
+	@Test
+	public void representations() {
+		assertEquals( Representation.ARRAY, create( 1, 100, 200 ).getRepresentation() );
+		assertEquals( Representation.RUNS, range( 1, 100 ).getRepresentation() );
+
+		AdaptiveIntSet dense = new AdaptiveIntSet();
+		for( int value = 0; value < 256; value += 2 ) {
+			dense.add( value );
+		}
+		assertEquals( Representation.BITMAP, dense.getRepresentation() );
+	}
+
+	@Test
+	public void addRemove() {
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		AdaptiveIntSet set = new AdaptiveIntSet();
+		assertContents( expected, set );
+
+		// values are chosen so the set switches between representations
+		int[] values = { 5, 3, 200, 4, 6, 7, 8, 9, 10, 0, 1, 2, 150, 64, 63, 65, 250 };
+		for( int value : values ) {
+			expected.add( value );
+			set.add( value );
+			assertContents( expected, set );
+		}
+
+		for( int value = 0; value < 256; value += 3 ) {
+			expected.add( value );
+			set.add( value );
+			assertContents( expected, set );
+		}
+
+		for( int value : values ) {
+			expected.remove( value );
+			set.remove( value );
+			assertContents( expected, set );
+		}
+	}
+
+	@Test
+	public void copiesAreIndependent() {
+		AdaptiveIntSet set = range( 1, 10 );
+		IntSet copy = set.copy();
+		copy.remove( 5 );
+		copy.add( 20 );
+
+		assertTrue( set.contains( 5 ) );
+		assertFalse( set.contains( 20 ) );
+		assertEquals( 10, set.size() );
+		assertFalse( copy.contains( 5 ) );
+		assertTrue( copy.contains( 20 ) );
+	}
+
+	@Test
+	public void union() {
+		AdaptiveIntSet set1 = create( 1, 3, 5, 100 );
+		AdaptiveIntSet set2 = range( 2, 50 );
+
+		TreeSet<Integer> expected = new TreeSet<Integer>();
+		expected.add( 1 );
+		expected.add( 100 );
+		for( int value = 2; value <= 50; value++ ) {
+			expected.add( value );
+		}
+
+		assertContents( expected, set1.union( set2 ) );
+		assertContents( expected, set2.union( set1 ) );
+		assertEquals( set1.union( set2 ), set2.union( set1 ) );
+		assertEquals( set1.union( set2 ).hashCode(), set2.union( set1 ).hashCode() );
+
+		// sets are not changed
+		assertEquals( 4, set1.size() );
+		assertEquals( 49, set2.size() );
+	}
+
+	@Test
+	public void interner() {
+		IntSetInterner interner = new IntSetInterner();
+		IntSet set1 = interner.intern( create( 1, 2 ) );
+		IntSet set2 = interner.intern( create( 3 ) );
+
+		assertSame( set1, interner.intern( create( 2, 1 ) ) );
+
+		IntSet union = interner.union( set1, set2 );
+		assertEquals( create( 1, 2, 3 ), union );
+		assertSame( union, interner.union( set1, set2 ) );
+		assertSame( union, interner.union( set2, set1 ) );
+		assertSame( union, interner.intern( create( 1, 2, 3 ) ) );
+		assertSame( set1, interner.union( set1, new AdaptiveIntSet() ) );
+	}
+
+	@Test
+	public void dependencySetSharing() {
+		boolean share = PelletOptions.SHARE_DEPENDENCY_SETS;
+		PelletOptions.SHARE_DEPENDENCY_SETS = true;
+		try {
+			DependencySet ds1 = new DependencySet( 1 );
+			DependencySet ds2 = new DependencySet( 2 );
+
+			DependencySet union1 = ds1.union( ds2, false );
+			DependencySet union2 = ds1.union( ds2, false );
+			assertNotSame( union1, union2 );
+			assertSame( union1.getDepends(), union2.getDepends() );
+			assertSame( ds1.getDepends(), new DependencySet( 1 ).getDepends() );
+
+			// removing a branch from one dependency set does not affect the
+			// others sharing the same branches
+			union1.remove( 2 );
+			assertFalse( union1.contains( 2 ) );
+			assertTrue( union2.contains( 2 ) );
+			assertSame( ds1.getDepends(), union1.getDepends() );
+
+			DependencySet copy = ds2.copy( 3 );
+			copy.add( 5 );
+			assertEquals( 1, ds2.size() );
+			assertEquals( 2, copy.size() );
+		} finally {
+			PelletOptions.SHARE_DEPENDENCY_SETS = share;
+		}
+	}
+}
@@ -0,0 +1,157 @@
+// Copyright (c) 2006 - 2008, Clark & Parsia, LLC. <http://www.clarkparsia.com>
+// This source code is available under the terms of the Affero General Public License v3.
+//
+// Please see LICENSE.txt for full license terms, including the availability of proprietary exceptions.
+// Questions, comments, or requests for clarification: licensing@clarkparsia.com
+
+package org.mindswap.pellet.test.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import junit.framework.JUnit4TestAdapter;
+
+import org.junit.Test;
+import org.mindswap.pellet.test.AbstractKBTests;
+import org.mindswap.pellet.utils.KBStatistics;
+
+public class KBStatisticsTest extends AbstractKBTests {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter( KBStatisticsTest.class );
+	}
+
+	private void createKB() {
+		classes( A, B, C );
+		objectProperties( p );
+		individuals( a, b, c, d );
+
+		kb.addSubClass( B, A );
+		kb.addType( a, B );
+		kb.addType( b, B );
+		kb.addType( c, C );
+
+		kb.addPropertyValue( p, a, c );
+		kb.addPropertyValue( p, a, d );
+		kb.addPropertyValue( p, b, c );
+	}
+
+	@Test
+	public void buildOnRealization() {
+		createKB();
+
+		assertFalse( kb.getStatistics().isComplete() );
+
+		kb.classify();
+		kb.realize();
+
+		KBStatistics stats = kb.getStatistics();
+		assertTrue( stats.isComplete() );
+		assertEquals( 4, stats.getIndividualCount() );
+		assertEquals( 2, stats.getInstanceCount( A, false ) );
+		assertEquals( 0, stats.getInstanceCount( A, true ) );
+		assertEquals( 2, stats.getInstanceCount( B, true ) );
+
+		KBStatistics.PropertyStatistics pStats = stats.getPropertyStatistics( p );
+		assertEquals( 3, pStats.getPairs() );
+		assertEquals( 2, pStats.getSubjects() );
+		assertEquals( 2, pStats.getObjects() );
+		assertEquals( 1, pStats.getHistogram()[0] );
+		assertEquals( 1, pStats.getHistogram()[1] );
+
+		assertEquals( 3, stats.getCorrelation( A, p ) );
+		assertEquals( 0, stats.getCorrelation( C, p ) );
+	}
+
+	@Test
+	public void existingAssertions() {
+		createKB();
+
+		kb.classify();
+		kb.realize();
+
+		// asserting what is already known keeps the statistics
+		kb.addType( a, B );
+		kb.addType( a, A );
+		kb.addPropertyValue( p, a, c );
+
+		KBStatistics stats = kb.getStatistics();
+		assertTrue( stats.isComplete() );
+		assertEquals( 2, stats.getInstanceCount( A, false ) );
+		assertEquals( 3, stats.getPropertyStatistics( p ).getPairs() );
+	}
+
+	@Test
+	public void rebuildAfterUpdate() {
+		createKB();
+
+		kb.classify();
+		kb.realize();
+
+		kb.addType( d, B );
+		kb.addPropertyValue( p, c, d );
+
+		KBStatistics stats = kb.getStatistics();
+		assertFalse( stats.isComplete() );
+
+		kb.classify();
+		kb.realize();
+
+		// superclasses and correlations reflect the new assertions
+		assertTrue( stats.isComplete() );
+		assertEquals( 3, stats.getInstanceCount( A, false ) );
+		assertEquals( 3, stats.getInstanceCount( B, true ) );
+		assertEquals( 4, stats.getPropertyStatistics( p ).getPairs() );
+		assertEquals( 3, stats.getPropertyStatistics( p ).getSubjects() );
+		assertEquals( 1, stats.getCorrelation( C, p ) );
+	}
+
+	@Test
+	public void samesAndDifferents() throws IOException {
+		individuals( a, b, c, d );
+
+		kb.addSame( a, b );
+		kb.addDifferent( c, d );
+
+		kb.classify();
+		kb.realize();
+
+		// the sames of an individual include the individual itself
+		KBStatistics stats = kb.getStatistics();
+		assertEquals( 1.5, stats.avgSamesPerIndividual(), 0.0 );
+		assertEquals( 0.5, stats.avgDifferentsPerIndividual(), 0.0 );
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		stats.save( out );
+
+		KBStatistics loaded = new KBStatistics();
+		loaded.load( new ByteArrayInputStream( out.toByteArray() ) );
+
+		assertEquals( 1.5, loaded.avgSamesPerIndividual(), 0.0 );
+		assertEquals( 0.5, loaded.avgDifferentsPerIndividual(), 0.0 );
+	}
+
+	@Test
+	public void saveAndLoad() throws IOException {
+		createKB();
+
+		kb.classify();
+		kb.realize();
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		kb.getStatistics().save( out );
+
+		KBStatistics loaded = new KBStatistics();
+		loaded.load( new ByteArrayInputStream( out.toByteArray() ) );
+
+		assertTrue( loaded.isComplete() );
+		assertEquals( 4, loaded.getIndividualCount() );
+		assertEquals( 2, loaded.getInstanceCount( B, false ) );
+		assertEquals( 3, loaded.getPropertyStatistics( p ).getPairs() );
+		assertEquals( 3, loaded.getCorrelation( A, p ) );
+	}
+}